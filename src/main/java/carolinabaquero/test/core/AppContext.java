@@ -6,6 +6,12 @@ import com.carolinabaquero.test.core.utils.reports.CustomReporter;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class AppContext {
@@ -14,6 +20,19 @@ public class AppContext {
     public static final String BROWSER_EDGE = "EDGE";
     public static final String BROWSER_CHROME = "CHROME";
 
+    //available test isolation modes
+    public static final String ISOLATION_SESSION = "SESSION";
+    public static final String ISOLATION_CONTEXT = "CONTEXT";
+
+    //available actions for exceeded performance budgets
+    public static final String BUDGET_ACTION_WARN = "WARN";
+    public static final String BUDGET_ACTION_FAIL = "FAIL";
+    private static final String BUDGET_PREFIX = "perfBudget.";
+
+    //available failure artifacts, besides the screenshot
+    public static final String ARTIFACT_PAGE_SOURCE = "pagesource";
+    public static final String ARTIFACT_BROWSER_LOG = "browserlog";
+
     // Default config file name
     private String configPropFile = "config.properties";
 
@@ -23,13 +42,78 @@ public class AppContext {
     private String logLevel = "INFO";
     private String reportsDirectory = "reports";
     private boolean takeFailureScreenShots = true;
+    private long pageSettleQuietWindow = 500; //milliseconds
+    private int asyncPoolSize = 8;
+    private int metricsPort = 0; //disabled
+    private String metricsBindAddress = ""; //loopback
 
     //Selenium Grid parameters (with default values)
     private boolean useSeleniumGrid = false;
     private String seleniumGridHub = "http://localhost:4444/wd/hub";
     private String platform = "WINDOWS";
     private String browserVersion = "";
-    private String downloadsDir = "";
+    private String downloadsDir = reportsDirectory + "/downloads";
+    private String driversDirectory = "./src/main/resources/drivers";
+    private String browserIsolation = ISOLATION_SESSION;
+    private int sessionMaxLifetimeMinutes = 30;
+    private int sessionWatchdogSeconds = 30;
+    private boolean autoParallelism = false;
+    private int autoParallelismMaxSessions = 0; //twice the cores
+    private int autoParallelismIntervalSeconds = 15;
+    private long autoParallelismMemoryReserveMB = 1024;
+
+    //Page performance parameters (with default values)
+    private boolean capturePagePerformance = false;
+    private String performanceBudgetAction = BUDGET_ACTION_WARN;
+    private Map<String, Long> performanceBudgets = new HashMap<String, Long>();
+
+    //Visual comparison parameters (with default values)
+    private String visualBaselineDirectory = "baselines";
+    private double visualDiffThreshold = 0.001;
+    private int visualPixelTolerance = 10;
+    private int visualHashTolerance = 0;
+
+    //Test impact parameters (with default values)
+    private boolean recordTestImpact = false;
+    private String testImpactFile = "test-impact.json";
+
+    //Network capture parameters (with default values)
+    private boolean captureNetwork = false;
+    private List<String> networkCaptureGroups = new ArrayList<String>();
+    private boolean networkCaptureBodies = false;
+    private int networkBodyLimit = 65536;
+    private boolean networkCaptureKeepPassed = false;
+
+    //Artifact store parameters (with default values)
+    private String artifactStoreDirectory = "reports/artifacts";
+    private int artifactMaxAgeDays = 14;
+    private long artifactMaxSizeMB = 2048;
+    private List<String> failureArtifacts = new ArrayList<String>(Arrays.asList(ARTIFACT_PAGE_SOURCE,
+            ARTIFACT_BROWSER_LOG));
+
+    //DOM snapshot parameters (with default values)
+    private boolean recordDomSnapshots = false;
+    private int domSnapshotTextLimit = 2000;
+
+    //Command record and replay parameters (with default values)
+    private boolean recordCommands = false;
+    private String replayCommandsDir = ""; //no replay
+    private double replayLatencyScale = 1;
+
+    //Locator profiling parameters (with default values)
+    private boolean profileLocators = false;
+    private boolean substituteLocators = false;
+    private long locatorSlowMicros = 1000;
+    private int locatorProfileSamples = 5;
+
+    //Load mode parameters (with default values)
+    private int loadUsers = 0; //disabled
+    private int loadRampUpSeconds = 60;
+    private int loadDurationSeconds = 600;
+    private double loadTargetRate = 0; //journeys per minute, unpaced
+    private long loadThinkTimeMillis = 3000;
+    private double loadMaxErrorPercent = 5;
+    private long loadMaxStepP95Millis = 0; //no limit
 
 
     /**
@@ -57,13 +141,14 @@ public class AppContext {
         this.appURL = properties.getProperty("appURL");
         if (appURL != null) {
             this.browser = properties.getProperty("browser").toUpperCase();
-            loadOtherProperties(properties);
+            loadOtherProperties(properties, propertiesFullName);
+            loadPerformanceBudgets(properties, propertiesFullName);
         }else{
             throw new WrongPropertiesFormatException(propertiesFullName, "appURL is missing.");
         }
     }
 
-    private void loadOtherProperties(Properties properties) {
+    private void loadOtherProperties(Properties properties, String propertiesFullName) {
         this.takeFailureScreenShots = properties.getProperty("screenShotOnFailure").equalsIgnoreCase("Yes");
         this.useSeleniumGrid = properties.getProperty("useSeleniumGrid").equalsIgnoreCase("Yes");
         if (this.useSeleniumGrid) {
@@ -72,6 +157,128 @@ public class AppContext {
             this.browserVersion = properties.getProperty("browserVersion");
             //TODO load other properties in file
         }
+        this.pageSettleQuietWindow = longProperty(properties, propertiesFullName, "pageSettleQuietWindow",
+                pageSettleQuietWindow);
+        this.asyncPoolSize = intProperty(properties, propertiesFullName, "asyncPoolSize", asyncPoolSize);
+        this.downloadsDir = properties.getProperty("downloadsDir", "").trim().isEmpty() ? downloadsDir
+                : properties.getProperty("downloadsDir").trim();
+        this.driversDirectory = properties.getProperty("driversDirectory", driversDirectory).trim();
+        this.browserIsolation = properties.getProperty("browserIsolation", browserIsolation).trim().toUpperCase();
+        this.sessionMaxLifetimeMinutes = intProperty(properties, propertiesFullName, "sessionMaxLifetimeMinutes",
+                sessionMaxLifetimeMinutes);
+        this.sessionWatchdogSeconds = intProperty(properties, propertiesFullName, "sessionWatchdogSeconds",
+                sessionWatchdogSeconds);
+        this.autoParallelism = properties.getProperty("autoParallelism", "No").trim().equalsIgnoreCase("Yes");
+        this.autoParallelismMaxSessions = intProperty(properties, propertiesFullName, "autoParallelismMaxSessions",
+                autoParallelismMaxSessions);
+        this.autoParallelismIntervalSeconds = intProperty(properties, propertiesFullName, "autoParallelismIntervalSeconds",
+                autoParallelismIntervalSeconds);
+        this.autoParallelismMemoryReserveMB = longProperty(properties, propertiesFullName, "autoParallelismMemoryReserveMB",
+                autoParallelismMemoryReserveMB);
+        this.metricsPort = intProperty(properties, propertiesFullName, "metricsPort", metricsPort);
+        this.metricsBindAddress = properties.getProperty("metricsBindAddress", metricsBindAddress).trim();
+        this.capturePagePerformance = properties.getProperty("capturePagePerformance", "No").equalsIgnoreCase("Yes");
+        this.performanceBudgetAction = properties.getProperty("performanceBudgetAction", BUDGET_ACTION_WARN).toUpperCase();
+        this.visualBaselineDirectory = properties.getProperty("visualBaselineDir", visualBaselineDirectory).trim();
+        this.visualDiffThreshold = doubleProperty(properties, propertiesFullName, "visualDiffThreshold",
+                visualDiffThreshold);
+        this.visualPixelTolerance = intProperty(properties, propertiesFullName, "visualPixelTolerance",
+                visualPixelTolerance);
+        this.visualHashTolerance = intProperty(properties, propertiesFullName, "visualHashTolerance",
+                visualHashTolerance);
+        this.recordTestImpact = properties.getProperty("recordTestImpact", "No").trim().equalsIgnoreCase("Yes");
+        this.testImpactFile = properties.getProperty("testImpactFile", testImpactFile).trim();
+        this.captureNetwork = properties.getProperty("captureNetwork", "No").trim().equalsIgnoreCase("Yes");
+        for (String group : properties.getProperty("networkCaptureGroups", "").split(",")) {
+            if (!group.trim().isEmpty()) {
+                this.networkCaptureGroups.add(group.trim());
+            }
+        }
+        this.networkCaptureBodies = properties.getProperty("networkCaptureBodies", "No").trim().equalsIgnoreCase("Yes");
+        this.networkBodyLimit = intProperty(properties, propertiesFullName, "networkBodyLimit", networkBodyLimit);
+        this.networkCaptureKeepPassed = properties.getProperty("networkCaptureKeepPassed", "No").trim()
+                .equalsIgnoreCase("Yes");
+        this.artifactStoreDirectory = properties.getProperty("artifactStoreDir", artifactStoreDirectory).trim();
+        this.artifactMaxAgeDays = intProperty(properties, propertiesFullName, "artifactMaxAgeDays", artifactMaxAgeDays);
+        this.artifactMaxSizeMB = longProperty(properties, propertiesFullName, "artifactMaxSizeMB", artifactMaxSizeMB);
+        this.recordDomSnapshots = properties.getProperty("recordDomSnapshots", "No").trim().equalsIgnoreCase("Yes");
+        this.domSnapshotTextLimit = intProperty(properties, propertiesFullName, "domSnapshotTextLimit",
+                domSnapshotTextLimit);
+        this.recordCommands = properties.getProperty("recordCommands", "No").trim().equalsIgnoreCase("Yes");
+        this.replayCommandsDir = properties.getProperty("replayCommands", replayCommandsDir).trim();
+        this.replayLatencyScale = doubleProperty(properties, propertiesFullName, "replayLatencyScale",
+                replayLatencyScale);
+        this.profileLocators = properties.getProperty("profileLocators", "No").trim().equalsIgnoreCase("Yes");
+        this.substituteLocators = properties.getProperty("substituteLocators", "No").trim().equalsIgnoreCase("Yes");
+        this.locatorSlowMicros = longProperty(properties, propertiesFullName, "locatorSlowMicros", locatorSlowMicros);
+        this.locatorProfileSamples = intProperty(properties, propertiesFullName, "locatorProfileSamples",
+                locatorProfileSamples);
+        this.loadUsers = intProperty(properties, propertiesFullName, "loadUsers", loadUsers);
+        this.loadRampUpSeconds = intProperty(properties, propertiesFullName, "loadRampUpSeconds", loadRampUpSeconds);
+        this.loadDurationSeconds = intProperty(properties, propertiesFullName, "loadDurationSeconds",
+                loadDurationSeconds);
+        this.loadTargetRate = doubleProperty(properties, propertiesFullName, "loadTargetRate", loadTargetRate);
+        this.loadThinkTimeMillis = longProperty(properties, propertiesFullName, "loadThinkTimeMillis",
+                loadThinkTimeMillis);
+        this.loadMaxErrorPercent = doubleProperty(properties, propertiesFullName, "loadMaxErrorPercent",
+                loadMaxErrorPercent);
+        this.loadMaxStepP95Millis = longProperty(properties, propertiesFullName, "loadMaxStepP95Millis",
+                loadMaxStepP95Millis);
+        if (properties.getProperty("failureArtifacts") != null) {
+            this.failureArtifacts.clear();
+            for (String artifact : properties.getProperty("failureArtifacts").split(",")) {
+                if (!artifact.trim().isEmpty()) {
+                    this.failureArtifacts.add(artifact.trim().toLowerCase());
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads every 'perfBudget.[PageObject].[metric] = [value]' property as a performance budget
+     *
+     * @param properties         the loaded properties
+     * @param propertiesFullName the properties file name, for error reporting
+     */
+    private void loadPerformanceBudgets(Properties properties, String propertiesFullName) {
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(BUDGET_PREFIX)) {
+                String value = properties.getProperty(name).trim();
+                try {
+                    performanceBudgets.put(name.substring(BUDGET_PREFIX.length()), Long.parseLong(value));
+                } catch (NumberFormatException e) {
+                    throw new WrongPropertiesFormatException(propertiesFullName, name + " must be a number, was '" + value + "'.");
+                }
+            }
+        }
+    }
+
+    private static long longProperty(Properties properties, String propertiesFullName, String name, long defaultValue) {
+        String value = properties.getProperty(name, String.valueOf(defaultValue)).trim();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new WrongPropertiesFormatException(propertiesFullName, name + " must be a number, was '" + value + "'.");
+        }
+    }
+
+    private static int intProperty(Properties properties, String propertiesFullName, String name, int defaultValue) {
+        String value = properties.getProperty(name, String.valueOf(defaultValue)).trim();
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new WrongPropertiesFormatException(propertiesFullName, name + " must be a number, was '" + value + "'.");
+        }
+    }
+
+    private static double doubleProperty(Properties properties, String propertiesFullName, String name,
+                                         double defaultValue) {
+        String value = properties.getProperty(name, String.valueOf(defaultValue)).trim();
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new WrongPropertiesFormatException(propertiesFullName, name + " must be a number, was '" + value + "'.");
+        }
     }
 
     public String getAppURL() {
@@ -98,6 +305,22 @@ public class AppContext {
         return takeFailureScreenShots;
     }
 
+    public long getPageSettleQuietWindow() {
+        return pageSettleQuietWindow;
+    }
+
+    public int getAsyncPoolSize() {
+        return asyncPoolSize;
+    }
+
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    public String getMetricsBindAddress() {
+        return metricsBindAddress;
+    }
+
     public boolean useSeleniumGrid() {
         return useSeleniumGrid;
     }
@@ -118,4 +341,176 @@ public class AppContext {
         return downloadsDir;
     }
 
+    public String getDriversDirectory() {
+        return driversDirectory;
+    }
+
+    public String getBrowserIsolation() {
+        return browserIsolation;
+    }
+
+    public int getSessionMaxLifetimeMinutes() {
+        return sessionMaxLifetimeMinutes;
+    }
+
+    public int getSessionWatchdogSeconds() {
+        return sessionWatchdogSeconds;
+    }
+
+    public boolean isAutoParallelism() {
+        return autoParallelism;
+    }
+
+    public int getAutoParallelismMaxSessions() {
+        return autoParallelismMaxSessions;
+    }
+
+    public int getAutoParallelismIntervalSeconds() {
+        return autoParallelismIntervalSeconds;
+    }
+
+    public long getAutoParallelismMemoryReserveMB() {
+        return autoParallelismMemoryReserveMB;
+    }
+
+    public boolean capturingPagePerformance() {
+        return capturePagePerformance;
+    }
+
+    public String getPerformanceBudgetAction() {
+        return performanceBudgetAction;
+    }
+
+    /**
+     * Gets the performance budgets for this run
+     * @return budgets by '[PageObject].[metric]' key
+     */
+    public Map<String, Long> getPerformanceBudgets() {
+        return Collections.unmodifiableMap(performanceBudgets);
+    }
+
+    public String getVisualBaselineDirectory() {
+        return visualBaselineDirectory;
+    }
+
+    public double getVisualDiffThreshold() {
+        return visualDiffThreshold;
+    }
+
+    public int getVisualPixelTolerance() {
+        return visualPixelTolerance;
+    }
+
+    public int getVisualHashTolerance() {
+        return visualHashTolerance;
+    }
+
+    public boolean recordingTestImpact() {
+        return recordTestImpact;
+    }
+
+    public String getTestImpactFile() {
+        return testImpactFile;
+    }
+
+    public boolean capturingNetwork() {
+        return captureNetwork;
+    }
+
+    public List<String> getNetworkCaptureGroups() {
+        return Collections.unmodifiableList(networkCaptureGroups);
+    }
+
+    public boolean capturingNetworkBodies() {
+        return networkCaptureBodies;
+    }
+
+    public int getNetworkBodyLimit() {
+        return networkBodyLimit;
+    }
+
+    public boolean keepingPassedNetworkCaptures() {
+        return networkCaptureKeepPassed;
+    }
+
+    public String getArtifactStoreDirectory() {
+        return artifactStoreDirectory;
+    }
+
+    public int getArtifactMaxAgeDays() {
+        return artifactMaxAgeDays;
+    }
+
+    public long getArtifactMaxSizeMB() {
+        return artifactMaxSizeMB;
+    }
+
+    public List<String> getFailureArtifacts() {
+        return Collections.unmodifiableList(failureArtifacts);
+    }
+
+    public boolean recordingDomSnapshots() {
+        return recordDomSnapshots;
+    }
+
+    public int getDomSnapshotTextLimit() {
+        return domSnapshotTextLimit;
+    }
+
+    public boolean recordingCommands() {
+        return recordCommands;
+    }
+
+    public String getReplayCommandsDir() {
+        return replayCommandsDir;
+    }
+
+    public double getReplayLatencyScale() {
+        return replayLatencyScale;
+    }
+
+    public boolean profilingLocators() {
+        return profileLocators;
+    }
+
+    public boolean substitutingLocators() {
+        return substituteLocators;
+    }
+
+    public long getLocatorSlowMicros() {
+        return locatorSlowMicros;
+    }
+
+    public int getLocatorProfileSamples() {
+        return locatorProfileSamples;
+    }
+
+    public int getLoadUsers() {
+        return loadUsers;
+    }
+
+    public int getLoadRampUpSeconds() {
+        return loadRampUpSeconds;
+    }
+
+    public int getLoadDurationSeconds() {
+        return loadDurationSeconds;
+    }
+
+    public double getLoadTargetRate() {
+        return loadTargetRate;
+    }
+
+    public long getLoadThinkTimeMillis() {
+        return loadThinkTimeMillis;
+    }
+
+    public double getLoadMaxErrorPercent() {
+        return loadMaxErrorPercent;
+    }
+
+    public long getLoadMaxStepP95Millis() {
+        return loadMaxStepP95Millis;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.carolinabaquero.test.core;
+
+import com.carolinabaquero.test.core.elements.PageElement;
+import com.carolinabaquero.test.core.elements.WaitCondition;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+
+
+/**
+ * @author cbaquero
+ *         Element lookups behind the accessor classes generated from {@link PageElement} locators: finds the
+ *         element(s) of a page object with the PageObject wait helper matching the {@link WaitCondition}.
+ *         It lives next to PageObject so it reaches those helpers while they stay protected.
+ */
+public final class PageElements {
+
+    private PageElements() {
+
+    }
+
+
+    /**
+     * @param page    the page object the locator belongs to
+     * @param locator the locator
+     * @param wait    what to wait for, one of the single element conditions
+     * @param timeout wait time in seconds, negative for the default timeout of the wait
+     * @return the {@link org.openqa.selenium.WebElement} for the given locator
+     */
+    public static WebElement find(final PageObject page, final By locator, final WaitCondition wait,
+                                  final int timeout) {
+        int seconds = timeout < 0 ? PageObject.getWaitForElementPresentTimeout() : timeout;
+        switch (wait) {
+            case NONE:
+                return page.findElement(locator);
+            case PRESENT:
+                return page.waitForElementToBePresent(locator, seconds);
+            case CLICKABLE:
+                return page.waitForElementToBeClickable(locator, seconds);
+            case VISIBLE:
+                return page.waitForElementToBeVisible(locator, seconds);
+            default:
+                throw new IllegalArgumentException(wait + " returns a list of elements");
+        }
+    }
+
+    /**
+     * @param page    the page object the locator belongs to
+     * @param locator the locator
+     * @param wait    what to wait for, one of the element group conditions
+     * @param timeout wait time in seconds, negative for the default timeout of the wait
+     * @return all the {@link org.openqa.selenium.WebElement}s for the given locator
+     */
+    public static List<WebElement> findAll(final PageObject page, final By locator, final WaitCondition wait,
+                                           final int timeout) {
+        int seconds = timeout < 0 ? PageObject.getWaitForElementGroupPresentTimeout() : timeout;
+        switch (wait) {
+            case ALL_PRESENT:
+                return page.waitForElementsToBePresent(locator, seconds);
+            case ALL_VISIBLE:
+                return page.waitForElementsToBeVisible(locator, seconds);
+            default:
+                throw new IllegalArgumentException(wait + " returns a single element");
+        }
+    }
+}
@@ -2,18 +2,46 @@ package com.carolinabaquero.test.core;
 
 
 import com.carolinabaquero.test.core.exceptions.ElementNotClickableException;
+import com.carolinabaquero.test.core.utils.artifacts.Artifact;
+import com.carolinabaquero.test.core.utils.artifacts.ArtifactStore;
+import com.carolinabaquero.test.core.utils.dom.DomSnapshotRecorder;
+import com.carolinabaquero.test.core.utils.downloads.DownloadWatcher;
+import com.carolinabaquero.test.core.utils.extract.ElementData;
+import com.carolinabaquero.test.core.utils.extract.ElementExtractor;
+import com.carolinabaquero.test.core.utils.extract.ElementProjection;
+import com.carolinabaquero.test.core.utils.impact.TestImpactRecorder;
+import com.carolinabaquero.test.core.utils.locators.LocatorProfiler;
+import com.carolinabaquero.test.core.utils.metrics.MeteredWebDriverWait;
+import com.carolinabaquero.test.core.utils.metrics.RunMetrics;
+import com.carolinabaquero.test.core.utils.perf.PagePerformanceMonitor;
 import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import com.carolinabaquero.test.core.utils.threads.PageTaskExecutor;
+import com.carolinabaquero.test.core.utils.visual.VisualComparator;
+import com.carolinabaquero.test.core.utils.visual.VisualComparisonResult;
+import com.carolinabaquero.test.core.utils.wait.FirstOf;
+import com.carolinabaquero.test.core.utils.wait.FirstOfScript;
+import com.carolinabaquero.test.core.utils.wait.PageSettleScript;
 import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 
 
 /**
@@ -26,6 +54,7 @@ public abstract class PageObject {
     private static int waitForElementPresentTimeout = 20; //seconds
     private static int waitForElementGroupPresentTimeout = 40; //seconds
     private static int waitForNotPresentElementTimeout = 5; //seconds
+    private static long pageSettleQuietMillis = 500; //milliseconds
 
     /**
      * Implementation note: driver instance is only passed along between Page Objects,
@@ -36,10 +65,14 @@ public abstract class PageObject {
 
     /**
      * PageObject constructor
+     * Every page object creation is a page transition, so the browser performance entries
+     * are captured here (only if enabled on the properties file).
      * @param driver the web driver already instantiated
      */
     public PageObject(final WebDriver driver) {
         this.driver = driver;
+        PagePerformanceMonitor.capture(driver, getClass());
+        TestImpactRecorder.pageCreated(getClass());
     }
 
     public void closeBrowser(){
@@ -60,10 +93,50 @@ public abstract class PageObject {
         File ScreenShot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
         if(ScreenShot.exists()) {
             FileUtils.copyFile(ScreenShot,
-                    new File(screenShotDir + "\\" + ScreenShot.getName()));
+                    new File(screenShotDir, ScreenShot.getName()));
         }
     }
 
+    /**
+     * Stores a screenshot of the current page on the {@link ArtifactStore}
+     * @param test the test it belongs to, [class].[method]
+     * @param name the artifact name within the test
+     * @return the stored artifact, completed once it is on disk
+     */
+    public CompletableFuture<Artifact> storeScreenshot(final String test, final String name) {
+        return ArtifactStore.store(test, "screenshot", name, captureScreenshot(), "png");
+    }
+
+    /**
+     * Stores the source of the current page on the {@link ArtifactStore}
+     * @param test the test it belongs to, [class].[method]
+     * @param name the artifact name within the test
+     * @return the stored artifact, completed once it is on disk
+     */
+    public CompletableFuture<Artifact> storePageSource(final String test, final String name) {
+        return ArtifactStore.store(test, "pagesource", name, driver.getPageSource(), "html");
+    }
+
+    /**
+     * Stores the browser console log on the {@link ArtifactStore}, for the browsers that give it (Chrome and Edge)
+     * @param test the test it belongs to, [class].[method]
+     * @param name the artifact name within the test
+     * @return the stored artifact, completed once it is on disk, null if the browser log is not available
+     */
+    public CompletableFuture<Artifact> storeBrowserLog(final String test, final String name) {
+        StringBuilder log = new StringBuilder();
+        try {
+            for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER)) {
+                log.append(Instant.ofEpochMilli(entry.getTimestamp())).append(' ').append(entry.getLevel())
+                        .append(' ').append(entry.getMessage()).append('\n');
+            }
+        } catch (WebDriverException e) {
+            CustomReporter.debug("[ARTIFACT] No browser log available: " + e.getMessage());
+            return null;
+        }
+        return log.length() == 0 ? null : ArtifactStore.store(test, "browserlog", name, log.toString(), "log");
+    }
+
     protected static int getWaitForNotPresentElementTimeout() {
         return waitForNotPresentElementTimeout;
     }
@@ -73,6 +146,17 @@ public abstract class PageObject {
     protected static int getWaitForElementGroupPresentTimeout() {
         return waitForElementGroupPresentTimeout;
     }
+    protected static long getPageSettleQuietMillis() {
+        return pageSettleQuietMillis;
+    }
+
+    /**
+     * Sets how long the page must stay quiet to be considered settled
+     * @param quietMillis the quiet window in milliseconds
+     */
+    public static void setPageSettleQuietMillis(final long quietMillis) {
+        pageSettleQuietMillis = quietMillis;
+    }
 
     protected WebDriver getDriver() {
         return driver;
@@ -89,6 +173,7 @@ public abstract class PageObject {
         Actions action = new Actions(driver);
         action.sendKeys(webElement, testData);
         action.perform();
+        DomSnapshotRecorder.step(driver, "clearAndType (" + webElement + ")");
     }
 
     /**
@@ -102,6 +187,7 @@ public abstract class PageObject {
             throw new ElementNotClickableException(element.toString());
         }
         element.click();
+        DomSnapshotRecorder.step(driver, "click (" + element + ")");
     }
 
     /**
@@ -124,6 +210,7 @@ public abstract class PageObject {
         CustomReporter.debug("selectByVisibleText webElement ("
                                 + webElement.toString() + "), text (" + text + ")");
         new Select(webElement).selectByVisibleText(text);
+        DomSnapshotRecorder.step(driver, "selectByVisibleText (" + webElement + "), text (" + text + ")");
     }
 
     /**
@@ -139,6 +226,8 @@ public abstract class PageObject {
         for (String text : textSet) {
             select.selectByVisibleText(text);
         }
+        DomSnapshotRecorder.step(driver, "selectByVisibleText (" + selectList + "), textSet ("
+                + String.join(", ", textSet) + ")");
     }
 
     /**
@@ -149,6 +238,7 @@ public abstract class PageObject {
     protected void selectByValue(final WebElement webElement, final String value) {
         CustomReporter.debug("selectByValue webElement (" + webElement.toString() + "), value (" + value + ")");
         new Select(webElement).selectByValue(value);
+        DomSnapshotRecorder.step(driver, "selectByValue (" + webElement + "), value (" + value + ")");
     }
 
     /**
@@ -164,6 +254,8 @@ public abstract class PageObject {
         for (String val : values) {
             select.selectByValue(val);
         }
+        DomSnapshotRecorder.step(driver, "selectByValues (" + selectList + "), values (" + String.join(", ", values)
+                + ")");
     }
 
     /**
@@ -187,9 +279,9 @@ public abstract class PageObject {
      */
     protected List<WebElement> waitForElementsToBePresent(final By locator, int timeout) {
         CustomReporter.debug("waitForElementsToBePresent locator (" + locator.toString() + ")");
-        WebDriverWait webDriverWait = new WebDriverWait(driver, Duration.ofSeconds(timeout));
+        WebDriverWait webDriverWait = new MeteredWebDriverWait(driver, Duration.ofSeconds(timeout));
         return webDriverWait.ignoring(NoSuchElementException.class).until(
-                ExpectedConditions.presenceOfAllElementsLocatedBy(locator));
+                ExpectedConditions.presenceOfAllElementsLocatedBy(LocatorProfiler.substitute(locator)));
     }
 
     /**
@@ -208,9 +300,9 @@ public abstract class PageObject {
      */
     protected final List<WebElement> waitForElementsToBeVisible(final By locator, final int timeout) {
         CustomReporter.debug("waitForElementsToBeVisible locator (" + locator.toString() + ")");
-        WebDriverWait webDriverWait = new WebDriverWait(driver, Duration.ofSeconds(timeout));
+        WebDriverWait webDriverWait = new MeteredWebDriverWait(driver, Duration.ofSeconds(timeout));
         return webDriverWait.ignoring(NoSuchElementException.class).until(
-                ExpectedConditions.visibilityOfAllElementsLocatedBy(locator));
+                ExpectedConditions.visibilityOfAllElementsLocatedBy(LocatorProfiler.substitute(locator)));
     }
 
     /**
@@ -230,9 +322,9 @@ public abstract class PageObject {
     protected WebElement waitForElementToBeClickable(final By locator, final int timeout) {
         CustomReporter.debug("waitForElementToBeClickable locator (" + locator.toString()
                                     + "), timeout (" + timeout + ")");
-        WebDriverWait webDriverWait = new WebDriverWait(driver, Duration.ofSeconds(timeout));
+        WebDriverWait webDriverWait = new MeteredWebDriverWait(driver, Duration.ofSeconds(timeout));
         return webDriverWait.ignoring(NoSuchElementException.class).until(
-                ExpectedConditions.elementToBeClickable(locator));
+                ExpectedConditions.elementToBeClickable(LocatorProfiler.substitute(locator)));
     }
 
     /**
@@ -253,9 +345,9 @@ public abstract class PageObject {
     protected WebElement waitForElementToBePresent(final By locator, final int timeout) {
         CustomReporter.debug("waitForElementToBePresent locator(" + locator.toString()
                 + "), timeout (" + timeout + ")");
-        WebDriverWait webDriverWait = new WebDriverWait(driver, Duration.ofSeconds(timeout));
+        WebDriverWait webDriverWait = new MeteredWebDriverWait(driver, Duration.ofSeconds(timeout));
         return webDriverWait.ignoring(NoSuchElementException.class).until(
-                ExpectedConditions.presenceOfElementLocated(locator));
+                ExpectedConditions.presenceOfElementLocated(LocatorProfiler.substitute(locator)));
     }
 
     /**
@@ -276,9 +368,9 @@ public abstract class PageObject {
     protected WebElement waitForElementToBeVisible(final By locator, final int timeout) {
         CustomReporter.debug("waitForElementToBeVisible locator (" + locator.toString()
                 + "), timeout (" + timeout + ")");
-        WebDriverWait webDriverWait = new WebDriverWait(driver, Duration.ofSeconds(timeout));
+        WebDriverWait webDriverWait = new MeteredWebDriverWait(driver, Duration.ofSeconds(timeout));
         return webDriverWait.ignoring(NoSuchElementException.class).until(
-                ExpectedConditions.visibilityOfElementLocated(locator));
+                ExpectedConditions.visibilityOfElementLocated(LocatorProfiler.substitute(locator)));
     }
 
     /**
@@ -296,8 +388,8 @@ public abstract class PageObject {
      * */
     protected void waitForElementToDisappear(final By locator, final int seconds) {
         CustomReporter.debug("waitForElementToDisappear locator (" + locator.toString() + ")");
-        WebDriverWait webDriverWait = new WebDriverWait(driver, Duration.ofSeconds(seconds));
-        webDriverWait.until(ExpectedConditions.invisibilityOfElementLocated(locator));
+        WebDriverWait webDriverWait = new MeteredWebDriverWait(driver, Duration.ofSeconds(seconds));
+        webDriverWait.until(ExpectedConditions.invisibilityOfElementLocated(LocatorProfiler.substitute(locator)));
     }
 
 //    /**
@@ -315,6 +407,12 @@ public abstract class PageObject {
 //        }
 //    }
 
+    /**
+     * Sleeps the given amount of seconds.
+     * Prefer {@link #waitForPageToSettle()} when waiting for the page to react to an action,
+     * it returns as soon as the page is quiet instead of always paying the full time.
+     * @param seconds amount of time to sleep
+     */
     public void pause(int seconds) {
         try{
             Thread.sleep(seconds * 1000);
@@ -323,6 +421,110 @@ public abstract class PageObject {
         }
     }
 
+    /**
+     * Waits for the page to settle, using the configured quiet window and the default timeout
+     * @see #waitForPageToSettle(long, int)
+     */
+    protected void waitForPageToSettle() {
+        waitForPageToSettle(pageSettleQuietMillis, waitForElementPresentTimeout);
+    }
+
+    /**
+     * Waits until the page is settled: document loaded, no fetch/XHR in flight, no pending short timers,
+     * no running finite animations and no DOM changes for the given quiet window.
+     * The wait happens inside the browser, so it returns as soon as the page is quiet.
+     * @param quietMillis time in milliseconds the page has to stay quiet
+     * @param timeout max time to wait in seconds
+     * @throws TimeoutException if the page is still busy after the timeout
+     */
+    protected void waitForPageToSettle(final long quietMillis, final int timeout) {
+        CustomReporter.debug("waitForPageToSettle quietMillis (" + quietMillis + "), timeout (" + timeout + ")");
+        long deadline = System.currentTimeMillis() + timeout * 1000L;
+        long remaining = timeout * 1000L;
+        while (remaining > 0) {
+            try {
+                Object settled = ((JavascriptExecutor) driver).executeAsyncScript(PageSettleScript.SCRIPT, quietMillis,
+                        Math.min(remaining, PageSettleScript.MAX_SLICE_MILLIS), PageSettleScript.MAX_TRACKED_TIMER_MILLIS);
+                if (Boolean.TRUE.equals(settled)) {
+                    return;
+                }
+            } catch (JavascriptException navigated) {
+                // the document was replaced while waiting, instrument the new one on next round
+                CustomReporter.debug("waitForPageToSettle document changed, retrying");
+            }
+            remaining = deadline - System.currentTimeMillis();
+        }
+        RunMetrics.waitTimedOut();
+        throw new TimeoutException("Page did not settle (quiet for " + quietMillis + " ms) after " + timeout + " seconds");
+    }
+
+    /**
+     * Waits for the first of several labelled conditions, see {@link FirstOf}, for the default timeout
+     * @see #waitForFirstOf(FirstOf, int)
+     */
+    protected final <T> T waitForFirstOf(final FirstOf<T> conditions) {
+        return waitForFirstOf(conditions, waitForElementPresentTimeout);
+    }
+
+    /**
+     * Waits until one of several labelled conditions holds and returns its outcome, checking all of them in the
+     * same loop: inside the browser when all of them are on remotable locators, on the driver otherwise.
+     * Returns as soon as any outcome shows, instead of paying a timeout for every option that did not happen.
+     * @param conditions the labelled conditions, the first declared wins if several hold at the same time
+     * @param timeout max time to wait in seconds
+     * @return the outcome of the first condition that holds
+     * @throws TimeoutException if none of them holds after the timeout
+     */
+    protected final <T> T waitForFirstOf(final FirstOf<T> conditions, final int timeout) {
+        CustomReporter.debug("waitForFirstOf " + conditions + ", timeout (" + timeout + ")");
+        if (!conditions.inBrowser() || !(driver instanceof JavascriptExecutor)) {
+            return new MeteredWebDriverWait(driver, Duration.ofSeconds(timeout))
+                    .pollingEvery(Duration.ofMillis(FirstOf.POLL_MILLIS))
+                    .ignoring(NoSuchElementException.class)
+                    .until(conditions.toCondition());
+        }
+        List<Map<String, Object>> argument = conditions.toScriptArgument();
+        long deadline = System.currentTimeMillis() + timeout * 1000L;
+        long remaining = timeout * 1000L;
+        while (remaining > 0) {
+            try {
+                Object first = ((JavascriptExecutor) driver).executeAsyncScript(FirstOfScript.SCRIPT, argument,
+                        Math.min(remaining, PageSettleScript.MAX_SLICE_MILLIS), FirstOf.POLL_MILLIS);
+                int index = ((Number) first).intValue();
+                if (index >= 0) {
+                    return conditions.outcome(index);
+                }
+            } catch (JavascriptException navigated) {
+                // the document was replaced while waiting, check the new one
+                CustomReporter.debug("waitForFirstOf document changed, retrying");
+            }
+            remaining = deadline - System.currentTimeMillis();
+        }
+        RunMetrics.waitTimedOut();
+        throw new TimeoutException("None of " + conditions + " after " + timeout + " seconds");
+    }
+
+    /**
+     * Gets the elements for the given locator that are displayed right now, without waiting.
+     * Useful right after {@link #waitForPageToSettle()}, when there is nothing left to wait for.
+     * @param locator the {@link org.openqa.selenium.By} locator for the elements to find
+     * @return the displayed {@link org.openqa.selenium.WebElement}s, empty if none
+     */
+    protected final List<WebElement> findVisibleElements(final By locator) {
+        CustomReporter.debug("findVisibleElements locator (" + locator.toString() + ")");
+        List<WebElement> visible = new ArrayList<WebElement>();
+        for (WebElement element : driver.findElements(LocatorProfiler.substitute(locator))) {
+            try {
+                if (element.isDisplayed()) {
+                    visible.add(element);
+                }
+            } catch (StaleElementReferenceException gone) {
+                // removed from the DOM between find and check, so not visible
+            }
+        }
+        return visible;
+    }
+
     /**
      * Waits for the given text to be present into an element for the default timeout
      * @param locator the {@link org.openqa.selenium.By} locator for the element to find
@@ -340,9 +542,9 @@ public abstract class PageObject {
     protected WebElement waitForElementToHaveText(final By locator, final String text, int timeout) {
         CustomReporter.debug("waitForElementToHaveText locator (" + locator.toString()
                 + "), text (" + text + ")");
-        WebDriverWait webDriverWait = new WebDriverWait(driver, Duration.ofSeconds(waitForElementPresentTimeout));
-        webDriverWait.until(ExpectedConditions.textToBePresentInElementLocated(locator, text));
-        return driver.findElement(locator);
+        WebDriverWait webDriverWait = new MeteredWebDriverWait(driver, Duration.ofSeconds(waitForElementPresentTimeout));
+        webDriverWait.until(ExpectedConditions.textToBePresentInElementLocated(LocatorProfiler.substitute(locator), text));
+        return driver.findElement(LocatorProfiler.substitute(locator));
     }
 
     /**
@@ -355,6 +557,217 @@ public abstract class PageObject {
         FileUtils.copyFile(screenShot, new File(screenShotFullName));
     }
 
+    /**
+     * Gets the directory this session downloads files to
+     * @return the session download directory
+     * @throws IllegalStateException if the driver was not started by the framework, or replays a recorded session
+     */
+    protected Path getDownloadDirectory() {
+        Path directory = DownloadWatcher.directoryOf(driver);
+        if (directory == null) {
+            throw new IllegalStateException("The driver has no download directory, it was not started by SeleniumTest"
+                    + " or it replays a recorded session");
+        }
+        return directory;
+    }
+
+    /**
+     * Waits the default timeout for a download to complete, see {@link #waitForDownload(String, int)}
+     * @param fileGlob the file name glob, e.g. "*.pdf"
+     * @return the downloaded file
+     */
+    protected Path waitForDownload(final String fileGlob) {
+        return waitForDownload(fileGlob, waitForElementGroupPresentTimeout);
+    }
+
+    /**
+     * Waits for a file matching the glob to be completely downloaded to this session download directory.
+     * Reacts to file system events, partial files (.crdownload, .part) are not taken as finished downloads.
+     * @param fileGlob the file name glob, e.g. "*.pdf" or "invoice-*.csv"
+     * @param timeout max time to wait in seconds
+     * @return the downloaded file
+     * @throws TimeoutException if no matching download completes in time
+     */
+    protected Path waitForDownload(final String fileGlob, final int timeout) {
+        CustomReporter.debug("waitForDownload fileGlob (" + fileGlob + "), timeout (" + timeout + ")");
+        try {
+            return DownloadWatcher.waitForDownload(getDownloadDirectory(), fileGlob, timeout);
+        } catch (TimeoutException e) {
+            RunMetrics.waitTimedOut();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a screenshot of the visible part of the page, in memory
+     * @return the screenshot as PNG bytes
+     */
+    public byte[] captureScreenshot() {
+        return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+    }
+
+    /**
+     * Takes a screenshot of a single element, in memory
+     * @param locator the element locator, the element must be visible
+     * @return the screenshot as PNG bytes
+     */
+    public byte[] captureElementScreenshot(final By locator) {
+        return waitForElementToBeVisible(locator).getScreenshotAs(OutputType.BYTES);
+    }
+
+    /**
+     * Compares a screenshot of the page with its baseline, see {@link VisualComparator}.
+     * The first run stores the screenshot as the baseline.
+     * @param name the baseline name, unique per visual check
+     * @return the comparison result, check {@link VisualComparisonResult#matches()}
+     */
+    public VisualComparisonResult compareWithBaseline(final String name) {
+        CustomReporter.debug("compareWithBaseline name (" + name + ")");
+        return VisualComparator.compare(name, captureScreenshot());
+    }
+
+    /**
+     * Compares a screenshot of an element with its baseline, see {@link VisualComparator}.
+     * The first run stores the screenshot as the baseline.
+     * @param name    the baseline name, unique per visual check
+     * @param locator the element locator, the element must be visible
+     * @return the comparison result, check {@link VisualComparisonResult#matches()}
+     */
+    public VisualComparisonResult compareWithBaseline(final String name, final By locator) {
+        CustomReporter.debug("compareWithBaseline name (" + name + "), locator (" + locator.toString() + ")");
+        return VisualComparator.compare(name, captureElementScreenshot(locator));
+    }
+
+
+    /**
+     * Asynchronous operations.
+     * They run on the bounded {@link PageTaskExecutor}, so independent conditions (on this session, on
+     * other page objects' sessions or on other windows) can be checked at the same time and composed.
+     * Tasks on the same session run together, except window tasks, which have the session for themselves.
+     */
+
+    /**
+     * Runs the given operation on this page object's session asynchronously
+     * @param action the operation, usually a call to one of the wait/find/read helpers
+     * @return a future for the result, cancelling it interrupts the operation
+     */
+    protected <T> CompletableFuture<T> async(final Supplier<T> action) {
+        final Lock lock = PageTaskExecutor.sessionLock(driver).readLock();
+        return PageTaskExecutor.supply(() -> {
+            lock.lock();
+            try {
+                return action.get();
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Runs the given operation asynchronously with the focus on the given window, then moves the focus back.
+     * Window tasks on the same session are serialized (a session has one focused window at a time),
+     * but they don't block the caller and run concurrently with other sessions.
+     * @param windowHandle the handle of the window to run the operation on
+     * @param action the operation
+     * @return a future for the result, cancelling it interrupts the operation
+     */
+    protected <T> CompletableFuture<T> asyncInWindow(final String windowHandle, final Supplier<T> action) {
+        final Lock lock = PageTaskExecutor.sessionLock(driver).writeLock();
+        return PageTaskExecutor.supply(() -> {
+            lock.lock();
+            try {
+                String previousWindow = driver.getWindowHandle();
+                driver.switchTo().window(windowHandle);
+                try {
+                    return action.get();
+                } finally {
+                    driver.switchTo().window(previousWindow);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Async version of {@link #waitForElementToBeVisible(By, int)}
+     * @param locator the {@link org.openqa.selenium.By} locator for the element to find
+     * @param timeout to wait for the element to be visible
+     * @return a future for the visible {@link org.openqa.selenium.WebElement}
+     */
+    protected CompletableFuture<WebElement> waitForElementToBeVisibleAsync(final By locator, final int timeout) {
+        return async(() -> waitForElementToBeVisible(locator, timeout));
+    }
+
+    /**
+     * Async version of {@link #waitForElementsToBeVisible(By, int)}
+     * @param locator the {@link org.openqa.selenium.By} locator for the elements to find
+     * @param timeout to wait for the elements to be visible
+     * @return a future for the visible {@link org.openqa.selenium.WebElement}s
+     */
+    protected CompletableFuture<List<WebElement>> waitForElementsToBeVisibleAsync(final By locator, final int timeout) {
+        return async(() -> waitForElementsToBeVisible(locator, timeout));
+    }
+
+    /**
+     * Async version of {@link #waitForElementToBePresent(By, int)}
+     * @param locator the {@link org.openqa.selenium.By} locator for the element to find
+     * @param timeout to wait for the element to be present
+     * @return a future for the present {@link org.openqa.selenium.WebElement}
+     */
+    protected CompletableFuture<WebElement> waitForElementToBePresentAsync(final By locator, final int timeout) {
+        return async(() -> waitForElementToBePresent(locator, timeout));
+    }
+
+    /**
+     * Async version of {@link #waitForElementToDisappear(By, int)}
+     * @param locator the {@link org.openqa.selenium.By} locator for the element to wait for
+     * @param seconds amount of time to wait in seconds
+     * @return a future completed when the element is gone
+     */
+    protected CompletableFuture<Void> waitForElementToDisappearAsync(final By locator, final int seconds) {
+        return async(() -> {
+            waitForElementToDisappear(locator, seconds);
+            return null;
+        });
+    }
+
+    /**
+     * Waits for the element to be visible and reads its text, asynchronously
+     * @param locator the {@link org.openqa.selenium.By} locator for the element to read
+     * @param timeout to wait for the element to be visible
+     * @return a future for the element text
+     */
+    protected CompletableFuture<String> getTextAsync(final By locator, final int timeout) {
+        return async(() -> waitForElementToBeVisible(locator, timeout).getText());
+    }
+
+    /**
+     * Races the given futures, see {@link PageTaskExecutor#firstOf(CompletableFuture[])}
+     * @param candidates the futures to race, the losers are cancelled
+     * @return a future for the first successful result
+     */
+    @SafeVarargs
+    protected static <T> CompletableFuture<T> firstOf(final CompletableFuture<? extends T>... candidates) {
+        return PageTaskExecutor.firstOf(candidates);
+    }
+
+    /**
+     * Waits for the future and returns its result, rethrowing the original exception
+     * (for example a {@link TimeoutException}) instead of a {@link CompletionException}
+     * @param future the future to wait for
+     * @return the future result
+     */
+    protected static <T> T await(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 
     /**
      * Moves the focus to the first Child window from the Main window
@@ -422,6 +835,7 @@ public abstract class PageObject {
      * Wrapper of web driver findElement method.
      * <p/>
      * It finds the element without extra waits.
+     * Here and in the waits an XPath locator may be replaced by its CSS translation, see {@link LocatorProfiler}.
      *
      * @param locator the {@link org.openqa.selenium.By} locator for the element to find
      * @return the {@link org.openqa.selenium.WebElement} for the given locator
@@ -429,7 +843,7 @@ public abstract class PageObject {
     protected final WebElement findElement(final By locator) {
 
         CustomReporter.debug("findElement locator(" + locator.toString() + ")");
-        return this.driver.findElement(locator);
+        return this.driver.findElement(LocatorProfiler.substitute(locator));
     }
 
 
@@ -443,7 +857,7 @@ public abstract class PageObject {
     protected final List<WebElement> findElements(final By locator) {
 
         CustomReporter.debug("findElements locator (" + locator.toString() + ")");
-        return this.driver.findElements(locator);
+        return this.driver.findElements(LocatorProfiler.substitute(locator));
 
     }
 
@@ -476,6 +890,33 @@ public abstract class PageObject {
         return from.findElements(locator);
     }
 
+    /**
+     * Reads the data of every element matching the locator in a single round trip (per chunk of
+     * {@link ElementExtractor#DEFAULT_CHUNK_SIZE} elements), instead of one remote call per element and property.
+     * Use it to verify tables and lists.
+     *
+     * @param locator    the {@link org.openqa.selenium.By} locator for the elements to read
+     * @param projection what to read from every element (text, attributes, css, visibility, sub-locators)
+     * @return the data of every matching element, in document order
+     */
+    protected final List<ElementData> extractElementsData(final By locator, final ElementProjection projection) {
+        return extractElementsData(locator, projection, ElementExtractor.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Reads the data of every element matching the locator, chunkSize elements per round trip
+     *
+     * @param locator    the {@link org.openqa.selenium.By} locator for the elements to read
+     * @param projection what to read from every element
+     * @param chunkSize  max amount of elements read per script call
+     * @return the data of every matching element, in document order
+     */
+    protected final List<ElementData> extractElementsData(final By locator, final ElementProjection projection,
+                                                          final int chunkSize) {
+        CustomReporter.debug("extractElementsData locator (" + locator.toString() + "), chunkSize (" + chunkSize + ")");
+        return ElementExtractor.extract(driver, locator, projection, chunkSize);
+    }
+
     public void deleteCoookies() {
         getDriver().manage().deleteAllCookies();
     }
@@ -0,0 +1,72 @@
+package com.carolinabaquero.test.core;
+
+import com.carolinabaquero.test.core.exceptions.NonSupportedBrowserException;
+import com.carolinabaquero.test.core.exceptions.WrongTestConfigurationDataException;
+import com.carolinabaquero.test.core.utils.load.JourneySteps;
+import com.carolinabaquero.test.core.utils.load.LoadProfile;
+import com.carolinabaquero.test.core.utils.load.LoadResult;
+import com.carolinabaquero.test.core.utils.load.LoadRunner;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.nio.file.Paths;
+
+
+/**
+ * @author cbaquero
+ *         Load mode: runs the journey of {@link #journey(PageObject, JourneySteps)}, written with the same page
+ *         objects as the functional tests, as virtual users on concurrent browser sessions (local or Grid, as
+ *         configured). Users, ramp-up, duration, target rate, think time and thresholds come from the load
+ *         properties, see {@link LoadProfile}. Every journey starts on {@link #launchApplication(WebDriver)}.
+ *         <p/>
+ *         The load test is skipped unless loadUsers is set, so a load class can live with the functional tests.
+ *         It fails when an error or latency threshold stopped the run. Step response times and the throughput
+ *         timeline are written to [reports]/load.
+ *         <p/>
+ *         Run: mvn test -Dgroups=load (with loadUsers set on the config file)
+ */
+public abstract class SeleniumLoadTest extends SeleniumTest {
+
+    /**
+     * Every virtual user opens its own session, there is no browser per test method
+     */
+    @Override
+    public void startDriver(ITestResult result) {
+    }
+
+    @Override
+    public void takeScreenshotOnFailure(ITestResult result) {
+    }
+
+
+    @Test(testName = "Load", groups = {"load"})
+    public void runLoad() throws Exception {
+        LoadProfile profile = LoadProfile.from(getTestContext());
+        if (profile.users() <= 0) {
+            throw new SkipException("Load mode is off, set loadUsers on the config file");
+        }
+        LoadResult result = new LoadRunner(getClass().getSimpleName(), profile,
+                this::newUserSession,
+                (driver, steps) -> journey(steps.step("launchApplication", () -> launchApplication(driver)), steps),
+                Paths.get(getTestContext().getReportsDirectory(), "load")).run();
+        Assert.assertFalse(result.thresholdExceeded(), "Load run stopped: " + result.stopReason());
+    }
+
+    private WebDriver newUserSession() {
+        try {
+            return getDriverInstance(getTestContext());
+        } catch (NonSupportedBrowserException e) {
+            throw new WrongTestConfigurationDataException(e.getMessage());
+        }
+    }
+
+    /**
+     * Hook method: what a virtual user does on every pass, from the start page on
+     * @param startPage the page object given by {@link #getStartPage(WebDriver)}, the application already open
+     * @param steps     measures the steps of this pass and pauses between them
+     */
+    protected abstract void journey(PageObject startPage, JourneySteps steps) throws Exception;
+}
@@ -2,31 +2,61 @@ package com.carolinabaquero.test.core;
 
 import com.carolinabaquero.test.core.exceptions.NonSupportedBrowserException;
 import com.carolinabaquero.test.core.exceptions.WrongTestConfigurationDataException;
+import com.carolinabaquero.test.core.utils.artifacts.ArtifactStore;
+import com.carolinabaquero.test.core.utils.dom.DomSnapshotRecorder;
+import com.carolinabaquero.test.core.utils.downloads.DownloadWatcher;
+import com.carolinabaquero.test.core.utils.drivers.AutoParallelism;
+import com.carolinabaquero.test.core.utils.drivers.DriverServicePool;
+import com.carolinabaquero.test.core.utils.drivers.IsolatedBrowserContexts;
+import com.carolinabaquero.test.core.utils.drivers.SessionRegistry;
+import com.carolinabaquero.test.core.utils.impact.ImpactWebDriverListener;
+import com.carolinabaquero.test.core.utils.locators.LocatorProfiler;
+import com.carolinabaquero.test.core.utils.impact.TestImpactRecorder;
+import com.carolinabaquero.test.core.utils.metrics.MetricsServer;
+import com.carolinabaquero.test.core.utils.metrics.MetricsWebDriverListener;
+import com.carolinabaquero.test.core.utils.network.NetworkCapture;
+import com.carolinabaquero.test.core.utils.perf.LifecycleTimings;
+import com.carolinabaquero.test.core.utils.perf.PagePerformanceMonitor;
+import com.carolinabaquero.test.core.utils.replay.CommandReplay;
 import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import com.carolinabaquero.test.core.utils.threads.PageTaskExecutor;
+import com.carolinabaquero.test.core.utils.visual.VisualComparator;
 import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.edge.EdgeOptions;
-import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.remote.AbstractDriverOptions;
+import org.openqa.selenium.remote.HttpCommandExecutor;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.testng.ITestResult;
 import org.testng.annotations.*;
 import org.apache.commons.io.FileUtils;
-import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
-import java.time.Instant;
-import java.util.Date;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public abstract class SeleniumTest {
     protected PageObject startPage;
 
     //Test context info
     private AppContext testContext;
+    // test the next sessions are started for, see SessionRegistry
+    private ITestResult currentTest;
+    // network capture of the running test, null if not captured
+    private NetworkCapture networkCapture;
+    // DOM snapshot recording of the running test, null if not recorded
+    private DomSnapshotRecorder domSnapshots;
+
+    // Files Firefox saves without asking (Chrome and Edge never ask once a download directory is set)
+    private static final String DOWNLOAD_MIME_TYPES = "application/octet-stream,application/pdf,application/zip,"
+            + "application/x-zip-compressed,text/csv,text/plain,application/vnd.ms-excel,"
+            + "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet,application/json,application/xml";
 
     // Default timeouts for wait conditions - Note: These timeouts can also be overriden by some properties on the properties file
     private static int waitForElementPresentTimeout = 10; //seconds
@@ -41,22 +71,69 @@ public abstract class SeleniumTest {
     @Parameters({ "config-file" })
     @BeforeClass(alwaysRun = true)
     public void setEnvironment(@Optional("chrome.properties") String configFile) {
+        long start = System.nanoTime();
         // Set environment configuration on AppContext from properties file
         try {
             testContext = new AppContext(configFile);
+            LifecycleTimings.configure(testContext);
+            PagePerformanceMonitor.configure(testContext);
+            PageObject.setPageSettleQuietMillis(testContext.getPageSettleQuietWindow());
+            PageTaskExecutor.configure(testContext.getAsyncPoolSize());
+            VisualComparator.configure(testContext);
+            DriverServicePool.configure(testContext);
+            TestImpactRecorder.configure(testContext);
+            NetworkCapture.configure(testContext);
+            ArtifactStore.configure(testContext);
+            DomSnapshotRecorder.configure(testContext);
+            SessionRegistry.configure(testContext);
+            AutoParallelism.configure(testContext);
+            CommandReplay.configure(testContext);
+            LocatorProfiler.configure(testContext);
+            MetricsServer.start(testContext.getMetricsPort(), testContext.getMetricsBindAddress());
         } catch (WrongTestConfigurationDataException wrongData) {
             CustomReporter.error("Missing minimal configuration parameters on startup.", wrongData);
         }
+        LifecycleTimings.classSetUp(getClass(), System.nanoTime() - start);
     }
 
 
     /**
-     * Starts the browser and launches the web application
-     * @return the Page object of the main page for the Web App
+     * Starts the browser, the network capture if enabled for the test, and launches the web application,
+     * timing both phases, see {@link LifecycleTimings}
+     * @param result the test about to run
      */
     @BeforeMethod(alwaysRun = true)//, dependsOnMethods = "setEnvironment")
-    public void startDriver() throws NonSupportedBrowserException {
-        this.startPage = launchApplication(getDriverInstance(testContext));
+    public void startDriver(ITestResult result) throws NonSupportedBrowserException {
+        this.startPage = null;
+        this.currentTest = result;
+        long start = System.nanoTime();
+        WebDriver driver = getDriverInstance(testContext);
+        try {
+            // a replayed session has no browser to capture from
+            networkCapture = CommandReplay.isReplaying() ? null : NetworkCapture.start(driver, result);
+            domSnapshots = DomSnapshotRecorder.start(driver, result);
+            long launch = System.nanoTime();
+            LifecycleTimings.phase(result, LifecycleTimings.START_DRIVER, launch - start);
+            try {
+                this.startPage = launchApplication(driver);
+            } finally {
+                LifecycleTimings.phase(result, LifecycleTimings.LAUNCH_APPLICATION, System.nanoTime() - launch);
+            }
+        } catch (RuntimeException e) {
+            // no start page to quit it through after the test, and the recordings are kept as for a failed test
+            try {
+                stopRecordings(false);
+            } catch (RuntimeException stopFailure) {
+                CustomReporter.debug("Could not stop the recordings of a test that did not start: "
+                        + stopFailure.getMessage());
+            }
+            try {
+                driver.quit();
+            } catch (RuntimeException quitFailure) {
+                CustomReporter.debug("Could not quit the session of a test that did not start: " + quitFailure.getMessage());
+            }
+            throw e;
+        }
     }
 
 
@@ -67,64 +144,109 @@ public abstract class SeleniumTest {
     }
 
     /**
-     * Starts the driver with the configuration given on the properties file
+     * Starts the driver with the configuration given on the properties file.
+     * With CONTEXT isolation the driver is a fresh browser context on a running browser, see {@link IsolatedBrowserContexts}.
+     * When the metrics endpoint is running the driver is decorated to measure its commands.
+     * Every session downloads files to its own directory under downloadsDir, deleted when the session quits unless
+     * its test failed, see {@link DownloadWatcher}.
+     * Every session is tracked until it is quit, see {@link SessionRegistry}.
+     * Local sessions wait for a permit before their browser starts, see {@link AutoParallelism}.
+     * Local and Grid sessions can be recorded, and replayed instead of starting a browser, see {@link CommandReplay}.
+     * When profiling locators the driver is decorated to time its finds, see {@link LocatorProfiler}.
      * @return an instance of WebDriver configured (browser started)
      */
     public final WebDriver getDriverInstance(AppContext testContext) throws NonSupportedBrowserException {
         String browser = testContext.getBrowser();
-        AbstractDriverOptions browserOptions = getBrowserOptions(browser);
-
+        // a replayed session has no browser to download anything
+        Path downloadDirectory = CommandReplay.isReplaying() ? null
+                : DownloadWatcher.newSessionDirectory(testContext.getDownloadsDir());
+        // a browser process of its own on this machine
+        boolean local = false;
         WebDriver webDriver;
-        if (testContext.useSeleniumGrid()) {
-            try {
-                return new RemoteWebDriver(new URL(testContext.getSeleniumGridHub()), browserOptions);
-            } catch (MalformedURLException e) {
-                throw new RuntimeException(e);
+        try {
+            AbstractDriverOptions browserOptions = getBrowserOptions(browser, downloadDirectory);
+            if (CommandReplay.isReplaying()) {
+                webDriver = CommandReplay.replay(currentTest, browserOptions);
+            } else if (testContext.useSeleniumGrid()) {
+                try {
+                    URL hub = URI.create(testContext.getSeleniumGridHub()).toURL();
+                    webDriver = CommandReplay.isRecording()
+                            ? new RemoteWebDriver(CommandReplay.record(new HttpCommandExecutor(hub), currentTest), browserOptions)
+                            : new RemoteWebDriver(hub, browserOptions);
+                } catch (MalformedURLException e) {
+                    throw new RuntimeException(e);
+                }
+            } else if (AppContext.ISOLATION_CONTEXT.equals(testContext.getBrowserIsolation())
+                    && IsolatedBrowserContexts.supports(browser)) {
+                webDriver = IsolatedBrowserContexts.open(browser, browserOptions, downloadDirectory);
+            } else {
+                AutoParallelism.acquire();
+                try {
+                    webDriver = getConfiguredWebDriver(browser, browserOptions);
+                } catch (NonSupportedBrowserException | RuntimeException e) {
+                    AutoParallelism.release();
+                    throw e;
+                }
+                local = true;
             }
-        } else {
-            return getConfiguredWebDriver(browser, browserOptions);
+        } catch (NonSupportedBrowserException | RuntimeException e) {
+            DownloadWatcher.discard(downloadDirectory);
+            throw e;
+        }
+        if (MetricsServer.isRunning()) {
+            webDriver = MetricsWebDriverListener.track(webDriver);
         }
+        if (TestImpactRecorder.isEnabled()) {
+            webDriver = ImpactWebDriverListener.track(webDriver);
+        }
+        if (LocatorProfiler.isEnabled()) {
+            webDriver = LocatorProfiler.track(webDriver);
+        }
+        webDriver = SessionRegistry.track(webDriver, currentTest, local);
+        if (downloadDirectory != null) {
+            DownloadWatcher.register(webDriver, downloadDirectory);
+        }
+        return webDriver;
     }
 
+    /**
+     * Starts a local session on the shared driver service for the browser, see {@link DriverServicePool}
+     */
     private WebDriver getConfiguredWebDriver(String browser, AbstractDriverOptions browserOptions) throws NonSupportedBrowserException {
-        WebDriver webDriver;
-        switch (browser.toUpperCase()) {
-            case AppContext.BROWSER_FF: {
-                System.setProperty("webdriver.gecko.driver", "./src/main/resources/drivers/geckodriver.exe");
-                webDriver = new FirefoxDriver((FirefoxOptions) browserOptions);
-                break;
-            }
-            case AppContext.BROWSER_EDGE: {
-                String ieDriverFilePath = "./src/main/resources/drivers/msedgedriver.exe";
-                System.setProperty("webdriver.edge.driver", ieDriverFilePath);
-                webDriver = new EdgeDriver((EdgeOptions) browserOptions);
-                break;
-            }
-            case AppContext.BROWSER_CHROME: {
-                System.setProperty("webdriver.chrome.webDriver", "./src/main/resources/drivers/chromedriver.exe");
-                webDriver = new ChromeDriver((ChromeOptions) browserOptions);
-                break;
-            }
-            default: {
-                throw new NonSupportedBrowserException(browser);
-            }
-        }
-        return webDriver;
+        return DriverServicePool.newDriver(browser.toUpperCase(), browserOptions,
+                executor -> CommandReplay.record(executor, currentTest));
     }
 
-    private AbstractDriverOptions getBrowserOptions(String browser) throws NonSupportedBrowserException {
+    private AbstractDriverOptions getBrowserOptions(String browser, Path downloadDirectory) throws NonSupportedBrowserException {
         AbstractDriverOptions options;
         switch (browser){
             case AppContext.BROWSER_FF:{
-                options = new FirefoxOptions();
+                FirefoxOptions firefoxOptions = new FirefoxOptions();
+                if (downloadDirectory != null) {
+                    firefoxOptions.addPreference("browser.download.folderList", 2);
+                    firefoxOptions.addPreference("browser.download.dir", downloadDirectory.toString());
+                    firefoxOptions.addPreference("browser.download.useDownloadDir", true);
+                    firefoxOptions.addPreference("browser.download.manager.showWhenStarting", false);
+                    firefoxOptions.addPreference("browser.helperApps.neverAsk.saveToDisk", DOWNLOAD_MIME_TYPES);
+                    firefoxOptions.addPreference("pdfjs.disabled", true);
+                }
+                options = firefoxOptions;
                 break;
             }
             case AppContext.BROWSER_EDGE:{
-                options = new EdgeOptions();
+                EdgeOptions edgeOptions = new EdgeOptions();
+                if (downloadDirectory != null) {
+                    edgeOptions.setExperimentalOption("prefs", chromiumDownloadPreferences(downloadDirectory));
+                }
+                options = edgeOptions;
                 break;
             }
             case AppContext.BROWSER_CHROME:{
-                options = new ChromeOptions();
+                ChromeOptions chromeOptions = new ChromeOptions();
+                if (downloadDirectory != null) {
+                    chromeOptions.setExperimentalOption("prefs", chromiumDownloadPreferences(downloadDirectory));
+                }
+                options = chromeOptions;
                 break;
             }
             default:{
@@ -137,6 +259,16 @@ public abstract class SeleniumTest {
     }
 
 
+    private Map<String, Object> chromiumDownloadPreferences(Path downloadDirectory) {
+        Map<String, Object> preferences = new HashMap<String, Object>();
+        preferences.put("download.default_directory", downloadDirectory.toString());
+        preferences.put("download.prompt_for_download", false);
+        preferences.put("download.directory_upgrade", true);
+        preferences.put("plugins.always_open_pdf_externally", true);
+        return preferences;
+    }
+
+
     /**
      * Hook method to define on project using this API
      * @return the PageObject for the first page of the application under test, for example the login page or home page
@@ -145,34 +277,78 @@ public abstract class SeleniumTest {
 
 
     /**
-     * Takes a screenshot of the current page on failure
+     * Stores the failure artifacts of the current page (screenshot, page source, browser log) on the
+     * {@link ArtifactStore}, stops the network capture and quits the browser, and any other session the test left open.
+     * The artifacts and the quit are timed, and the phases of the test added to the run, see {@link LifecycleTimings}
      * @param result the test result given by TestNG for a Test method
      */
     @AfterMethod(alwaysRun = true)
     public void takeScreenshotOnFailure(ITestResult result) {
-        if (testContext.takingFailureScreenShots() && (result.getStatus() == ITestResult.FAILURE)) {
-            //create dir if necessary
-            File directory = new File(testContext.getReportsDirectory());
-            if (! directory.exists()){
-                directory.mkdirs();
-            }
-            //save screenshot
-            Date date = Date.from(Instant.now());
-            String scrshotDir = String.format(System.getProperty("user.dir") + "\\"
-                    + testContext.getReportsDirectory()+"\\screenshots");
+        long start = System.nanoTime();
+        if (result.getStatus() == ITestResult.FAILURE && startPage != null) {
+            String test = result.getMethod().getRealClass().getName() + "." + result.getMethod().getMethodName();
+            String name = result.getName() + (result.getParameters().length == 0 ? ""
+                    : Arrays.deepToString(result.getParameters()));
+            List<String> artifacts = testContext.getFailureArtifacts();
             try {
-                startPage.takeScreenShot(scrshotDir);
+                if (testContext.takingFailureScreenShots()) {
+                    startPage.storeScreenshot(test, name);
+                }
+                if (artifacts.contains(AppContext.ARTIFACT_PAGE_SOURCE)) {
+                    startPage.storePageSource(test, name);
+                }
+                if (artifacts.contains(AppContext.ARTIFACT_BROWSER_LOG)) {
+                    startPage.storeBrowserLog(test, name);
+                }
             } catch (Exception e) {
-                CustomReporter.error("[SCREENSHOT ERROR] Something failed trying" +
-                                             " to save the failure screenshot as " + scrshotDir, e);
+                CustomReporter.error("[ARTIFACT] Something failed trying to store the failure artifacts of " + test, e);
+            }
+        }
+        stopRecordings(result.getStatus() == ITestResult.SUCCESS);
+        long quit = System.nanoTime();
+        LifecycleTimings.phase(result, LifecycleTimings.FAILURE_ARTIFACTS, quit - start);
+        try {
+            quit();
+        } finally {
+            SessionRegistry.testFinished(result);
+            LifecycleTimings.phase(result, LifecycleTimings.QUIT, System.nanoTime() - quit);
+            LifecycleTimings.testFinished(result);
+        }
+    }
+
+    /**
+     * Stops the network capture and the DOM snapshots of the current test, if any, both stopped even if the first fails
+     * @param passed whether the test passed, the recordings of a passed test are discarded
+     */
+    private void stopRecordings(boolean passed) {
+        try {
+            if (networkCapture != null) {
+                networkCapture.stop(passed);
+            }
+        } finally {
+            networkCapture = null;
+            if (domSnapshots != null) {
+                try {
+                    domSnapshots.stop(passed);
+                } finally {
+                    domSnapshots = null;
+                }
             }
         }
-        quit();
     }
 
+    /**
+     * Closes and quits the browser of the start page, if the test got to start it
+     */
     public void quit(){
-        startPage.closeBrowser();
-        startPage.quitBrowser();
+        if (startPage == null) {
+            return;
+        }
+        try {
+            startPage.closeBrowser();
+        } finally {
+            startPage.quitBrowser();
+        }
     }
 
     /**
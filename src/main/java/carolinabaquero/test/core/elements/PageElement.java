@@ -0,0 +1,42 @@
+package com.carolinabaquero.test.core.elements;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * @author cbaquero
+ *         Marks a locator of a page object to get a generated accessor for it.
+ *         The annotated field must be a non private static final {@link org.openqa.selenium.By} declared on a class
+ *         extending PageObject. At compile time {@link PageElementProcessor} writes a [PageObject]Elements class,
+ *         in the same package, with one static accessor per locator that calls the PageObject wait helpers through
+ *         {@link com.carolinabaquero.test.core.PageElements} (no reflection or proxies at runtime):
+ *         <pre>
+ *         &#64;PageElement(waitFor = WaitCondition.CLICKABLE, timeout = 5)
+ *         static final By SAVE_BUTTON_LOCATOR = By.id("save");
+ *         ...
+ *         click(MyPageElements.saveButton(this));
+ *         </pre>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface PageElement {
+
+    /**
+     * Accessor name, by default the field name in camel case without the _LOCATOR suffix
+     * (USER_INPUT_LOCATOR becomes userInput)
+     */
+    String name() default "";
+
+    /**
+     * What to wait for before returning
+     */
+    WaitCondition waitFor() default WaitCondition.VISIBLE;
+
+    /**
+     * Timeout in seconds, negative to use the PageObject default timeout for the wait condition
+     */
+    int timeout() default -1;
+}
@@ -0,0 +1,167 @@
+package com.carolinabaquero.test.core.elements;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * @author cbaquero
+ *         Annotation processor that writes a [PageObject]Elements class for every page object with
+ *         {@link PageElement} locators. The generated accessors are plain static methods calling
+ *         {@link com.carolinabaquero.test.core.PageElements}, so element access costs the same as hand written code.
+ *         <p/>
+ *         It has to be compiled before the page objects, see the maven-compiler-plugin executions in pom.xml.
+ */
+@SupportedAnnotationTypes("com.carolinabaquero.test.core.elements.PageElement")
+public class PageElementProcessor extends AbstractProcessor {
+
+    private static final String PAGE_OBJECT = "com.carolinabaquero.test.core.PageObject";
+    private static final String PAGE_ELEMENTS = "com.carolinabaquero.test.core.PageElements";
+    private static final String BY = "org.openqa.selenium.By";
+    private static final String WAIT_CONDITION = "com.carolinabaquero.test.core.elements.WaitCondition";
+    private static final String SUFFIX = "Elements";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, List<VariableElement>> locatorsByPage = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(PageElement.class)) {
+            if (isValidLocator(element)) {
+                locatorsByPage.computeIfAbsent((TypeElement) element.getEnclosingElement(), page -> new ArrayList<>())
+                        .add((VariableElement) element);
+            }
+        }
+        for (Map.Entry<TypeElement, List<VariableElement>> page : locatorsByPage.entrySet()) {
+            if (isValidPage(page.getKey())) {
+                writeAccessors(page.getKey(), page.getValue());
+            }
+        }
+        return true;
+    }
+
+    private boolean isValidLocator(Element element) {
+        Set<Modifier> modifiers = element.getModifiers();
+        TypeMirror by = processingEnv.getElementUtils().getTypeElement(BY).asType();
+        if (element.getKind() != ElementKind.FIELD || !processingEnv.getTypeUtils().isSameType(element.asType(), by)) {
+            error(element, "@PageElement must be placed on a By field");
+            return false;
+        }
+        if (!modifiers.contains(Modifier.STATIC) || !modifiers.contains(Modifier.FINAL)
+                || modifiers.contains(Modifier.PRIVATE)) {
+            error(element, "@PageElement locators must be static final and not private, "
+                    + "the generated accessors read them from the same package");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isValidPage(TypeElement page) {
+        TypeMirror pageObject = processingEnv.getElementUtils().getTypeElement(PAGE_OBJECT).asType();
+        if (!processingEnv.getTypeUtils().isSubtype(page.asType(), pageObject)) {
+            error(page, "@PageElement locators can only be declared on classes extending " + PAGE_OBJECT);
+            return false;
+        }
+        if (page.getNestingKind() != NestingKind.TOP_LEVEL) {
+            error(page, "@PageElement locators can only be declared on top level page objects");
+            return false;
+        }
+        return true;
+    }
+
+    private void writeAccessors(TypeElement page, List<VariableElement> locators) {
+        String packageName = ((PackageElement) page.getEnclosingElement()).getQualifiedName().toString();
+        String pageName = page.getSimpleName().toString();
+        String className = pageName + SUFFIX;
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import ").append(PAGE_ELEMENTS).append(";\n")
+                .append("import ").append(WAIT_CONDITION).append(";\n")
+                .append("import org.openqa.selenium.WebElement;\n\n")
+                .append("import java.util.List;\n\n\n")
+                .append("/**\n")
+                .append(" * Element accessors for ").append(pageName)
+                .append(", generated from its @PageElement locators. Do not edit.\n")
+                .append(" */\n")
+                .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("final class ").append(className).append(" {\n\n")
+                .append("    private ").append(className).append("() {\n\n")
+                .append("    }\n");
+
+        for (VariableElement locator : locators) {
+            PageElement annotation = locator.getAnnotation(PageElement.class);
+            String name = annotation.name().isEmpty() ? accessorName(locator.getSimpleName().toString()) : annotation.name();
+            WaitCondition wait = annotation.waitFor();
+            String field = pageName + "." + locator.getSimpleName();
+            String call = "PageElements." + (wait.isMultiple() ? "findAll" : "find") + "(page, " + field
+                    + ", WaitCondition." + wait.name() + ", " + annotation.timeout() + ")";
+            source.append("\n    /**\n")
+                    .append("     * ").append(locator.getSimpleName()).append(", wait: ").append(wait)
+                    .append(annotation.timeout() < 0 ? " (default timeout)" : " (" + annotation.timeout() + " s)")
+                    .append("\n     */\n")
+                    .append("    static ").append(wait.isMultiple() ? "List<WebElement>" : "WebElement")
+                    .append(" ").append(name).append("(").append(pageName).append(" page) {\n")
+                    .append("        return ").append(call).append(";\n")
+                    .append("    }\n");
+        }
+        source.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, page);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            error(page, "Could not write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * USER_INPUT_LOCATOR -> userInput, loginButton -> loginButton
+     */
+    static String accessorName(String fieldName) {
+        String name = fieldName.endsWith("_LOCATOR") ? fieldName.substring(0, fieldName.length() - "_LOCATOR".length())
+                : fieldName;
+        if (!name.contains("_") && !name.equals(name.toUpperCase())) {
+            return name;
+        }
+        StringBuilder camel = new StringBuilder();
+        for (String part : name.toLowerCase().split("_")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            camel.append(camel.length() == 0 ? part : Character.toUpperCase(part.charAt(0)) + part.substring(1));
+        }
+        return camel.toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
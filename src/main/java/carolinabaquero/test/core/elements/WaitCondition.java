@@ -0,0 +1,36 @@
+package com.carolinabaquero.test.core.elements;
+
+
+/**
+ * @author cbaquero
+ *         What a generated {@link PageElement} accessor waits for before returning the element(s).
+ *         Each value maps to one of the PageObject wait helpers.
+ */
+public enum WaitCondition {
+
+    /** No wait, findElement */
+    NONE(false),
+    /** waitForElementToBePresent */
+    PRESENT(false),
+    /** waitForElementToBeVisible */
+    VISIBLE(false),
+    /** waitForElementToBeClickable */
+    CLICKABLE(false),
+    /** waitForElementsToBePresent, returns a list */
+    ALL_PRESENT(true),
+    /** waitForElementsToBeVisible, returns a list */
+    ALL_VISIBLE(true);
+
+    private final boolean multiple;
+
+    WaitCondition(boolean multiple) {
+        this.multiple = multiple;
+    }
+
+    /**
+     * @return true if the accessor returns a list of elements
+     */
+    public boolean isMultiple() {
+        return multiple;
+    }
+}
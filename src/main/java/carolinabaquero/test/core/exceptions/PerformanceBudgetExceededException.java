@@ -0,0 +1,24 @@
+package com.carolinabaquero.test.core.exceptions;
+
+
+/**
+ * @author cbaquero
+ */
+public class PerformanceBudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 4306911702571218440L;
+
+
+    /**
+     * @param page   the page object whose budget was exceeded
+     * @param metric the measured metric name
+     * @param value  the measured value
+     * @param budget the configured budget for the metric
+     */
+    public PerformanceBudgetExceededException(final String page, final String metric,
+                                              final long value, final long budget) {
+
+        super("Performance budget exceeded on " + page + ": " + metric + " was " + value
+                + " (budget " + budget + ").");
+    }
+}
@@ -0,0 +1,21 @@
+package com.carolinabaquero.test.core.utils.artifacts;
+
+import java.nio.file.Path;
+
+
+/**
+ * An artifact stored for a test, one line of its index on the {@link ArtifactStore}.
+ *
+ * @param test         the test it belongs to, [class].[method]
+ * @param kind         screenshot, pagesource, browserlog...
+ * @param name         the artifact name within the test
+ * @param hash         SHA-256 of the content, the blob name
+ * @param size         content size in bytes
+ * @param blob         the stored blob, shared by every artifact with the same content
+ * @param deduplicated true if the same content was already stored and nothing was written
+ * @param storedMillis when it was stored
+ * @author cbaquero
+ */
+public record Artifact(String test, String kind, String name, String hash, long size, Path blob,
+                       boolean deduplicated, long storedMillis) {
+}
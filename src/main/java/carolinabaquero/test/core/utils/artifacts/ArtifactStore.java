@@ -0,0 +1,456 @@
+package com.carolinabaquero.test.core.utils.artifacts;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+
+/**
+ * @author cbaquero
+ *         Content addressed store for the test artifacts (screenshots, page sources, logs...), shared by every run
+ *         on the machine:
+ *         <ul>
+ *         <li>[store]/blobs/[ab]/[sha-256].[extension], every distinct content once: the same screenshot of a
+ *         test failing again and again takes the space of one,</li>
+ *         <li>[store]/index/[class].[method].idx, one line per artifact of the test: stored millis, kind, name,
+ *         blob, size.</li>
+ *         </ul>
+ *         Blobs are written asynchronously with an {@link AsynchronousFileChannel} into a temporary file, moved
+ *         into place when complete, and only then the index line is added, so an index never points to a partial
+ *         blob. Once per JVM the store is trimmed in the background: index lines older than artifactMaxAgeDays go
+ *         first, then the oldest ones until the referenced blobs fit in artifactMaxSizeMB, and the blobs no line
+ *         refers to any more are deleted.
+ */
+public final class ArtifactStore {
+
+    static final String BLOBS = "blobs";
+    static final String INDEX = "index";
+    static final String INDEX_EXTENSION = ".idx";
+    // a blob without index line yet may be a write of another run sharing the store
+    static final long ORPHAN_GRACE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long FLUSH_TIMEOUT_SECONDS = 30;
+
+    private static volatile Path root = Paths.get("reports", "artifacts");
+    private static volatile long maxAgeMillis = TimeUnit.DAYS.toMillis(14);
+    private static volatile long maxBytes = 2048L * 1024 * 1024;
+
+    private static final AtomicBoolean evictionStarted = new AtomicBoolean(false);
+    // blob file name -> its write in progress, so identical artifacts stored at the same time are written once
+    private static final Map<String, CompletableFuture<Path>> writing = new ConcurrentHashMap<String, CompletableFuture<Path>>();
+    private static final Set<CompletableFuture<Artifact>> pending = ConcurrentHashMap.newKeySet();
+    private static final Object indexLock = new Object();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ArtifactStore::flush, "artifact-store-flush"));
+    }
+
+
+    private ArtifactStore() {
+
+    }
+
+
+    /**
+     * Takes the store directory and the retention from the given context, and trims the store in the background
+     * the first time
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        root = Paths.get(context.getArtifactStoreDirectory());
+        maxAgeMillis = TimeUnit.DAYS.toMillis(context.getArtifactMaxAgeDays());
+        maxBytes = context.getArtifactMaxSizeMB() * 1024 * 1024;
+        if (evictionStarted.compareAndSet(false, true)) {
+            Thread eviction = new Thread(() -> {
+                try {
+                    evict(System.currentTimeMillis());
+                } catch (IOException | UncheckedIOException e) {
+                    CustomReporter.warning("[ARTIFACT] Could not trim the artifact store " + root + ": " + e.getMessage());
+                }
+            }, "artifact-eviction");
+            eviction.setDaemon(true);
+            eviction.start();
+        }
+    }
+
+
+    /**
+     * Stores an artifact of a test. The content is hashed on the calling thread and written in the background.
+     *
+     * @param test      the test, [class].[method]
+     * @param kind      screenshot, pagesource, browserlog...
+     * @param name      the artifact name within the test
+     * @param content   the artifact content
+     * @param extension the blob file extension, without dot
+     * @return the artifact, completed once its blob and index line are on disk
+     */
+    public static CompletableFuture<Artifact> store(final String test, final String kind, final String name,
+                                                    final byte[] content, final String extension) {
+
+        String hash = sha256(content);
+        String blobName = hash + "." + extension;
+        Path blob = blobPath(root, blobName);
+        CompletableFuture<Path> write;
+        boolean deduplicated;
+        if (Files.exists(blob)) {
+            // seen again: keep it out of the orphan sweep of a concurrent eviction
+            touch(blob);
+            write = CompletableFuture.completedFuture(blob);
+            deduplicated = true;
+        } else {
+            CompletableFuture<Path> mine = new CompletableFuture<Path>();
+            CompletableFuture<Path> other = writing.putIfAbsent(blobName, mine);
+            deduplicated = other != null;
+            if (other == null) {
+                mine.whenComplete((path, error) -> writing.remove(blobName, mine));
+                writeAsync(blob, content, mine);
+                write = mine;
+            } else {
+                write = other;
+            }
+        }
+        Path index = indexPath(root, test);
+        CompletableFuture<Artifact> stored = write.thenApply(path -> {
+            Artifact artifact = new Artifact(test, kind, name, hash, content.length, path, deduplicated,
+                    System.currentTimeMillis());
+            appendIndex(index, artifact);
+            CustomReporter.info("[ARTIFACT] " + kind + " of " + test + (deduplicated ? " already stored as "
+                    : " stored as ") + path);
+            return artifact;
+        });
+        pending.add(stored);
+        stored.whenComplete((artifact, error) -> {
+            pending.remove(stored);
+            if (error != null) {
+                CustomReporter.error("[ARTIFACT] Could not store the " + kind + " of " + test, error);
+            }
+        });
+        return stored;
+    }
+
+    /**
+     * Stores a text artifact as UTF-8, see {@link #store(String, String, String, byte[], String)}
+     */
+    public static CompletableFuture<Artifact> store(final String test, final String kind, final String name,
+                                                    final String content, final String extension) {
+
+        return store(test, kind, name, content.getBytes(StandardCharsets.UTF_8), extension);
+    }
+
+    /**
+     * @param test the test, [class].[method]
+     * @return the artifacts stored for the test and still on the store, oldest first
+     */
+    public static List<Artifact> artifactsOf(final String test) {
+
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        Path index = indexPath(root, test);
+        try {
+            for (IndexLine line : readIndex(index)) {
+                Path blob = blobPath(root, line.blob());
+                if (Files.exists(blob)) {
+                    artifacts.add(new Artifact(test, line.kind(), line.name(), line.hash(), line.size(), blob, false,
+                            line.millis()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the artifact index " + index, e);
+        }
+        return artifacts;
+    }
+
+    /**
+     * Waits for the artifacts being written
+     */
+    public static void flush() {
+
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                    .get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // already reported by the failed artifact
+        } catch (TimeoutException e) {
+            CustomReporter.warning("[ARTIFACT] " + pending.size() + " artifacts were not written in time");
+        }
+    }
+
+
+    private static void writeAsync(final Path blob, final byte[] content, final CompletableFuture<Path> done) {
+        Path temporary = blob.resolveSibling(blob.getFileName() + "." + ProcessHandle.current().pid() + "-"
+                + Thread.currentThread().threadId() + ".tmp");
+        AsynchronousFileChannel channel;
+        try {
+            Files.createDirectories(blob.getParent());
+            channel = AsynchronousFileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            done.completeExceptionally(e);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        channel.write(buffer, 0, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(final Integer written, final Void attachment) {
+                if (buffer.hasRemaining()) {
+                    channel.write(buffer, buffer.position(), null, this);
+                    return;
+                }
+                try {
+                    channel.close();
+                    Files.move(temporary, blob, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    done.complete(blob);
+                } catch (IOException e) {
+                    failed(e, attachment);
+                }
+            }
+
+            @Override
+            public void failed(final Throwable error, final Void attachment) {
+                try {
+                    channel.close();
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    error.addSuppressed(e);
+                }
+                done.completeExceptionally(error);
+            }
+        });
+    }
+
+    private static void appendIndex(final Path index, final Artifact artifact) {
+        String line = new IndexLine(artifact.storedMillis(), artifact.kind(), artifact.name(),
+                artifact.blob().getFileName().toString(), artifact.size()).toLine();
+        synchronized (indexLock) {
+            try {
+                Files.createDirectories(index.getParent());
+                Files.write(index, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write the artifact index " + index, e);
+            }
+        }
+    }
+
+
+    /**
+     * Drops the index lines past the max age, then the oldest ones while the blobs they refer to take more than
+     * the max size, and deletes the blobs no line refers to
+     *
+     * @param now the current time in millis
+     */
+    static void evict(final long now) throws IOException {
+
+        Path indexDirectory = root.resolve(INDEX);
+        Path blobDirectory = root.resolve(BLOBS);
+        if (!Files.isDirectory(indexDirectory) && !Files.isDirectory(blobDirectory)) {
+            return;
+        }
+        Map<String, Long> blobSizes = new HashMap<String, Long>();
+        Map<String, Long> blobTimes = new HashMap<String, Long>();
+        if (Files.isDirectory(blobDirectory)) {
+            try (Stream<Path> blobs = Files.walk(blobDirectory)) {
+                blobs.filter(Files::isRegularFile).forEach(blob -> {
+                    try {
+                        blobSizes.put(blob.getFileName().toString(), Files.size(blob));
+                        blobTimes.put(blob.getFileName().toString(), Files.getLastModifiedTime(blob).toMillis());
+                    } catch (IOException e) {
+                        // deleted meanwhile
+                    }
+                });
+            }
+        }
+
+        // every line still kept, and how many of them refer to every blob
+        List<IndexLine> kept = new ArrayList<IndexLine>();
+        Map<Path, Set<String>> dropped = new HashMap<Path, Set<String>>();
+        Map<String, Integer> references = new HashMap<String, Integer>();
+        if (Files.isDirectory(indexDirectory)) {
+            try (Stream<Path> indexes = Files.list(indexDirectory)) {
+                for (Path index : (Iterable<Path>) indexes.filter(path -> path.toString().endsWith(INDEX_EXTENSION))::iterator) {
+                    for (IndexLine line : readIndex(index)) {
+                        if (maxAgeMillis > 0 && line.millis() < now - maxAgeMillis) {
+                            dropped.computeIfAbsent(index, key -> new HashSet<String>()).add(line.toLine());
+                        } else {
+                            kept.add(line.in(index));
+                            references.merge(line.blob(), 1, Integer::sum);
+                        }
+                    }
+                }
+            }
+        }
+        long total = 0;
+        for (String blob : references.keySet()) {
+            total += blobSizes.getOrDefault(blob, 0L);
+        }
+        if (maxBytes > 0 && total > maxBytes) {
+            kept.sort(Comparator.comparingLong(IndexLine::millis));
+            for (IndexLine line : kept) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                dropped.computeIfAbsent(line.index(), key -> new HashSet<String>()).add(line.toLine());
+                if (references.merge(line.blob(), -1, Integer::sum) == 0) {
+                    references.remove(line.blob());
+                    total -= blobSizes.getOrDefault(line.blob(), 0L);
+                }
+            }
+        }
+
+        for (Map.Entry<Path, Set<String>> index : dropped.entrySet()) {
+            removeLines(index.getKey(), index.getValue());
+        }
+        int deletedBlobs = 0;
+        long freed = 0;
+        for (Map.Entry<String, Long> blob : blobSizes.entrySet()) {
+            if (!references.containsKey(blob.getKey()) && !writing.containsKey(blob.getKey())
+                    && blobTimes.get(blob.getKey()) < now - ORPHAN_GRACE_MILLIS) {
+                Path path = blobPath(root, blob.getKey());
+                // stored again after it was listed
+                if (Files.exists(path) && Files.getLastModifiedTime(path).toMillis() < now - ORPHAN_GRACE_MILLIS
+                        && Files.deleteIfExists(path)) {
+                    deletedBlobs++;
+                    freed += blob.getValue();
+                }
+            }
+        }
+        if (deletedBlobs > 0 || !dropped.isEmpty()) {
+            CustomReporter.info("[ARTIFACT] Store trimmed: " + deletedBlobs + " blobs deleted, "
+                    + (freed / (1024 * 1024)) + " MB freed, " + references.size() + " blobs kept ("
+                    + (total / (1024 * 1024)) + " MB)");
+        }
+    }
+
+    /**
+     * Rewrites an index without the given lines, keeping the lines appended since it was read
+     */
+    private static void removeLines(final Path index, final Set<String> lines) throws IOException {
+        synchronized (indexLock) {
+            List<String> remaining = new ArrayList<String>();
+            for (IndexLine line : readIndex(index)) {
+                if (!lines.contains(line.toLine())) {
+                    remaining.add(line.toLine());
+                }
+            }
+            if (remaining.isEmpty()) {
+                Files.deleteIfExists(index);
+                return;
+            }
+            Path temporary = index.resolveSibling(index.getFileName() + ".tmp");
+            Files.write(temporary, String.join("", remaining).getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static List<IndexLine> readIndex(final Path index) throws IOException {
+        List<IndexLine> lines = new ArrayList<IndexLine>();
+        if (!Files.exists(index)) {
+            return lines;
+        }
+        for (String text : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+            IndexLine line = IndexLine.parse(text);
+            if (line != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+
+    static Path blobPath(final Path root, final String blobName) {
+        return root.resolve(BLOBS).resolve(blobName.substring(0, 2)).resolve(blobName);
+    }
+
+    static Path indexPath(final Path root, final String test) {
+        return root.resolve(INDEX).resolve(test.replaceAll("[^A-Za-z0-9._-]", "_") + INDEX_EXTENSION);
+    }
+
+    static String sha256(final byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void touch(final Path blob) {
+        try {
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // evicted meanwhile, the index line is added anyway and the artifact is just missing
+        }
+    }
+
+
+    /**
+     * One index line: stored millis, kind, name, blob file name and size, tab separated
+     *
+     * @param index the index file it was read from, null when written
+     */
+    record IndexLine(long millis, String kind, String name, String blob, long size, Path index) {
+
+        IndexLine(long millis, String kind, String name, String blob, long size) {
+            this(millis, kind, name, blob, size, null);
+        }
+
+        IndexLine in(Path indexFile) {
+            return new IndexLine(millis, kind, name, blob, size, indexFile);
+        }
+
+        String hash() {
+            return blob.substring(0, blob.indexOf('.'));
+        }
+
+        String toLine() {
+            return millis + "\t" + clean(kind) + "\t" + clean(name) + "\t" + blob + "\t" + size + "\n";
+        }
+
+        static IndexLine parse(final String line) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 5) {
+                return null;
+            }
+            try {
+                return new IndexLine(Long.parseLong(fields[0]), fields[1], fields[2], fields[3],
+                        Long.parseLong(fields[4]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String clean(String text) {
+            return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.carolinabaquero.test.core.utils.dom;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.utils.artifacts.ArtifactStore;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.ITestResult;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * @author cbaquero
+ *         Records what the DOM looked like after every PageObject action (click, clearAndType, select...) of a test.
+ *         <p/>
+ *         The snapshot is taken and diffed in the browser by {@link DomSnapshotScript}: the first step of a test and
+ *         of every new document is a full snapshot, the next ones only carry the changed nodes. The test thread
+ *         only runs the script; the steps are compressed and written by a single writer thread into
+ *         [reports]/dom/[class].[method]-[n].domrec.gz, one JSON line per step. If the writer falls behind, the
+ *         step is dropped and the next one is a full snapshot, so every recorded step can still be rebuilt.
+ *         <p/>
+ *         Recordings of failed tests go to the {@link ArtifactStore}, the ones of passed tests are deleted.
+ *         Use {@link DomSnapshotViewer} to list the steps and rebuild the HTML of any of them.
+ */
+public final class DomSnapshotRecorder {
+
+    static final int WRITE_QUEUE_SIZE = 256;
+
+    private static final AtomicInteger recordings = new AtomicInteger();
+    private static final Map<WebDriver, DomSnapshotRecorder> recorders =
+            Collections.synchronizedMap(new WeakHashMap<WebDriver, DomSnapshotRecorder>());
+    private static final BlockingQueue<Runnable> writes = new ArrayBlockingQueue<Runnable>(WRITE_QUEUE_SIZE);
+    private static Thread writer;
+
+    private static volatile boolean enabled = false;
+    private static volatile int textLimit = 2000;
+    private static volatile Path directory = Paths.get("reports", "dom");
+
+    private final WebDriver driver;
+    private final String test;
+    private final String name;
+    private final Path file;
+    private final OutputStream out;
+    private int steps = 0;
+    private int dropped = 0;
+    private boolean forceFull = true;
+    private boolean failed = false;
+
+
+    private DomSnapshotRecorder(final WebDriver driver, final String test, final String name, final Path file)
+            throws IOException {
+        this.driver = driver;
+        this.test = test;
+        this.name = name;
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024), 64 * 1024);
+    }
+
+
+    /**
+     * Takes the recorder settings from the given context
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        enabled = context.recordingDomSnapshots();
+        textLimit = context.getDomSnapshotTextLimit();
+        directory = Paths.get(context.getReportsDirectory(), "dom");
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+
+    /**
+     * Starts recording the DOM snapshots of the given driver for the given test, if enabled
+     *
+     * @param driver the test driver
+     * @param test   the test about to run
+     * @return the recorder, to stop after the test, null if not recording
+     */
+    public static DomSnapshotRecorder start(final WebDriver driver, final ITestResult test) {
+
+        if (!enabled || !(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        String testId = test.getMethod().getRealClass().getName() + "." + test.getMethod().getMethodName();
+        String fileName = test.getMethod().getRealClass().getSimpleName() + "." + test.getMethod().getMethodName()
+                + "-" + recordings.incrementAndGet();
+        try {
+            DomSnapshotRecorder recorder = new DomSnapshotRecorder(driver, testId, test.getName(),
+                    directory.resolve(fileName + ".domrec.gz"));
+            recorders.put(driver, recorder);
+            return recorder;
+        } catch (IOException e) {
+            CustomReporter.warning("[DOM] Could not start the DOM snapshot recording: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Records a DOM snapshot of the session after an action, if it is being recorded
+     *
+     * @param driver the session
+     * @param action what was just done, shown by the viewer
+     */
+    public static void step(final WebDriver driver, final String action) {
+
+        DomSnapshotRecorder recorder = enabled ? recorders.get(driver) : null;
+        if (recorder != null) {
+            recorder.snapshot(action);
+        }
+    }
+
+
+    private synchronized void snapshot(final String action) {
+        long start = System.nanoTime();
+        String delta;
+        try {
+            delta = (String) ((JavascriptExecutor) driver).executeScript(DomSnapshotScript.SCRIPT, forceFull,
+                    textLimit);
+        } catch (WebDriverException e) {
+            // alert open, page unloading... the browser state is unknown, start over on the next step
+            CustomReporter.debug("[DOM] No snapshot after " + action + ": " + e.getMessage());
+            forceFull = true;
+            return;
+        }
+        int step = ++steps;
+        long micros = (System.nanoTime() - start) / 1000;
+        long millis = System.currentTimeMillis();
+        if (writes.offer(() -> write(step, action, millis, micros, delta))) {
+            forceFull = false;
+            ensureWriter();
+        } else {
+            dropped++;
+            forceFull = true;
+        }
+    }
+
+    private void write(int step, String action, long millis, long micros, String delta) {
+        if (failed) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(delta.length() + 128);
+        line.append("{\"step\":").append(step).append(",\"action\":");
+        quote(line, action);
+        line.append(",\"millis\":").append(millis).append(",\"scriptMicros\":").append(micros)
+                .append(",\"snapshot\":").append(delta).append("}\n");
+        try {
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            failed = true;
+            CustomReporter.error("[DOM] Could not write " + file, e);
+        }
+    }
+
+
+    /**
+     * Stops recording, and stores the recording on the {@link ArtifactStore} if the test did not pass
+     *
+     * @param passed true if the test passed, its recording is deleted
+     */
+    public void stop(final boolean passed) {
+
+        recorders.remove(driver);
+        CountDownLatch closed = new CountDownLatch(1);
+        try {
+            writes.put(() -> {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    CustomReporter.error("[DOM] Could not close " + file, e);
+                }
+                closed.countDown();
+            });
+            ensureWriter();
+            if (!closed.await(30, TimeUnit.SECONDS)) {
+                CustomReporter.warning("[DOM] " + file + " was not closed in time");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            if (!passed && steps > 0) {
+                ArtifactStore.store(test, "domsnapshots", name, Files.readAllBytes(file), "domrec.gz").join();
+                CustomReporter.info("[DOM] " + steps + " DOM snapshots recorded for " + test
+                        + (dropped == 0 ? "" : ", " + dropped + " dropped"));
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException | RuntimeException e) {
+            CustomReporter.warning("[DOM] Could not store " + file + ": " + e.getMessage());
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+
+    private static synchronized void ensureWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(() -> {
+            while (true) {
+                try {
+                    writes.take().run();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    CustomReporter.error("[DOM] Could not write a DOM snapshot", e);
+                }
+            }
+        }, "dom-snapshot-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    static void quote(final StringBuilder json, final String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,69 @@
+package com.carolinabaquero.test.core.utils.dom;
+
+
+/**
+ * @author cbaquero
+ *         In-browser DOM snapshot used by {@link DomSnapshotRecorder}, diffed against the previous snapshot inside
+ *         the browser so only what changed crosses the wire.
+ *         <p/>
+ *         Every element and text node gets a stable id (an expando property) and is flattened to a record:
+ *         [id, 1, tag, attributes, child ids] for elements, [id, 3, text] for text nodes. Form state that is not on
+ *         the attributes goes to the ':value', ':checked' and ':selected' pseudo attributes. Script contents,
+ *         comments and whitespace only text are left out, and texts are cut to the given length.
+ *         <p/>
+ *         The records of the last snapshot are kept on the document: the first run on a document (or a forced
+ *         one) returns every record, the next ones only the new and changed records and the ids removed.
+ *         Moving or adding a node changes the record of its parent (its child ids), not the records of its
+ *         siblings.
+ *         <p/>
+ *         Arguments: force a full snapshot (boolean), max text length.
+ *         Return value: the JSON text {"full":..., "root":..., "url":..., "nodes":[...], "removed":[...]}.
+ */
+public final class DomSnapshotScript {
+
+    public static final String SCRIPT =
+            "var forceFull = arguments[0], maxText = arguments[1];"
+            + "var s = window.__fwkDom;"
+            + "var full = forceFull || !s || s.doc !== document;"
+            + "if (full) { s = window.__fwkDom = { doc: document, next: s ? s.next : 1, prev: {} }; }"
+            + "var current = {}, changed = [];"
+            + "var record = function (id, rec) {"
+            + "  var key = JSON.stringify(rec);"
+            + "  current[id] = key;"
+            + "  if (s.prev[id] !== key) { changed.push(key); }"
+            + "};"
+            + "var visit = function (n) {"
+            + "  if (!n.__fwkId) { n.__fwkId = s.next++; }"
+            + "  var id = n.__fwkId;"
+            + "  if (n.nodeType === 3) {"
+            + "    var text = n.nodeValue;"
+            + "    record(id, [id, 3, text.length > maxText ? text.substring(0, maxText) : text]);"
+            + "    return id;"
+            + "  }"
+            + "  var tag = n.tagName.toLowerCase(), attrs = {}, kids = [];"
+            + "  for (var i = 0; i < n.attributes.length; i++) { attrs[n.attributes[i].name] = n.attributes[i].value; }"
+            + "  if (tag === 'input' || tag === 'textarea' || tag === 'select') { attrs[':value'] = String(n.value); }"
+            + "  if (n.type === 'checkbox' || n.type === 'radio') { attrs[':checked'] = String(n.checked); }"
+            + "  if (tag === 'option') { attrs[':selected'] = String(n.selected); }"
+            + "  if (tag !== 'script') {"
+            + "    for (var c = n.firstChild; c; c = c.nextSibling) {"
+            + "      if (c.nodeType === 1 || (c.nodeType === 3 && /\\S/.test(c.nodeValue))) { kids.push(visit(c)); }"
+            + "    }"
+            + "  }"
+            + "  record(id, [id, 1, tag, attrs, kids]);"
+            + "  return id;"
+            + "};"
+            + "var root = visit(document.documentElement);"
+            + "var removed = [];"
+            + "if (!full) {"
+            + "  for (var old in s.prev) { if (!(old in current)) { removed.push(+old); } }"
+            + "}"
+            + "s.prev = current;"
+            + "return '{\"full\":' + full + ',\"root\":' + root + ',\"url\":' + JSON.stringify(location.href)"
+            + "    + ',\"nodes\":[' + changed.join(',') + '],\"removed\":' + JSON.stringify(removed) + '}';";
+
+
+    private DomSnapshotScript() {
+
+    }
+}
@@ -0,0 +1,186 @@
+package com.carolinabaquero.test.core.utils.dom;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+
+/**
+ * @author cbaquero
+ *         Reads a recording of {@link DomSnapshotRecorder}: lists its steps, or rebuilds the HTML of the page at a
+ *         given step by applying the deltas from the last full snapshot before it. Form state is shown as the
+ *         value, checked and selected attributes.
+ *         <p/>
+ *         Run: java -cp [classpath] com.carolinabaquero.test.core.utils.dom.DomSnapshotViewer [recording.domrec.gz]
+ *         [step]
+ */
+public final class DomSnapshotViewer {
+
+    private static final Json JSON = new Json();
+    private static final Set<String> VOID_ELEMENTS = new HashSet<String>(Arrays.asList("area", "base", "br", "col",
+            "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr"));
+
+
+    private DomSnapshotViewer() {
+
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: DomSnapshotViewer <recording.domrec.gz> [step]");
+            System.exit(2);
+        }
+        Path recording = Paths.get(args[0]);
+        if (args.length > 1) {
+            System.out.println(rebuild(recording, Integer.parseInt(args[1])));
+            return;
+        }
+        System.out.printf("%6s %6s %8s %8s %10s  %s%n", "step", "full", "nodes", "removed", "script us", "action / url");
+        for (Map<String, Object> step : read(recording)) {
+            Map<String, Object> snapshot = snapshot(step);
+            System.out.printf("%6s %6s %8d %8d %10s  %s  %s%n", number(step.get("step")), snapshot.get("full"),
+                    list(snapshot.get("nodes")).size(), list(snapshot.get("removed")).size(),
+                    number(step.get("scriptMicros")), step.get("action"), snapshot.get("url"));
+        }
+    }
+
+
+    /**
+     * @param recording the recording file
+     * @param step      the step number, as listed
+     * @return the HTML of the page right after the step
+     */
+    public static String rebuild(final Path recording, final int step) throws IOException {
+
+        Map<Long, List<Object>> nodes = new HashMap<Long, List<Object>>();
+        long root = -1;
+        boolean found = false;
+        for (Map<String, Object> line : read(recording)) {
+            if (number(line.get("step")) > step) {
+                break;
+            }
+            Map<String, Object> snapshot = snapshot(line);
+            if (Boolean.TRUE.equals(snapshot.get("full"))) {
+                nodes.clear();
+            }
+            for (Object removed : list(snapshot.get("removed"))) {
+                nodes.remove(number(removed));
+            }
+            for (Object node : list(snapshot.get("nodes"))) {
+                nodes.put(number(list(node).get(0)), list(node));
+            }
+            root = number(snapshot.get("root"));
+            found = number(line.get("step")) == step;
+        }
+        if (!found) {
+            throw new IllegalArgumentException("Step " + step + " is not on " + recording);
+        }
+        StringBuilder html = new StringBuilder("<!DOCTYPE html>\n");
+        render(html, nodes, root);
+        return html.toString();
+    }
+
+    /**
+     * @return every recorded step, in order
+     */
+    public static List<Map<String, Object>> read(final Path recording) throws IOException {
+
+        List<Map<String, Object>> steps = new ArrayList<Map<String, Object>>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(recording)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    steps.add(JSON.toType(line, Json.MAP_TYPE));
+                }
+            }
+        } catch (EOFException e) {
+            // a recording cut short by a crash, the steps read so far are fine
+        }
+        return steps;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private static void render(StringBuilder html, Map<Long, List<Object>> nodes, long id) {
+        List<Object> node = nodes.get(id);
+        if (node == null) {
+            return;
+        }
+        if (number(node.get(1)) == 3) {
+            html.append(escape(String.valueOf(node.get(2)), false));
+            return;
+        }
+        String tag = String.valueOf(node.get(2));
+        Map<String, Object> attributes = (Map<String, Object>) node.get(3);
+        html.append('<').append(tag);
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            String name = attribute.getKey();
+            String value = String.valueOf(attribute.getValue());
+            if (name.equals(":value")) {
+                if (!tag.equals("input")) {
+                    continue;
+                }
+                name = "value";
+            } else if (name.equals(":checked") || name.equals(":selected")) {
+                if (!value.equals("true")) {
+                    continue;
+                }
+                name = name.substring(1);
+            } else if (name.equals("value") && attributes.containsKey(":value") && tag.equals("input")
+                    || (name.equals("checked") && attributes.containsKey(":checked"))
+                    || (name.equals("selected") && attributes.containsKey(":selected"))) {
+                // the live state wins over the markup
+                continue;
+            }
+            html.append(' ').append(name).append("=\"").append(escape(value, true)).append('"');
+        }
+        html.append('>');
+        if (VOID_ELEMENTS.contains(tag)) {
+            return;
+        }
+        if (tag.equals("textarea") && attributes.containsKey(":value")) {
+            html.append(escape(String.valueOf(attributes.get(":value")), false));
+        } else {
+            for (Object child : list(node.get(4))) {
+                render(html, nodes, number(child));
+            }
+        }
+        html.append("</").append(tag).append('>');
+    }
+
+    private static String escape(String text, boolean attribute) {
+        String escaped = text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+        return attribute ? escaped.replace("\"", "&quot;") : escaped;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> snapshot(Map<String, Object> step) {
+        return (Map<String, Object>) step.get("snapshot");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Object value) {
+        return value instanceof List ? (List<Object>) value : new ArrayList<Object>();
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : -1;
+    }
+}
@@ -0,0 +1,234 @@
+package com.carolinabaquero.test.core.utils.downloads;
+
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.apache.commons.io.FileUtils;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * @author cbaquero
+ *         Per session download directories and download completion detection.
+ *         Every session downloads to its own directory, so parallel tests never see each other's files, and the
+ *         wait for a download reacts to file system events (WatchService) instead of sleeping and polling.
+ *         The directory is deleted when its session quits, unless its test failed and downloaded something.
+ *         <p/>
+ *         A download is complete when a file matching the name exists and has no partial file next to it:
+ *         Chrome and Edge write 'Unconfirmed [n].crdownload' and rename it when done, Firefox writes an empty
+ *         file with the final name plus '[name].part' and moves the part over it when done.
+ */
+public final class DownloadWatcher {
+
+    private static final String[] PARTIAL_SUFFIXES = {".crdownload", ".part", ".partial", ".download", ".tmp"};
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+
+    // driver -> its download directory
+    private static final Map<WebDriver, Path> directories =
+            Collections.synchronizedMap(new WeakHashMap<WebDriver, Path>());
+
+
+    private DownloadWatcher() {
+
+    }
+
+
+    /**
+     * Creates a new, empty download directory for one session
+     *
+     * @param baseDirectory the downloads directory of the run
+     * @return the absolute path of the new directory
+     */
+    public static Path newSessionDirectory(final String baseDirectory) {
+        Path directory = Paths.get(baseDirectory, "session-" + UUID.randomUUID()).toAbsolutePath();
+        try {
+            return Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the download directory " + directory, e);
+        }
+    }
+
+    /**
+     * Remembers the download directory the session was started with
+     */
+    public static void register(final WebDriver driver, final Path directory) {
+        directories.put(driver, directory);
+    }
+
+    /**
+     * @return the download directory of the session, or null if it was not started by the framework
+     */
+    public static Path directoryOf(final WebDriver driver) {
+        return directories.get(driver);
+    }
+
+    /**
+     * Forgets the download directory of a session that quit, and deletes it unless it is to be kept and has files
+     *
+     * @param driver the driver the directory was registered with
+     * @param keep   true to keep the downloads, e.g. the test failed
+     */
+    public static void release(final WebDriver driver, final boolean keep) {
+        Path directory = directories.remove(driver);
+        if (directory == null) {
+            return;
+        }
+        if (keep && !isEmpty(directory)) {
+            CustomReporter.debug("[DOWNLOADS] Keeping the downloads of the failed test in " + directory);
+        } else {
+            discard(directory);
+        }
+    }
+
+    /**
+     * Deletes a session download directory and everything in it
+     *
+     * @param directory the directory, nothing is done if null
+     */
+    public static void discard(final Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            FileUtils.deleteDirectory(directory.toFile());
+        } catch (IOException e) {
+            CustomReporter.debug("[DOWNLOADS] Could not delete " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isEmpty(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            return !files.iterator().hasNext();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+
+    /**
+     * Waits for a download matching the glob to complete in the directory
+     *
+     * @param directory the session download directory
+     * @param fileGlob  the file name glob, e.g. "*.pdf" or "report-2024*.csv"
+     * @param timeout   max time to wait in seconds
+     * @return the downloaded file
+     * @throws TimeoutException if no matching download completes in time
+     */
+    public static Path waitForDownload(final Path directory, final String fileGlob, final int timeout) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + fileGlob);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        try (WatchService watcher = directory.getFileSystem().newWatchService()) {
+            // register before the first look, so nothing written in between is missed
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            while (true) {
+                Path completed = findCompleted(directory, matcher);
+                if (completed != null) {
+                    CustomReporter.debug("waitForDownload completed (" + completed + ")");
+                    return completed;
+                }
+                long remaining = deadline - System.nanoTime();
+                WatchKey key = remaining > 0 ? watcher.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (key == null) {
+                    throw new TimeoutException("No download matching '" + fileGlob + "' completed in " + directory
+                            + " after " + timeout + " seconds");
+                }
+                // the directory is looked at again whatever the event was
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not watch the download directory " + directory, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for a download in " + directory, e);
+        }
+    }
+
+    private static Path findCompleted(Path directory, PathMatcher matcher) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (isPartial(name) || !matcher.matches(file.getFileName()) || !Files.isRegularFile(file)) {
+                    continue;
+                }
+                if (!hasPartial(directory, name)) {
+                    return file;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isPartial(String name) {
+        for (String suffix : PARTIAL_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasPartial(Path directory, String name) {
+        for (String suffix : PARTIAL_SUFFIXES) {
+            if (Files.exists(directory.resolve(name + suffix))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Computes the checksum of a file reading it in small chunks, so big downloads are never held in memory
+     *
+     * @param file      the file
+     * @param algorithm a MessageDigest algorithm, e.g. SHA-256 or MD5
+     * @return the checksum as lower case hex
+     */
+    public static String checksum(final Path file, final String algorithm) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unknown checksum algorithm " + algorithm, e);
+        }
+        byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file, e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return true if the file checksum is the expected one (hex, case is ignored)
+     */
+    public static boolean hasChecksum(final Path file, final String algorithm, final String expected) {
+        return checksum(file, algorithm).equalsIgnoreCase(expected.trim());
+    }
+}
@@ -0,0 +1,337 @@
+package com.carolinabaquero.test.core.utils.drivers;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * @author cbaquero
+ *         Permits for the local browser sessions: every local session takes one before its browser starts and gives
+ *         it back once it is quit (see {@link SessionRegistry}), so the TestNG thread-count becomes a ceiling and
+ *         this pool decides how many browsers actually run at the same time.
+ *         <p/>
+ *         Without auto parallelism the pool has no limit. With it, the limit starts at half the cores (less if
+ *         the available memory does not fit that many browsers) and every interval the controller samples the
+ *         machine (CPU load, available memory) and the browser and driver processes of this JVM (RSS and CPU):
+ *         <ul>
+ *         <li>under pressure (CPU over {@value #CPU_PRESSURE_PERCENT}% or available memory under the reserve) the
+ *         limit shrinks by a quarter right away</li>
+ *         <li>once enough sessions finished since the last change to measure the throughput, the limit grows by
+ *         one if the permits were all in use and there is room for one more browser, and goes back if the
+ *         last growth did not improve the throughput by {@value #MIN_GAIN_PERCENT}% (no growth for a while
+ *         after that, longer every time it happens again)</li>
+ *         </ul>
+ *         Every decision is logged with the sample it was taken on.
+ */
+public final class AutoParallelism {
+
+    static final int CPU_PRESSURE_PERCENT = 90;
+    // no growth over this, one more browser would take the machine to pressure
+    static final int CPU_GROWTH_PERCENT = 75;
+    static final int MIN_GAIN_PERCENT = 5;
+    // windows without growth after a growth that did not pay off, doubled on every growth in a row that does not
+    static final int FREEZE_WINDOWS = 3;
+    static final int MAX_FREEZE_WINDOWS = 48;
+    // browser RSS assumed until the first browsers are measured
+    static final long DEFAULT_BROWSER_MB = 500;
+
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final Condition released = lock.newCondition();
+    private static int limit = Integer.MAX_VALUE;
+    private static int inUse = 0;
+    private static int maxSessions;
+    private static long memoryReserveMB;
+    private static ScheduledExecutorService controller;
+
+    // measure window, since the last change of the limit
+    private static int windowPeak = 0;
+    private static boolean windowWaited = false;
+    private static int windowFinished = 0;
+    private static long windowStart;
+    private static boolean lastGrew = false;
+    private static double throughputBeforeGrowth;
+    private static int frozenWindows = 0;
+    private static int nextFreeze = FREEZE_WINDOWS;
+
+    // process CPU time on the last sample, to get the CPU used since then
+    private static final Map<Long, Long> cpuNanos = new HashMap<Long, Long>();
+    private static long lastSample;
+    private static double browserMB = DEFAULT_BROWSER_MB;
+
+
+    private AutoParallelism() {
+
+    }
+
+
+    /**
+     * Starts the controller if auto parallelism is enabled on the given context
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        lock.lock();
+        try {
+            if (!context.isAutoParallelism() || controller != null) {
+                return;
+            }
+            int cores = Runtime.getRuntime().availableProcessors();
+            maxSessions = context.getAutoParallelismMaxSessions() > 0 ? context.getAutoParallelismMaxSessions()
+                    : cores * 2;
+            memoryReserveMB = context.getAutoParallelismMemoryReserveMB();
+            Sample sample = sample(0);
+            long fits = (sample.availableMB() - memoryReserveMB) / DEFAULT_BROWSER_MB;
+            limit = (int) Math.max(1, Math.min(Math.min(maxSessions, Math.max(1, cores / 2)), fits));
+            windowStart = System.nanoTime();
+            CustomReporter.info(String.format(Locale.ROOT, "[PARALLELISM] %d cores, %d MB available (%d MB reserved):"
+                    + " starting with %d local sessions, up to %d", cores, sample.availableMB(), memoryReserveMB,
+                    limit, maxSessions));
+
+            controller = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "auto-parallelism");
+                thread.setDaemon(true);
+                return thread;
+            });
+            int period = context.getAutoParallelismIntervalSeconds();
+            controller.scheduleWithFixedDelay(AutoParallelism::adjust, period, period, TimeUnit.SECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a permit to start a local session
+     */
+    public static void acquire() {
+
+        lock.lock();
+        try {
+            if (inUse >= limit) {
+                windowWaited = true;
+                CustomReporter.debug("[PARALLELISM] Waiting for one of the " + limit + " local sessions");
+            }
+            while (inUse >= limit) {
+                released.await();
+            }
+            inUse++;
+            windowPeak = Math.max(windowPeak, inUse);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("Interrupted while waiting to start a local session", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back the permit of a local session quit, or that could not start
+     */
+    public static void release() {
+
+        lock.lock();
+        try {
+            inUse--;
+            windowFinished++;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the local sessions open right now
+     */
+    public static int sessions() {
+        lock.lock();
+        try {
+            return inUse;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the local sessions allowed at the same time right now, Integer.MAX_VALUE if there is no limit
+     */
+    public static int limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * One controller round: shrinks on pressure right away, otherwise decides on the last window once enough
+     * sessions finished in it
+     */
+    static void adjust() {
+
+        Sample sample = sample(sessions());
+        lock.lock();
+        try {
+            String state = String.format(Locale.ROOT, "CPU %d%%, %d MB available, %d browser processes using %d MB"
+                            + " and %d%% of the cores", Math.round(sample.cpuPercent()), sample.availableMB(),
+                    sample.processes(), sample.browsersMB(), Math.round(sample.browsersCpuPercent()));
+            if (sample.cpuPercent() > CPU_PRESSURE_PERCENT || sample.availableMB() < memoryReserveMB) {
+                if (limit > 1) {
+                    setLimit(Math.max(1, limit - Math.max(1, limit / 4)), "under pressure, " + state);
+                }
+                // the window ran under pressure, its throughput says nothing
+                nextWindow(false);
+                return;
+            }
+            if (windowFinished < Math.max(3, limit)) {
+                return;
+            }
+            double throughput = windowFinished * 60_000_000_000.0 / (System.nanoTime() - windowStart);
+            String measured = String.format(Locale.ROOT, "%.1f sessions/min with %d, %s", throughput, limit, state);
+            boolean room = sample.availableMB() - memoryReserveMB > browserMB
+                    && sample.cpuPercent() < CPU_GROWTH_PERCENT;
+            if (lastGrew && throughput < throughputBeforeGrowth * (100 + MIN_GAIN_PERCENT) / 100) {
+                frozenWindows = nextFreeze;
+                nextFreeze = Math.min(nextFreeze * 2, MAX_FREEZE_WINDOWS);
+                setLimit(limit - 1, String.format(Locale.ROOT, "no gain over %.1f sessions/min, %s",
+                        throughputBeforeGrowth, measured));
+                nextWindow(false);
+            } else if ((windowWaited || windowPeak >= limit) && room && frozenWindows == 0 && limit < maxSessions) {
+                if (lastGrew) {
+                    nextFreeze = FREEZE_WINDOWS;
+                }
+                throughputBeforeGrowth = throughput;
+                setLimit(limit + 1, "all in use, " + measured);
+                nextWindow(true);
+            } else {
+                CustomReporter.debug("[PARALLELISM] Keeping " + limit + " local sessions: " + measured);
+                frozenWindows = Math.max(0, frozenWindows - 1);
+                nextWindow(false);
+            }
+        } catch (RuntimeException e) {
+            CustomReporter.error("[PARALLELISM] Could not adjust the local sessions", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void setLimit(int newLimit, String reason) {
+        CustomReporter.info("[PARALLELISM] " + (newLimit > limit ? "Growing" : "Shrinking") + " from " + limit
+                + " to " + newLimit + " local sessions: " + reason);
+        limit = newLimit;
+        released.signalAll();
+    }
+
+    private static void nextWindow(boolean grew) {
+        lastGrew = grew;
+        windowPeak = inUse;
+        windowWaited = lock.hasWaiters(released);
+        windowFinished = 0;
+        windowStart = System.nanoTime();
+    }
+
+
+    /**
+     * Samples the machine and the browser and driver processes of this JVM (RSS of every process added up, so
+     * the memory shared by the processes of a browser is counted more than once and the estimate errs high)
+     *
+     * @param sessions the local sessions open, to update the RSS estimate of a browser
+     */
+    static Sample sample(final int sessions) {
+
+        com.sun.management.OperatingSystemMXBean system =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long now = System.nanoTime();
+        long elapsed = lastSample == 0 ? 0 : now - lastSample;
+        lastSample = now;
+
+        Map<Long, Long> previous = new HashMap<Long, Long>(cpuNanos);
+        cpuNanos.clear();
+        long usedNanos = 0;
+        long rssKB = 0;
+        int processes = 0;
+        for (ProcessHandle process : ProcessHandle.current().descendants().toList()) {
+            long cpu = process.info().totalCpuDuration().map(duration -> duration.toNanos()).orElse(0L);
+            cpuNanos.put(process.pid(), cpu);
+            usedNanos += cpu - previous.getOrDefault(process.pid(), 0L);
+            rssKB += rssKB(process.pid());
+            processes++;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        double browsersCpu = elapsed == 0 ? 0 : usedNanos * 100.0 / elapsed / cores;
+        long browsersMB = rssKB / 1024;
+        if (sessions > 0 && browsersMB > 0) {
+            browserMB = browserMB * 0.7 + browsersMB / (double) sessions * 0.3;
+        }
+        return new Sample(Math.max(0, system.getCpuLoad() * 100), availableMB(system), processes, browsersMB,
+                browsersCpu);
+    }
+
+    /**
+     * @return the memory available to new processes: MemAvailable on Linux (free memory plus what the page
+     * cache would give back), the free memory elsewhere
+     */
+    private static long availableMB(com.sun.management.OperatingSystemMXBean system) {
+        Path meminfo = Paths.get("/proc/meminfo");
+        if (Files.isReadable(meminfo)) {
+            try {
+                for (String line : Files.readAllLines(meminfo, StandardCharsets.US_ASCII)) {
+                    if (line.startsWith("MemAvailable:")) {
+                        return Long.parseLong(line.replaceAll("\\D", "")) / 1024;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // fall back to the free memory
+            }
+        }
+        return system.getFreeMemorySize() / (1024 * 1024);
+    }
+
+    /**
+     * @return the resident memory of the process in KB, 0 if unknown (only known on Linux)
+     */
+    private static long rssKB(long pid) {
+        try {
+            List<String> status = Files.readAllLines(Paths.get("/proc", String.valueOf(pid), "status"),
+                    StandardCharsets.US_ASCII);
+            for (String line : status) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not on Linux, or the process is gone
+        }
+        return 0;
+    }
+
+
+    /**
+     * @param cpuPercent         CPU load of the whole machine
+     * @param availableMB        memory available for new processes
+     * @param processes          browser and driver processes of this JVM
+     * @param browsersMB         their resident memory, added up
+     * @param browsersCpuPercent their CPU use since the last sample, as a percentage of all the cores
+     * @author cbaquero
+     */
+    record Sample(double cpuPercent, long availableMB, int processes, long browsersMB, double browsersCpuPercent) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.carolinabaquero.test.core.utils.drivers;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.exceptions.NonSupportedBrowserException;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * @author cbaquero
+ *         Finds the driver binary (chromedriver, geckodriver, msedgedriver) for the current OS, once per browser.
+ *         Looks, in this order, for:
+ *         <ol>
+ *         <li>the usual Selenium system property (webdriver.chrome.driver, webdriver.gecko.driver, webdriver.edge.driver)</li>
+ *         <li>[driversDirectory]/[os]/[binary], os being windows, mac or linux</li>
+ *         <li>[driversDirectory]/[binary]</li>
+ *         <li>the PATH</li>
+ *         </ol>
+ *         The binary name gets '.exe' on Windows only.
+ */
+public final class DriverBinaryResolver {
+
+    public static final String OS_WINDOWS = "windows";
+    public static final String OS_MAC = "mac";
+    public static final String OS_LINUX = "linux";
+
+    private static final Map<String, File> resolved = new ConcurrentHashMap<String, File>();
+
+
+    private DriverBinaryResolver() {
+
+    }
+
+
+    /**
+     * @param browser          one of the AppContext browsers
+     * @param driversDirectory the directory with the driver binaries
+     * @return the driver binary, or null if it was not found (the driver service then applies its own lookup)
+     * @throws NonSupportedBrowserException if the browser is unknown
+     */
+    public static File resolve(final String browser, final String driversDirectory)
+            throws NonSupportedBrowserException {
+        String key = browser + "|" + driversDirectory;
+        File binary = resolved.get(key);
+        if (binary == null) {
+            binary = find(browser, driversDirectory);
+            if (binary != null) {
+                resolved.put(key, binary);
+            }
+        }
+        return binary;
+    }
+
+    private static File find(String browser, String driversDirectory) throws NonSupportedBrowserException {
+        String property = System.getProperty(systemProperty(browser));
+        if (property != null && new File(property).canExecute()) {
+            return new File(property);
+        }
+        String binaryName = binaryName(browser);
+        File[] candidates = {new File(new File(driversDirectory, currentOs()), binaryName),
+                new File(driversDirectory, binaryName)};
+        for (File candidate : candidates) {
+            if (candidate.isFile() && candidate.canExecute()) {
+                return candidate.getAbsoluteFile();
+            }
+        }
+        String path = System.getenv("PATH");
+        if (path != null) {
+            for (String directory : path.split(File.pathSeparator)) {
+                File candidate = new File(directory, binaryName);
+                if (candidate.isFile() && candidate.canExecute()) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return windows, mac or linux (any other OS is treated as linux)
+     */
+    public static String currentOs() {
+        String name = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        if (name.contains("win")) {
+            return OS_WINDOWS;
+        }
+        if (name.contains("mac") || name.contains("darwin")) {
+            return OS_MAC;
+        }
+        return OS_LINUX;
+    }
+
+    static String binaryName(String browser) throws NonSupportedBrowserException {
+        String name;
+        switch (browser) {
+            case AppContext.BROWSER_CHROME:
+                name = "chromedriver";
+                break;
+            case AppContext.BROWSER_FF:
+                name = "geckodriver";
+                break;
+            case AppContext.BROWSER_EDGE:
+                name = "msedgedriver";
+                break;
+            default:
+                throw new NonSupportedBrowserException(browser);
+        }
+        return OS_WINDOWS.equals(currentOs()) ? name + ".exe" : name;
+    }
+
+    static String systemProperty(String browser) throws NonSupportedBrowserException {
+        switch (browser) {
+            case AppContext.BROWSER_CHROME:
+                return "webdriver.chrome.driver";
+            case AppContext.BROWSER_FF:
+                return "webdriver.gecko.driver";
+            case AppContext.BROWSER_EDGE:
+                return "webdriver.edge.driver";
+            default:
+                throw new NonSupportedBrowserException(browser);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.carolinabaquero.test.core.utils.drivers;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.exceptions.NonSupportedBrowserException;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.edge.EdgeDriverService;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.service.DriverService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+
+/**
+ * @author cbaquero
+ *         Long running driver services (chromedriver, geckodriver, msedgedriver processes) shared by all the sessions
+ *         of a browser type, instead of a new driver process per session. Chrome and Edge drivers handle any amount of
+ *         sessions on one process; geckodriver handles one session at a time, so Firefox gets a small pool of
+ *         services that grows up to the amount of concurrent sessions and is reused afterwards.
+ *         <p/>
+ *         Sessions are created as remote sessions on the service URL: the browser specific drivers stop their
+ *         service on quit. All the services are stopped on JVM exit, and the start up time saved is logged then.
+ */
+public final class DriverServicePool {
+
+    private static final Map<String, DriverServicePool> pools = new ConcurrentHashMap<String, DriverServicePool>();
+    private static final AtomicLong sessionsCreated = new AtomicLong();
+    private static final AtomicLong servicesStarted = new AtomicLong();
+    private static final AtomicLong serviceStartNanos = new AtomicLong();
+    private static volatile String driversDirectory = "./src/main/resources/drivers";
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DriverServicePool::shutdown, "driver-services-shutdown"));
+    }
+
+    private final String browser;
+    private final int sessionsPerService;
+    private final List<Slot> slots = new ArrayList<Slot>();
+
+
+    private DriverServicePool(final String browser, final int sessionsPerService) {
+        this.browser = browser;
+        this.sessionsPerService = sessionsPerService;
+    }
+
+
+    /**
+     * Sets where the driver binaries are looked for, see {@link DriverBinaryResolver}
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        driversDirectory = context.getDriversDirectory();
+    }
+
+
+    /**
+     * Starts a new browser session on the shared service for the browser, starting the service if needed
+     *
+     * @param browser one of the AppContext browsers
+     * @param options the browser options
+     * @return the new session; quitting it releases its place on the service, the service keeps running
+     * @throws NonSupportedBrowserException if the browser is unknown
+     */
+    public static WebDriver newDriver(final String browser, final Capabilities options)
+            throws NonSupportedBrowserException {
+        return newDriver(browser, options, UnaryOperator.<CommandExecutor>identity());
+    }
+
+    /**
+     * Starts a new browser session on the shared service for the browser, starting the service if needed
+     *
+     * @param browser  one of the AppContext browsers
+     * @param options  the browser options
+     * @param commands wraps the executor the session sends its commands through, e.g. to record them
+     * @return the new session; quitting it releases its place on the service, the service keeps running
+     * @throws NonSupportedBrowserException if the browser is unknown
+     */
+    public static WebDriver newDriver(final String browser, final Capabilities options,
+                                      final UnaryOperator<CommandExecutor> commands)
+            throws NonSupportedBrowserException {
+
+        DriverBinaryResolver.binaryName(browser);
+        DriverServicePool pool = pools.computeIfAbsent(browser, name -> new DriverServicePool(name,
+                AppContext.BROWSER_FF.equals(name) ? 1 : Integer.MAX_VALUE));
+        Slot slot = pool.acquire();
+        try {
+            WebDriver driver = new SharedServiceWebDriver(slot.service.getUrl(), options, cdpVendor(browser),
+                    commands, () -> pool.release(slot));
+            sessionsCreated.incrementAndGet();
+            return driver;
+        } catch (RuntimeException e) {
+            pool.release(slot);
+            throw e;
+        }
+    }
+
+    private static String cdpVendor(String browser) {
+        switch (browser) {
+            case AppContext.BROWSER_CHROME:
+                return "goog";
+            case AppContext.BROWSER_EDGE:
+                return "ms";
+            default:
+                return null;
+        }
+    }
+
+    private synchronized Slot acquire() throws NonSupportedBrowserException {
+        for (Iterator<Slot> iterator = slots.iterator(); iterator.hasNext(); ) {
+            Slot slot = iterator.next();
+            if (!slot.service.isRunning()) {
+                // the driver process died, its sessions are gone
+                if (slot.sessions == 0) {
+                    iterator.remove();
+                }
+            } else if (slot.sessions < sessionsPerService) {
+                slot.sessions++;
+                return slot;
+            }
+        }
+        Slot slot = new Slot(startService());
+        slot.sessions++;
+        slots.add(slot);
+        return slot;
+    }
+
+    private synchronized void release(final Slot slot) {
+        slot.sessions--;
+    }
+
+    private DriverService startService() throws NonSupportedBrowserException {
+        File binary = DriverBinaryResolver.resolve(browser, driversDirectory);
+        DriverService service;
+        switch (browser) {
+            case AppContext.BROWSER_FF: {
+                GeckoDriverService.Builder builder = new GeckoDriverService.Builder().usingAnyFreePort();
+                service = (binary == null ? builder : builder.usingDriverExecutable(binary)).build();
+                break;
+            }
+            case AppContext.BROWSER_EDGE: {
+                EdgeDriverService.Builder builder = new EdgeDriverService.Builder().usingAnyFreePort();
+                service = (binary == null ? builder : builder.usingDriverExecutable(binary)).build();
+                break;
+            }
+            case AppContext.BROWSER_CHROME: {
+                ChromeDriverService.Builder builder = new ChromeDriverService.Builder().usingAnyFreePort();
+                service = (binary == null ? builder : builder.usingDriverExecutable(binary)).build();
+                break;
+            }
+            default: {
+                throw new NonSupportedBrowserException(browser);
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            service.start();
+        } catch (IOException e) {
+            throw new WebDriverException("Could not start the " + browser + " driver service", e);
+        }
+        long elapsed = System.nanoTime() - start;
+        servicesStarted.incrementAndGet();
+        serviceStartNanos.addAndGet(elapsed);
+        CustomReporter.info("[DRIVERS] Started " + browser + " driver service on " + service.getUrl()
+                + (binary == null ? "" : " (" + binary.getPath() + ")") + " in " + elapsed / 1000000 + " ms");
+        return service;
+    }
+
+
+    /**
+     * @return the estimated driver process start up time saved so far: the sessions that did not start a service,
+     * times the average service start up time
+     */
+    public static long getSavedStartMillis() {
+        long services = servicesStarted.get();
+        if (services == 0) {
+            return 0;
+        }
+        long averageNanos = serviceStartNanos.get() / services;
+        return (sessionsCreated.get() - services) * averageNanos / 1000000;
+    }
+
+    /**
+     * Stops every service, called on JVM exit
+     */
+    static void shutdown() {
+        for (DriverServicePool pool : pools.values()) {
+            synchronized (pool) {
+                for (Slot slot : pool.slots) {
+                    slot.service.stop();
+                }
+                pool.slots.clear();
+            }
+        }
+        if (servicesStarted.get() > 0) {
+            CustomReporter.info("[DRIVERS] " + sessionsCreated.get() + " sessions on " + servicesStarted.get()
+                    + " driver services, about " + getSavedStartMillis() + " ms of driver process start up saved");
+        }
+    }
+
+
+    private static final class Slot {
+
+        private final DriverService service;
+        private int sessions = 0;
+
+        private Slot(DriverService service) {
+            this.service = service;
+        }
+    }
+}
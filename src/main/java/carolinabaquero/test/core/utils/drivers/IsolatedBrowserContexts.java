@@ -0,0 +1,256 @@
+package com.carolinabaquero.test.core.utils.drivers;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.exceptions.NonSupportedBrowserException;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.decorators.Decorated;
+import org.openqa.selenium.support.decorators.WebDriverDecorator;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * @author cbaquero
+ *         Test isolation through browser contexts instead of browser sessions (Chrome and Edge only).
+ *         A few long lived host sessions (one per concurrent test, so one browser process per worker) are kept, and
+ *         every test gets a fresh browser context on one of them, created with the DevTools Target domain: its own
+ *         cookies, storage and cache, like an incognito profile. Quitting (or closing the main window of) the test
+ *         driver disposes the context and gives the host back, the browser keeps running for the next test.
+ *         <p/>
+ *         Hosts are quit on JVM exit.
+ */
+public final class IsolatedBrowserContexts {
+
+    private static final long WINDOW_LOOKUP_MILLIS = 2000;
+
+    private static final Map<String, Deque<Host>> idleHosts = new HashMap<String, Deque<Host>>();
+    private static final List<Host> allHosts = Collections.synchronizedList(new ArrayList<Host>());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(IsolatedBrowserContexts::shutdown, "browser-contexts-shutdown"));
+    }
+
+
+    private IsolatedBrowserContexts() {
+
+    }
+
+
+    /**
+     * @param browser one of the AppContext browsers
+     * @return true if the browser can create isolated contexts
+     */
+    public static boolean supports(final String browser) {
+        return AppContext.BROWSER_CHROME.equals(browser) || AppContext.BROWSER_EDGE.equals(browser);
+    }
+
+
+    /**
+     * Opens a fresh isolated browser context on an idle host (starting a new host if there is none)
+     *
+     * @param browser CHROME or EDGE
+     * @param options           the browser options, only used when a new host has to be started
+     * @param downloadDirectory where the context saves downloads, null to keep the browser default
+     * @return a driver for the new context; quit closes the context only
+     * @throws NonSupportedBrowserException if the browser can not create isolated contexts
+     */
+    public static WebDriver open(final String browser, final Capabilities options, final Path downloadDirectory)
+            throws NonSupportedBrowserException {
+        if (!supports(browser)) {
+            throw new NonSupportedBrowserException(browser);
+        }
+        Host host = acquire(browser, options);
+        try {
+            return new ContextDecorator(host, host.createContext(downloadDirectory)).decorate(host.driver);
+        } catch (WebDriverException firstTry) {
+            // the host browser is gone or broken, start a new one
+            CustomReporter.debug("[CONTEXTS] Host session failed (" + firstTry.getMessage() + "), starting a new one");
+            discard(host);
+            host = new Host(browser, (SharedServiceWebDriver) DriverServicePool.newDriver(browser, options));
+            allHosts.add(host);
+            try {
+                return new ContextDecorator(host, host.createContext(downloadDirectory)).decorate(host.driver);
+            } catch (RuntimeException e) {
+                release(host);
+                throw e;
+            }
+        }
+    }
+
+    private static Host acquire(String browser, Capabilities options) throws NonSupportedBrowserException {
+        synchronized (idleHosts) {
+            Deque<Host> idle = idleHosts.get(browser);
+            if (idle != null && !idle.isEmpty()) {
+                return idle.pop();
+            }
+        }
+        Host host = new Host(browser, (SharedServiceWebDriver) DriverServicePool.newDriver(browser, options));
+        allHosts.add(host);
+        CustomReporter.info("[CONTEXTS] Started " + browser + " host session " + host.driver.getSessionId());
+        return host;
+    }
+
+    private static void release(Host host) {
+        synchronized (idleHosts) {
+            idleHosts.computeIfAbsent(host.browser, name -> new ArrayDeque<Host>()).push(host);
+        }
+    }
+
+    private static void discard(Host host) {
+        allHosts.remove(host);
+        try {
+            host.driver.quit();
+        } catch (WebDriverException e) {
+            CustomReporter.debug("[CONTEXTS] Could not quit broken host: " + e.getMessage());
+        }
+    }
+
+    static void shutdown() {
+        synchronized (allHosts) {
+            for (Host host : allHosts) {
+                try {
+                    host.driver.quit();
+                } catch (WebDriverException e) {
+                    // the driver service may be stopping at the same time
+                }
+            }
+            allHosts.clear();
+        }
+    }
+
+
+    /**
+     * A host session and the blank window it goes back to between tests
+     */
+    private static final class Host {
+
+        private final String browser;
+        private final SharedServiceWebDriver driver;
+        private final String homeWindow;
+
+        private Host(String browser, SharedServiceWebDriver driver) {
+            this.browser = browser;
+            this.driver = driver;
+            this.homeWindow = driver.getWindowHandle();
+        }
+
+        private Context createContext(Path downloadDirectory) {
+            Map<String, Object> created = driver.executeCdpCommand("Target.createBrowserContext",
+                    Collections.<String, Object>emptyMap());
+            String contextId = (String) created.get("browserContextId");
+            if (downloadDirectory != null) {
+                Map<String, Object> downloadParams = new HashMap<String, Object>();
+                downloadParams.put("behavior", "allow");
+                downloadParams.put("browserContextId", contextId);
+                downloadParams.put("downloadPath", downloadDirectory.toString());
+                driver.executeCdpCommand("Browser.setDownloadBehavior", downloadParams);
+            }
+            Map<String, Object> targetParams = new HashMap<String, Object>();
+            targetParams.put("url", "about:blank");
+            targetParams.put("browserContextId", contextId);
+            String targetId = (String) driver.executeCdpCommand("Target.createTarget", targetParams).get("targetId");
+            String window = findWindow(targetId);
+            driver.switchTo().window(window);
+            return new Context(contextId, window);
+        }
+
+        /**
+         * The driver window handle of a DevTools target is the target id (older drivers add a prefix),
+         * it may take a moment for the driver to see the new target
+         */
+        private String findWindow(String targetId) {
+            long deadline = System.currentTimeMillis() + WINDOW_LOOKUP_MILLIS;
+            do {
+                for (String handle : driver.getWindowHandles()) {
+                    if (handle.endsWith(targetId)) {
+                        return handle;
+                    }
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } while (System.currentTimeMillis() < deadline);
+            throw new NoSuchWindowException("The driver does not see the window of target " + targetId);
+        }
+
+        private void disposeContext(Context context) {
+            try {
+                driver.executeCdpCommand("Target.disposeBrowserContext",
+                        Collections.<String, Object>singletonMap("browserContextId", context.id));
+                driver.switchTo().window(homeWindow);
+                release(this);
+            } catch (WebDriverException e) {
+                CustomReporter.warning("[CONTEXTS] Could not dispose browser context " + context.id
+                        + ", dropping its host: " + e.getMessage());
+                discard(this);
+            }
+        }
+    }
+
+
+    /**
+     * A test browser context and its main window
+     */
+    private static final class Context {
+
+        private final String id;
+        private final String mainWindow;
+        private boolean disposed = false;
+
+        private Context(String id, String mainWindow) {
+            this.id = id;
+            this.mainWindow = mainWindow;
+        }
+    }
+
+
+    /**
+     * Driver handed to the test: everything goes to the host session, except quit, and close of the context main
+     * window, which dispose the context instead. Closing other windows (popups) works as usual.
+     */
+    private static final class ContextDecorator extends WebDriverDecorator {
+
+        private final Host host;
+        private final Context context;
+
+        private ContextDecorator(Host host, Context context) {
+            this.host = host;
+            this.context = context;
+        }
+
+        @Override
+        public Object call(final Decorated<?> target, final Method method, final Object[] args) throws Throwable {
+            if (target.getOriginal() instanceof WebDriver && (args == null || args.length == 0)) {
+                boolean quit = "quit".equals(method.getName());
+                if (quit || "close".equals(method.getName())) {
+                    synchronized (context) {
+                        if (context.disposed) {
+                            return null;
+                        }
+                        if (quit || context.mainWindow.equals(host.driver.getWindowHandle())) {
+                            context.disposed = true;
+                            host.disposeContext(context);
+                            return null;
+                        }
+                    }
+                }
+            }
+            return super.call(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.carolinabaquero.test.core.utils.drivers;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.utils.downloads.DownloadWatcher;
+import com.carolinabaquero.test.core.utils.metrics.RunMetrics;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+import org.testng.ITestResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * @author cbaquero
+ *         Every driver session started by the framework, with its owner test, creation time and browser PID (local
+ *         sessions only), until it is quit.
+ *         <p/>
+ *         A watchdog quits the sessions older than the max lifetime, and the ones still open a minute after their
+ *         test finished. When quit does not answer, the browser process tree is killed. Sessions left open by a
+ *         test are also quit as soon as its @AfterMethod ends, see {@link #testFinished(ITestResult)}.
+ *         On JVM exit the open sessions are quit and the browser and driver processes started by this JVM that
+ *         are still alive afterwards are killed.
+ *         <p/>
+ *         Every session quit by the registry counts as a leak, see {@link #report()}.
+ */
+public final class SessionRegistry {
+
+    static final long ORPHAN_GRACE_MILLIS = 60_000;
+    static final long QUIT_TIMEOUT_MILLIS = 10_000;
+    // time the other shutdown hooks get to stop their driver services and hosts before the leftovers are killed
+    static final long REAP_WAIT_MILLIS = 5_000;
+    private static final Set<String> PROCESS_NAMES = new HashSet<String>(Arrays.asList("chromedriver", "geckodriver",
+            "msedgedriver", "chrome", "chromium", "chromium-browser", "google-chrome", "firefox", "firefox-bin",
+            "msedge", "microsoft-edge"));
+
+    private static final Map<Long, Session> sessions = new ConcurrentHashMap<Long, Session>();
+    private static final AtomicLong ids = new AtomicLong();
+    private static final AtomicLong registered = new AtomicLong();
+    private static final AtomicLong orphaned = new AtomicLong();
+    private static final AtomicLong expired = new AtomicLong();
+    private static final AtomicLong openOnExit = new AtomicLong();
+    private static final AtomicLong killed = new AtomicLong();
+    private static ScheduledExecutorService watchdog;
+
+    private static volatile long maxLifetimeMillis = TimeUnit.MINUTES.toMillis(30);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SessionRegistry::shutdown, "session-reaper"));
+    }
+
+
+    private SessionRegistry() {
+
+    }
+
+
+    /**
+     * Takes the max session lifetime from the given context and starts the watchdog, if enabled
+     *
+     * @param context the AppContext for this run
+     */
+    public static synchronized void configure(final AppContext context) {
+
+        maxLifetimeMillis = TimeUnit.MINUTES.toMillis(context.getSessionMaxLifetimeMinutes());
+        int period = context.getSessionWatchdogSeconds();
+        if (watchdog == null && period > 0) {
+            watchdog = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "session-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watchdog.scheduleWithFixedDelay(SessionRegistry::watch, period, period, TimeUnit.SECONDS);
+        }
+    }
+
+
+    /**
+     * Registers a new session until it is quit
+     *
+     * @param driver the driver just started, with all its decorations
+     * @param owner  the test it was started for, null if none
+     * @param local  true if the browser is a process of its own on this machine (not on a Grid, not a browser
+     *               context on a shared browser), so it can be killed if its session does not quit. Local sessions
+     *               hold a permit of {@link AutoParallelism}, given back when they leave the registry
+     * @return the driver to use instead of the given one
+     */
+    public static WebDriver track(final WebDriver driver, final ITestResult owner, final boolean local) {
+
+        Session session = new Session(ids.incrementAndGet(), owner, local, local ? browserPid(driver) : -1);
+        session.driver = new EventFiringDecorator(new QuitListener(session)).decorate(driver);
+        sessions.put(session.id, session);
+        registered.incrementAndGet();
+        CustomReporter.debug("[SESSIONS] Session " + session.id + " for " + session.ownerName()
+                + (session.pid < 0 ? "" : ", browser PID " + session.pid));
+        return session.driver;
+    }
+
+    /**
+     * Quits the sessions the finished test left open
+     *
+     * @param owner the test, after its @AfterMethod
+     */
+    public static void testFinished(final ITestResult owner) {
+
+        for (Session session : new ArrayList<Session>(sessions.values())) {
+            if (session.owner == owner) {
+                orphaned.incrementAndGet();
+                forceQuit(session, "left open by its test");
+            }
+        }
+    }
+
+    /**
+     * @return the sessions open right now
+     */
+    public static int openSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Logs the sessions started and the ones leaked so far
+     */
+    public static void report() {
+
+        long leaked = orphaned.get() + expired.get() + openOnExit.get();
+        String counts = "[SESSIONS] " + registered.get() + " sessions started, " + sessions.size() + " open, "
+                + leaked + " leaked (" + orphaned.get() + " left open by their test, " + expired.get()
+                + " over the max lifetime, " + openOnExit.get() + " open on exit), " + killed.get()
+                + " browser and driver processes killed";
+        if (leaked > 0) {
+            CustomReporter.warning(counts);
+        } else {
+            CustomReporter.info(counts);
+        }
+    }
+
+
+    /**
+     * One watchdog round
+     */
+    static void watch() {
+
+        long now = System.currentTimeMillis();
+        for (Session session : new ArrayList<Session>(sessions.values())) {
+            if (maxLifetimeMillis > 0 && now - session.created > maxLifetimeMillis) {
+                expired.incrementAndGet();
+                forceQuit(session, "open for over " + maxLifetimeMillis / 60000 + " minutes");
+            } else if (session.owner != null && finished(session.owner)) {
+                if (session.finishedSeen == 0) {
+                    session.finishedSeen = now;
+                } else if (now - session.finishedSeen > ORPHAN_GRACE_MILLIS) {
+                    orphaned.incrementAndGet();
+                    forceQuit(session, "open after its test finished");
+                }
+            }
+        }
+    }
+
+    private static boolean finished(ITestResult owner) {
+        int status = owner.getStatus();
+        return status == ITestResult.SUCCESS || status == ITestResult.FAILURE || status == ITestResult.SKIP
+                || status == ITestResult.SUCCESS_PERCENTAGE_FAILURE;
+    }
+
+    /**
+     * Quits the session, and kills its browser if quit fails or does not answer in time
+     */
+    private static void forceQuit(Session session, String reason) {
+
+        CustomReporter.warning("[SESSIONS] Quitting session " + session.id + " of " + session.ownerName() + ": "
+                + reason);
+        RunMetrics.sessionLeaked();
+        Thread quit = Thread.ofVirtual().name("session-quit-" + session.id).start(() -> {
+            try {
+                session.driver.quit();
+            } catch (RuntimeException e) {
+                CustomReporter.debug("[SESSIONS] Session " + session.id + " did not quit: " + e.getMessage());
+            }
+        });
+        try {
+            quit.join(QUIT_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (remove(session) && session.pid > 0) {
+            // quit failed or is stuck, the browser is still there
+            killTree(ProcessHandle.of(session.pid));
+        }
+    }
+
+    /**
+     * Takes the session out of the registry, giving back its local session permit, see {@link AutoParallelism},
+     * and deleting its download directory unless its test failed, see {@link DownloadWatcher}
+     *
+     * @return false if it was already out
+     */
+    private static boolean remove(Session session) {
+        if (sessions.remove(session.id) == null) {
+            return false;
+        }
+        if (session.local) {
+            AutoParallelism.release();
+        }
+        DownloadWatcher.release(session.driver, session.owner != null
+                && session.owner.getStatus() == ITestResult.FAILURE);
+        return true;
+    }
+
+    private static void killTree(Optional<ProcessHandle> process) {
+        process.ifPresent(handle -> {
+            handle.descendants().forEach(ProcessHandle::destroyForcibly);
+            if (handle.destroyForcibly()) {
+                killed.incrementAndGet();
+                CustomReporter.warning("[SESSIONS] Killed browser process " + handle.pid());
+            }
+        });
+    }
+
+
+    /**
+     * Quits the open sessions and kills the browser and driver processes of this JVM that outlive them,
+     * called on JVM exit
+     */
+    static void shutdown() {
+
+        for (Session session : new ArrayList<Session>(sessions.values())) {
+            openOnExit.incrementAndGet();
+            forceQuit(session, "still open on exit");
+        }
+        long deadline = System.currentTimeMillis() + REAP_WAIT_MILLIS;
+        while (!leftovers().isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        for (ProcessHandle process : leftovers()) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            if (process.destroyForcibly()) {
+                killed.incrementAndGet();
+            }
+        }
+        if (registered.get() > 0) {
+            report();
+        }
+    }
+
+    /**
+     * @return the browser and driver processes started by this JVM, top most only, still alive
+     */
+    private static List<ProcessHandle> leftovers() {
+        List<ProcessHandle> leftovers = new ArrayList<ProcessHandle>();
+        ProcessHandle.current().children().forEach(child -> {
+            if (child.isAlive() && PROCESS_NAMES.contains(processName(child))) {
+                leftovers.add(child);
+            }
+        });
+        return leftovers;
+    }
+
+    private static String processName(ProcessHandle process) {
+        String command = process.info().command().orElse("");
+        String name = command.substring(Math.max(command.lastIndexOf('/'), command.lastIndexOf('\\')) + 1);
+        return name.toLowerCase(Locale.ROOT).replaceAll("\\.exe$", "");
+    }
+
+
+    /**
+     * Finds the browser process of a local session: Firefox gives it on the capabilities, Chrome and Edge give
+     * the DevTools port it was started with
+     *
+     * @return the PID, -1 if unknown
+     */
+    @SuppressWarnings("unchecked")
+    static long browserPid(final WebDriver driver) {
+
+        if (!(driver instanceof HasCapabilities)) {
+            return -1;
+        }
+        Capabilities capabilities = ((HasCapabilities) driver).getCapabilities();
+        Object firefoxPid = capabilities.getCapability("moz:processID");
+        if (firefoxPid instanceof Number) {
+            return ((Number) firefoxPid).longValue();
+        }
+        for (String vendorOptions : new String[]{"goog:chromeOptions", "ms:edgeOptions"}) {
+            Object options = capabilities.getCapability(vendorOptions);
+            Object address = options instanceof Map ? ((Map<String, Object>) options).get("debuggerAddress") : null;
+            if (address != null) {
+                String port = "--remote-debugging-port=" + address.toString().replaceAll(".*:", "");
+                return ProcessHandle.current().descendants()
+                        .filter(process -> process.info().commandLine().orElse("").contains(port))
+                        .filter(process -> !process.parent().map(parent -> parent.info().commandLine().orElse("")
+                                .contains(port)).orElse(false))
+                        .mapToLong(ProcessHandle::pid).findFirst().orElse(-1);
+            }
+        }
+        return -1;
+    }
+
+
+    private static final class Session {
+
+        private final long id;
+        private final ITestResult owner;
+        private final boolean local;
+        private final long pid;
+        private final long created = System.currentTimeMillis();
+        private WebDriver driver;
+        private long finishedSeen = 0;
+
+        private Session(long id, ITestResult owner, boolean local, long pid) {
+            this.id = id;
+            this.owner = owner;
+            this.local = local;
+            this.pid = pid;
+        }
+
+        private String ownerName() {
+            return owner == null ? "no test" : owner.getMethod().getRealClass().getSimpleName() + "."
+                    + owner.getMethod().getMethodName();
+        }
+    }
+
+
+    /**
+     * Takes the session out of the registry once it is quit (public, the decorator calls it by reflection)
+     */
+    public static final class QuitListener implements WebDriverListener {
+
+        private final Session session;
+
+        private QuitListener(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public void afterQuit(final WebDriver driver) {
+            remove(session);
+        }
+    }
+}
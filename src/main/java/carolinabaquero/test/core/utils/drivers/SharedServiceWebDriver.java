@@ -0,0 +1,81 @@
+package com.carolinabaquero.test.core.utils.drivers;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.CommandInfo;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.HttpMethod;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+
+/**
+ * @author cbaquero
+ *         Session on a shared driver service, tells the pool when it is quit so the service can take another one.
+ *         Chromium based sessions can also run DevTools commands through the driver ('goog' / 'ms' vendor endpoint).
+ */
+class SharedServiceWebDriver extends RemoteWebDriver {
+
+    private static final String EXECUTE_CDP = "executeCdpCommand";
+
+    private final Runnable onQuit;
+    private final boolean cdpAvailable;
+    private boolean released = false;
+
+
+    /**
+     * @param serviceUrl the URL of the running driver service
+     * @param options    the browser options
+     * @param cdpVendor  the vendor prefix of the DevTools endpoint ('goog' for Chrome, 'ms' for Edge), null if none
+     * @param commands   wraps the executor the commands are sent through
+     * @param onQuit     called once when the session is quit
+     */
+    SharedServiceWebDriver(final URL serviceUrl, final Capabilities options, final String cdpVendor,
+                           final UnaryOperator<CommandExecutor> commands, final Runnable onQuit) {
+        super(commands.apply(new HttpCommandExecutor(cdpVendor == null ? Collections.<String, CommandInfo>emptyMap()
+                : Collections.singletonMap(EXECUTE_CDP,
+                new CommandInfo("/session/:sessionId/" + cdpVendor + "/cdp/execute", HttpMethod.POST)),
+                serviceUrl)), options);
+        this.onQuit = onQuit;
+        this.cdpAvailable = cdpVendor != null;
+    }
+
+
+    /**
+     * Runs a DevTools command on the browser
+     *
+     * @param command the command, e.g. Target.createBrowserContext
+     * @param params  the command parameters
+     * @return the command result
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Object> executeCdpCommand(final String command, final Map<String, Object> params) {
+        if (!cdpAvailable) {
+            throw new UnsupportedOperationException("DevTools commands are not available for " + getCapabilities().getBrowserName());
+        }
+        Map<String, Object> payload = new HashMap<String, Object>();
+        payload.put("cmd", command);
+        payload.put("params", params);
+        Object value = execute(EXECUTE_CDP, payload).getValue();
+        return value instanceof Map ? (Map<String, Object>) value : Collections.<String, Object>emptyMap();
+    }
+
+    @Override
+    public void quit() {
+        try {
+            super.quit();
+        } finally {
+            synchronized (this) {
+                if (!released) {
+                    released = true;
+                    onQuit.run();
+                }
+            }
+        }
+    }
+}
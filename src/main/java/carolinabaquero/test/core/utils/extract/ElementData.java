@@ -0,0 +1,76 @@
+package com.carolinabaquero.test.core.utils.extract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Data read from one element by {@link com.carolinabaquero.test.core.PageObject#extractElementsData}.
+ * Only the parts asked for on the {@link ElementProjection} are filled, the rest are null/empty.
+ *
+ * @param text       the element text (innerText, trimmed), null if not requested
+ * @param attributes the requested attribute values by name (null values for missing attributes)
+ * @param css        the requested computed CSS property values by name
+ * @param visible    whether the element is displayed, null if not requested
+ * @param children   the data of the elements found with each named sub-locator
+ * @author cbaquero
+ */
+public record ElementData(String text, Map<String, String> attributes, Map<String, String> css, Boolean visible,
+                          Map<String, List<ElementData>> children) {
+
+    public String attribute(String name) {
+        return attributes.get(name);
+    }
+
+    public String cssValue(String property) {
+        return css.get(property);
+    }
+
+    public List<ElementData> children(String name) {
+        List<ElementData> found = children.get(name);
+        return found == null ? Collections.<ElementData>emptyList() : found;
+    }
+
+
+    /**
+     * Builds the record from the object returned by the extraction script
+     *
+     * @param raw one item of the script result
+     * @return the element data
+     */
+    @SuppressWarnings("unchecked")
+    static ElementData fromScriptResult(Map<String, Object> raw) {
+        Map<String, List<ElementData>> children = new LinkedHashMap<>();
+        Object rawChildren = raw.get("children");
+        if (rawChildren instanceof Map) {
+            for (Map.Entry<String, Object> child : ((Map<String, Object>) rawChildren).entrySet()) {
+                children.put(child.getKey(), fromScriptResult((List<Object>) child.getValue()));
+            }
+        }
+        return new ElementData((String) raw.get("text"), toStringMap(raw.get("attributes")), toStringMap(raw.get("css")),
+                (Boolean) raw.get("visible"), Collections.unmodifiableMap(children));
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<ElementData> fromScriptResult(List<Object> rawItems) {
+        List<ElementData> items = new ArrayList<>(rawItems.size());
+        for (Object item : rawItems) {
+            items.add(fromScriptResult((Map<String, Object>) item));
+        }
+        return items;
+    }
+
+    private static Map<String, String> toStringMap(Object raw) {
+        if (!(raw instanceof Map)) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) raw).entrySet()) {
+            values.put(String.valueOf(entry.getKey()), entry.getValue() == null ? null : String.valueOf(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(values);
+    }
+}
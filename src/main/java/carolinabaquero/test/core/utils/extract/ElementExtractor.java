@@ -0,0 +1,157 @@
+package com.carolinabaquero.test.core.utils.extract;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * @author cbaquero
+ *         Reads the data of all the elements matching a locator with a single executeScript call per chunk,
+ *         instead of one remote call per element and property.
+ *         <p/>
+ *         Locators are resolved inside the browser (css selector, xpath, tag name, link text, and the id, name and
+ *         class name strategies By.id, By.name and By.className send). Custom locators that are not remotable are
+ *         found with one findElements call and the elements are passed to the script.
+ *         <p/>
+ *         Large result sets are read in chunks, each chunk resolves the locator again, so the page should not be
+ *         changing while it is read.
+ */
+public final class ElementExtractor {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final String SCRIPT =
+            "var locator = arguments[0], projection = arguments[1], offset = arguments[2], limit = arguments[3];"
+            + "var roots = arguments[4];"
+            + "var find = function (using, value, context) {"
+            + "  context = context || document;"
+            + "  if (using === 'css selector') { return Array.prototype.slice.call(context.querySelectorAll(value)); }"
+            + "  if (using === 'tag name') { return Array.prototype.slice.call(context.getElementsByTagName(value)); }"
+            + "  if (using === 'class name') { return Array.prototype.slice.call(context.getElementsByClassName(value)); }"
+            // the CSS the driver sends for By.id and By.name over the W3C protocol
+            + "  if (using === 'id') {"
+            + "    return Array.prototype.slice.call(context.querySelectorAll('#' + CSS.escape(value)));"
+            + "  }"
+            + "  if (using === 'name') {"
+            + "    return Array.prototype.slice.call(context.querySelectorAll('[name=\"' + CSS.escape(value) + '\"]'));"
+            + "  }"
+            + "  if (using === 'xpath') {"
+            + "    var found = document.evaluate(value, context, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "    var nodes = [];"
+            + "    for (var i = 0; i < found.snapshotLength; i++) {"
+            + "      if (found.snapshotItem(i).nodeType === 1) { nodes.push(found.snapshotItem(i)); }"
+            + "    }"
+            + "    return nodes;"
+            + "  }"
+            + "  if (using === 'link text' || using === 'partial link text') {"
+            + "    return Array.prototype.filter.call(context.querySelectorAll('a'), function (a) {"
+            + "      var t = (a.innerText || a.textContent || '').trim();"
+            + "      return using === 'link text' ? t === value : t.indexOf(value) >= 0;"
+            + "    });"
+            + "  }"
+            + "  throw new Error('Unsupported locator strategy: ' + using);"
+            + "};"
+            + "var isVisible = function (e) {"
+            + "  var style = window.getComputedStyle(e), rect = e.getBoundingClientRect();"
+            + "  return style.display !== 'none' && style.visibility !== 'hidden' && parseFloat(style.opacity) > 0"
+            + "      && (rect.width > 0 || rect.height > 0);"
+            + "};"
+            + "var read = function (e, p) {"
+            + "  var data = {};"
+            + "  if (p.text) { data.text = (e.innerText !== undefined ? e.innerText : e.textContent || '').trim(); }"
+            + "  if (p.visibility) { data.visible = isVisible(e); }"
+            + "  if (p.attributes.length) {"
+            + "    data.attributes = {};"
+            + "    p.attributes.forEach(function (a) { data.attributes[a] = e.getAttribute(a); });"
+            + "  }"
+            + "  if (p.css.length) {"
+            + "    var style = window.getComputedStyle(e);"
+            + "    data.css = {};"
+            + "    p.css.forEach(function (c) { data.css[c] = style.getPropertyValue(c); });"
+            + "  }"
+            + "  var names = Object.keys(p.children);"
+            + "  if (names.length) {"
+            + "    data.children = {};"
+            + "    names.forEach(function (name) {"
+            + "      var c = p.children[name];"
+            + "      data.children[name] = find(c.using, c.value, e).map(function (child) { return read(child, c.projection); });"
+            + "    });"
+            + "  }"
+            + "  return data;"
+            + "};"
+            + "var all = roots ? roots : find(locator.using, locator.value);"
+            + "return { total: all.length, items: all.slice(offset, offset + limit).map(function (e) { return read(e, projection); }) };";
+
+
+    private ElementExtractor() {
+
+    }
+
+
+    /**
+     * Reads the projected data of every element matching the locator
+     *
+     * @param driver     the driver to run the script with
+     * @param locator    the locator for the elements
+     * @param projection what to read from every element
+     * @param chunkSize  max amount of elements read per script call
+     * @return the data of every element, in document order
+     */
+    @SuppressWarnings("unchecked")
+    public static List<ElementData> extract(WebDriver driver, By locator, ElementProjection projection, int chunkSize) {
+        JavascriptExecutor executor = (JavascriptExecutor) driver;
+        Map<String, Object> projectionArgument = projection.toScriptArgument();
+        Map<String, Object> locatorArgument = null;
+        List<WebElement> roots = null;
+        if (locator instanceof By.Remotable) {
+            locatorArgument = toLocatorArgument(locator);
+        } else {
+            roots = driver.findElements(locator);
+        }
+
+        List<ElementData> data = new ArrayList<>();
+        long total = Long.MAX_VALUE;
+        int offset = 0;
+        while (offset < total) {
+            List<WebElement> chunkRoots = null;
+            if (roots != null) {
+                chunkRoots = roots.subList(offset, Math.min(roots.size(), offset + chunkSize));
+            }
+            Map<String, Object> result = (Map<String, Object>) executor.executeScript(SCRIPT, locatorArgument,
+                    projectionArgument, roots == null ? offset : 0, chunkSize, chunkRoots);
+            List<Object> items = (List<Object>) result.get("items");
+            data.addAll(ElementData.fromScriptResult(items));
+            total = roots == null ? ((Number) result.get("total")).longValue() : roots.size();
+            if (items.isEmpty()) {
+                break;
+            }
+            offset += items.size();
+        }
+        return data;
+    }
+
+
+    /**
+     * Converts a remotable locator into the strategy and value the script resolves in the browser
+     *
+     * @param locator a {@link By.Remotable} locator
+     * @return a map with the 'using' strategy and the 'value'
+     */
+    static Map<String, Object> toLocatorArgument(By locator) {
+        if (!(locator instanceof By.Remotable)) {
+            throw new IllegalArgumentException("Locator " + locator + " can not be resolved in the browser");
+        }
+        By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+        Map<String, Object> argument = new LinkedHashMap<>();
+        argument.put("using", parameters.using());
+        argument.put("value", parameters.value());
+        return argument;
+    }
+}
@@ -0,0 +1,104 @@
+package com.carolinabaquero.test.core.utils.extract;
+
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * @author cbaquero
+ *         Describes what to read from every element found by a bulk extraction: text, attributes,
+ *         computed CSS properties, visibility and nested sub-locators (e.g. the cells of each table row).
+ *         <pre>
+ *         ElementProjection row = ElementProjection.create()
+ *                 .attributes("data-id")
+ *                 .child("cells", By.tagName("td"), ElementProjection.create().text());
+ *         </pre>
+ *         XPath sub-locators are evaluated with the parent element as context, so they should be relative (".//td").
+ */
+public class ElementProjection {
+
+    private boolean text = false;
+    private boolean visibility = false;
+    private final List<String> attributes = new ArrayList<>();
+    private final List<String> cssProperties = new ArrayList<>();
+    private final Map<String, Child> children = new LinkedHashMap<>();
+
+
+    public static ElementProjection create() {
+        return new ElementProjection();
+    }
+
+    /**
+     * Reads the element text
+     */
+    public ElementProjection text() {
+        this.text = true;
+        return this;
+    }
+
+    /**
+     * Reads whether the element is displayed (not hidden by display, visibility or opacity and with a size)
+     */
+    public ElementProjection visibility() {
+        this.visibility = true;
+        return this;
+    }
+
+    /**
+     * Reads the given attributes
+     */
+    public ElementProjection attributes(String... names) {
+        this.attributes.addAll(Arrays.asList(names));
+        return this;
+    }
+
+    /**
+     * Reads the given computed CSS properties
+     */
+    public ElementProjection css(String... properties) {
+        this.cssProperties.addAll(Arrays.asList(properties));
+        return this;
+    }
+
+    /**
+     * Reads the elements found with the sub-locator inside every element, with their own projection
+     *
+     * @param name       the name to get the children by on {@link ElementData#children(String)}
+     * @param locator    the locator, relative to the parent element
+     * @param projection what to read from the children
+     */
+    public ElementProjection child(String name, By locator, ElementProjection projection) {
+        this.children.put(name, new Child(locator, projection));
+        return this;
+    }
+
+
+    /**
+     * Converts the projection into the argument the extraction script expects
+     *
+     * @return the projection as plain maps and lists, ready to be sent to the browser
+     */
+    Map<String, Object> toScriptArgument() {
+        Map<String, Object> argument = new LinkedHashMap<>();
+        argument.put("text", text);
+        argument.put("visibility", visibility);
+        argument.put("attributes", attributes);
+        argument.put("css", cssProperties);
+        Map<String, Object> childArguments = new LinkedHashMap<>();
+        for (Map.Entry<String, Child> child : children.entrySet()) {
+            Map<String, Object> childArgument = ElementExtractor.toLocatorArgument(child.getValue().locator());
+            childArgument.put("projection", child.getValue().projection().toScriptArgument());
+            childArguments.put(child.getKey(), childArgument);
+        }
+        argument.put("children", childArguments);
+        return argument;
+    }
+
+    private record Child(By locator, ElementProjection projection) {
+    }
+}
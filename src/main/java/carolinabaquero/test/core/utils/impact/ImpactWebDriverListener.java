@@ -0,0 +1,37 @@
+package com.carolinabaquero.test.core.utils.impact;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * @author cbaquero
+ *         Feeds {@link TestImpactRecorder} with every call made through a decorated driver (and its elements)
+ */
+public class ImpactWebDriverListener implements WebDriverListener {
+
+    /**
+     * @param driver the driver just started
+     * @return the decorated driver, to be used instead of the given one
+     */
+    public static WebDriver track(final WebDriver driver) {
+        return new EventFiringDecorator(new ImpactWebDriverListener()).decorate(driver);
+    }
+
+    @Override
+    public void beforeAnyCall(final Object target, final Method method, final Object[] args) {
+        By locator = null;
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof By) {
+                    locator = (By) arg;
+                }
+            }
+        }
+        TestImpactRecorder.driverCalled(locator);
+    }
+}
@@ -0,0 +1,128 @@
+package com.carolinabaquero.test.core.utils.impact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * @author cbaquero
+ *         Finds the method that encloses a line of a Java source file, so a diff can be narrowed to methods.
+ *         It is a light scanner, not a parser: comments and string literals are skipped, and every block opened
+ *         directly on the top level type body whose declaration ends like a method signature is a method.
+ *         Lines in fields, initializers, constructors and nested types belong to no method (null).
+ */
+final class SourceMembers {
+
+    private static final Pattern METHOD_DECLARATION =
+            Pattern.compile("(\\w+)\\s*\\([^()]*\\)\\s*(throws\\s+[\\w.,\\s]+)?$");
+    private static final Pattern ANNOTATION = Pattern.compile("@[\\w.]+(\\s*\\([^()]*\\))?");
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+
+    private final List<int[]> ranges = new ArrayList<int[]>();
+    private final List<String> names = new ArrayList<String>();
+
+
+    private SourceMembers(String source, String typeName) {
+        int depth = 0;
+        int parentheses = 0;
+        int line = 1;
+        int methodStart = -1;
+        String methodName = null;
+        StringBuilder declaration = new StringBuilder();
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            char next = i + 1 < source.length() ? source.charAt(i + 1) : 0;
+            if (c == '\n') {
+                line++;
+            }
+            if (c == '/' && next == '/') {
+                while (i + 1 < source.length() && source.charAt(i + 1) != '\n') {
+                    i++;
+                }
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                for (i += 2; i + 1 < source.length() && !(source.charAt(i) == '*' && source.charAt(i + 1) == '/'); i++) {
+                    if (source.charAt(i) == '\n') {
+                        line++;
+                    }
+                }
+                i++;
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                for (i++; i < source.length() && source.charAt(i) != c; i++) {
+                    if (source.charAt(i) == '\\') {
+                        i++;
+                    } else if (source.charAt(i) == '\n') {
+                        line++;
+                    }
+                }
+                declaration.append(' ');
+                continue;
+            }
+            if (depth == 1 && (c == '(' || c == ')')) {
+                parentheses += c == '(' ? 1 : -1;
+                declaration.append(c);
+            } else if (depth == 1 && parentheses > 0) {
+                // annotation arguments, e.g. groups = {"smoke"}
+                declaration.append(c);
+            } else if (c == '{') {
+                if (depth == 1) {
+                    String text = ANNOTATION.matcher(declaration).replaceAll(" ").trim();
+                    Matcher method = METHOD_DECLARATION.matcher(text);
+                    if (!text.contains("=") && method.find() && !method.group(1).equals(typeName)) {
+                        methodName = method.group(1);
+                        methodStart = line;
+                    }
+                }
+                depth++;
+                declaration.setLength(0);
+            } else if (c == '}') {
+                depth--;
+                if (depth == 1 && methodName != null) {
+                    ranges.add(new int[]{methodStart, line});
+                    names.add(methodName);
+                    methodName = null;
+                }
+                declaration.setLength(0);
+            } else if (c == ';') {
+                declaration.setLength(0);
+            } else if (depth == 1) {
+                declaration.append(c);
+            }
+        }
+    }
+
+
+    /**
+     * @param source   the Java source
+     * @param typeName the simple name of the top level type (constructors are not methods)
+     */
+    static SourceMembers of(final String source, final String typeName) {
+        return new SourceMembers(source, typeName);
+    }
+
+    /**
+     * @param line a 1 based line number
+     * @return the name of the method the line belongs to, null if it is outside any method
+     */
+    String methodAt(final int line) {
+        for (int i = 0; i < ranges.size(); i++) {
+            if (line >= ranges.get(i)[0] && line <= ranges.get(i)[1]) {
+                return names.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the declared package of the source, empty for the default package
+     */
+    static String packageOf(final String source) {
+        Matcher matcher = PACKAGE.matcher(source);
+        return matcher.find() ? matcher.group(1) : "";
+    }
+}
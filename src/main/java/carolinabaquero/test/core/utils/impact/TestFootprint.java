@@ -0,0 +1,86 @@
+package com.carolinabaquero.test.core.utils.impact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+
+/**
+ * @author cbaquero
+ *         What one test method exercised on its last run: page object classes, page object methods
+ *         ([class]#[method]) and locators ([class]|[By.toString()]), plus its groups.
+ */
+public class TestFootprint {
+
+    private final Set<String> pages = new ConcurrentSkipListSet<String>();
+    private final Set<String> methods = new ConcurrentSkipListSet<String>();
+    private final Set<String> locators = new ConcurrentSkipListSet<String>();
+    private final Set<String> groups = new ConcurrentSkipListSet<String>();
+
+
+    public Set<String> getPages() {
+        return pages;
+    }
+
+    public Set<String> getMethods() {
+        return methods;
+    }
+
+    public Set<String> getLocators() {
+        return locators;
+    }
+
+    public Set<String> getGroups() {
+        return groups;
+    }
+
+
+    /**
+     * @return the footprint as sorted plain collections, ready to be written as JSON
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("groups", new ArrayList<String>(groups));
+        map.put("pages", new ArrayList<String>(pages));
+        map.put("methods", new ArrayList<String>(methods));
+        map.put("locators", new ArrayList<String>(locators));
+        return map;
+    }
+
+    static TestFootprint fromMap(final Map<?, ?> map) {
+        TestFootprint footprint = new TestFootprint();
+        addAll(footprint.groups, map.get("groups"));
+        addAll(footprint.pages, map.get("pages"));
+        addAll(footprint.methods, map.get("methods"));
+        addAll(footprint.locators, map.get("locators"));
+        return footprint;
+    }
+
+    private static void addAll(Set<String> target, Object values) {
+        if (values instanceof Collection) {
+            for (Object value : (Collection<?>) values) {
+                target.add(String.valueOf(value));
+            }
+        }
+    }
+
+    /**
+     * @return the locator values (the part after 'By.xxx: ') used on the given page
+     */
+    List<String> locatorValues(final String page) {
+        List<String> values = new ArrayList<String>();
+        for (String locator : new TreeSet<String>(locators)) {
+            if (locator.startsWith(page + "|")) {
+                String by = locator.substring(page.length() + 1);
+                int separator = by.indexOf(": ");
+                values.add(separator < 0 ? by : by.substring(separator + 2));
+            }
+        }
+        return values;
+    }
+}
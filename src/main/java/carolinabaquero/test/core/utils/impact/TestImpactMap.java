@@ -0,0 +1,83 @@
+package com.carolinabaquero.test.core.utils.impact;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * @author cbaquero
+ *         The persisted map of test method ([class]#[method]) to {@link TestFootprint}, a sorted JSON file so it can
+ *         be kept in the repository or cached between CI runs and diffs stay readable.
+ */
+public class TestImpactMap {
+
+    private final Map<String, TestFootprint> tests = new TreeMap<String, TestFootprint>();
+
+
+    public Map<String, TestFootprint> getTests() {
+        return Collections.unmodifiableMap(tests);
+    }
+
+    /**
+     * Replaces the footprints of the given tests, the rest stay as recorded on previous runs
+     */
+    public void merge(final Map<String, TestFootprint> recorded) {
+        tests.putAll(recorded);
+    }
+
+
+    /**
+     * @param file the map file
+     * @return the map in the file, empty if the file does not exist
+     */
+    public static TestImpactMap load(final Path file) {
+        TestImpactMap map = new TestImpactMap();
+        if (!Files.exists(file)) {
+            return map;
+        }
+        try {
+            Map<String, Object> json = new Json().toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8),
+                    Json.MAP_TYPE);
+            Object tests = json.get("tests");
+            if (tests instanceof Map) {
+                for (Map.Entry<?, ?> test : ((Map<?, ?>) tests).entrySet()) {
+                    map.tests.put(String.valueOf(test.getKey()), TestFootprint.fromMap((Map<?, ?>) test.getValue()));
+                }
+            }
+            return map;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the test impact map " + file, e);
+        }
+    }
+
+    /**
+     * Writes the map, replacing the file only once it is completely written
+     */
+    public void save(final Path file) {
+        Map<String, Object> json = new LinkedHashMap<String, Object>();
+        Map<String, Object> footprints = new LinkedHashMap<String, Object>();
+        for (Map.Entry<String, TestFootprint> test : tests.entrySet()) {
+            footprints.put(test.getKey(), test.getValue().toMap());
+        }
+        json.put("tests", footprints);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            Files.write(temporary, new Json().toJson(json).getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the test impact map " + file, e);
+        }
+    }
+}
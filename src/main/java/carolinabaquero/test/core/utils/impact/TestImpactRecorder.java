@@ -0,0 +1,194 @@
+package com.carolinabaquero.test.core.utils.impact;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.PageObject;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.By;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+
+/**
+ * @author cbaquero
+ *         Records, while the tests run, which page objects, page object methods and locators every test method uses,
+ *         and merges it into the test impact map at the end of every TestNG test (see {@link TestImpactSelector}).
+ *         <p/>
+ *         The current test is kept on an inheritable thread local, so the asynchronous page object tasks
+ *         (which start a new thread per task) are recorded for the test that started them.
+ */
+public final class TestImpactRecorder {
+
+    private static final StackWalker STACK = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private static volatile boolean enabled = false;
+    private static volatile Path mapFile = Paths.get("test-impact.json");
+
+    private static final InheritableThreadLocal<TestFootprint> current = new InheritableThreadLocal<TestFootprint>();
+    private static final Map<String, TestFootprint> recorded = new ConcurrentHashMap<String, TestFootprint>();
+    // tests with a failed or skipped invocation on this run, their footprint may be incomplete
+    private static final Set<String> incomplete = ConcurrentHashMap.newKeySet();
+
+
+    private TestImpactRecorder() {
+
+    }
+
+
+    /**
+     * Turns the recording on/off and sets the map file from the given context
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        enabled = context.recordingTestImpact();
+        mapFile = Paths.get(context.getTestImpactFile());
+    }
+
+    public static boolean isEnabled() {
+
+        return enabled;
+    }
+
+
+    /**
+     * Starts recording for the given test on the current thread. Starting the same test again keeps recording
+     * on the same footprint (data driven invocations add up).
+     *
+     * @param testId [test class]#[test method]
+     * @param groups the test method groups
+     */
+    public static void startTest(final String testId, final String[] groups) {
+
+        if (!enabled) {
+            return;
+        }
+        TestFootprint footprint = recorded.computeIfAbsent(testId, id -> new TestFootprint());
+        if (groups != null) {
+            for (String group : groups) {
+                footprint.getGroups().add(group);
+            }
+        }
+        current.set(footprint);
+    }
+
+    /**
+     * Stops recording on the current thread
+     *
+     * @param testId   [test class]#[test method]
+     * @param complete false if the test failed or was skipped, so what it recorded may be partial
+     */
+    public static void finishTest(final String testId, final boolean complete) {
+
+        if (!enabled) {
+            return;
+        }
+        if (!complete) {
+            incomplete.add(testId);
+        }
+        current.remove();
+    }
+
+
+    /**
+     * Records a page object creation for the current test, with its page object superclasses
+     * and the page object methods creating it
+     *
+     * @param pageClass the page object class
+     */
+    public static void pageCreated(final Class<?> pageClass) {
+
+        TestFootprint footprint = current.get();
+        if (footprint == null) {
+            return;
+        }
+        for (Class<?> page = pageClass; page != null && page != PageObject.class; page = page.getSuperclass()) {
+            footprint.getPages().add(page.getName());
+        }
+        recordCallers(footprint, null);
+    }
+
+
+    /**
+     * Records the page object methods doing the current driver call, and the locator if the call uses one.
+     * Every page object method on the stack is recorded, so a change in a helper method and a change in the
+     * method calling it both select the test.
+     *
+     * @param locator the locator of the call, null if none
+     */
+    public static void driverCalled(final By locator) {
+
+        TestFootprint footprint = current.get();
+        if (footprint == null) {
+            return;
+        }
+        recordCallers(footprint, locator);
+    }
+
+    private static void recordCallers(TestFootprint footprint, By locator) {
+        List<StackWalker.StackFrame> callers = STACK.walk(frames -> frames
+                .filter(frame -> PageObject.class.isAssignableFrom(frame.getDeclaringClass())
+                        && frame.getDeclaringClass() != PageObject.class)
+                .collect(Collectors.toList()));
+        for (StackWalker.StackFrame caller : callers) {
+            String page = caller.getDeclaringClass().getName();
+            footprint.getPages().add(page);
+            if (!"<init>".equals(caller.getMethodName())) {
+                footprint.getMethods().add(page + "#" + methodName(caller.getMethodName()));
+            }
+        }
+        if (locator != null && !callers.isEmpty()) {
+            footprint.getLocators().add(callers.get(0).getDeclaringClass().getName() + "|" + locator);
+        }
+    }
+
+    /**
+     * lambda$login$0 -> login
+     */
+    private static String methodName(String frameMethod) {
+        if (frameMethod.startsWith("lambda$")) {
+            int end = frameMethod.indexOf('$', "lambda$".length());
+            return end < 0 ? frameMethod : frameMethod.substring("lambda$".length(), end);
+        }
+        return frameMethod;
+    }
+
+
+    /**
+     * Merges what was recorded so far into the map file. Tests that passed replace their previous footprint,
+     * tests that failed or were skipped add to it.
+     */
+    public static synchronized void save() {
+
+        if (!enabled || recorded.isEmpty()) {
+            return;
+        }
+        try {
+            TestImpactMap map = TestImpactMap.load(mapFile);
+            Map<String, TestFootprint> merged = new HashMap<String, TestFootprint>(recorded);
+            for (String testId : incomplete) {
+                TestFootprint previous = map.getTests().get(testId);
+                TestFootprint partial = merged.get(testId);
+                if (previous != null && partial != null) {
+                    partial.getGroups().addAll(previous.getGroups());
+                    partial.getPages().addAll(previous.getPages());
+                    partial.getMethods().addAll(previous.getMethods());
+                    partial.getLocators().addAll(previous.getLocators());
+                }
+            }
+            map.merge(merged);
+            map.save(mapFile);
+            CustomReporter.debug("[IMPACT] " + recorded.size() + " test footprints saved to " + mapFile);
+        } catch (UncheckedIOException e) {
+            CustomReporter.error("[IMPACT] Could not update the test impact map", e);
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.carolinabaquero.test.core.utils.impact;
+
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlPackage;
+import org.testng.xml.SuiteXmlParser;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * @author cbaquero
+ *         Selects the test methods affected by the changes since a git revision, using the test impact map recorded
+ *         by {@link TestImpactRecorder}, and writes a TestNG suite running only them plus the 'smoke' group.
+ *         <pre>
+ *         java ... TestImpactSelector [base revision] [impact map] [suite] [impacted suite]
+ *         defaults:                   HEAD            test-impact.json  testng.xml  testng-impacted.xml
+ *         mvn test -DsuiteXmlFile=testng-impacted.xml
+ *         </pre>
+ *         Changed lines are narrowed to methods: a changed test method selects itself, a changed page object method
+ *         selects the tests that went through it, a changed locator selects the tests that used its value. Changes
+ *         outside methods select every test of the class or page, and a changed test class method the map does not
+ *         know (a helper, a new test) runs the whole class.
+ *         <p/>
+ *         Anything the map can not account for (non Java sources and resources, classes no test went through,
+ *         pom.xml, properties, suites) falls back to the full suite, a missed test costs more than a full run.
+ */
+public final class TestImpactSelector {
+
+    public static final String SMOKE_GROUP = "smoke";
+
+    private static final Pattern HUNK = Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@");
+    private static final Pattern LOCATOR_VALUE =
+            Pattern.compile("By\\.\\w+\\(\\s*\"((?:[^\"\\\\]|\\\\.)*)\"\\s*\\)");
+    private static final List<String> FULL_RUN_FILES = Arrays.asList("pom.xml", ".properties", ".properties.template");
+
+    private final TestImpactMap map;
+    private final List<String> fullRunReasons = new ArrayList<String>();
+    // test class -> included methods, an empty set runs the whole class
+    private final Map<String, Set<String>> selected = new TreeMap<String, Set<String>>();
+    private final Set<String> wholeClasses = new TreeSet<String>();
+
+
+    TestImpactSelector(final TestImpactMap map) {
+        this.map = map;
+    }
+
+
+    public static void main(String[] args) {
+
+        String base = args.length > 0 ? args[0] : "HEAD";
+        Path mapFile = Paths.get(args.length > 1 ? args[1] : "test-impact.json");
+        Path suiteFile = Paths.get(args.length > 2 ? args[2] : "testng.xml");
+        Path output = Paths.get(args.length > 3 ? args[3] : "testng-impacted.xml");
+
+        TestImpactSelector selector = new TestImpactSelector(TestImpactMap.load(mapFile));
+        if (selector.map.getTests().isEmpty()) {
+            selector.fullRunReasons.add("no test impact map at " + mapFile);
+        } else {
+            for (String path : changedFiles(base)) {
+                selector.fileChanged(base, path);
+            }
+        }
+        selector.writeSuite(suiteFile, output);
+    }
+
+
+    /**
+     * @return the paths (relative to the working directory) changed since the base revision, tracked or not
+     */
+    private static Set<String> changedFiles(String base) {
+        Set<String> paths = new TreeSet<String>();
+        for (String path : git("diff", "--name-only", "--relative", base).split("\n")) {
+            if (!path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+        for (String path : git("ls-files", "--others", "--exclude-standard").split("\n")) {
+            if (!path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    private void fileChanged(String base, String path) {
+        String fileName = Paths.get(path).getFileName().toString();
+        if (!fileName.endsWith(".java")) {
+            if (path.startsWith("src/") || path.startsWith("testng") || FULL_RUN_FILES.stream().anyMatch(fileName::endsWith)) {
+                fullRunReasons.add(path + " changed");
+            }
+            return;
+        }
+
+        String newSource = read(Paths.get(path));
+        String oldSource = gitShow(base, path);
+        String diff = oldSource == null || newSource == null ? null : git("diff", "-U0", "--relative", base, "--", path);
+        sourceChanged(path, oldSource, newSource, diff);
+    }
+
+    /**
+     * Selects the tests affected by the change of a Java source
+     *
+     * @param path      the source path, relative to the working directory
+     * @param oldSource the source on the base revision, null if it was added
+     * @param newSource the source now, null if it was deleted
+     * @param diff      the diff -U0 between both, null if one of them is null
+     */
+    void sourceChanged(final String path, final String oldSource, final String newSource, final String diff) {
+        String fileName = Paths.get(path).getFileName().toString();
+        String typeName = fileName.substring(0, fileName.length() - ".java".length());
+        String source = newSource != null ? newSource : oldSource;
+        if (source == null) {
+            return;
+        }
+        String className = qualifiedName(SourceMembers.packageOf(source), typeName);
+        Change change = new Change();
+        SourceMembers oldMembers = oldSource == null ? null : SourceMembers.of(oldSource, typeName);
+        SourceMembers newMembers = newSource == null ? null : SourceMembers.of(newSource, typeName);
+        if (oldSource == null || newSource == null) {
+            // added or deleted file, every line counts
+            change.lines(newSource != null ? newSource : oldSource, newSource != null ? newMembers : oldMembers);
+        } else {
+            change.hunks(diff, oldMembers, newMembers);
+        }
+        if (change.isEmpty()) {
+            return;
+        }
+
+        boolean known = select(className, change);
+        if (!known && path.startsWith("src/")) {
+            if (newSource != null && source.contains("@Test")) {
+                // a new test class, not on the map yet
+                includeClass(className);
+            } else {
+                fullRunReasons.add(className + " changed and no recorded test went through it");
+            }
+        }
+    }
+
+    /**
+     * Selects the tests affected by a change on the given class
+     *
+     * @return false if the class is not on the impact map, neither as test class nor as page
+     */
+    private boolean select(String className, Change change) {
+        boolean known = false;
+        for (Map.Entry<String, TestFootprint> test : map.getTests().entrySet()) {
+            String testId = test.getKey();
+            TestFootprint footprint = test.getValue();
+            String testClass = testId.substring(0, testId.indexOf('#'));
+            String testMethod = testId.substring(testId.indexOf('#') + 1);
+
+            if (testClass.equals(className)) {
+                known = true;
+                boolean unrecordedChanged = false;
+                for (String method : change.methods) {
+                    unrecordedChanged |= !map.getTests().containsKey(className + "#" + method);
+                }
+                if (unrecordedChanged) {
+                    // a helper or a new test method, which the map can not tell apart
+                    includeClass(testClass);
+                } else if (!change.classLevelLines.isEmpty() || change.methods.contains(testMethod)) {
+                    include(testClass, testMethod);
+                }
+            }
+
+            if (footprint.getPages().contains(className)) {
+                known = true;
+                boolean affected = false;
+                for (String method : change.methods) {
+                    affected |= footprint.getMethods().contains(className + "#" + method);
+                }
+                if (!change.classLevelLines.isEmpty()) {
+                    List<String> changedLocators = change.locatorValues();
+                    if (changedLocators == null) {
+                        affected = true;
+                    } else {
+                        affected |= !Collections.disjoint(changedLocators, footprint.locatorValues(className));
+                    }
+                }
+                if (affected) {
+                    include(testClass, testMethod);
+                }
+            }
+        }
+        return known;
+    }
+
+    private void include(String testClass, String testMethod) {
+        if (!wholeClasses.contains(testClass)) {
+            selected.computeIfAbsent(testClass, c -> new TreeSet<String>()).add(testMethod);
+        }
+    }
+
+    private void includeClass(String testClass) {
+        wholeClasses.add(testClass);
+        selected.put(testClass, new TreeSet<String>());
+    }
+
+    /**
+     * @return test class -> selected methods so far, an empty set for the whole class
+     */
+    Map<String, Set<String>> getSelected() {
+        return Collections.unmodifiableMap(selected);
+    }
+
+    /**
+     * @return why the full suite has to run, empty if the change could be narrowed
+     */
+    List<String> getFullRunReasons() {
+        return Collections.unmodifiableList(fullRunReasons);
+    }
+
+
+    /**
+     * Writes the suite to run: a copy of the given suite with the selected methods on each test, plus a smoke test
+     * for each, or the given suite itself if the change can not be narrowed
+     */
+    private void writeSuite(Path suiteFile, Path output) {
+        try {
+            if (!fullRunReasons.isEmpty()) {
+                for (String reason : fullRunReasons) {
+                    CustomReporter.info("[IMPACT] Full run: " + reason);
+                }
+                Files.copy(suiteFile, output, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+
+            XmlSuite suite;
+            try (InputStream in = Files.newInputStream(suiteFile)) {
+                suite = new SuiteXmlParser().parse(suiteFile.toString(), in, false);
+            }
+            Set<String> testClasses = new TreeSet<String>();
+            for (String testId : map.getTests().keySet()) {
+                testClasses.add(testId.substring(0, testId.indexOf('#')));
+            }
+            testClasses.addAll(selected.keySet());
+
+            List<XmlTest> originals = new ArrayList<XmlTest>(suite.getTests());
+            suite.getTests().clear();
+            for (XmlTest original : originals) {
+                if (!selected.isEmpty()) {
+                    XmlTest impacted = copy(original, original.getName());
+                    impacted.setIncludedGroups(new ArrayList<String>(original.getIncludedGroups()));
+                    for (Map.Entry<String, Set<String>> testClass : selected.entrySet()) {
+                        XmlClass xmlClass = new XmlClass(testClass.getKey(), false);
+                        for (String method : testClass.getValue()) {
+                            xmlClass.getIncludedMethods().add(new XmlInclude(method));
+                        }
+                        impacted.getXmlClasses().add(xmlClass);
+                    }
+                }
+                XmlTest smoke = copy(original, original.getName() + " - " + SMOKE_GROUP);
+                smoke.addIncludedGroup(SMOKE_GROUP);
+                for (String testClass : testClasses) {
+                    smoke.getXmlClasses().add(new XmlClass(testClass, false));
+                }
+            }
+            Files.write(output, suite.toXml().getBytes(StandardCharsets.UTF_8));
+
+            int methods = 0;
+            for (Set<String> testClass : selected.values()) {
+                methods += testClass.size();
+            }
+            CustomReporter.info("[IMPACT] " + methods + " test methods in " + (selected.size() - wholeClasses.size())
+                    + " classes and " + wholeClasses.size() + " whole classes selected out of "
+                    + map.getTests().size() + " recorded, plus the '" + SMOKE_GROUP + "' group. Suite: " + output);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the impacted suite " + output, e);
+        }
+    }
+
+    /**
+     * A test with the same parameters and settings as the original, without classes or packages
+     */
+    private static XmlTest copy(XmlTest original, String name) {
+        XmlTest test = new XmlTest(original.getSuite());
+        test.setName(name);
+        test.setParameters(original.getLocalParameters());
+        test.setParallel(original.getParallel());
+        test.setThreadCount(original.getThreadCount());
+        test.setPreserveOrder(original.getPreserveOrder());
+        test.setGroupByInstances(original.getGroupByInstances());
+        test.setExcludedGroups(new ArrayList<String>(original.getExcludedGroups()));
+        test.setPackages(new ArrayList<XmlPackage>());
+        return test;
+    }
+
+
+    /**
+     * The lines changed on one Java file, by method
+     */
+    private static final class Change {
+
+        private final Set<String> methods = new TreeSet<String>();
+        private final List<String> classLevelLines = new ArrayList<String>();
+
+        boolean isEmpty() {
+            return methods.isEmpty() && classLevelLines.isEmpty();
+        }
+
+        void lines(String source, SourceMembers members) {
+            String[] lines = source.split("\n", -1);
+            for (int i = 0; i < lines.length; i++) {
+                line(i + 1, lines[i], members);
+            }
+        }
+
+        void hunks(String diff, SourceMembers oldMembers, SourceMembers newMembers) {
+            int oldLine = 0;
+            int newLine = 0;
+            for (String line : diff.split("\n")) {
+                Matcher hunk = HUNK.matcher(line);
+                if (hunk.find()) {
+                    oldLine = Integer.parseInt(hunk.group(1));
+                    newLine = Integer.parseInt(hunk.group(3));
+                } else if (line.startsWith("-") && !line.startsWith("---")) {
+                    line(oldLine++, line.substring(1), oldMembers);
+                } else if (line.startsWith("+") && !line.startsWith("+++")) {
+                    line(newLine++, line.substring(1), newMembers);
+                }
+            }
+        }
+
+        private void line(int number, String text, SourceMembers members) {
+            String code = text.trim();
+            if (code.isEmpty() || code.startsWith("//") || code.startsWith("*") || code.startsWith("/*")
+                    || code.startsWith("import ") || code.startsWith("package ")) {
+                return;
+            }
+            String method = members.methodAt(number);
+            if (method != null) {
+                methods.add(method);
+            } else {
+                classLevelLines.add(code);
+            }
+        }
+
+        /**
+         * @return the literal values of the locators on the changed class level lines,
+         * null if any of those lines is not a locator (the change can not be narrowed)
+         */
+        List<String> locatorValues() {
+            List<String> values = new ArrayList<String>();
+            for (String line : classLevelLines) {
+                if (line.startsWith("@") && !line.contains("By.")) {
+                    continue;
+                }
+                Matcher locator = LOCATOR_VALUE.matcher(line);
+                if (!locator.find()) {
+                    return null;
+                }
+                do {
+                    values.add(locator.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+                } while (locator.find());
+            }
+            return values;
+        }
+    }
+
+
+    private static String qualifiedName(String packageName, String typeName) {
+        return packageName.isEmpty() ? typeName : packageName + "." + typeName;
+    }
+
+    private static String read(Path file) {
+        try {
+            return Files.exists(file) ? new String(Files.readAllBytes(file), StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file, e);
+        }
+    }
+
+    /**
+     * @return the file content on the given revision, null if it did not exist there
+     */
+    private static String gitShow(String revision, String path) {
+        try {
+            return git("show", revision + ":./" + path);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static String git(String... arguments) {
+        List<String> command = new ArrayList<String>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        try {
+            Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (InputStream in = process.getInputStream()) {
+                in.transferTo(output);
+            }
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("git " + String.join(" ", arguments) + " failed");
+            }
+            return output.toString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not run git", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted running git", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.carolinabaquero.test.core.utils.load;
+
+import org.openqa.selenium.WebDriver;
+
+
+/**
+ * @author cbaquero
+ *         One pass of a virtual user through the application, written with the same page objects as the tests.
+ *         Every action worth measuring goes through {@link JourneySteps#step(String, JourneySteps.Step)}:
+ *         <pre>
+ *         (driver, steps) -&gt; {
+ *             PublicHomePage home = steps.step("open", () -&gt; openHome(driver));
+ *             LoginPage login = steps.step("goToLoginPage", home::goToLoginPage);
+ *             steps.think();
+ *             steps.step("login", () -&gt; login.login(user, password));
+ *         }
+ *         </pre>
+ *         A journey that throws is counted as failed, and its user goes on with a new session.
+ */
+@FunctionalInterface
+public interface Journey {
+
+    /**
+     * @param driver the session of the virtual user, cookies already deleted
+     * @param steps  records the steps of this pass
+     */
+    void run(WebDriver driver, JourneySteps steps) throws Exception;
+}
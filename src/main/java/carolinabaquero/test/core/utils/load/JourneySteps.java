@@ -0,0 +1,64 @@
+package com.carolinabaquero.test.core.utils.load;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * @author cbaquero
+ *         Times the steps of a {@link Journey} pass for the {@link LoadRunner} statistics, and pauses between them
+ *         like a user would.
+ */
+public final class JourneySteps {
+
+    /**
+     * A measured action, usually a page object call that returns the next page object
+     */
+    @FunctionalInterface
+    public interface Step<T> {
+        T run() throws Exception;
+    }
+
+    private final LoadStatistics statistics;
+    private final long thinkTimeMillis;
+    private final CountDownLatch stopped;
+
+
+    JourneySteps(final LoadStatistics statistics, final long thinkTimeMillis, final CountDownLatch stopped) {
+        this.statistics = statistics;
+        this.thinkTimeMillis = thinkTimeMillis;
+        this.stopped = stopped;
+    }
+
+
+    /**
+     * Runs the action and records how long it took, and whether it failed, under the step name
+     *
+     * @param name   the step name on the report, the same for every pass
+     * @param action the action to measure
+     * @return the action result
+     * @throws Exception whatever the action threw, after recording it as a failed step
+     */
+    public <T> T step(final String name, final Step<T> action) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T result = action.run();
+            statistics.record(name, System.nanoTime() - start, false);
+            return result;
+        } catch (Throwable failure) {
+            statistics.record(name, System.nanoTime() - start, true);
+            throw failure;
+        }
+    }
+
+    /**
+     * Pauses for the think time of the load profile, give or take 50%. Returns right away when the run stops.
+     */
+    public void think() throws InterruptedException {
+        if (thinkTimeMillis > 0) {
+            long pause = thinkTimeMillis / 2 + ThreadLocalRandom.current().nextLong(thinkTimeMillis + 1);
+            stopped.await(pause, TimeUnit.MILLISECONDS);
+        }
+    }
+}
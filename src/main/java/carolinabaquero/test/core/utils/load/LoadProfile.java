@@ -0,0 +1,31 @@
+package com.carolinabaquero.test.core.utils.load;
+
+import com.carolinabaquero.test.core.AppContext;
+
+
+/**
+ * How a load run drives its virtual users, and when it gives up.
+ *
+ * @param users            virtual users, each on its own browser session
+ * @param rampUpSeconds    time to start all the users, evenly spread
+ * @param durationSeconds  length of the whole run, ramp-up included
+ * @param targetRate       journeys per minute for all the users together, 0 to let every user go as fast as it can
+ * @param thinkTimeMillis  average pause of {@link JourneySteps#think()}, each pause is 50% to 150% of it
+ * @param maxErrorPercent  the run stops when more journeys than this fail within a check window
+ * @param maxStepP95Millis the run stops when the 95th percentile of any step within a check window is over this,
+ *                         0 for no limit
+ * @author cbaquero
+ */
+public record LoadProfile(int users, int rampUpSeconds, int durationSeconds, double targetRate,
+                          long thinkTimeMillis, double maxErrorPercent, long maxStepP95Millis) {
+
+    /**
+     * @param context the AppContext for this run
+     * @return the load profile given on the properties file
+     */
+    public static LoadProfile from(final AppContext context) {
+        return new LoadProfile(context.getLoadUsers(), context.getLoadRampUpSeconds(),
+                context.getLoadDurationSeconds(), context.getLoadTargetRate(), context.getLoadThinkTimeMillis(),
+                context.getLoadMaxErrorPercent(), context.getLoadMaxStepP95Millis());
+    }
+}
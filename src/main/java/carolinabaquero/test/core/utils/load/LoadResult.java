@@ -0,0 +1,35 @@
+package com.carolinabaquero.test.core.utils.load;
+
+import java.nio.file.Path;
+import java.util.List;
+
+
+/**
+ * Outcome of a load run.
+ *
+ * @param name           the run name
+ * @param stopReason     the exceeded threshold that stopped the run, null if it ran for its whole duration
+ * @param elapsedMillis  time from the first user start to the last user stop
+ * @param journeys       finished journeys, failed ones included
+ * @param failedJourneys journeys that threw
+ * @param steps          response times by step, in the order the steps first ran
+ * @param report         the directory with the steps and timeline CSV files
+ * @author cbaquero
+ */
+public record LoadResult(String name, String stopReason, long elapsedMillis, long journeys, long failedJourneys,
+                         List<StepSummary> steps, Path report) {
+
+    /**
+     * @return true if the run was stopped by an error or latency threshold
+     */
+    public boolean thresholdExceeded() {
+        return stopReason != null;
+    }
+
+    /**
+     * @return finished journeys per minute over the whole run
+     */
+    public double journeysPerMinute() {
+        return elapsedMillis == 0 ? 0 : journeys * 60000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,260 @@
+package com.carolinabaquero.test.core.utils.load;
+
+import com.carolinabaquero.test.core.utils.perf.MetricSeries;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import com.carolinabaquero.test.core.utils.threads.BoundedVirtualThreadExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * @author cbaquero
+ *         Runs a {@link Journey} as virtual users, each one on its own browser session, following a
+ *         {@link LoadProfile}: users start evenly over the ramp-up, run the journey again and again (paced to the
+ *         target rate, if any) and stop at the end of the duration.
+ *         <p/>
+ *         Every {@value #CHECK_SECONDS} seconds the last window is checked against the error and latency
+ *         thresholds, a progress line is reported and a line is added to the timeline. When a threshold is
+ *         exceeded the run stops: every user ends its current journey and quits its session.
+ *         <p/>
+ *         Users are virtual threads, so a single JVM can drive as many Grid sessions as the Grid gives.
+ *         Every journey starts with the cookies deleted; after a failed journey the user quits its session and
+ *         opens a new one, as the browser state is unknown.
+ *         <p/>
+ *         Writes [report]/[name]-[time]/steps.csv and timeline.csv.
+ */
+public final class LoadRunner {
+
+    static final int CHECK_SECONDS = 5;
+    // a window with fewer journeys says nothing about the error rate
+    static final int MIN_WINDOW_JOURNEYS = 5;
+    private static final DateTimeFormatter RUN_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String NEW_SESSION_STEP = "newSession";
+
+    private final String name;
+    private final LoadProfile profile;
+    private final Callable<WebDriver> sessions;
+    private final Journey journey;
+    private final Path reportDirectory;
+
+    private final LoadStatistics statistics = new LoadStatistics();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    private final AtomicLong nextStart = new AtomicLong();
+    private volatile String stopReason;
+
+
+    /**
+     * @param name            the run name, for the report
+     * @param profile         users, ramp-up, duration, rate and thresholds
+     * @param sessions        opens a new browser session for a user
+     * @param journey         what every user does, again and again
+     * @param reportDirectory where the report directory of the run is created
+     */
+    public LoadRunner(final String name, final LoadProfile profile, final Callable<WebDriver> sessions,
+                      final Journey journey, final Path reportDirectory) {
+        this.name = name;
+        this.profile = profile;
+        this.sessions = sessions;
+        this.journey = journey;
+        this.reportDirectory = reportDirectory;
+    }
+
+
+    /**
+     * Runs the load and waits for every user to stop
+     *
+     * @return the statistics of the run
+     */
+    public LoadResult run() throws IOException, InterruptedException {
+
+        Path report = reportDirectory.resolve(name + "-" + LocalDateTime.now().format(RUN_TIME));
+        Files.createDirectories(report);
+        CustomReporter.info("[LOAD] " + name + ": " + profile.users() + " users over " + profile.rampUpSeconds()
+                + " s, " + profile.durationSeconds() + " s" + (profile.targetRate() > 0
+                ? ", " + profile.targetRate() + " journeys/min" : ""));
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(profile.durationSeconds());
+        nextStart.set(start);
+        ExecutorService users = new BoundedVirtualThreadExecutor("load-user-", Math.max(1, profile.users()));
+        for (int user = 0; user < profile.users(); user++) {
+            long userStart = start + TimeUnit.SECONDS.toNanos(profile.rampUpSeconds()) * user
+                    / Math.max(1, profile.users());
+            users.execute(() -> runUser(userStart, end));
+        }
+        users.shutdown();
+
+        try (BufferedWriter timeline = Files.newBufferedWriter(report.resolve("timeline.csv"),
+                StandardCharsets.UTF_8)) {
+            timeline.write("second,activeUsers,journeys,failedJourneys,journeysPerMinute,slowestStep,slowestStepP95Millis\n");
+            long nextCheck = start;
+            while (!users.isTerminated()) {
+                nextCheck += TimeUnit.SECONDS.toNanos(CHECK_SECONDS);
+                if (users.awaitTermination(Math.max(0, nextCheck - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+                check(timeline, (System.nanoTime() - start) / 1_000_000_000);
+            }
+            // the journeys finished since the last check
+            check(timeline, (System.nanoTime() - start) / 1_000_000_000);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        LoadResult result = new LoadResult(name, stopReason, elapsedMillis, statistics.journeys(),
+                statistics.failedJourneys(), statistics.summary(), report);
+        writeSteps(result);
+        CustomReporter.info(String.format(Locale.ROOT, "[LOAD] %s: %d journeys (%d failed) in %d s, %.1f journeys/min%s",
+                name, result.journeys(), result.failedJourneys(), elapsedMillis / 1000, result.journeysPerMinute(),
+                stopReason == null ? "" : ", stopped: " + stopReason));
+        for (StepSummary step : result.steps()) {
+            CustomReporter.info(String.format(Locale.ROOT, "[LOAD]   %-24s %6d runs %5d errors  p50 %6d ms  p95 %6d ms"
+                    + "  p99 %6d ms  max %6d ms", step.step(), step.count(), step.errors(), step.p50Millis(),
+                    step.p95Millis(), step.p99Millis(), step.maxMillis()));
+        }
+        return result;
+    }
+
+
+    private void runUser(final long userStart, final long end) {
+        try {
+            if (stopped.await(userStart - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        activeUsers.incrementAndGet();
+        WebDriver driver = null;
+        try {
+            JourneySteps steps = new JourneySteps(statistics, profile.thinkTimeMillis(), stopped);
+            while (System.nanoTime() < end && stopped.getCount() > 0) {
+                if (!pace(end)) {
+                    break;
+                }
+                boolean failed = false;
+                try {
+                    if (driver == null) {
+                        driver = steps.step(NEW_SESSION_STEP, sessions::call);
+                    }
+                    driver.manage().deleteAllCookies();
+                    journey.run(driver, steps);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception | AssertionError e) {
+                    failed = true;
+                    CustomReporter.debug("[LOAD] Journey failed: " + e);
+                    quit(driver);
+                    driver = null;
+                }
+                statistics.journeyFinished(failed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            quit(driver);
+            activeUsers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Waits for the next journey slot of the target rate. Slots missed because every user was busy are not
+     * made up later.
+     *
+     * @return false if the run stopped or ended while waiting
+     */
+    private boolean pace(final long end) throws InterruptedException {
+        if (profile.targetRate() <= 0) {
+            return true;
+        }
+        long interval = (long) (60_000_000_000L / profile.targetRate());
+        long now = System.nanoTime();
+        long slot = Math.max(now, nextStart.getAndUpdate(next -> Math.max(next, now) + interval));
+        return slot < end && !stopped.await(slot - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private void check(final BufferedWriter timeline, final long second) throws IOException {
+        LoadStatistics.Window window = statistics.nextWindow();
+        String slowest = "";
+        long slowestP95 = 0;
+        for (Map.Entry<String, MetricSeries> step : window.steps().entrySet()) {
+            long p95 = step.getValue().percentile(95);
+            if (p95 >= slowestP95 && step.getValue().size() > 0) {
+                slowest = step.getKey();
+                slowestP95 = p95;
+            }
+        }
+        double perMinute = window.journeys() * 60.0 / CHECK_SECONDS;
+        timeline.write(String.format(Locale.ROOT, "%d,%d,%d,%d,%.1f,%s,%d%n", second, activeUsers.get(),
+                window.journeys(), window.failedJourneys(), perMinute, slowest, slowestP95));
+        timeline.flush();
+        CustomReporter.info(String.format(Locale.ROOT, "[LOAD] %4d s: %d users, %.1f journeys/min, %d failed,"
+                + " slowest step %s p95 %d ms", second, activeUsers.get(), perMinute, window.failedJourneys(),
+                slowest.isEmpty() ? "-" : slowest, slowestP95));
+
+        if (stopReason != null) {
+            return;
+        }
+        double errorPercent = window.journeys() == 0 ? 0 : window.failedJourneys() * 100.0 / window.journeys();
+        if (window.journeys() >= MIN_WINDOW_JOURNEYS && errorPercent > profile.maxErrorPercent()) {
+            stop(String.format(Locale.ROOT, "%.1f%% of the journeys failed at %d s, over %.1f%%", errorPercent,
+                    second, profile.maxErrorPercent()));
+        } else if (profile.maxStepP95Millis() > 0 && slowestP95 > profile.maxStepP95Millis()) {
+            stop("p95 of " + slowest + " was " + slowestP95 + " ms at " + second + " s, over "
+                    + profile.maxStepP95Millis() + " ms");
+        }
+    }
+
+    /**
+     * Stops the run: users end their current journey and quit
+     *
+     * @param reason why, for the result
+     */
+    public void stop(final String reason) {
+        if (stopReason == null) {
+            stopReason = reason;
+            CustomReporter.warning("[LOAD] Stopping " + name + ": " + reason);
+        }
+        stopped.countDown();
+    }
+
+    private void writeSteps(final LoadResult result) throws IOException {
+        try (BufferedWriter steps = Files.newBufferedWriter(result.report().resolve("steps.csv"),
+                StandardCharsets.UTF_8)) {
+            steps.write("step,count,errors,meanMillis,p50Millis,p90Millis,p95Millis,p99Millis,maxMillis\n");
+            List<StepSummary> summary = result.steps();
+            for (StepSummary step : summary) {
+                steps.write(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%d,%d,%d,%d,%d%n", step.step(), step.count(),
+                        step.errors(), step.meanMillis(), step.p50Millis(), step.p90Millis(), step.p95Millis(),
+                        step.p99Millis(), step.maxMillis()));
+            }
+        }
+    }
+
+    private static void quit(final WebDriver driver) {
+        if (driver != null) {
+            try {
+                driver.quit();
+            } catch (RuntimeException e) {
+                CustomReporter.debug("[LOAD] Could not quit a session: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.carolinabaquero.test.core.utils.load;
+
+import com.carolinabaquero.test.core.utils.perf.MetricSeries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * @author cbaquero
+ *         Step times and journey counts of a load run. Every sample goes to the series of the whole run and to
+ *         the one of the current check window, which {@link LoadRunner} takes and replaces every few seconds.
+ */
+final class LoadStatistics {
+
+    private final Map<String, StepSeries> steps = Collections.synchronizedMap(new LinkedHashMap<String, StepSeries>());
+    private final LongAdder journeys = new LongAdder();
+    private final LongAdder failedJourneys = new LongAdder();
+    private final AtomicLong windowJourneys = new AtomicLong();
+    private final AtomicLong windowFailedJourneys = new AtomicLong();
+
+
+    void record(final String step, final long nanos, final boolean failed) {
+        steps.computeIfAbsent(step, name -> new StepSeries()).add(nanos / 1_000_000, failed);
+    }
+
+    void journeyFinished(final boolean failed) {
+        journeys.increment();
+        windowJourneys.incrementAndGet();
+        if (failed) {
+            failedJourneys.increment();
+            windowFailedJourneys.incrementAndGet();
+        }
+    }
+
+    long journeys() {
+        return journeys.sum();
+    }
+
+    long failedJourneys() {
+        return failedJourneys.sum();
+    }
+
+
+    /**
+     * Closes the current check window and opens a new one
+     *
+     * @return journeys and failed journeys of the closed window, and the step series of it by step name
+     */
+    Window nextWindow() {
+        Map<String, MetricSeries> windowSteps = new LinkedHashMap<String, MetricSeries>();
+        synchronized (steps) {
+            for (Map.Entry<String, StepSeries> step : steps.entrySet()) {
+                windowSteps.put(step.getKey(), step.getValue().nextWindow());
+            }
+        }
+        return new Window(windowJourneys.getAndSet(0), windowFailedJourneys.getAndSet(0), windowSteps);
+    }
+
+    List<StepSummary> summary() {
+        List<StepSummary> summary = new ArrayList<StepSummary>();
+        synchronized (steps) {
+            for (Map.Entry<String, StepSeries> step : steps.entrySet()) {
+                MetricSeries all = step.getValue().all;
+                long[] percentiles = all.percentiles(50, 90, 95, 99, 100);
+                summary.add(new StepSummary(step.getKey(), all.size(), step.getValue().errors.sum(), all.mean(),
+                        percentiles[0], percentiles[1], percentiles[2], percentiles[3], percentiles[4]));
+            }
+        }
+        return summary;
+    }
+
+
+    record Window(long journeys, long failedJourneys, Map<String, MetricSeries> steps) {
+    }
+
+
+    private static final class StepSeries {
+
+        private final MetricSeries all = new MetricSeries();
+        private final LongAdder errors = new LongAdder();
+        private volatile MetricSeries window = new MetricSeries();
+
+        void add(final long millis, final boolean failed) {
+            all.add(millis);
+            window.add(millis);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        MetricSeries nextWindow() {
+            MetricSeries closed = window;
+            window = new MetricSeries();
+            return closed;
+        }
+    }
+}
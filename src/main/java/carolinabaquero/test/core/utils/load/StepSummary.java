@@ -0,0 +1,20 @@
+package com.carolinabaquero.test.core.utils.load;
+
+
+/**
+ * Response times of one journey step over a whole load run, failed attempts included.
+ *
+ * @param step       the step name
+ * @param count      times the step ran
+ * @param errors     times the step failed
+ * @param meanMillis average time
+ * @param p50Millis  median
+ * @param p90Millis  90th percentile
+ * @param p95Millis  95th percentile
+ * @param p99Millis  99th percentile
+ * @param maxMillis  slowest time
+ * @author cbaquero
+ */
+public record StepSummary(String step, long count, long errors, double meanMillis, long p50Millis, long p90Millis,
+                          long p95Millis, long p99Millis, long maxMillis) {
+}
@@ -0,0 +1,51 @@
+package com.carolinabaquero.test.core.utils.locators;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+
+/**
+ * @author cbaquero
+ *         Feeds {@link LocatorProfiler} with every findElement and findElements made through a decorated driver
+ *         (and its elements): the locator, how long the call took and how many elements it found.
+ *         Calls on the same thread do not nest, so the start time is kept per thread.
+ */
+public class LocatorProfileListener implements WebDriverListener {
+
+    private static final ThreadLocal<long[]> startNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+
+    @Override
+    public void beforeAnyCall(final Object target, final Method method, final Object[] args) {
+        if (isFind(method, args)) {
+            startNanos.get()[0] = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterAnyCall(final Object target, final Method method, final Object[] args, final Object result) {
+        if (isFind(method, args)) {
+            int matches = result instanceof List ? ((List<?>) result).size() : result == null ? 0 : 1;
+            LocatorProfiler.found(target, (By) args[0], "findElement".equals(method.getName()),
+                    System.nanoTime() - startNanos.get()[0], matches);
+        }
+    }
+
+    @Override
+    public void onError(final Object target, final Method method, final Object[] args,
+                        final InvocationTargetException e) {
+        if (isFind(method, args)) {
+            LocatorProfiler.found(target, (By) args[0], "findElement".equals(method.getName()),
+                    System.nanoTime() - startNanos.get()[0], 0);
+        }
+    }
+
+    private static boolean isFind(Method method, Object[] args) {
+        return ("findElement".equals(method.getName()) || "findElements".equals(method.getName()))
+                && args != null && args.length == 1 && args[0] instanceof By;
+    }
+}
@@ -0,0 +1,73 @@
+package com.carolinabaquero.test.core.utils.locators;
+
+
+/**
+ * @author cbaquero
+ *         In-browser timing used by {@link LocatorProfiler}: resolves a locator on the whole document, and its CSS
+ *         candidate if there is one, as many times as fit in the time budget (at least once), so the timer
+ *         resolution of the browser (5 to 100 microseconds) does not hide fast locators.
+ *         <p/>
+ *         Arguments: strategy ('xpath', 'css selector', 'tag name', 'class name', 'id' or 'name'), locator,
+ *         CSS candidate or null, time budget of each locator (ms). Class name, id and name are resolved with the
+ *         CSS selector the driver sends for them over the W3C protocol ('.c', '#id', '[name="n"]').
+ *         Return value: {micros, matches, cssMicros, cssMatches, same}, micros being the mean time of one
+ *         resolution and same whether the CSS candidate found the same elements in the same order,
+ *         or {error} if a locator is not valid.
+ */
+public final class LocatorProfileScript {
+
+    /**
+     * Time spent resolving every locator, small enough not to slow down the test much
+     */
+    public static final long BUDGET_MILLIS = 20;
+
+    /**
+     * Resolutions of every locator at most
+     */
+    public static final int MAX_RUNS = 200;
+
+    public static final String SCRIPT =
+            "var using = arguments[0], value = arguments[1], css = arguments[2], budget = arguments[3];"
+            + "var find = function (u, v) {"
+            + "  if (u === 'xpath') {"
+            + "    var r = document.evaluate(v, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "    var nodes = [];"
+            + "    for (var i = 0; i < r.snapshotLength; i++) { nodes.push(r.snapshotItem(i)); }"
+            + "    return nodes;"
+            + "  }"
+            + "  if (u === 'tag name') { return Array.prototype.slice.call(document.getElementsByTagName(v)); }"
+            // timed as the driver resolves them, it sends By.id, By.name and By.className as CSS
+            + "  if (u === 'id') { v = '#' + CSS.escape(v); }"
+            + "  if (u === 'name') { v = '[name=\"' + CSS.escape(v) + '\"]'; }"
+            + "  if (u === 'class name') { v = '.' + CSS.escape(v); }"
+            + "  return Array.prototype.slice.call(document.querySelectorAll(v));"
+            + "};"
+            + "var time = function (u, v) {"
+            + "  var runs = 0, nodes, start = performance.now(), elapsed = 0;"
+            + "  do { nodes = find(u, v); runs++; elapsed = performance.now() - start; }"
+            + "  while (elapsed < budget && runs < " + MAX_RUNS + ");"
+            + "  return { micros: elapsed * 1000 / runs, nodes: nodes };"
+            + "};"
+            + "try {"
+            + "  var located = time(using, value);"
+            + "  var result = { micros: located.micros, matches: located.nodes.length };"
+            + "  if (css) {"
+            + "    var candidate = time('css selector', css);"
+            + "    var same = candidate.nodes.length === located.nodes.length;"
+            + "    for (var i = 0; same && i < located.nodes.length; i++) {"
+            + "      same = candidate.nodes[i] === located.nodes[i];"
+            + "    }"
+            + "    result.cssMicros = candidate.micros;"
+            + "    result.cssMatches = candidate.nodes.length;"
+            + "    result.same = same;"
+            + "  }"
+            + "  return result;"
+            + "} catch (e) {"
+            + "  return { error: String(e && e.message || e) };"
+            + "}";
+
+
+    private LocatorProfileScript() {
+
+    }
+}
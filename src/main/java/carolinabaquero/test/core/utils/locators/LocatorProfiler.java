@@ -0,0 +1,405 @@
+package com.carolinabaquero.test.core.utils.locators;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.utils.perf.MetricSeries;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * @author cbaquero
+ *         What every locator costs the run. Every find made through a driver decorated by {@link #track(WebDriver)}
+ *         is timed, and the first finds of every locator on the whole document are also resolved inside the browser
+ *         (see {@link LocatorProfileScript}), together with the CSS translation of the XPath locators
+ *         (see {@link XPathToCss}). {@link #report()} ranks the locators by the total time of their finds,
+ *         flagging them as:
+ *         <ul>
+ *         <li>SLOW: resolving it in the browser takes longer than locatorSlowMicros</li>
+ *         <li>AMBIGUOUS: findElement got the first of several elements</li>
+ *         <li>NO_MATCH: it did not find anything on the whole run</li>
+ *         <li>INVALID: the browser could not resolve it</li>
+ *         </ul>
+ *         and suggests the CSS translation once the browser has shown it finds the same elements, in the same
+ *         order, on every profiled page where the XPath found any. With substituteLocators the PageObject methods
+ *         then use it instead (see {@link #substitute(By)}), its finds are still counted for the XPath.
+ */
+public final class LocatorProfiler {
+
+    public static final String SUMMARY_FILE_NAME = "locator-profile.json";
+
+    public static final String SLOW = "SLOW";
+    public static final String AMBIGUOUS = "AMBIGUOUS";
+    public static final String NO_MATCH = "NO_MATCH";
+    public static final String INVALID = "INVALID";
+
+    // locators logged at the end of the run, the summary file has all of them
+    private static final int LOGGED_LOCATORS = 10;
+    // the strategies LocatorProfileScript resolves, By.id and By.name send 'id' and 'name'
+    private static final Set<String> PROFILED_STRATEGIES = new HashSet<String>(Arrays.asList("xpath",
+            "css selector", "tag name", "class name", "id", "name"));
+
+    private static final ConcurrentMap<String, LocatorStats> byLocator = new ConcurrentHashMap<String, LocatorStats>();
+    // the CSS locators handed out by substitute(), to count their finds for the XPath they replace
+    private static final Map<By, LocatorStats> substitutes =
+            Collections.synchronizedMap(new IdentityHashMap<By, LocatorStats>());
+
+    private static volatile boolean profiling = false;
+    private static volatile boolean substituting = false;
+    private static volatile long slowMicros = 1000;
+    private static volatile int samples = 5;
+    private static volatile Path directory = Paths.get("reports");
+
+
+    private LocatorProfiler() {
+
+    }
+
+
+    /**
+     * Takes the locator profiling settings from the given context
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        substituting = context.substitutingLocators();
+        profiling = context.profilingLocators() || substituting;
+        slowMicros = context.getLocatorSlowMicros();
+        samples = Math.max(1, context.getLocatorProfileSamples());
+        directory = Paths.get(context.getReportsDirectory());
+    }
+
+    public static boolean isEnabled() {
+        return profiling;
+    }
+
+
+    /**
+     * Decorates the driver so the finds made through it are profiled
+     *
+     * @param driver the driver just started
+     * @return the decorated driver, to be used instead of the given one
+     */
+    public static WebDriver track(final WebDriver driver) {
+        return new EventFiringDecorator(new LocatorProfileListener()).decorate(driver);
+    }
+
+    /**
+     * The locator to find elements on the whole document with: the CSS translation of the given XPath when
+     * substituting and the browser has shown both find the same elements, the given locator otherwise
+     *
+     * @param locator the locator of the page object
+     * @return the locator to use
+     */
+    public static By substitute(final By locator) {
+
+        if (!substituting) {
+            return locator;
+        }
+        LocatorStats stats = byLocator.get(locator.toString());
+        return stats == null || !stats.equivalent() ? locator : stats.cssLocator;
+    }
+
+
+    /**
+     * Records a find made through a tracked driver, and profiles it in the browser if it is one of the first finds
+     * of the locator on the whole document
+     *
+     * @param target  the driver or element the find was made on
+     * @param locator the locator used
+     * @param single  findElement (true) or findElements (false)
+     * @param nanos   how long the call took
+     * @param matches the elements found
+     */
+    static void found(final Object target, final By locator, final boolean single, final long nanos,
+                      final int matches) {
+
+        LocatorStats substituted = substitutes.get(locator);
+        if (substituted != null) {
+            substituted.substitutedCall(nanos, matches);
+            return;
+        }
+        LocatorStats stats = byLocator.computeIfAbsent(locator.toString(), key -> new LocatorStats(locator));
+        stats.call(nanos, matches);
+        if (target instanceof WebDriver && target instanceof JavascriptExecutor && stats.strategy != null
+                && stats.reserveProfile(matches)) {
+            profile((JavascriptExecutor) target, stats, single);
+        }
+    }
+
+    private static void profile(JavascriptExecutor driver, LocatorStats stats, boolean single) {
+        Object result;
+        try {
+            result = driver.executeScript(LocatorProfileScript.SCRIPT, stats.strategy, stats.value,
+                    stats.css, LocatorProfileScript.BUDGET_MILLIS);
+        } catch (WebDriverException e) {
+            // the page went away, the next find profiles it
+            stats.profileFailed();
+            CustomReporter.debug("[LOCATORS] Could not profile " + stats.locator + ": " + e.getMessage());
+            return;
+        }
+        if (!(result instanceof Map)) {
+            stats.profileFailed();
+            return;
+        }
+        Map<?, ?> profile = (Map<?, ?>) result;
+        boolean verified = stats.profiled(profile, single);
+        if (verified && substituting) {
+            substitutes.put(stats.cssLocator, stats);
+            CustomReporter.info("[LOCATORS] Using " + stats.cssLocator + " instead of " + stats.locator);
+        }
+    }
+
+
+    /**
+     * Logs the locators that cost the most so far and writes all of them, ranked, to the summary file
+     */
+    public static void report() {
+
+        if (byLocator.isEmpty()) {
+            return;
+        }
+        List<LocatorStats> ranked = new ArrayList<LocatorStats>(byLocator.values());
+        ranked.sort((first, second) -> Long.compare(second.totalNanos(), first.totalNanos()));
+        List<Map<String, Object>> locators = new ArrayList<Map<String, Object>>();
+        long total = 0;
+        for (LocatorStats stats : ranked) {
+            locators.add(stats.summary());
+            total += stats.totalNanos();
+        }
+        Map<String, Object> summary = new LinkedHashMap<String, Object>();
+        summary.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(total));
+        summary.put("slowMicros", slowMicros);
+        summary.put("locators", locators);
+
+        CustomReporter.info("[LOCATORS] Locators by time spent finding elements"
+                + " (calls / total ms / mean ms / in-browser us / max matches):");
+        for (Map<String, Object> locator : locators.subList(0, Math.min(LOGGED_LOCATORS, locators.size()))) {
+            CustomReporter.info(String.format(Locale.ROOT, "      %6d %8d %8.1f %10s %5s  %s %s",
+                    locator.get("calls"), locator.get("totalMillis"), locator.get("meanMillis"),
+                    locator.containsKey("browserMicros") ? locator.get("browserMicros") : "-",
+                    locator.containsKey("matches") ? locator.get("matches") : "-",
+                    locator.get("locator"), locator.get("flags")));
+            if (locator.containsKey("suggestedCss")) {
+                CustomReporter.info("             use By.cssSelector(\"" + locator.get("suggestedCss") + "\"), "
+                        + locator.get("cssMicros") + " us");
+            } else if (locator.containsKey("note")) {
+                CustomReporter.info("             " + locator.get("note"));
+            }
+        }
+
+        Path summaryFile = directory.resolve(SUMMARY_FILE_NAME);
+        try {
+            Files.createDirectories(directory);
+            Files.write(summaryFile, new Json().toJson(summary).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            CustomReporter.error("[LOCATORS] Could not write " + summaryFile, e);
+        }
+    }
+
+
+    /**
+     * Drops all the locators recorded so far
+     */
+    public static void reset() {
+
+        byLocator.clear();
+        substitutes.clear();
+    }
+
+
+    /**
+     * Everything known of one locator
+     */
+    private static final class LocatorStats {
+
+        private final String locator;
+        // how the browser resolves it, null if it is not profiled (link texts, chained locators...)
+        private final String strategy;
+        private final String value;
+        // the CSS translation of an XPath, checked on every profile
+        private final String css;
+        private final By cssLocator;
+        private final String note;
+
+        private final MetricSeries browserNanos = new MetricSeries();
+        private final MetricSeries cssNanos = new MetricSeries();
+        private int calls = 0;
+        private int matchedCalls = 0;
+        private long nanos = 0;
+        private int substitutedCalls = 0;
+        private long substitutedNanos = 0;
+        private int profiles = 0;
+        private int maxMatches = 0;
+        private boolean ambiguous = false;
+        private boolean sameElements = false;
+        private boolean otherElements = false;
+        private String error;
+
+        LocatorStats(By locator) {
+            this.locator = locator.toString();
+            String using = null;
+            String located = null;
+            if (locator instanceof By.Remotable) {
+                By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+                if (parameters.value() instanceof String && PROFILED_STRATEGIES.contains(parameters.using())) {
+                    using = parameters.using();
+                    located = (String) parameters.value();
+                }
+            }
+            this.strategy = using;
+            this.value = located;
+            this.css = "xpath".equals(using) ? XPathToCss.toCss(located) : null;
+            this.cssLocator = css == null ? null : By.cssSelector(css);
+            this.note = "xpath".equals(using) && css == null ? "no CSS equivalent: " + XPathToCss.whyNot(located) : null;
+        }
+
+        synchronized void call(long callNanos, int matches) {
+            calls++;
+            nanos += callNanos;
+            if (matches > 0) {
+                matchedCalls++;
+            }
+        }
+
+        synchronized void substitutedCall(long callNanos, int matches) {
+            substitutedCalls++;
+            substitutedNanos += callNanos;
+            if (matches > 0) {
+                matchedCalls++;
+            }
+        }
+
+        /**
+         * Takes one of the profiles of the locator, on the first find or on a find that matched
+         */
+        synchronized boolean reserveProfile(int matches) {
+            if (profiles >= samples || (profiles > 0 && matches == 0)) {
+                return false;
+            }
+            profiles++;
+            return true;
+        }
+
+        synchronized void profileFailed() {
+            profiles--;
+        }
+
+        /**
+         * @return true if this profile made the CSS translation equivalent
+         */
+        synchronized boolean profiled(Map<?, ?> profile, boolean single) {
+            if (profile.get("error") != null) {
+                error = String.valueOf(profile.get("error"));
+                otherElements = true;
+                return false;
+            }
+            boolean wasEquivalent = equivalent();
+            browserNanos.add(Math.round(number(profile.get("micros")) * 1000));
+            int matches = (int) number(profile.get("matches"));
+            maxMatches = Math.max(maxMatches, matches);
+            ambiguous |= single && matches > 1;
+            if (profile.containsKey("same")) {
+                cssNanos.add(Math.round(number(profile.get("cssMicros")) * 1000));
+                boolean same = Boolean.TRUE.equals(profile.get("same"));
+                if (!same) {
+                    otherElements = true;
+                } else if (matches > 0) {
+                    sameElements = true;
+                }
+            }
+            return !wasEquivalent && equivalent();
+        }
+
+        synchronized boolean equivalent() {
+            return sameElements && !otherElements;
+        }
+
+        synchronized long totalNanos() {
+            return nanos + substitutedNanos;
+        }
+
+        synchronized Map<String, Object> summary() {
+            List<String> flags = new ArrayList<String>();
+            if (browserNanos.size() > 0 && browserNanos.mean() >= slowMicros * 1000.0) {
+                flags.add(SLOW);
+            }
+            if (ambiguous) {
+                flags.add(AMBIGUOUS);
+            }
+            if (matchedCalls == 0) {
+                flags.add(NO_MATCH);
+            }
+            if (error != null) {
+                flags.add(INVALID);
+            }
+            Map<String, Object> summary = new LinkedHashMap<String, Object>();
+            summary.put("locator", locator);
+            summary.put("calls", calls + substitutedCalls);
+            summary.put("matchedCalls", matchedCalls);
+            summary.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(totalNanos()));
+            summary.put("meanMillis", millis(totalNanos(), calls + substitutedCalls));
+            summary.put("flags", flags);
+            if (browserNanos.size() > 0) {
+                summary.put("browserMicros", micros(browserNanos.mean()));
+                summary.put("browserMaxMicros", micros(browserNanos.max()));
+                summary.put("matches", maxMatches);
+            }
+            if (css != null) {
+                summary.put(equivalent() ? "suggestedCss" : "candidateCss", css);
+                summary.put("cssEquivalent", equivalent() ? "verified" : otherElements ? "different" : "unverified");
+                if (cssNanos.size() > 0) {
+                    summary.put("cssMicros", micros(cssNanos.mean()));
+                }
+            }
+            if (substitutedCalls > 0) {
+                summary.put("substitutedCalls", substitutedCalls);
+                summary.put("xpathMeanMillis", millis(nanos, calls));
+                summary.put("cssMeanMillis", millis(substitutedNanos, substitutedCalls));
+            }
+            if (error != null) {
+                summary.put("error", error);
+            }
+            if (note != null) {
+                summary.put("note", note);
+            }
+            return summary;
+        }
+
+        private static double number(Object value) {
+            return value instanceof Number ? ((Number) value).doubleValue() : 0;
+        }
+
+        private static double millis(long nanos, int calls) {
+            return calls == 0 ? 0 : Math.round(nanos / 100_000.0 / calls) / 10.0;
+        }
+
+        private static double micros(double nanos) {
+            return Math.round(nanos / 100) / 10.0;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.carolinabaquero.test.core.utils.locators;
+
+
+/**
+ * @author cbaquero
+ *         Translates the XPath locators that have an exact CSS equivalent. Only paths from the document are taken
+ *         ('//' first), made of element steps ('//' descendant, '/' child) with attribute predicates:
+ *         <pre>
+ *         //tag or //*                                            tag or *
+ *         [@attr]                                                 [attr]
+ *         [@attr='value']                                         [attr='value']
+ *         [contains(@attr,'value')]                               [attr*='value']
+ *         [starts-with(@attr,'value')]                            [attr^='value']
+ *         [contains(@attr,'')], [starts-with(@attr,'')]           nothing, always true
+ *         [contains(concat(' ',normalize-space(@class),' '),' c ')]  .c
+ *         [... and ...], [...][...]                               both
+ *         </pre>
+ *         Anything else (positions, text(), axes, functions, 'or') has no translation.
+ *         <p/>
+ *         The translation is only a candidate, {@link LocatorProfiler} checks in the browser that both locators find
+ *         the same elements before suggesting or using it.
+ */
+public final class XPathToCss {
+
+    private final String xpath;
+    private int position = 0;
+
+
+    private XPathToCss(final String xpath) {
+        this.xpath = xpath;
+    }
+
+
+    /**
+     * @param xpath the XPath locator
+     * @return the equivalent CSS selector, null if there is none
+     */
+    public static String toCss(final String xpath) {
+
+        try {
+            return new XPathToCss(xpath).path();
+        } catch (Untranslatable e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param xpath the XPath locator
+     * @return why the XPath has no CSS equivalent, null if it has one
+     */
+    public static String whyNot(final String xpath) {
+
+        try {
+            new XPathToCss(xpath).path();
+            return null;
+        } catch (Untranslatable e) {
+            return e.getMessage();
+        }
+    }
+
+
+    private String path() {
+        StringBuilder css = new StringBuilder();
+        skipSpaces();
+        if (!xpath.startsWith("//", position)) {
+            throw new Untranslatable("only paths from the document ('//...') are translated");
+        }
+        while (position < xpath.length()) {
+            if (xpath.startsWith("//", position)) {
+                position += 2;
+                if (css.length() > 0) {
+                    css.append(' ');
+                }
+            } else if (xpath.startsWith("/", position)) {
+                position++;
+                css.append(" > ");
+            } else {
+                throw new Untranslatable("unexpected '" + xpath.substring(position) + "'");
+            }
+            css.append(step());
+            skipSpaces();
+        }
+        return css.toString();
+    }
+
+    private String step() {
+        skipSpaces();
+        String element;
+        if (xpath.startsWith("*", position)) {
+            position++;
+            element = "*";
+        } else {
+            element = name();
+            if (element.isEmpty()) {
+                throw new Untranslatable("only element steps are translated, not '" + xpath.substring(position) + "'");
+            }
+            if (xpath.startsWith("::", position) || xpath.startsWith("(", position)) {
+                throw new Untranslatable("axes and functions are not translated (" + element + ")");
+            }
+        }
+        StringBuilder conditions = new StringBuilder();
+        skipSpaces();
+        while (xpath.startsWith("[", position)) {
+            position++;
+            conditions.append(predicate());
+            skipSpaces();
+        }
+        if (conditions.length() == 0) {
+            return element;
+        }
+        return "*".equals(element) ? conditions.toString() : element + conditions;
+    }
+
+    private String predicate() {
+        StringBuilder css = new StringBuilder(condition());
+        skipSpaces();
+        while (accept("and")) {
+            css.append(condition());
+            skipSpaces();
+        }
+        if (!accept("]")) {
+            throw new Untranslatable("only 'and' of attribute conditions is translated, not '"
+                    + xpath.substring(position) + "'");
+        }
+        return css.toString();
+    }
+
+    private String condition() {
+        skipSpaces();
+        if (accept("@")) {
+            String attribute = attributeName();
+            skipSpaces();
+            if (accept("=")) {
+                return "[" + attribute + "=" + cssString(literal()) + "]";
+            }
+            return "[" + attribute + "]";
+        }
+        if (accept("contains(")) {
+            if (xpath.startsWith("concat(", position)) {
+                return classCondition();
+            }
+            return attributeFunction("*=");
+        }
+        if (accept("starts-with(")) {
+            return attributeFunction("^=");
+        }
+        String name = name();
+        skipSpaces();
+        if (!name.isEmpty() && (xpath.startsWith("=", position) || xpath.startsWith("]", position))) {
+            // //*[qa-data='x'] compares the text of a qa-data child element, which is rarely what was meant
+            throw new Untranslatable("'" + name + "' is a child element, not an attribute: the attribute is '@"
+                    + name + "'");
+        }
+        throw new Untranslatable("only attribute conditions are translated, not '" + xpath.substring(position) + "'");
+    }
+
+    private String attributeFunction(String operator) {
+        skipSpaces();
+        if (!accept("@")) {
+            throw new Untranslatable("only functions of an attribute are translated");
+        }
+        String attribute = attributeName();
+        expect(",");
+        String value = literal();
+        expect(")");
+        // every string contains and starts with '', also the '' of a missing attribute, so the condition is always true
+        return value.isEmpty() ? "" : "[" + attribute + operator + cssString(value) + "]";
+    }
+
+    private String classCondition() {
+        expect("concat(");
+        String before = literal();
+        expect(",");
+        expect("normalize-space(");
+        expect("@");
+        String attribute = attributeName();
+        expect(")");
+        expect(",");
+        String after = literal();
+        expect(")");
+        expect(",");
+        String value = literal();
+        expect(")");
+        if (!" ".equals(before) || !" ".equals(after) || !"class".equals(attribute)
+                || !value.matches(" -?[A-Za-z_][\\w-]* ")) {
+            throw new Untranslatable("only the ' class ' form of contains(concat(...)) is translated");
+        }
+        return "." + value.trim();
+    }
+
+    private String name() {
+        int start = position;
+        if (position < xpath.length() && Character.isLetter(xpath.charAt(position))) {
+            position++;
+            while (position < xpath.length()
+                    && (Character.isLetterOrDigit(xpath.charAt(position)) || xpath.charAt(position) == '-'
+                    || xpath.charAt(position) == '_')) {
+                position++;
+            }
+        }
+        if (position > start && position < xpath.length()
+                && (xpath.charAt(position) == ':' && !xpath.startsWith("::", position)
+                || xpath.charAt(position) == '.')) {
+            throw new Untranslatable("prefixed and dotted names are not translated");
+        }
+        return xpath.substring(start, position);
+    }
+
+    private String attributeName() {
+        String name = name();
+        if (name.isEmpty()) {
+            throw new Untranslatable("only named attributes are translated");
+        }
+        return name;
+    }
+
+    private String literal() {
+        skipSpaces();
+        if (position >= xpath.length() || (xpath.charAt(position) != '\'' && xpath.charAt(position) != '"')) {
+            throw new Untranslatable("only string values are translated");
+        }
+        char quote = xpath.charAt(position);
+        int end = xpath.indexOf(quote, position + 1);
+        if (end < 0) {
+            throw new Untranslatable("unterminated string");
+        }
+        String value = xpath.substring(position + 1, end);
+        position = end + 1;
+        skipSpaces();
+        return value;
+    }
+
+    private static String cssString(String value) {
+        StringBuilder css = new StringBuilder("'");
+        for (char c : value.toCharArray()) {
+            if (c == '\'' || c == '\\') {
+                css.append('\\').append(c);
+            } else if (c == '\n' || c == '\r' || c == '\f') {
+                css.append('\\').append(Integer.toHexString(c)).append(' ');
+            } else {
+                css.append(c);
+            }
+        }
+        return css.append('\'').toString();
+    }
+
+    private boolean accept(String token) {
+        skipSpaces();
+        if (xpath.startsWith(token, position)) {
+            position += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw new Untranslatable("expected '" + token + "' at '" + xpath.substring(position) + "'");
+        }
+    }
+
+    private void skipSpaces() {
+        while (position < xpath.length() && Character.isWhitespace(xpath.charAt(position))) {
+            position++;
+        }
+    }
+
+
+    private static class Untranslatable extends RuntimeException {
+
+        Untranslatable(String reason) {
+            super(reason);
+        }
+    }
+}
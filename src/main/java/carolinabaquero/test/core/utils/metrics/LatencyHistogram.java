@@ -0,0 +1,63 @@
+package com.carolinabaquero.test.core.utils.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * @author cbaquero
+ *         Cumulative latency histogram with fixed buckets, in the Prometheus histogram layout.
+ *         Recording only increments striped counters, so test threads never wait for each other or for a scrape.
+ */
+class LatencyHistogram {
+
+    /**
+     * Bucket upper bounds in seconds, from a fast local command to a slow page load
+     */
+    static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+
+    LatencyHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+
+    /**
+     * @param nanos the measured latency
+     */
+    void record(final long nanos) {
+        double seconds = nanos / 1e9;
+        int bucket = 0;
+        while (bucket < BUCKETS.length && seconds > BUCKETS[bucket]) {
+            bucket++;
+        }
+        counts[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+
+    /**
+     * Appends the _bucket, _sum and _count samples of this histogram
+     *
+     * @param out    the exposition being written
+     * @param name   the metric name
+     * @param labels the labels of this histogram without braces (e.g. command="get"), may be empty
+     */
+    void writeTo(final StringBuilder out, final String name, final String labels) {
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i].sum();
+            out.append(name).append("_bucket{").append(labels).append(separator).append("le=\"")
+                    .append(i < BUCKETS.length ? String.valueOf(BUCKETS[i]) : "+Inf").append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+    }
+}
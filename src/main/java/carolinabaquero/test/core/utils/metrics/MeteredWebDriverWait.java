@@ -0,0 +1,24 @@
+package com.carolinabaquero.test.core.utils.metrics;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+
+
+/**
+ * @author cbaquero
+ *         WebDriverWait that counts its timeouts on {@link RunMetrics}
+ */
+public class MeteredWebDriverWait extends WebDriverWait {
+
+    public MeteredWebDriverWait(final WebDriver driver, final Duration timeout) {
+        super(driver, timeout);
+    }
+
+    @Override
+    protected RuntimeException timeoutException(final String message, final Throwable lastException) {
+        RunMetrics.waitTimedOut();
+        return super.timeoutException(message, lastException);
+    }
+}
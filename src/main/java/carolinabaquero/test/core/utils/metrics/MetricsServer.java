@@ -0,0 +1,119 @@
+package com.carolinabaquero.test.core.utils.metrics;
+
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * @author cbaquero
+ *         Embedded HTTP endpoint (JDK built-in server) serving {@link RunMetrics} at /metrics for Prometheus.
+ *         Scrapes are answered by a single daemon thread, so they never take a test thread and do not keep
+ *         the JVM alive at the end of the run.
+ *         It only listens on the loopback interface unless a bind address is configured, the metrics name the
+ *         hosts and pages under test.
+ */
+public final class MetricsServer {
+
+    public static final String PATH = "/metrics";
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static HttpServer server;
+
+
+    private MetricsServer() {
+
+    }
+
+
+    /**
+     * Starts the endpoint on the given port. Does nothing if it is already running or the port is 0 or less.
+     *
+     * @param port        the port to listen on
+     * @param bindAddress the address (host name or IP) to listen on, the loopback interface if empty,
+     *                    0.0.0.0 for all the interfaces
+     */
+    public static synchronized void start(final int port, final String bindAddress) {
+
+        if (server != null || port <= 0) {
+            return;
+        }
+        // headers and body are written separately, without TCP_NODELAY every scrape waits for the delayed ACK
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            InetAddress address = bindAddress == null || bindAddress.trim().isEmpty()
+                    ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bindAddress.trim());
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress(address, port), 0);
+            httpServer.createContext(PATH, MetricsServer::handle);
+            httpServer.setExecutor(executor);
+            // the dispatcher thread takes the daemon flag of the thread that starts the server
+            Thread starter = new Thread(httpServer::start, "metrics-endpoint-start");
+            starter.setDaemon(true);
+            starter.start();
+            starter.join();
+            server = httpServer;
+            CustomReporter.info("[METRICS] Serving run metrics on http://" + address.getHostAddress() + ":" + port
+                    + PATH);
+        } catch (IOException e) {
+            executor.shutdown();
+            CustomReporter.error("[METRICS] Could not start the metrics endpoint on port " + port, e);
+        } catch (InterruptedException e) {
+            executor.shutdown();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * @return true if the endpoint is running, so drivers should be tracked
+     */
+    public static synchronized boolean isRunning() {
+
+        return server != null;
+    }
+
+
+    /**
+     * Stops the endpoint, if running
+     */
+    public static synchronized void stop() {
+
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = RunMetrics.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
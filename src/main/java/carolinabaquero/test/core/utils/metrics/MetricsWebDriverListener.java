@@ -0,0 +1,56 @@
+package com.carolinabaquero.test.core.utils.metrics;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+
+/**
+ * @author cbaquero
+ *         Times every call made through a decorated driver (and the elements, windows, etc. it returns)
+ *         and feeds {@link RunMetrics}. Calls on the same thread do not nest, so the start time is kept per thread.
+ */
+public class MetricsWebDriverListener implements WebDriverListener {
+
+    private static final ThreadLocal<long[]> startNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+
+    /**
+     * Decorates the driver so its commands are measured, and counts it as an open session until quit
+     *
+     * @param driver the driver just started
+     * @return the decorated driver, to be used instead of the given one
+     */
+    public static WebDriver track(final WebDriver driver) {
+        RunMetrics.sessionOpened();
+        return new EventFiringDecorator(new MetricsWebDriverListener()).decorate(driver);
+    }
+
+
+    @Override
+    public void beforeAnyCall(final Object target, final Method method, final Object[] args) {
+        RunMetrics.commandStarted(method.getName());
+        startNanos.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void afterAnyCall(final Object target, final Method method, final Object[] args, final Object result) {
+        finished(target, method, false);
+    }
+
+    @Override
+    public void onError(final Object target, final Method method, final Object[] args,
+                        final InvocationTargetException e) {
+        finished(target, method, true);
+    }
+
+    private void finished(Object target, Method method, boolean failed) {
+        RunMetrics.commandFinished(method.getName(), System.nanoTime() - startNanos.get()[0], failed);
+        if (target instanceof WebDriver && "quit".equals(method.getName())) {
+            RunMetrics.sessionClosed();
+        }
+    }
+}
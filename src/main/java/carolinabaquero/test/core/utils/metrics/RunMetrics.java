@@ -0,0 +1,191 @@
+package com.carolinabaquero.test.core.utils.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * @author cbaquero
+ *         Live counters of the current run, exposed in Prometheus text format by {@link MetricsServer}.
+ *         Recording is lock free (atomics and striped adders), the cost of building the exposition is paid by
+ *         the scraping thread only.
+ */
+public final class RunMetrics {
+
+    public static final String STATUS_PASSED = "passed";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_SKIPPED = "skipped";
+    private static final String NO_GROUP = "none";
+
+    private static final long STARTED = System.currentTimeMillis();
+
+    private static final AtomicInteger openSessions = new AtomicInteger();
+    private static final AtomicInteger commandsInFlight = new AtomicInteger();
+    private static final AtomicInteger screenshotsInFlight = new AtomicInteger();
+    private static final LongAdder screenshots = new LongAdder();
+    private static final LongAdder waitTimeouts = new LongAdder();
+    private static final LongAdder commandErrors = new LongAdder();
+    private static final LongAdder testsFinished = new LongAdder();
+    private static final LongAdder sessionsLeaked = new LongAdder();
+
+    // group -> status -> count
+    private static final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> testsByGroup =
+            new ConcurrentHashMap<String, ConcurrentMap<String, LongAdder>>();
+    // command name -> latency
+    private static final ConcurrentMap<String, LatencyHistogram> commandLatency =
+            new ConcurrentHashMap<String, LatencyHistogram>();
+
+    // tests finished per second over the last minute, the slot is the epoch second modulo 60
+    private static final int WINDOW_SECONDS = 60;
+    private static final AtomicLongArray finishedInSecond = new AtomicLongArray(WINDOW_SECONDS);
+    private static final AtomicLongArray slotSecond = new AtomicLongArray(WINDOW_SECONDS);
+
+
+    private RunMetrics() {
+
+    }
+
+
+    public static void sessionOpened() {
+        openSessions.incrementAndGet();
+    }
+
+    public static void sessionClosed() {
+        openSessions.decrementAndGet();
+    }
+
+    public static void sessionLeaked() {
+        sessionsLeaked.increment();
+    }
+
+    public static void commandStarted(final String command) {
+        commandsInFlight.incrementAndGet();
+        if ("getScreenshotAs".equals(command)) {
+            screenshotsInFlight.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param command the WebDriver/WebElement method name
+     * @param nanos   how long the command took
+     * @param failed  true if the command threw an exception
+     */
+    public static void commandFinished(final String command, final long nanos, final boolean failed) {
+        commandsInFlight.decrementAndGet();
+        if ("getScreenshotAs".equals(command)) {
+            screenshotsInFlight.decrementAndGet();
+            screenshots.increment();
+        }
+        if (failed) {
+            commandErrors.increment();
+        }
+        commandLatency.computeIfAbsent(command, name -> new LatencyHistogram()).record(nanos);
+    }
+
+    public static void waitTimedOut() {
+        waitTimeouts.increment();
+    }
+
+
+    /**
+     * Counts a finished test once for every group it belongs to ('none' if it has no groups)
+     *
+     * @param groups the test method groups
+     * @param status one of {@link #STATUS_PASSED}, {@link #STATUS_FAILED}, {@link #STATUS_SKIPPED}
+     */
+    public static void testFinished(final String[] groups, final String status) {
+        testsFinished.increment();
+        if (groups == null || groups.length == 0) {
+            countTest(NO_GROUP, status);
+        } else {
+            for (String group : groups) {
+                countTest(group, status);
+            }
+        }
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % WINDOW_SECONDS);
+        long previous = slotSecond.get(slot);
+        if (previous != second && slotSecond.compareAndSet(slot, previous, second)) {
+            finishedInSecond.set(slot, 0);
+        }
+        finishedInSecond.incrementAndGet(slot);
+    }
+
+    private static void countTest(String group, String status) {
+        testsByGroup.computeIfAbsent(group, name -> new ConcurrentHashMap<String, LongAdder>())
+                .computeIfAbsent(status, name -> new LongAdder()).increment();
+    }
+
+    private static long testsInLastMinute() {
+        long now = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int slot = 0; slot < WINDOW_SECONDS; slot++) {
+            if (now - slotSecond.get(slot) < WINDOW_SECONDS) {
+                total += finishedInSecond.get(slot);
+            }
+        }
+        return total;
+    }
+
+
+    /**
+     * @return all the metrics in Prometheus text exposition format (version 0.0.4)
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        int sessions = openSessions.get();
+        int busy = Math.min(sessions, commandsInFlight.get());
+
+        gauge(out, "selenium_sessions_active", "Driver sessions running a command", busy);
+        gauge(out, "selenium_sessions_idle", "Driver sessions open and waiting for the test", sessions - busy);
+        gauge(out, "selenium_tests_per_minute", "Tests finished over the last minute", testsInLastMinute());
+        gauge(out, "selenium_run_uptime_seconds", "Seconds since the run started",
+                (System.currentTimeMillis() - STARTED) / 1000);
+        counter(out, "selenium_tests_finished_total", "Tests finished", testsFinished.sum());
+        counter(out, "selenium_sessions_leaked_total", "Sessions the tests left open, quit by the framework",
+                sessionsLeaked.sum());
+
+        out.append("# HELP selenium_tests_total Tests finished by group and status\n")
+                .append("# TYPE selenium_tests_total counter\n");
+        for (Map.Entry<String, ConcurrentMap<String, LongAdder>> group : new TreeMap<String, ConcurrentMap<String, LongAdder>>(testsByGroup).entrySet()) {
+            for (Map.Entry<String, LongAdder> status : new TreeMap<String, LongAdder>(group.getValue()).entrySet()) {
+                out.append("selenium_tests_total{group=\"").append(escape(group.getKey())).append("\",status=\"")
+                        .append(status.getKey()).append("\"} ").append(status.getValue().sum()).append('\n');
+            }
+        }
+
+        out.append("# HELP selenium_command_duration_seconds WebDriver command latency\n")
+                .append("# TYPE selenium_command_duration_seconds histogram\n");
+        for (Map.Entry<String, LatencyHistogram> command : new TreeMap<String, LatencyHistogram>(commandLatency).entrySet()) {
+            command.getValue().writeTo(out, "selenium_command_duration_seconds",
+                    "command=\"" + escape(command.getKey()) + "\"");
+        }
+        counter(out, "selenium_command_errors_total", "WebDriver commands that threw an exception", commandErrors.sum());
+        counter(out, "selenium_wait_timeouts_total", "Page object waits that timed out", waitTimeouts.sum());
+        gauge(out, "selenium_screenshot_queue_depth", "Screenshots requested and not returned yet",
+                screenshotsInFlight.get());
+        counter(out, "selenium_screenshots_total", "Screenshots taken", screenshots.sum());
+        return out.toString();
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" gauge\n")
+                .append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" counter\n")
+                .append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
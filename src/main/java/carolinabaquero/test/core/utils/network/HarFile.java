@@ -0,0 +1,157 @@
+package com.carolinabaquero.test.core.utils.network;
+
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * @author cbaquero
+ *         A gzip compressed HAR file written one entry at a time: the log header first, every entry as it comes and
+ *         the end of the entries array on close. Only used from the HAR writer thread.
+ */
+final class HarFile {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String HEAD = "{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"Test-Fwk NetworkCapture\","
+            + "\"version\":\"1.0\"},\"pages\":[],\"entries\":[\n";
+
+    private final Path file;
+    private final OutputStream out;
+    private final StringBuilder entry = new StringBuilder(4096);
+    private int entries = 0;
+    private boolean failed = false;
+
+
+    private HarFile(final Path file, final OutputStream out) {
+        this.file = file;
+        this.out = out;
+    }
+
+
+    static HarFile create(final Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE),
+                BUFFER_SIZE);
+        out.write(HEAD.getBytes(StandardCharsets.UTF_8));
+        return new HarFile(file, out);
+    }
+
+
+    void write(final Map<String, Object> harEntry) {
+        if (failed) {
+            return;
+        }
+        entry.setLength(0);
+        if (entries > 0) {
+            entry.append(",\n");
+        }
+        append(entry, harEntry);
+        try {
+            out.write(entry.toString().getBytes(StandardCharsets.UTF_8));
+            entries++;
+        } catch (IOException e) {
+            failed = true;
+            CustomReporter.error("[NETWORK] Could not write " + file, e);
+        }
+    }
+
+    /**
+     * @param comment the log comment, null if none
+     */
+    void close(final String comment) {
+        try {
+            StringBuilder end = new StringBuilder("\n]");
+            if (comment != null) {
+                append(end.append(",\"comment\":"), comment);
+            }
+            out.write(end.append("}}\n").toString().getBytes(StandardCharsets.UTF_8));
+            out.close();
+        } catch (IOException e) {
+            CustomReporter.error("[NETWORK] Could not close " + file, e);
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int getEntries() {
+        return entries;
+    }
+
+
+    /**
+     * Compact JSON of the HAR values: maps, lists, strings, numbers and booleans
+     */
+    @SuppressWarnings("unchecked")
+    static void append(final StringBuilder json, final Object value) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof Map) {
+            json.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> field : ((Map<String, Object>) value).entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                append(json, field.getKey());
+                json.append(':');
+                append(json, field.getValue());
+            }
+            json.append('}');
+        } else if (value instanceof List) {
+            json.append('[');
+            boolean first = true;
+            for (Object item : (List<Object>) value) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                append(json, item);
+            }
+            json.append(']');
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else {
+            String text = value.toString();
+            json.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"':
+                        json.append("\\\"");
+                        break;
+                    case '\\':
+                        json.append("\\\\");
+                        break;
+                    case '\n':
+                        json.append("\\n");
+                        break;
+                    case '\r':
+                        json.append("\\r");
+                        break;
+                    case '\t':
+                        json.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            json.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            json.append(c);
+                        }
+                }
+            }
+            json.append('"');
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.carolinabaquero.test.core.utils.network;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.Connection;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.SeleniumCdpConnection;
+import org.openqa.selenium.devtools.idealized.target.model.SessionID;
+import org.openqa.selenium.json.Json;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * @author cbaquero
+ *         Records the network traffic of one test through the Chrome DevTools protocol (Chrome and Edge, local or
+ *         on the Grid) into a gzip compressed HAR file, [reports]/network/[test class].[test method]-[n].har.gz.
+ *         <p/>
+ *         Requests are completed from the Network domain events and handed to a single writer thread through a
+ *         bounded queue, which streams them into the file: memory use does not grow with the test. If the writer
+ *         falls behind, entries are dropped and counted on the HAR comment instead of slowing the browser down.
+ *         Response bodies are only read when networkCaptureBodies is on, for text content, and are truncated to
+ *         networkBodyLimit characters. The HAR of passed tests is deleted unless networkCaptureKeepPassed is on.
+ *         <p/>
+ *         The raw protocol is used (no version specific Selenium domains), so any browser version works. Firefox
+ *         has no DevTools Network domain on this Selenium version and is not captured.
+ */
+public final class NetworkCapture {
+
+    static final int WRITE_QUEUE_SIZE = 1024;
+    static final int MAX_PENDING_REQUESTS = 2048;
+
+    private static final Duration COMMAND_TIMEOUT = Duration.ofSeconds(5);
+    private static final List<String> EVENTS = Arrays.asList("Network.requestWillBeSent", "Network.responseReceived",
+            "Network.loadingFinished", "Network.loadingFailed");
+    private static final AtomicInteger captures = new AtomicInteger();
+
+    // one writer for all the captures of the JVM, so the DevTools event threads never wait on disk
+    private static final BlockingQueue<Runnable> writes = new ArrayBlockingQueue<Runnable>(WRITE_QUEUE_SIZE);
+    private static Thread writer;
+
+    private static volatile boolean enabled = false;
+    private static volatile List<String> groups = Collections.emptyList();
+    private static volatile boolean bodies = false;
+    private static volatile int bodyLimit = 65536;
+    private static volatile boolean keepPassed = false;
+    private static volatile Path directory = Paths.get("reports", "network");
+
+    private final HarFile har;
+    private final Connection connection;
+    private final SessionID session;
+    private final boolean readBodies;
+    private final Map<String, NetworkEntry> pending = new HashMap<String, NetworkEntry>();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private volatile boolean stopped = false;
+
+
+    private NetworkCapture(final HarFile har, final Connection connection, final SessionID session,
+                           final boolean readBodies) {
+        this.har = har;
+        this.connection = connection;
+        this.session = session;
+        this.readBodies = readBodies;
+    }
+
+
+    /**
+     * Takes the capture settings from the given context
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        enabled = context.capturingNetwork();
+        groups = context.getNetworkCaptureGroups();
+        bodies = context.capturingNetworkBodies();
+        bodyLimit = context.getNetworkBodyLimit();
+        keepPassed = context.keepingPassedNetworkCaptures();
+        directory = Paths.get(context.getReportsDirectory(), "network");
+    }
+
+
+    /**
+     * Starts capturing the traffic of the current window of the driver for the given test, if the capture is
+     * enabled for it
+     *
+     * @param driver the test driver, before it navigates anywhere
+     * @param test   the test about to run
+     * @return the capture, to stop after the test, null if the test is not captured
+     */
+    public static NetworkCapture start(final WebDriver driver, final ITestResult test) {
+
+        if (!enabled || !(groups.isEmpty() || !Collections.disjoint(groups, Arrays.asList(test.getMethod().getGroups())))) {
+            return null;
+        }
+        Optional<Connection> browser = driver instanceof HasCapabilities
+                ? SeleniumCdpConnection.create(((HasCapabilities) driver).getCapabilities()) : Optional.<Connection>empty();
+        if (!browser.isPresent()) {
+            CustomReporter.debug("[NETWORK] No DevTools connection for this browser, the network is not captured");
+            return null;
+        }
+        Connection connection = browser.get();
+        try {
+            SessionID session = attach(connection, driver.getWindowHandle());
+            String name = test.getMethod().getRealClass().getSimpleName() + "." + test.getMethod().getMethodName()
+                    + "-" + captures.incrementAndGet();
+            NetworkCapture capture = new NetworkCapture(HarFile.create(directory.resolve(name + ".har.gz")),
+                    connection, session, bodies);
+            for (String event : EVENTS) {
+                connection.addListener(new Event<Map<String, Object>>(event, input -> input.read(Json.MAP_TYPE)),
+                        params -> capture.handle(event, params));
+            }
+            Map<String, Object> enable = new HashMap<String, Object>();
+            if (bodies) {
+                // bodies far over the limit are not kept by the browser at all
+                enable.put("maxResourceBufferSize", bodyLimit * 4);
+                enable.put("maxTotalBufferSize", Math.max(bodyLimit * 64, 8 * 1024 * 1024));
+            }
+            connection.sendAndWait(session, new Command<Void>("Network.enable", enable), COMMAND_TIMEOUT);
+            return capture;
+        } catch (IOException | RuntimeException e) {
+            CustomReporter.warning("[NETWORK] Could not start the network capture: " + e.getMessage());
+            connection.close();
+            return null;
+        }
+    }
+
+    /**
+     * Streams the CDP events given from elsewhere (another transport, a benchmark) into a HAR file,
+     * without any browser attached. Bodies are not read.
+     *
+     * @param harFile the .har.gz file to write
+     */
+    public static NetworkCapture toFile(final Path harFile) throws IOException {
+
+        return new NetworkCapture(HarFile.create(harFile), null, null, false);
+    }
+
+    /**
+     * Attaches a flat session to the page target of the window, so only its traffic is seen
+     */
+    @SuppressWarnings("unchecked")
+    private static SessionID attach(Connection connection, String windowHandle) {
+        Map<String, Object> targets = connection.sendAndWait(null,
+                new Command<Map<String, Object>>("Target.getTargets", Collections.<String, Object>emptyMap(),
+                        input -> input.read(Json.MAP_TYPE)), COMMAND_TIMEOUT);
+        for (Object target : (List<Object>) targets.get("targetInfos")) {
+            Map<String, Object> info = (Map<String, Object>) target;
+            if ("page".equals(info.get("type")) && windowHandle.endsWith(String.valueOf(info.get("targetId")))) {
+                Map<String, Object> attach = new HashMap<String, Object>();
+                attach.put("targetId", info.get("targetId"));
+                attach.put("flatten", true);
+                Map<String, Object> attached = connection.sendAndWait(null,
+                        new Command<Map<String, Object>>("Target.attachToTarget", attach,
+                                input -> input.read(Json.MAP_TYPE)), COMMAND_TIMEOUT);
+                return new SessionID(String.valueOf(attached.get("sessionId")));
+            }
+        }
+        throw new IllegalStateException("No DevTools target for window " + windowHandle);
+    }
+
+
+    /**
+     * Takes one Network domain event. The DevTools connection delivers events on several threads and not always
+     * in order, so an entry is written once its request and its end (and its response, unless it failed) arrived.
+     *
+     * @param event  the CDP event name, e.g. Network.responseReceived
+     * @param params the event parameters
+     */
+    @SuppressWarnings("unchecked")
+    public void handle(final String event, final Map<String, Object> params) {
+
+        String requestId = String.valueOf(params.get("requestId"));
+        NetworkEntry complete;
+        synchronized (pending) {
+            if (stopped) {
+                return;
+            }
+            NetworkEntry entry = pending.get(requestId);
+            if (entry == null) {
+                if (pending.size() >= MAX_PENDING_REQUESTS) {
+                    // long polls and streams that never end must not fill the memory
+                    dropped.incrementAndGet();
+                    return;
+                }
+                entry = new NetworkEntry(requestId);
+                pending.put(requestId, entry);
+            }
+            switch (event) {
+                case "Network.requestWillBeSent":
+                    Object redirect = params.get("redirectResponse");
+                    if (redirect != null && entry.getRequest() != null) {
+                        // the same request id goes on with the next hop
+                        entry.setResponse((Map<String, Object>) redirect);
+                        entry.finish(number(params.get("timestamp")), 0, null);
+                        write(entry);
+                        entry = new NetworkEntry(requestId);
+                        pending.put(requestId, entry);
+                    }
+                    entry.setRequest((Map<String, Object>) params.get("request"), number(params.get("wallTime")),
+                            number(params.get("timestamp")), (String) params.get("type"));
+                    break;
+                case "Network.responseReceived":
+                    entry.setResponse((Map<String, Object>) params.get("response"));
+                    break;
+                case "Network.loadingFinished":
+                    entry.finish(number(params.get("timestamp")), number(params.get("encodedDataLength")), null);
+                    break;
+                case "Network.loadingFailed":
+                    entry.finish(number(params.get("timestamp")), 0, Boolean.TRUE.equals(params.get("canceled"))
+                            ? "canceled" : String.valueOf(params.get("errorText")));
+                    break;
+                default:
+                    return;
+            }
+            if (!entry.isComplete()) {
+                return;
+            }
+            pending.remove(requestId);
+            complete = entry;
+        }
+        write(complete);
+    }
+
+    private void write(NetworkEntry entry) {
+        if (!offer(() -> writeNow(entry))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void writeNow(NetworkEntry entry) {
+        if (readBodies && entry.hasTextResponse()) {
+            try {
+                Map<String, Object> body = connection.sendAndWait(session,
+                        new Command<Map<String, Object>>("Network.getResponseBody",
+                                Collections.<String, Object>singletonMap("requestId", entry.getRequestId()),
+                                input -> input.read(Json.MAP_TYPE)), COMMAND_TIMEOUT);
+                entry.setBody(String.valueOf(body.get("body")), Boolean.TRUE.equals(body.get("base64Encoded")),
+                        bodyLimit);
+            } catch (RuntimeException e) {
+                entry.setBodyComment("body not available: " + e.getMessage());
+            }
+        }
+        har.write(entry.toHar(readBodies ? bodyLimit : 0));
+    }
+
+
+    /**
+     * Stops the capture and closes the HAR file, with the requests still in flight written as they are
+     *
+     * @param passed true if the test passed, its HAR is deleted unless networkCaptureKeepPassed is on
+     */
+    public void stop(final boolean passed) {
+
+        List<NetworkEntry> inFlight;
+        synchronized (pending) {
+            stopped = true;
+            inFlight = new ArrayList<NetworkEntry>(pending.values());
+            pending.clear();
+        }
+        if (connection != null) {
+            // no more events, and no body reads for the requests in flight
+            connection.close();
+        }
+        CountDownLatch closed = new CountDownLatch(1);
+        try {
+            for (NetworkEntry entry : inFlight) {
+                if (entry.getRequest() != null) {
+                    writes.put(() -> har.write(entry.toHar(0)));
+                }
+            }
+            writes.put(() -> {
+                har.close(dropped.get() == 0 ? null
+                        : dropped.get() + " requests were not recorded, the capture could not keep up");
+                closed.countDown();
+            });
+            ensureWriter();
+            if (!closed.await(30, TimeUnit.SECONDS)) {
+                CustomReporter.warning("[NETWORK] " + har.getFile() + " was not closed in time");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (passed && !keepPassed) {
+            try {
+                Files.deleteIfExists(har.getFile());
+            } catch (IOException e) {
+                CustomReporter.warning("[NETWORK] Could not delete " + har.getFile() + ": " + e.getMessage());
+            }
+        } else {
+            CustomReporter.info("[NETWORK] " + har.getEntries() + " requests captured in " + har.getFile()
+                    + (dropped.get() == 0 ? "" : ", " + dropped.get() + " dropped"));
+        }
+    }
+
+    public Path getFile() {
+        return har.getFile();
+    }
+
+    public int getDropped() {
+        return dropped.get();
+    }
+
+
+    private static boolean offer(Runnable write) {
+        ensureWriter();
+        return writes.offer(write);
+    }
+
+    private static synchronized void ensureWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(() -> {
+            while (true) {
+                try {
+                    writes.take().run();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    CustomReporter.error("[NETWORK] Could not write a HAR entry", e);
+                }
+            }
+        }, "har-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
@@ -0,0 +1,285 @@
+package com.carolinabaquero.test.core.utils.network;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * @author cbaquero
+ *         One request being put together from its DevTools Network events, and its HAR 1.2 entry once complete.
+ *         CDP times are seconds (timestamps) and milliseconds relative to the request time (timing), HAR times
+ *         are milliseconds.
+ */
+final class NetworkEntry {
+
+    private final String requestId;
+    private Map<String, Object> request;
+    private Map<String, Object> response;
+    private double wallTime;
+    private double startTimestamp;
+    private double endTimestamp;
+    private double encodedDataLength;
+    private String type;
+    private String error;
+    private boolean finished = false;
+    private String body;
+    private String bodyComment;
+
+
+    NetworkEntry(final String requestId) {
+        this.requestId = requestId;
+    }
+
+
+    String getRequestId() {
+        return requestId;
+    }
+
+    Map<String, Object> getRequest() {
+        return request;
+    }
+
+    void setRequest(Map<String, Object> request, double wallTime, double timestamp, String type) {
+        this.request = request;
+        this.wallTime = wallTime;
+        this.startTimestamp = timestamp;
+        this.type = type;
+    }
+
+    void setResponse(Map<String, Object> response) {
+        this.response = response;
+    }
+
+    /**
+     * @param error the failure, null if the request finished loading
+     */
+    void finish(double timestamp, double encodedDataLength, String error) {
+        this.endTimestamp = timestamp;
+        this.encodedDataLength = encodedDataLength;
+        this.error = error;
+        this.finished = true;
+    }
+
+    boolean isComplete() {
+        return request != null && finished && (response != null || error != null);
+    }
+
+    boolean hasTextResponse() {
+        if (response == null || error != null) {
+            return false;
+        }
+        String mimeType = String.valueOf(response.get("mimeType"));
+        return mimeType.startsWith("text/") || mimeType.contains("json") || mimeType.contains("xml")
+                || mimeType.contains("javascript") || mimeType.contains("x-www-form-urlencoded");
+    }
+
+    void setBody(String body, boolean base64Encoded, int limit) {
+        if (base64Encoded) {
+            bodyComment = "binary body not kept";
+        } else if (body.length() > limit) {
+            this.body = body.substring(0, limit);
+            bodyComment = "truncated from " + body.length() + " characters";
+        } else {
+            this.body = body;
+        }
+    }
+
+    void setBodyComment(String comment) {
+        this.bodyComment = comment;
+    }
+
+
+    /**
+     * @param bodyLimit max characters of the request post data, 0 to leave it out
+     * @return the HAR 1.2 entry
+     */
+    Map<String, Object> toHar(int bodyLimit) {
+        Map<String, Object> timing = response == null ? null : map(response.get("timing"));
+        double[] timings = timings(timing);
+        double total = 0;
+        for (int i = 0; i < timings.length; i++) {
+            // ssl is part of connect
+            total += i == 3 ? 0 : Math.max(0, timings[i]);
+        }
+
+        Map<String, Object> entry = new LinkedHashMap<String, Object>();
+        entry.put("startedDateTime", (wallTime > 0 ? Instant.ofEpochMilli(Math.round(wallTime * 1000)) : Instant.now())
+                .toString());
+        entry.put("time", round(total));
+        entry.put("request", harRequest(bodyLimit));
+        entry.put("response", harResponse());
+        entry.put("cache", Collections.emptyMap());
+        Map<String, Object> harTimings = new LinkedHashMap<String, Object>();
+        harTimings.put("blocked", round(timings[0]));
+        harTimings.put("dns", round(timings[1]));
+        harTimings.put("connect", round(timings[2]));
+        harTimings.put("ssl", round(timings[3]));
+        harTimings.put("send", round(timings[4]));
+        harTimings.put("wait", round(timings[5]));
+        harTimings.put("receive", round(timings[6]));
+        entry.put("timings", harTimings);
+        if (response != null && response.get("remoteIPAddress") != null) {
+            entry.put("serverIPAddress", response.get("remoteIPAddress"));
+        }
+        entry.put("_resourceType", type == null ? "Other" : type);
+        if (error != null) {
+            entry.put("_error", error);
+        }
+        return entry;
+    }
+
+    /**
+     * @return blocked, dns, connect, ssl, send, wait, receive (-1 if it does not apply)
+     */
+    private double[] timings(Map<String, Object> timing) {
+        double elapsed = endTimestamp > 0 && startTimestamp > 0 ? Math.max(0, (endTimestamp - startTimestamp) * 1000) : 0;
+        if (timing == null) {
+            // served from cache, data urls, failed before sending
+            return new double[]{-1, -1, -1, -1, 0, elapsed, 0};
+        }
+        double dnsStart = number(timing.get("dnsStart"));
+        double connectStart = number(timing.get("connectStart"));
+        double sslStart = number(timing.get("sslStart"));
+        double sendStart = number(timing.get("sendStart"));
+        double sendEnd = number(timing.get("sendEnd"));
+        double headersEnd = number(timing.get("receiveHeadersEnd"));
+        double blocked = dnsStart >= 0 ? dnsStart : connectStart >= 0 ? connectStart : Math.max(0, sendStart);
+        double receive = endTimestamp > 0
+                ? Math.max(0, (endTimestamp - number(timing.get("requestTime"))) * 1000 - headersEnd) : 0;
+        return new double[]{
+                blocked,
+                dnsStart >= 0 ? number(timing.get("dnsEnd")) - dnsStart : -1,
+                connectStart >= 0 ? number(timing.get("connectEnd")) - connectStart : -1,
+                sslStart >= 0 ? number(timing.get("sslEnd")) - sslStart : -1,
+                Math.max(0, sendEnd - sendStart),
+                Math.max(0, headersEnd - sendEnd),
+                receive};
+    }
+
+    private Map<String, Object> harRequest(int bodyLimit) {
+        String url = String.valueOf(request.get("url"));
+        Map<String, Object> harRequest = new LinkedHashMap<String, Object>();
+        harRequest.put("method", request.get("method"));
+        harRequest.put("url", url);
+        harRequest.put("httpVersion", response == null ? "" : String.valueOf(response.getOrDefault("protocol", "")));
+        harRequest.put("cookies", Collections.emptyList());
+        harRequest.put("headers", headers(request.get("headers")));
+        harRequest.put("queryString", queryString(url));
+        harRequest.put("headersSize", -1);
+        Object postData = request.get("postData");
+        harRequest.put("bodySize", postData == null ? 0 : String.valueOf(postData).length());
+        if (postData != null && bodyLimit > 0) {
+            String text = String.valueOf(postData);
+            Map<String, Object> harPostData = new LinkedHashMap<String, Object>();
+            harPostData.put("mimeType", String.valueOf(header(request.get("headers"), "content-type")));
+            harPostData.put("text", text.length() > bodyLimit ? text.substring(0, bodyLimit) : text);
+            if (text.length() > bodyLimit) {
+                harPostData.put("comment", "truncated from " + text.length() + " characters");
+            }
+            harRequest.put("postData", harPostData);
+        }
+        return harRequest;
+    }
+
+    private Map<String, Object> harResponse() {
+        Map<String, Object> harResponse = new LinkedHashMap<String, Object>();
+        Map<String, Object> content = new LinkedHashMap<String, Object>();
+        if (response == null) {
+            harResponse.put("status", 0);
+            harResponse.put("statusText", "");
+            harResponse.put("httpVersion", "");
+            harResponse.put("cookies", Collections.emptyList());
+            harResponse.put("headers", Collections.emptyList());
+            content.put("size", 0);
+            content.put("mimeType", "x-unknown");
+            harResponse.put("content", content);
+            harResponse.put("redirectURL", "");
+            harResponse.put("headersSize", -1);
+            harResponse.put("bodySize", -1);
+            return harResponse;
+        }
+        long size = Math.round(encodedDataLength > 0 ? encodedDataLength : number(response.get("encodedDataLength")));
+        harResponse.put("status", Math.round(number(response.get("status"))));
+        harResponse.put("statusText", String.valueOf(response.getOrDefault("statusText", "")));
+        harResponse.put("httpVersion", String.valueOf(response.getOrDefault("protocol", "")));
+        harResponse.put("cookies", Collections.emptyList());
+        harResponse.put("headers", headers(response.get("headers")));
+        content.put("size", size);
+        content.put("mimeType", String.valueOf(response.getOrDefault("mimeType", "x-unknown")));
+        if (body != null) {
+            content.put("text", body);
+        }
+        if (bodyComment != null) {
+            content.put("comment", bodyComment);
+        }
+        harResponse.put("content", content);
+        Object location = header(response.get("headers"), "location");
+        harResponse.put("redirectURL", location == null ? "" : String.valueOf(location));
+        harResponse.put("headersSize", -1);
+        harResponse.put("bodySize", size);
+        return harResponse;
+    }
+
+    /**
+     * CDP headers are a name -> value map, repeated headers are joined with new lines
+     */
+    private static List<Map<String, Object>> headers(Object cdpHeaders) {
+        List<Map<String, Object>> headers = new ArrayList<Map<String, Object>>();
+        for (Map.Entry<String, Object> header : map(cdpHeaders).entrySet()) {
+            for (String value : String.valueOf(header.getValue()).split("\n")) {
+                headers.add(nameValue(header.getKey(), value));
+            }
+        }
+        return headers;
+    }
+
+    private static Object header(Object cdpHeaders, String name) {
+        for (Map.Entry<String, Object> header : map(cdpHeaders).entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static List<Map<String, Object>> queryString(String url) {
+        int start = url.indexOf('?');
+        if (start < 0) {
+            return Collections.emptyList();
+        }
+        int end = url.indexOf('#', start);
+        List<Map<String, Object>> parameters = new ArrayList<Map<String, Object>>();
+        for (String parameter : url.substring(start + 1, end < 0 ? url.length() : end).split("&")) {
+            if (!parameter.isEmpty()) {
+                int equals = parameter.indexOf('=');
+                parameters.add(nameValue(equals < 0 ? parameter : parameter.substring(0, equals),
+                        equals < 0 ? "" : parameter.substring(equals + 1)));
+            }
+        }
+        return parameters;
+    }
+
+    private static Map<String, Object> nameValue(String name, String value) {
+        Map<String, Object> pair = new LinkedHashMap<String, Object>();
+        pair.put("name", name);
+        pair.put("value", value);
+        return pair;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Collections.<String, Object>emptyMap();
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : -1;
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,223 @@
+package com.carolinabaquero.test.core.utils.perf;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.json.Json;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * @author cbaquero
+ *         Where the wall time of every test goes, phase by phase: the class setup (setEnvironment, once per test
+ *         class), starting the driver, launching the application, the test body, storing the failure artifacts
+ *         and quitting the browser. The phases are aggregated for the whole run and per test class, and
+ *         {@link #report()} logs them and writes [reports]/{@value #SUMMARY_FILE_NAME}: samples, total, share of
+ *         the run and percentiles of every phase, in milliseconds.
+ */
+public final class LifecycleTimings {
+
+    public static final String SUMMARY_FILE_NAME = "lifecycle-timings.json";
+
+    public static final String SET_ENVIRONMENT = "setEnvironment";
+    public static final String START_DRIVER = "startDriver";
+    public static final String LAUNCH_APPLICATION = "launchApplication";
+    public static final String TEST_BODY = "testBody";
+    public static final String FAILURE_ARTIFACTS = "takeScreenshotOnFailure";
+    public static final String QUIT = "quit";
+    private static final String[] PHASES = {SET_ENVIRONMENT, START_DRIVER, LAUNCH_APPLICATION, TEST_BODY,
+            FAILURE_ARTIFACTS, QUIT};
+
+    private static final ConcurrentMap<ITestResult, Map<String, Long>> running =
+            new ConcurrentHashMap<ITestResult, Map<String, Long>>();
+    // class name -> phase -> millis
+    private static final ConcurrentMap<String, ConcurrentMap<String, MetricSeries>> byClass =
+            new ConcurrentHashMap<String, ConcurrentMap<String, MetricSeries>>();
+    private static final ConcurrentMap<String, MetricSeries> byPhase = new ConcurrentHashMap<String, MetricSeries>();
+
+    private static volatile Path directory = Paths.get("reports");
+
+
+    private LifecycleTimings() {
+
+    }
+
+
+    /**
+     * Takes the reports directory from the given context
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        directory = Paths.get(context.getReportsDirectory());
+    }
+
+
+    /**
+     * Records the class setup, which runs once for all the tests of the class
+     *
+     * @param testClass the test class
+     * @param nanos     how long setEnvironment took
+     */
+    public static void classSetUp(final Class<?> testClass, final long nanos) {
+
+        add(testClass.getName(), SET_ENVIRONMENT, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * Records one phase of a running test, added to what the test spent on it before
+     *
+     * @param test  the test the phase ran for
+     * @param phase one of the phases of this class
+     * @param nanos how long it took
+     */
+    public static void phase(final ITestResult test, final String phase, final long nanos) {
+
+        running.computeIfAbsent(test, key -> new ConcurrentHashMap<String, Long>())
+                .merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * Adds the phases of a test to the run, once its after method is done. The test body is taken from the
+     * start and end times TestNG gives the test method, it is 0 if the method did not run.
+     *
+     * @param test the finished test
+     */
+    public static void testFinished(final ITestResult test) {
+
+        Map<String, Long> phases = running.remove(test);
+        if (phases == null) {
+            return;
+        }
+        String testClass = test.getMethod().getRealClass().getName();
+        long body = test.getStartMillis() > 0 && test.getEndMillis() >= test.getStartMillis()
+                ? test.getEndMillis() - test.getStartMillis() : 0;
+        add(testClass, TEST_BODY, body);
+        for (String phase : new String[]{START_DRIVER, LAUNCH_APPLICATION, FAILURE_ARTIFACTS, QUIT}) {
+            add(testClass, phase, TimeUnit.NANOSECONDS.toMillis(phases.getOrDefault(phase, 0L)));
+        }
+    }
+
+    private static void add(String testClass, String phase, long millis) {
+        byPhase.computeIfAbsent(phase, key -> new MetricSeries()).add(millis);
+        byClass.computeIfAbsent(testClass, key -> new ConcurrentHashMap<String, MetricSeries>())
+                .computeIfAbsent(phase, key -> new MetricSeries()).add(millis);
+    }
+
+
+    /**
+     * Logs the phases of the run so far and writes them to the summary file
+     */
+    public static void report() {
+
+        if (byPhase.isEmpty()) {
+            return;
+        }
+        Map<String, Object> summary = new LinkedHashMap<String, Object>();
+        MetricSeries bodies = byPhase.get(TEST_BODY);
+        summary.put("tests", bodies == null ? 0 : bodies.size());
+        summary.put("totalMillis", total(byPhase));
+        summary.put("phases", phases(byPhase));
+        List<Map<String, Object>> classes = new ArrayList<Map<String, Object>>();
+        for (Map.Entry<String, ConcurrentMap<String, MetricSeries>> testClass
+                : new TreeMap<String, ConcurrentMap<String, MetricSeries>>(byClass).entrySet()) {
+            Map<String, Object> entry = new LinkedHashMap<String, Object>();
+            MetricSeries classBodies = testClass.getValue().get(TEST_BODY);
+            entry.put("class", testClass.getKey());
+            entry.put("tests", classBodies == null ? 0 : classBodies.size());
+            entry.put("totalMillis", total(testClass.getValue()));
+            entry.put("phases", phases(testClass.getValue()));
+            classes.add(entry);
+        }
+        summary.put("classes", classes);
+
+        CustomReporter.info("[LIFECYCLE] Time per phase (samples / total / share / p50 / p90 / p95 / max, ms):");
+        long setUp = 0;
+        long total = total(byPhase);
+        for (Map<String, Object> phase : phases(byPhase)) {
+            CustomReporter.info(String.format(Locale.ROOT, "      %-24s %6d %10d %5.1f%% %8d %8d %8d %8d",
+                    phase.get("phase"), phase.get("samples"), phase.get("totalMillis"), phase.get("sharePercent"),
+                    phase.get("p50"), phase.get("p90"), phase.get("p95"), phase.get("max")));
+            if (!TEST_BODY.equals(phase.get("phase"))) {
+                setUp += (Long) phase.get("totalMillis");
+            }
+        }
+        CustomReporter.info(String.format(Locale.ROOT, "[LIFECYCLE] Setup and teardown took %.1f%% of the test time,"
+                + " test bodies %.1f%%", share(setUp, total), share(total - setUp, total)));
+
+        Path summaryFile = directory.resolve(SUMMARY_FILE_NAME);
+        try {
+            Files.createDirectories(directory);
+            Files.write(summaryFile, new Json().toJson(summary).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            CustomReporter.error("[LIFECYCLE] Could not write " + summaryFile, e);
+        }
+    }
+
+    private static List<Map<String, Object>> phases(Map<String, ? extends MetricSeries> series) {
+        long total = total(series);
+        List<Map<String, Object>> phases = new ArrayList<Map<String, Object>>();
+        for (String name : PHASES) {
+            MetricSeries phase = series.get(name);
+            if (phase == null) {
+                continue;
+            }
+            long[] percentiles = phase.percentiles(50, 90, 95, 99);
+            Map<String, Object> entry = new LinkedHashMap<String, Object>();
+            entry.put("phase", name);
+            entry.put("samples", phase.size());
+            entry.put("totalMillis", sum(phase));
+            entry.put("sharePercent", Math.round(share(sum(phase), total) * 10) / 10.0);
+            entry.put("mean", Math.round(phase.mean() * 10) / 10.0);
+            entry.put("p50", percentiles[0]);
+            entry.put("p90", percentiles[1]);
+            entry.put("p95", percentiles[2]);
+            entry.put("p99", percentiles[3]);
+            entry.put("max", phase.max());
+            phases.add(entry);
+        }
+        return phases;
+    }
+
+    private static long total(Map<String, ? extends MetricSeries> series) {
+        long total = 0;
+        for (MetricSeries phase : series.values()) {
+            total += sum(phase);
+        }
+        return total;
+    }
+
+    private static long sum(MetricSeries series) {
+        return Math.round(series.mean() * series.size());
+    }
+
+    private static double share(long part, long total) {
+        return total == 0 ? 0 : part * 100.0 / total;
+    }
+
+
+    /**
+     * Drops all the timings recorded so far
+     */
+    public static void reset() {
+
+        running.clear();
+        byClass.clear();
+        byPhase.clear();
+    }
+}
@@ -0,0 +1,100 @@
+package com.carolinabaquero.test.core.utils.perf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * @author cbaquero
+ *         Thread safe list of samples for one metric, able to give its percentiles.
+ */
+public class MetricSeries {
+
+    private final List<Long> samples = new ArrayList<Long>();
+
+
+    /**
+     * Adds a new sample to the series
+     *
+     * @param value the measured value
+     */
+    public synchronized void add(final long value) {
+
+        samples.add(value);
+    }
+
+
+    /**
+     * @return the amount of samples in the series
+     */
+    public synchronized int size() {
+
+        return samples.size();
+    }
+
+
+    /**
+     * Gets the given percentile using the nearest-rank method
+     *
+     * @param percentile a value between 0 and 100
+     * @return the percentile value, or 0 if the series is empty
+     */
+    public long percentile(final double percentile) {
+
+        List<Long> sorted = sortedSnapshot();
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(rank, sorted.size()) - 1));
+    }
+
+
+    /**
+     * Gets several percentiles at once, sorting the samples only once
+     *
+     * @param percentiles values between 0 and 100
+     * @return the percentile values in the same order, 0 if the series is empty
+     */
+    public long[] percentiles(final double... percentiles) {
+
+        List<Long> sorted = sortedSnapshot();
+        long[] values = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length && !sorted.isEmpty(); i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100.0 * sorted.size());
+            values[i] = sorted.get(Math.max(0, Math.min(rank, sorted.size()) - 1));
+        }
+        return values;
+    }
+
+
+    /**
+     * @return the average of the samples, or 0 if the series is empty
+     */
+    public synchronized double mean() {
+
+        long sum = 0;
+        for (long sample : samples) {
+            sum += sample;
+        }
+        return samples.isEmpty() ? 0 : (double) sum / samples.size();
+    }
+
+
+    /**
+     * @return the highest sample, or 0 if the series is empty
+     */
+    public long max() {
+
+        return percentile(100);
+    }
+
+
+    private synchronized List<Long> sortedSnapshot() {
+
+        List<Long> sorted = new ArrayList<Long>(samples);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
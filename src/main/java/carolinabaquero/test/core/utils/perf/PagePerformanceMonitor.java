@@ -0,0 +1,211 @@
+package com.carolinabaquero.test.core.utils.perf;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.exceptions.PerformanceBudgetExceededException;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * @author cbaquero
+ *         Collects browser side performance data (Navigation Timing, Paint Timing and Resource Timing)
+ *         every time a page object is created, tags it by page object class and aggregates it for the whole run.
+ *         Each sample is checked against the per page budgets defined on the properties file, e.g.
+ *         <pre>perfBudget.LoginPage.load = 3000</pre>
+ */
+public final class PagePerformanceMonitor {
+
+    public static final String SUMMARY_FILE_NAME = "page-performance.csv";
+
+    /**
+     * Navigation and paint metrics are only taken the first time a document is seen (the window flag
+     * is lost on a real navigation), resource metrics count only the entries added since the last capture,
+     * so page objects built over the same document (single page apps) do not report the same load twice.
+     */
+    private static final String CAPTURE_SCRIPT =
+            "var perf = window.performance;"
+            + "if (!perf || !perf.getEntriesByType) { return null; }"
+            + "var result = {};"
+            + "var nav = perf.getEntriesByType('navigation')[0];"
+            + "if (!window.__fwkPerfCaptured && nav) {"
+            + "  window.__fwkPerfCaptured = true;"
+            + "  result.ttfb = nav.responseStart - nav.requestStart;"
+            + "  if (nav.domContentLoadedEventEnd > 0) { result.domContentLoaded = nav.domContentLoadedEventEnd; }"
+            + "  if (nav.loadEventEnd > 0) { result.load = nav.loadEventEnd; }"
+            + "  perf.getEntriesByType('paint').forEach(function (p) {"
+            + "    if (p.name === 'first-paint') { result.firstPaint = p.startTime; }"
+            + "    if (p.name === 'first-contentful-paint') { result.firstContentfulPaint = p.startTime; }"
+            + "  });"
+            + "}"
+            + "var resources = perf.getEntriesByType('resource');"
+            + "var from = window.__fwkPerfResourceIndex || 0;"
+            + "window.__fwkPerfResourceIndex = resources.length;"
+            + "var transfer = 0, slowest = 0;"
+            + "for (var i = from; i < resources.length; i++) {"
+            + "  transfer += resources[i].transferSize || 0;"
+            + "  slowest = Math.max(slowest, resources[i].duration);"
+            + "}"
+            + "result.resourceCount = resources.length - from;"
+            + "result.resourceTransferSize = transfer;"
+            + "result.slowestResource = slowest;"
+            + "return result;";
+
+    private static volatile boolean enabled = false;
+    private static volatile boolean failOnBudget = false;
+    private static volatile Map<String, Long> budgets = Collections.emptyMap();
+    private static volatile String reportsDirectory = "reports";
+
+    // page object simple name -> metric name -> samples
+    private static final ConcurrentMap<String, ConcurrentMap<String, MetricSeries>> metrics =
+            new ConcurrentHashMap<String, ConcurrentMap<String, MetricSeries>>();
+
+
+    private PagePerformanceMonitor() {
+
+    }
+
+
+    /**
+     * Turns the capture on/off and loads the budgets from the given context
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        enabled = context.capturingPagePerformance();
+        failOnBudget = AppContext.BUDGET_ACTION_FAIL.equals(context.getPerformanceBudgetAction());
+        budgets = new HashMap<String, Long>(context.getPerformanceBudgets());
+        reportsDirectory = context.getReportsDirectory();
+    }
+
+
+    /**
+     * @return true if page performance is being captured on this run
+     */
+    public static boolean isEnabled() {
+
+        return enabled;
+    }
+
+
+    /**
+     * Reads the performance entries of the current document and records them under the given page object.
+     * Does nothing if the capture is disabled.
+     *
+     * @param driver    the driver used by the page object
+     * @param pageClass the page object class the sample belongs to
+     * @throws PerformanceBudgetExceededException if a budget is exceeded and the budget action is FAIL
+     */
+    public static void capture(final WebDriver driver, final Class<?> pageClass) {
+
+        if (!enabled || !(driver instanceof JavascriptExecutor)) {
+            return;
+        }
+        Object raw;
+        try {
+            raw = ((JavascriptExecutor) driver).executeScript(CAPTURE_SCRIPT);
+        } catch (WebDriverException e) {
+            CustomReporter.debug("Page performance not available for " + pageClass.getSimpleName()
+                    + ": " + e.getMessage());
+            return;
+        }
+        if (!(raw instanceof Map)) {
+            return;
+        }
+        String page = pageClass.getSimpleName();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) raw).entrySet()) {
+            if (entry.getValue() instanceof Number) {
+                record(page, String.valueOf(entry.getKey()), Math.round(((Number) entry.getValue()).doubleValue()));
+            }
+        }
+    }
+
+
+    /**
+     * Records one sample and checks it against its budget, if any
+     *
+     * @param page   page object simple name
+     * @param metric metric name
+     * @param value  measured value
+     */
+    static void record(final String page, final String metric, final long value) {
+
+        ConcurrentMap<String, MetricSeries> pageMetrics = metrics.get(page);
+        if (pageMetrics == null) {
+            metrics.putIfAbsent(page, new ConcurrentHashMap<String, MetricSeries>());
+            pageMetrics = metrics.get(page);
+        }
+        MetricSeries series = pageMetrics.get(metric);
+        if (series == null) {
+            pageMetrics.putIfAbsent(metric, new MetricSeries());
+            series = pageMetrics.get(metric);
+        }
+        series.add(value);
+        CustomReporter.debug("[PERF] " + page + " " + metric + " = " + value);
+
+        Long budget = budgets.get(page + "." + metric);
+        if (budget != null && value > budget) {
+            if (failOnBudget) {
+                throw new PerformanceBudgetExceededException(page, metric, value, budget);
+            }
+            CustomReporter.warning("[PERF] Budget exceeded on " + page + ": " + metric + " was " + value
+                    + " (budget " + budget + ")");
+        }
+    }
+
+
+    /**
+     * Logs the percentiles for every page and metric captured so far and writes them
+     * as CSV to the reports directory. Does nothing if nothing was captured.
+     */
+    public static void report() {
+
+        if (metrics.isEmpty()) {
+            return;
+        }
+        File directory = new File(reportsDirectory);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File summary = new File(directory, SUMMARY_FILE_NAME);
+        CustomReporter.info("[PERF] Page performance summary (p50 / p90 / p95 / max):");
+        try (PrintWriter writer = new PrintWriter(summary, StandardCharsets.UTF_8.name())) {
+            writer.println("page,metric,samples,p50,p90,p95,max,budget");
+            for (Map.Entry<String, ConcurrentMap<String, MetricSeries>> page : new TreeMap<String, ConcurrentMap<String, MetricSeries>>(metrics).entrySet()) {
+                for (Map.Entry<String, MetricSeries> metric : new TreeMap<String, MetricSeries>(page.getValue()).entrySet()) {
+                    MetricSeries series = metric.getValue();
+                    Long budget = budgets.get(page.getKey() + "." + metric.getKey());
+                    String line = page.getKey() + "," + metric.getKey() + "," + series.size() + ","
+                            + series.percentile(50) + "," + series.percentile(90) + ","
+                            + series.percentile(95) + "," + series.max() + "," + (budget == null ? "" : budget);
+                    writer.println(line);
+                    CustomReporter.info("      " + line);
+                }
+            }
+        } catch (IOException e) {
+            CustomReporter.error("[PERF] Could not write " + summary.getPath(), e);
+        }
+    }
+
+
+    /**
+     * Drops all samples captured so far
+     */
+    public static void reset() {
+
+        metrics.clear();
+    }
+}
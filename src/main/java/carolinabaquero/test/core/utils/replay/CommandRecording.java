@@ -0,0 +1,171 @@
+package com.carolinabaquero.test.core.utils.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * @author cbaquero
+ *         The commands of a recorded session, in the order they were sent.
+ *         <p/>
+ *         Binary format, gzipped: the magic number and version, then one entry per command (name, parameters,
+ *         duration, session id, status, state, value, error). Strings are length prefixed UTF-8, absent values
+ *         are a length of -1. Every entry is flushed as it is written, so the recording of a session that never
+ *         quit (JVM killed, session reaped) can still be read up to its last command.
+ */
+public final class CommandRecording {
+
+    public static final String EXTENSION = ".wdrec";
+    // "WDRC"
+    private static final int MAGIC = 0x57445243;
+    private static final int VERSION = 1;
+
+    private final List<RecordedCommand> commands;
+
+
+    private CommandRecording(final List<RecordedCommand> commands) {
+        this.commands = Collections.unmodifiableList(commands);
+    }
+
+
+    /**
+     * Reads a recording, up to its last complete command
+     *
+     * @param file the recording
+     * @return its commands
+     */
+    public static CommandRecording read(final Path file) throws IOException {
+
+        List<RecordedCommand> commands = new ArrayList<RecordedCommand>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a command recording");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(file + " is a version " + version + " command recording, expected " + VERSION);
+            }
+            while (true) {
+                String name;
+                try {
+                    name = readString(in);
+                } catch (EOFException end) {
+                    break;
+                }
+                try {
+                    String parameters = readString(in);
+                    long durationNanos = in.readLong();
+                    String sessionId = readString(in);
+                    int status = in.readInt();
+                    commands.add(new RecordedCommand(name, parameters, durationNanos, sessionId,
+                            status < 0 ? null : status, readString(in), readString(in), readString(in)));
+                } catch (EOFException truncated) {
+                    // the session ended in the middle of a write
+                    break;
+                }
+            }
+        }
+        return new CommandRecording(commands);
+    }
+
+    /**
+     * Starts a new recording
+     *
+     * @param file where to write it, replaced if it exists
+     * @return the writer, to close when the session quits
+     */
+    public static Writer create(final Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        return new Writer(file);
+    }
+
+    public List<RecordedCommand> commands() {
+        return commands;
+    }
+
+    /**
+     * @return the time the driver took to answer all the commands
+     */
+    public long totalDurationNanos() {
+        long total = 0;
+        for (RecordedCommand command : commands) {
+            total += command.durationNanos();
+        }
+        return total;
+    }
+
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    /**
+     * Appends the commands of a session to its recording
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path file;
+        private final DataOutputStream out;
+
+        private Writer(Path file) throws IOException {
+            this.file = file;
+            // sync flush, so every flushed command can be read back even if the stream is never finished
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024, true), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        public Path file() {
+            return file;
+        }
+
+        public synchronized void append(final RecordedCommand command) throws IOException {
+            writeString(out, command.name());
+            writeString(out, command.parameters());
+            out.writeLong(command.durationNanos());
+            writeString(out, command.sessionId());
+            out.writeInt(command.status() == null ? -1 : command.status());
+            writeString(out, command.state());
+            writeString(out, command.value());
+            writeString(out, command.error());
+            out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.carolinabaquero.test.core.utils.replay;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * @author cbaquero
+ *         Records the WebDriver commands of every session to [reports]/commands, or replays them with no browser.
+ *         <p/>
+ *         Recording wraps the command executor of the session, under every decoration getDriverInstance() adds,
+ *         so on replay the driver, the page objects, the listeners and the reporter run the same code as with a
+ *         browser, only the driver answers come from the recording (see {@link ReplayCommandExecutor}).
+ *         Recordings are named after the test that started the session: [class].[method], plus the hash of the
+ *         parameters for data driven tests, plus -2, -3... for the next sessions of the same name, so a replay
+ *         run finds the recording of every test as long as it starts them in the same order.
+ */
+public final class CommandReplay {
+
+    private static final Map<String, AtomicInteger> sessionsByName = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private static volatile boolean recording = false;
+    private static volatile Path recordingDirectory = Paths.get("reports", "commands");
+    private static volatile Path replayDirectory;
+    private static volatile double latencyScale = 1;
+
+
+    private CommandReplay() {
+
+    }
+
+
+    /**
+     * Takes the record and replay settings from the given context
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        recording = context.recordingCommands();
+        recordingDirectory = Paths.get(context.getReportsDirectory(), "commands");
+        replayDirectory = context.getReplayCommandsDir().isEmpty() ? null : Paths.get(context.getReplayCommandsDir());
+        latencyScale = context.getReplayLatencyScale();
+        if (recording && replayDirectory != null) {
+            CustomReporter.warning("[REPLAY] Both recordCommands and replayCommands are set, replaying only");
+            recording = false;
+        }
+    }
+
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    public static boolean isReplaying() {
+        return replayDirectory != null;
+    }
+
+
+    /**
+     * Wraps the command executor of a new session to record it, if recording
+     *
+     * @param executor the executor that talks to the driver
+     * @param owner    the test the session is started for, null if none
+     * @return the executor to start the session with
+     */
+    public static CommandExecutor record(final CommandExecutor executor, final ITestResult owner) {
+
+        if (!recording) {
+            return executor;
+        }
+        Path file = recordingDirectory.resolve(nextName(owner) + CommandRecording.EXTENSION);
+        try {
+            return new RecordingCommandExecutor(executor, CommandRecording.create(file));
+        } catch (IOException e) {
+            CustomReporter.warning("[REPLAY] Could not record " + file + ": " + e.getMessage());
+            return executor;
+        }
+    }
+
+    /**
+     * Starts a session that answers with the recording of the test instead of a browser
+     *
+     * @param owner   the test the session is started for, null if none
+     * @param options the browser options, sent as they were when recorded
+     * @return the replayed session
+     * @throws SessionNotCreatedException if there is no readable recording for the test
+     */
+    public static WebDriver replay(final ITestResult owner, final Capabilities options) {
+
+        String name = nextName(owner);
+        Path file = replayDirectory.resolve(name + CommandRecording.EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            throw new SessionNotCreatedException("No command recording for " + name + " in " + replayDirectory);
+        }
+        try {
+            CommandRecording commands = CommandRecording.read(file);
+            CustomReporter.debug("[REPLAY] Replaying " + commands.commands().size() + " commands of " + file);
+            return new RemoteWebDriver(new ReplayCommandExecutor(name, commands, latencyScale), options);
+        } catch (IOException e) {
+            throw new SessionNotCreatedException("Could not read " + file + ": " + e.getMessage());
+        }
+    }
+
+
+    private static String nextName(ITestResult owner) {
+        String name = "session";
+        if (owner != null) {
+            name = owner.getMethod().getRealClass().getName() + "." + owner.getMethod().getMethodName();
+            if (owner.getParameters().length > 0) {
+                name += "-" + Integer.toHexString(Arrays.deepToString(owner.getParameters()).hashCode());
+            }
+        }
+        int session = sessionsByName.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+        return session == 1 ? name : name + "-" + session;
+    }
+}
@@ -0,0 +1,72 @@
+package com.carolinabaquero.test.core.utils.replay;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.Response;
+
+import java.lang.reflect.Constructor;
+
+
+/**
+ * One command of a recorded session, with the response the driver gave and the time it took
+ *
+ * @param name          the command name, e.g. findElement
+ * @param parameters    the command parameters, as JSON
+ * @param durationNanos time the driver took to answer
+ * @param sessionId     the session id of the response, null if none
+ * @param status        the response status, null if none
+ * @param state         the response state, null if none
+ * @param value         the response value as JSON, or the exception message when error is set
+ * @param error         the class of the exception the response carried, null if it did not fail
+ * @author cbaquero
+ */
+public record RecordedCommand(String name, String parameters, long durationNanos, String sessionId, Integer status,
+                              String state, String value, String error) {
+
+    private static final Json JSON = new Json();
+
+
+    /**
+     * @param command       the command sent to the driver
+     * @param response      its response
+     * @param durationNanos time the driver took to answer
+     */
+    public static RecordedCommand of(final Command command, final Response response, final long durationNanos) {
+        Object value = response.getValue();
+        boolean failed = value instanceof Throwable;
+        String recordedValue = !failed ? JSON.toJson(value) : value instanceof WebDriverException
+                ? ((WebDriverException) value).getRawMessage() : ((Throwable) value).getMessage();
+        return new RecordedCommand(command.getName(), JSON.toJson(command.getParameters()), durationNanos,
+                response.getSessionId(), response.getStatus(), response.getState(), recordedValue,
+                failed ? value.getClass().getName() : null);
+    }
+
+    /**
+     * @return the name and parameters, what a replayed command has to match
+     */
+    public String key() {
+        return name + parameters;
+    }
+
+    /**
+     * @return a new response as the driver gave it, with the same exception type on failures
+     */
+    public Response toResponse() {
+        Response response = new Response();
+        response.setSessionId(sessionId);
+        response.setStatus(status);
+        response.setState(state);
+        response.setValue(error == null ? JSON.toType(value, Json.OBJECT_TYPE) : exception());
+        return response;
+    }
+
+    private Throwable exception() {
+        try {
+            Constructor<?> constructor = Class.forName(error).getConstructor(String.class);
+            return (Throwable) constructor.newInstance(value);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new WebDriverException(error + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.carolinabaquero.test.core.utils.replay;
+
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+
+import java.io.IOException;
+
+
+/**
+ * @author cbaquero
+ *         Sends the commands of a session to the driver and appends every command, its response and the time the
+ *         driver took to a {@link CommandRecording}. The recording is closed when the session quits.
+ *         Commands that do not get a response (driver unreachable) are not recorded.
+ */
+public class RecordingCommandExecutor implements CommandExecutor {
+
+    private final CommandExecutor delegate;
+    private final CommandRecording.Writer recording;
+    private boolean failed = false;
+
+
+    /**
+     * @param delegate  the executor that talks to the driver
+     * @param recording where the commands are written
+     */
+    public RecordingCommandExecutor(final CommandExecutor delegate, final CommandRecording.Writer recording) {
+        this.delegate = delegate;
+        this.recording = recording;
+    }
+
+
+    @Override
+    public Response execute(final Command command) throws IOException {
+        long start = System.nanoTime();
+        Response response = delegate.execute(command);
+        long nanos = System.nanoTime() - start;
+        record(command, response, nanos);
+        if (DriverCommand.QUIT.equals(command.getName())) {
+            close();
+        }
+        return response;
+    }
+
+    private synchronized void record(Command command, Response response, long nanos) {
+        if (failed) {
+            return;
+        }
+        try {
+            recording.append(RecordedCommand.of(command, response, nanos));
+        } catch (IOException | RuntimeException e) {
+            // the session goes on unrecorded
+            failed = true;
+            CustomReporter.warning("[REPLAY] Stopped recording " + recording.file() + ": " + e);
+        }
+    }
+
+    private synchronized void close() {
+        try {
+            recording.close();
+            CustomReporter.debug("[REPLAY] Recorded " + recording.file());
+        } catch (IOException e) {
+            CustomReporter.warning("[REPLAY] Could not close " + recording.file() + ": " + e.getMessage());
+        }
+        failed = true;
+    }
+}
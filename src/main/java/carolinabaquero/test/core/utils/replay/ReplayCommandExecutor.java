@@ -0,0 +1,112 @@
+package com.carolinabaquero.test.core.utils.replay;
+
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * @author cbaquero
+ *         Answers the commands of a session with the responses of a {@link CommandRecording}, after the recorded
+ *         driver time multiplied by the latency scale (0 answers at once), so a test can run again with no browser.
+ *         <p/>
+ *         Commands are answered in the recorded order. Waits poll as often as time allows, so the replay may
+ *         poll more or less than the recording did: a command repeated past its recorded repetitions gets the
+ *         last response again, and recorded repetitions the replay does not ask for are skipped. A command with the
+ *         recorded name but other parameters (a timestamp argument, say) gets the recorded response with a
+ *         warning. Anything else means the test no longer does what was recorded, and fails the command.
+ */
+public class ReplayCommandExecutor implements CommandExecutor {
+
+    private static final Json JSON = new Json();
+
+    private final String name;
+    private final List<RecordedCommand> commands;
+    private final double latencyScale;
+    private int next = 0;
+    private RecordedCommand last;
+
+
+    /**
+     * @param name         the recording name, for the messages
+     * @param recording    the recorded session
+     * @param latencyScale how much of the recorded driver time every answer takes, 1 for the original latency
+     */
+    public ReplayCommandExecutor(final String name, final CommandRecording recording, final double latencyScale) {
+        this.name = name;
+        this.commands = recording.commands();
+        this.latencyScale = latencyScale;
+    }
+
+
+    @Override
+    public synchronized Response execute(final Command command) {
+        RecordedCommand answer = find(command.getName(), JSON.toJson(command.getParameters()));
+        if (answer == null) {
+            if (DriverCommand.QUIT.equals(command.getName())) {
+                // the recording ended before the quit (session reaped, JVM killed)
+                return new Response(command.getSessionId());
+            }
+            throw new WebDriverException("Replay of " + name + " diverged at command " + (next + 1) + ": "
+                    + command.getName() + " was sent, the recording has "
+                    + (next < commands.size() ? commands.get(next).name() : "no more commands"));
+        }
+        last = answer;
+        answerAfter(answer.durationNanos());
+        return answer.toResponse();
+    }
+
+    private RecordedCommand find(String command, String parameters) {
+        String key = command + parameters;
+        if (next < commands.size() && commands.get(next).key().equals(key)) {
+            return commands.get(next++);
+        }
+        if (last != null && last.key().equals(key)) {
+            // one more poll than recorded
+            return last;
+        }
+        int skipped = next;
+        while (last != null && skipped < commands.size() && commands.get(skipped).key().equals(last.key())) {
+            skipped++;
+        }
+        if (skipped < commands.size() && commands.get(skipped).key().equals(key)) {
+            // fewer polls than recorded
+            next = skipped + 1;
+            return commands.get(skipped);
+        }
+        if (next < commands.size() && commands.get(next).name().equals(command)) {
+            CustomReporter.warning("[REPLAY] " + name + ": " + command + " at command " + (next + 1)
+                    + " was recorded with other parameters, " + commands.get(next).parameters() + " instead of "
+                    + parameters);
+            return commands.get(next++);
+        }
+        return null;
+    }
+
+    private void answerAfter(long recordedNanos) {
+        long nanos = (long) (recordedNanos * latencyScale);
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("Interrupted while replaying " + name, e);
+        }
+    }
+
+    /**
+     * @return the recorded commands not answered yet
+     */
+    public synchronized int remaining() {
+        return commands.size() - next;
+    }
+}
@@ -0,0 +1,267 @@
+package com.carolinabaquero.test.core.utils.reports;
+
+import org.testng.ITestResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * @author cbaquero
+ *         Append only journal with the outcome of every test invocation of the run, so an interrupted run can be
+ *         resumed running only what did not pass (see {@link ReporterTestListener}).
+ *         <p/>
+ *         One tab separated line per invocation: status, TestNG test, [class]#[method], parameters, name, millis.
+ *         Lines go to the OS right away and are synced to disk in batches every {@link #SYNC_INTERVAL_MILLIS},
+ *         one fsync for all the results in between, and on close or JVM shutdown. A crash loses at most the last
+ *         batch, those tests just run again. A torn last line is ignored.
+ */
+final class CheckpointJournal implements Closeable {
+
+    static final long SYNC_INTERVAL_MILLIS = 250;
+
+    private static final String PASSED = "PASS";
+    private static final int FIELDS = 6;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ScheduledExecutorService syncer;
+    private final Thread shutdownSync;
+    private volatile boolean dirty = false;
+    // [TestNG test] [class]#[method] [parameters] -> last outcome on the previous runs
+    private final Map<String, Entry> previous = new ConcurrentHashMap<String, Entry>();
+    // [TestNG test] [class]#[method] -> its passed invocations, only if none of them failed or was skipped
+    private final Map<String, List<Entry>> passedMethods = new ConcurrentHashMap<String, List<Entry>>();
+
+
+    private CheckpointJournal(final Path file, final boolean resume) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        boolean tornLine = false;
+        if (resume && Files.exists(file)) {
+            String journal = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            tornLine = !journal.isEmpty() && !journal.endsWith("\n");
+            for (String line : journal.split("\n")) {
+                Entry entry = Entry.parse(line);
+                if (entry != null) {
+                    previous.put(entry.key(), entry);
+                }
+            }
+            Set<String> notPassed = new HashSet<String>();
+            for (Entry entry : previous.values()) {
+                if (PASSED.equals(entry.status())) {
+                    passedMethods.computeIfAbsent(entry.methodKey(), key -> new ArrayList<Entry>()).add(entry);
+                } else {
+                    notPassed.add(entry.methodKey());
+                }
+            }
+            passedMethods.keySet().removeAll(notPassed);
+        }
+        this.channel = resume
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (tornLine) {
+            channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+        }
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(this::sync, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        // an aborted run (Ctrl+C, agent stopped) still gets its last results on disk
+        this.shutdownSync = new Thread(this::sync, "checkpoint-shutdown-sync");
+        Runtime.getRuntime().addShutdownHook(shutdownSync);
+    }
+
+
+    /**
+     * @param file   the journal file
+     * @param resume true to keep the outcomes already in the file and append to them,
+     *               false to start a new journal
+     */
+    static CheckpointJournal open(final Path file, final boolean resume) {
+        try {
+            return new CheckpointJournal(file, resume);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the checkpoint journal " + file, e);
+        }
+    }
+
+
+    /**
+     * Appends the outcome of a finished invocation
+     */
+    void append(final String testName, final ITestResult result) {
+        String status = result.getStatus() == ITestResult.SUCCESS ? PASSED
+                : result.getStatus() == ITestResult.SKIP ? "SKIP" : "FAIL";
+        Entry entry = new Entry(status, testName, testId(result.getMethod().getRealClass(),
+                result.getMethod().getMethodName()), parametersKey(result.getParameters()), ReportEntry.testName(result),
+                Math.max(0, result.getEndMillis() - result.getStartMillis()));
+        byte[] line = entry.toLine().getBytes(StandardCharsets.UTF_8);
+        try {
+            synchronized (this) {
+                channel.write(ByteBuffer.wrap(line));
+            }
+            dirty = true;
+        } catch (IOException e) {
+            CustomReporter.error("[CHECKPOINT] Could not write to " + file, e);
+        }
+    }
+
+    /**
+     * @return the previous outcome of the data provider row if it passed, null if it has to run
+     */
+    Entry passedBefore(final String testName, final String testId, final Object[] parameters) {
+        Entry entry = previous.get(testName + '\t' + testId + '\t' + parametersKey(parameters));
+        return entry != null && PASSED.equals(entry.status()) ? entry : null;
+    }
+
+    /**
+     * @return the previous invocations of a method without data provider if all of them passed, null if it has to run
+     */
+    List<Entry> passedBefore(final String testName, final String testId) {
+        return passedMethods.get(testName + '\t' + testId);
+    }
+
+    boolean isResuming() {
+        return !previous.isEmpty();
+    }
+
+    int passedCount() {
+        int passed = 0;
+        for (Entry entry : previous.values()) {
+            passed += PASSED.equals(entry.status()) ? 1 : 0;
+        }
+        return passed;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    private void sync() {
+        if (!dirty || !channel.isOpen()) {
+            return;
+        }
+        dirty = false;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            CustomReporter.error("[CHECKPOINT] Could not sync " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        syncer.shutdown();
+        sync();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownSync);
+        } catch (IllegalStateException e) {
+            // already shutting down, the hook syncs
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            CustomReporter.error("[CHECKPOINT] Could not close " + file, e);
+        }
+    }
+
+
+    static String testId(final Class<?> testClass, final String method) {
+        return testClass.getName() + "#" + method;
+    }
+
+    /**
+     * Parameters as text: data provider rows are told apart by their values, so they must have a stable toString
+     * (a row that does not is simply run again)
+     */
+    static String parametersKey(final Object[] parameters) {
+        return parameters == null ? "[]" : Arrays.deepToString(parameters);
+    }
+
+
+    /**
+     * One journal line
+     *
+     * @param status     PASS, FAIL or SKIP
+     * @param testName   the TestNG test (the same method can run on several, e.g. one per browser)
+     * @param testId     [class]#[method]
+     * @param parameters the invocation parameters, see {@link #parametersKey(Object[])}
+     * @param name       the name shown on the reports
+     * @param millis     the invocation duration
+     */
+    record Entry(String status, String testName, String testId, String parameters, String name, long millis) {
+
+        String key() {
+            return methodKey() + '\t' + parameters;
+        }
+
+        String methodKey() {
+            return testName + '\t' + testId;
+        }
+
+        /**
+         * @return the entry as it goes on the reports of the resumed run
+         */
+        ReportEntry toReportEntry() {
+            return new ReportEntry(testId.substring(0, testId.indexOf('#')), name, ITestResult.SUCCESS, millis, null,
+                    true);
+        }
+
+        String toLine() {
+            return status + '\t' + escape(testName) + '\t' + escape(testId) + '\t' + escape(parameters) + '\t'
+                    + escape(name) + '\t' + millis + '\n';
+        }
+
+        static Entry parse(final String line) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length != FIELDS) {
+                return null;
+            }
+            try {
+                return new Entry(fields[0], unescape(fields[1]), unescape(fields[2]), unescape(fields[3]),
+                        unescape(fields[4]), Long.parseLong(fields[5]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String escape(String text) {
+            return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+        }
+
+        private static String unescape(String text) {
+            StringBuilder plain = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\\' && i + 1 < text.length()) {
+                    char next = text.charAt(++i);
+                    plain.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+                } else {
+                    plain.append(c);
+                }
+            }
+            return plain.toString();
+        }
+    }
+}
@@ -1,29 +1,47 @@
 package com.carolinabaquero.test.core.utils.reports;
 
 
-import org.apache.log4j.Level;
-import org.apache.log4j.Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.testng.Reporter;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Vector;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 
 /**
  * @author Carolina Baquero
- *         Logs all test messages in the console output as well as in Log4J file and
+ *         Logs all test messages in the console output (SLF4J) as well as in
  *         TestNG Reporter output including date, message type and message.
+ *         <p/>
+ *         The trace buffer is kept per test, from its start on the thread running it, so tests running in parallel
+ *         (or on virtual threads) only dump their own trace. Threads that run no test (watchdogs, writers, DevTools
+ *         events) buffer nothing, and a trace keeps the last {@link #TRACE_LIMIT} lines only. Page tasks run in the
+ *         trace of the test that started them, see {@link #inCallerTrace(Supplier)}.
  */
 public class CustomReporter {
 
-    private static boolean debug = false;
-    private static Vector<String> traceBuffer = new Vector<String>();
-    private static boolean warningReported = false;
-    private static DateFormat dateFormat = new SimpleDateFormat("hh:mm:ss");
+    static final int TRACE_LIMIT = 1000;
 
-    static final Logger logger = Logger.getLogger(CustomReporter.class);
+    private static volatile boolean debug = false;
+    // the trace of the test running on the thread, null if none
+    private static final ThreadLocal<Trace> traceBuffer = new ThreadLocal<Trace>();
+    private static volatile boolean warningReported = false;
+    private static final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("hh:mm:ss");
+
+    static {
+        // let this logger print debug output, the debug flag decides what is actually logged
+        String levelKey = "org.slf4j.simpleLogger.log." + CustomReporter.class.getName();
+        if (System.getProperty(levelKey) == null) {
+            System.setProperty(levelKey, "debug");
+        }
+    }
+
+    static final Logger logger = LoggerFactory.getLogger(CustomReporter.class);
 
 
     /**
@@ -35,7 +53,7 @@ public class CustomReporter {
      */
     private static void reporterLog(final String levelLabel, final String msg) {
 
-        Reporter.log(dateFormat.format(new Date()) + " - " + levelLabel + " - " + msg);
+        Reporter.log(dateFormat.format(LocalTime.now()) + " - " + levelLabel + " - " + msg);
     }
 
 
@@ -48,7 +66,6 @@ public class CustomReporter {
     public static void setDebug(final boolean active) {
 
         debug = active;
-        logger.setLevel(Level.DEBUG);
 
     }
 
@@ -66,7 +83,7 @@ public class CustomReporter {
 
         logger.info(msg);
         reporterLog("INFO", msg);
-        traceBuffer.add(" >> TRACE - " + msg);
+        trace(msg);
     }
 
 
@@ -81,7 +98,7 @@ public class CustomReporter {
         warningReported = true;
         logger.warn(msg);
         reporterLog("WARNING", msg);
-        traceBuffer.add(" >> TRACE - " + msg);
+        trace(msg);
     }
 
 
@@ -96,7 +113,7 @@ public class CustomReporter {
             logger.debug(msg);
             reporterLog("DEBUG", msg);
         } else {
-            traceBuffer.add(" >> TRACE - " + msg);
+            trace(msg);
         }
     }
 
@@ -110,7 +127,7 @@ public class CustomReporter {
 
         logger.error(msg);
         reporterLog("ERROR", msg);
-        traceBuffer.add(" >> TRACE - " + msg);
+        trace(msg);
     }
 
 
@@ -121,8 +138,9 @@ public class CustomReporter {
      */
     public static void error(final String msg, final Throwable e) {
 
-        error(msg);
-        e.printStackTrace();
+        logger.error(msg, e);
+        reporterLog("ERROR", msg);
+        trace(msg);
     }
 
 
@@ -148,12 +166,45 @@ public class CustomReporter {
     }
 
 
+    private static void trace(final String msg) {
+
+        Trace trace = traceBuffer.get();
+        if (trace != null) {
+            trace.add(" >> TRACE - " + msg);
+        }
+    }
+
+
     /**
-     * Clean the trace buffer
+     * Starts a new, empty trace buffer for the test starting on this thread
      */
     public static void flushTraceBuffer() {
 
-        traceBuffer.removeAllElements();
+        traceBuffer.set(new Trace());
+    }
+
+
+    /**
+     * Wraps a task handed to another thread so that what it logs goes to the trace of the calling test
+     *
+     * @param task the task, to be run on another thread
+     * @return the task running in the trace of the caller, the task itself if the caller has no trace
+     */
+    public static <T> Supplier<T> inCallerTrace(final Supplier<T> task) {
+
+        Trace trace = traceBuffer.get();
+        if (trace == null) {
+            return task;
+        }
+        return () -> {
+            Trace previous = traceBuffer.get();
+            traceBuffer.set(trace);
+            try {
+                return task.get();
+            } finally {
+                traceBuffer.set(previous);
+            }
+        };
     }
 
 
@@ -162,9 +213,10 @@ public class CustomReporter {
      */
     public static void printTraceBuffer() {
 
+        Trace trace = traceBuffer.get();
+        List<String> lines = trace == null ? new ArrayList<String>() : trace.lines();
         CustomReporter.info(" >> Log Trace:");
-        traceBuffer.removeElementAt(traceBuffer.size() - 1);
-        for (String line : traceBuffer) {
+        for (String line : lines) {
             reporterLog("INFO", "      " + line);
             logger.info("      " + line);
         }
@@ -183,4 +235,29 @@ public class CustomReporter {
     }
 
 
+    /**
+     * The last {@link #TRACE_LIMIT} lines logged by a test, written by its thread and its page tasks
+     */
+    private static final class Trace {
+
+        private final ArrayDeque<String> lines = new ArrayDeque<String>();
+        private int dropped = 0;
+
+        synchronized void add(final String line) {
+            if (lines.size() == TRACE_LIMIT) {
+                lines.removeFirst();
+                dropped++;
+            }
+            lines.addLast(line);
+        }
+
+        synchronized List<String> lines() {
+            List<String> copy = new ArrayList<String>(lines.size() + 1);
+            if (dropped > 0) {
+                copy.add(" >> TRACE - (" + dropped + " earlier lines dropped)");
+            }
+            copy.addAll(lines);
+            return copy;
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package com.carolinabaquero.test.core.utils.reports;
+
+import org.testng.ITestResult;
+
+
+/**
+ * One line of the streaming reports: a result of this run, or a result carried over from the interrupted run
+ * being resumed (see {@link CheckpointJournal}).
+ *
+ * @param className the test class name
+ * @param name      the test method name with its parameters, so data driven invocations can be told apart
+ * @param status    ITestResult.SUCCESS, FAILURE or SKIP
+ * @param millis    the test duration
+ * @param throwable the failure or skip cause, null if none
+ * @param resumed   true if the result comes from the resumed run
+ * @author cbaquero
+ */
+record ReportEntry(String className, String name, int status, long millis, Throwable throwable, boolean resumed) {
+
+    static ReportEntry of(final ITestResult result) {
+        return new ReportEntry(result.getTestClass() == null ? "" : result.getTestClass().getName(), testName(result),
+                result.getStatus(), Math.max(0, result.getEndMillis() - result.getStartMillis()), result.getThrowable(),
+                false);
+    }
+
+    String simpleClassName() {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Test method name with its parameters
+     */
+    static String testName(final ITestResult result) {
+        Object[] parameters = result.getParameters();
+        if (parameters == null || parameters.length == 0) {
+            return result.getMethod().getMethodName();
+        }
+        StringBuilder name = new StringBuilder(result.getMethod().getMethodName()).append('[');
+        for (int i = 0; i < parameters.length; i++) {
+            name.append(i == 0 ? "" : ", ").append(parameters[i]);
+        }
+        return name.append(']').toString();
+    }
+}
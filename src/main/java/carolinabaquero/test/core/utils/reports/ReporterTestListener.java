@@ -1,14 +1,56 @@
 package com.carolinabaquero.test.core.utils.reports;
+import com.carolinabaquero.test.core.utils.drivers.SessionRegistry;
+import com.carolinabaquero.test.core.utils.impact.TestImpactRecorder;
+import com.carolinabaquero.test.core.utils.locators.LocatorProfiler;
+import com.carolinabaquero.test.core.utils.metrics.RunMetrics;
+import com.carolinabaquero.test.core.utils.perf.LifecycleTimings;
+import com.carolinabaquero.test.core.utils.perf.PagePerformanceMonitor;
 import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.testng.IConfigurationListener;
+import org.testng.IDataProviderInterceptor;
+import org.testng.IDataProviderMethod;
+import org.testng.IExecutionListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * @author cbaquero
+ *         Logs every test and writes the streaming JUnit XML and HTML summary reports of every TestNG test
+ *         to the directory given by the 'reportsDirectory' system property (set by the pom, 'reports' by default).
+ *         It also tells the {@link TestImpactRecorder} which test method is running, from its before methods on.
+ *         <p/>
+ *         Every outcome is appended to a {@link CheckpointJournal} ('checkpointFile' system property,
+ *         [reports directory]/checkpoint.journal by default). With -Dresume=true the test methods and data provider
+ *         rows that passed on the journal are not run again, and their previous results go on the new reports,
+ *         so the reports of the resumed run cover the whole suite.
  */
-public class ReporterTestListener implements ITestListener {
+public class ReporterTestListener implements ITestListener, IConfigurationListener, IExecutionListener,
+        IMethodInterceptor, IDataProviderInterceptor {
+
+    private static final String REPORTS_DIRECTORY_PROPERTY = "reportsDirectory";
+    private static final String CHECKPOINT_FILE_PROPERTY = "checkpointFile";
+    private static final String RESUME_PROPERTY = "resume";
+
+    private volatile CheckpointJournal journal;
+
+    private final ConcurrentMap<ITestContext, List<StreamingResultReporter>> reporters =
+            new ConcurrentHashMap<ITestContext, List<StreamingResultReporter>>();
 
     /**
      * Returns a string representation of the object.
@@ -41,6 +83,22 @@ public class ReporterTestListener implements ITestListener {
         //Log test start
         CustomReporter.debug("");
         CustomReporter.debug("[TEST START]" + getTestInfo(result));
+        TestImpactRecorder.startTest(testId(result.getMethod()), result.getMethod().getGroups());
+    }
+
+    /**
+     * Before methods run before onTestStart, the pages they open count for the test method they run for
+     * @see org.testng.IConfigurationListener#beforeConfiguration(ITestResult, ITestNGMethod)
+     */
+    @Override
+    public void beforeConfiguration(ITestResult result, ITestNGMethod testMethod) {
+        if (testMethod != null) {
+            TestImpactRecorder.startTest(testId(testMethod), testMethod.getGroups());
+        }
+    }
+
+    private static String testId(ITestNGMethod method) {
+        return method.getRealClass().getName() + "#" + method.getMethodName();
     }
 
     /* (non-Javadoc)
@@ -49,6 +107,7 @@ public class ReporterTestListener implements ITestListener {
     @Override
     public void onTestSuccess(ITestResult result) {
         CustomReporter.info("[TEST PASSED] " + getTestInfo(result));
+        report(result);
     }
 
     /* (non-Javadoc)
@@ -64,6 +123,7 @@ public class ReporterTestListener implements ITestListener {
         if (!CustomReporter.isDebugEnabled()) {
             CustomReporter.printTraceBuffer();
         }
+        report(result);
     }
 
     /**
@@ -93,6 +153,7 @@ public class ReporterTestListener implements ITestListener {
     @Override
     public void onTestSkipped(ITestResult result) {
         CustomReporter.info("[TEST  SKIPPED] " + result.getName());
+        report(result);
     }
 
     /* (non-Javadoc)
@@ -100,7 +161,28 @@ public class ReporterTestListener implements ITestListener {
      */
     @Override
     public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
-        // nothing to do here, for noe
+        report(result);
+    }
+
+    /**
+     * Writes the result to the streaming reports of its TestNG test and the checkpoint journal, counts it on the
+     * run metrics and stops recording its test impact
+     * @param result the finished test
+     */
+    private void report(ITestResult result) {
+        RunMetrics.testFinished(result.getMethod().getGroups(),
+                result.getStatus() == ITestResult.FAILURE ? RunMetrics.STATUS_FAILED
+                        : result.getStatus() == ITestResult.SKIP ? RunMetrics.STATUS_SKIPPED : RunMetrics.STATUS_PASSED);
+        TestImpactRecorder.finishTest(testId(result.getMethod()), result.getStatus() == ITestResult.SUCCESS);
+        if (journal != null) {
+            journal.append(result.getTestContext().getName(), result);
+        }
+        List<StreamingResultReporter> testReporters = reporters.get(result.getTestContext());
+        if (testReporters != null) {
+            for (StreamingResultReporter reporter : testReporters) {
+                reporter.record(result);
+            }
+        }
     }
 
     /**
@@ -110,6 +192,16 @@ public class ReporterTestListener implements ITestListener {
     @Override
     public void onStart(ITestContext context) {
         CustomReporter.debug("[TEST CLASS " + context.getClass() + " STARTED]");
+        File directory = new File(System.getProperty(REPORTS_DIRECTORY_PROPERTY, "reports"));
+        try {
+            List<StreamingResultReporter> testReporters = new ArrayList<StreamingResultReporter>();
+            testReporters.add(new StreamingJUnitXmlReporter(directory, context));
+            testReporters.add(new StreamingHtmlSummaryReporter(directory, context));
+            reporters.put(context, Collections.unmodifiableList(testReporters));
+        } catch (IOException e) {
+            CustomReporter.error("[REPORT] Could not create the reports for " + context.getName()
+                    + " on " + directory.getPath(), e);
+        }
     }
 
     /**
@@ -125,5 +217,145 @@ public class ReporterTestListener implements ITestListener {
             CustomReporter.debug("[EXECUTION WARNING]");
             CustomReporter.printWarningNotice();
         }
+        //Page performance percentiles for everything captured so far on this run
+        PagePerformanceMonitor.report();
+        //Where the test time went, setup and teardown phases against test bodies
+        LifecycleTimings.report();
+        //Locators ranked by the time their finds took
+        LocatorProfiler.report();
+        //Test impact map with what this TestNG test went through
+        TestImpactRecorder.save();
+        //Sessions started and leaked so far
+        SessionRegistry.report();
+        //The streaming reports are complete already, just release the files
+        List<StreamingResultReporter> testReporters = reporters.remove(context);
+        if (testReporters != null) {
+            for (StreamingResultReporter reporter : testReporters) {
+                reporter.close();
+            }
+        }
+    }
+
+    /**
+     * Opens the checkpoint journal, resuming it if asked to
+     * @see org.testng.IExecutionListener#onExecutionStart()
+     */
+    @Override
+    public void onExecutionStart() {
+        String reportsDirectory = System.getProperty(REPORTS_DIRECTORY_PROPERTY, "reports");
+        String file = System.getProperty(CHECKPOINT_FILE_PROPERTY, new File(reportsDirectory, "checkpoint.journal").getPath());
+        try {
+            journal = CheckpointJournal.open(Paths.get(file), Boolean.getBoolean(RESUME_PROPERTY));
+        } catch (RuntimeException e) {
+            CustomReporter.error("[CHECKPOINT] The run can not be resumed if interrupted", e);
+            return;
+        }
+        if (journal.isResuming()) {
+            CustomReporter.info("[CHECKPOINT] Resuming " + journal.getFile() + ": " + journal.passedCount()
+                    + " test invocations passed already and will not run again");
+        }
+    }
+
+    /**
+     * @see org.testng.IExecutionListener#onExecutionFinish()
+     */
+    @Override
+    public void onExecutionFinish() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Leaves out the methods without data provider that passed on the resumed run. Methods other methods
+     * depend on run again, so their dependants can run.
+     * @see org.testng.IMethodInterceptor#intercept(List, ITestContext)
+     */
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (journal == null || !journal.isResuming()) {
+            return methods;
+        }
+        List<IMethodInstance> toRun = new ArrayList<IMethodInstance>(methods.size());
+        List<String> resumed = new ArrayList<String>();
+        for (IMethodInstance instance : methods) {
+            ITestNGMethod method = instance.getMethod();
+            String testId = testId(method);
+            List<CheckpointJournal.Entry> passed = method.isDataDriven() || isDependedUpon(method, context) ? null
+                    : journal.passedBefore(context.getName(), testId);
+            if (passed == null) {
+                toRun.add(instance);
+            } else if (!resumed.contains(testId)) {
+                resumed.add(testId);
+                for (CheckpointJournal.Entry entry : passed) {
+                    recordResumed(context, entry);
+                }
+            }
+        }
+        return toRun;
+    }
+
+    /**
+     * Leaves out the data provider rows that passed on the resumed run
+     * @see org.testng.IDataProviderInterceptor#intercept(Iterator, IDataProviderMethod, ITestNGMethod, ITestContext)
+     */
+    @Override
+    public Iterator<Object[]> intercept(Iterator<Object[]> original, IDataProviderMethod dataProviderMethod,
+                                        ITestNGMethod method, ITestContext context) {
+        if (journal == null || !journal.isResuming()) {
+            return original;
+        }
+        String testId = testId(method);
+        // data providers can be lazy, rows are checked as TestNG asks for them
+        return new Iterator<Object[]>() {
+            private Object[] next = advance();
+
+            private Object[] advance() {
+                while (original.hasNext()) {
+                    Object[] row = original.next();
+                    CheckpointJournal.Entry passed = journal.passedBefore(context.getName(), testId, row);
+                    if (passed == null) {
+                        return row;
+                    }
+                    recordResumed(context, passed);
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Object[] next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Object[] row = next;
+                next = advance();
+                return row;
+            }
+        };
+    }
+
+    private void recordResumed(ITestContext context, CheckpointJournal.Entry entry) {
+        CustomReporter.debug("[CHECKPOINT] Passed before, not run again: " + entry.name());
+        List<StreamingResultReporter> testReporters = reporters.get(context);
+        if (testReporters != null) {
+            for (StreamingResultReporter reporter : testReporters) {
+                reporter.record(entry.toReportEntry());
+            }
+        }
+    }
+
+    private static boolean isDependedUpon(ITestNGMethod method, ITestContext context) {
+        for (ITestNGMethod other : context.getAllTestMethods()) {
+            if (Arrays.asList(other.getMethodsDependedUpon()).contains(method.getQualifiedName())
+                    || !Collections.disjoint(Arrays.asList(other.getGroupsDependedUpon()), Arrays.asList(method.getGroups()))) {
+                return true;
+            }
+        }
+        return false;
     }
 }
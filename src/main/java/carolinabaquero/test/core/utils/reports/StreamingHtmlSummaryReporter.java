@@ -0,0 +1,78 @@
+package com.carolinabaquero.test.core.utils.reports;
+
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+
+/**
+ * @author cbaquero
+ *         Writes [test name]-summary.html, a plain HTML table with one row per result and the totals on top.
+ *         Rows are added as results arrive, reload the page to follow a run in progress.
+ */
+class StreamingHtmlSummaryReporter extends StreamingResultReporter {
+
+    private static final int SUMMARY_WIDTH = 160;
+    private static final String STYLE = "body{font-family:sans-serif;font-size:13px}"
+            + "table{border-collapse:collapse;width:100%}td,th{border:1px solid #ccc;padding:3px 6px;text-align:left}"
+            + "tr.PASS td.status{color:#2a7d2a}tr.FAIL td.status{color:#b22222}tr.SKIP td.status{color:#b8860b}"
+            + "pre{margin:0;white-space:pre-wrap;font-size:11px}";
+
+
+    StreamingHtmlSummaryReporter(final File directory, final ITestContext context) throws IOException {
+        super(new StreamingReportFile(new File(directory, context.getName().replaceAll("[^A-Za-z0-9._-]", "_")
+                + "-summary.html"),
+                "<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>"
+                        + StreamingReportFile.escape(context.getName()) + "</title><style>" + STYLE + "</style></head>\n"
+                        + "<body><h1>" + StreamingReportFile.escape(context.getName()) + "</h1>\n"
+                        + "<p>Started " + Instant.now().truncatedTo(ChronoUnit.SECONDS) + "</p>\n<p>",
+                SUMMARY_WIDTH, "</p>\n<table><thead><tr><th>Status</th><th>Class</th><th>Test</th><th>Time (s)</th>"
+                        + "<th>Details</th></tr></thead><tbody>\n",
+                "</tbody></table></body></html>\n"));
+        updateSummary();
+    }
+
+    @Override
+    protected void writeEntry(final XMLStreamWriter xml, final ReportEntry entry) throws XMLStreamException {
+        String status = entry.status() == ITestResult.FAILURE ? "FAIL"
+                : entry.status() == ITestResult.SKIP ? "SKIP" : "PASS";
+        xml.writeStartElement("tr");
+        xml.writeAttribute("class", status);
+        cell(xml, "status", status);
+        cell(xml, null, entry.simpleClassName());
+        cell(xml, null, xmlSafe(entry.name()));
+        cell(xml, null, seconds(entry.millis()));
+        xml.writeStartElement("td");
+        if (entry.throwable() != null) {
+            xml.writeStartElement("pre");
+            xml.writeCharacters(xmlSafe(String.valueOf(entry.throwable())));
+            xml.writeEndElement();
+        } else if (entry.resumed()) {
+            xml.writeCharacters(RESUMED);
+        }
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private static void cell(XMLStreamWriter xml, String cssClass, String text) throws XMLStreamException {
+        xml.writeStartElement("td");
+        if (cssClass != null) {
+            xml.writeAttribute("class", cssClass);
+        }
+        xml.writeCharacters(text);
+        xml.writeEndElement();
+    }
+
+    @Override
+    protected String summary() {
+        return "Tests: " + (passed + failures + errors + skipped) + " - Passed: " + passed
+                + " - Failed: " + (failures + errors) + " - Skipped: " + skipped
+                + " - Total time: " + seconds(totalMillis) + " s";
+    }
+}
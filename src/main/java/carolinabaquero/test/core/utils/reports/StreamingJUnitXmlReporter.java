@@ -0,0 +1,83 @@
+package com.carolinabaquero.test.core.utils.reports;
+
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+
+/**
+ * @author cbaquero
+ *         Writes TEST-[test name].xml in JUnit XML format (one testsuite per TestNG test), one testcase at a time.
+ *         The testsuite counters are updated in place, so the file is valid XML during the whole run.
+ */
+class StreamingJUnitXmlReporter extends StreamingResultReporter {
+
+    private static final int SUMMARY_WIDTH = 96;
+
+    private final String className;
+
+
+    StreamingJUnitXmlReporter(final File directory, final ITestContext context) throws IOException {
+        super(new StreamingReportFile(new File(directory, "TEST-" + fileName(context.getName()) + ".xml"),
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                        + "<testsuite name=\"" + StreamingReportFile.escape(context.getName()) + "\""
+                        + " timestamp=\"" + Instant.now().truncatedTo(ChronoUnit.SECONDS) + "\""
+                        + " hostname=\"" + StreamingReportFile.escape(hostName()) + "\"",
+                SUMMARY_WIDTH, ">\n", "</testsuite>\n"));
+        this.className = context.getName();
+        updateSummary();
+    }
+
+    @Override
+    protected void writeEntry(final XMLStreamWriter xml, final ReportEntry entry) throws XMLStreamException {
+        Throwable throwable = entry.throwable();
+        xml.writeStartElement("testcase");
+        xml.writeAttribute("name", xmlSafe(entry.name()));
+        xml.writeAttribute("classname", entry.className().isEmpty() ? className : entry.className());
+        xml.writeAttribute("time", seconds(entry.millis()));
+        if (entry.status() == ITestResult.FAILURE) {
+            xml.writeStartElement(throwable instanceof AssertionError ? "failure" : "error");
+            if (throwable != null) {
+                xml.writeAttribute("message", xmlSafe(String.valueOf(throwable.getMessage())));
+                xml.writeAttribute("type", throwable.getClass().getName());
+                xml.writeCharacters(stackTrace(throwable));
+            }
+            xml.writeEndElement();
+        } else if (entry.status() == ITestResult.SKIP) {
+            xml.writeEmptyElement("skipped");
+            if (throwable != null) {
+                xml.writeAttribute("message", xmlSafe(String.valueOf(throwable.getMessage())));
+            }
+        } else if (entry.resumed()) {
+            xml.writeStartElement("system-out");
+            xml.writeCharacters(RESUMED);
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    @Override
+    protected String summary() {
+        return " tests=\"" + (passed + failures + errors + skipped) + "\" failures=\"" + failures
+                + "\" errors=\"" + errors + "\" skipped=\"" + skipped + "\" time=\"" + seconds(totalMillis) + "\"";
+    }
+
+    private static String fileName(final String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.carolinabaquero.test.core.utils.reports;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * @author cbaquero
+ *         Report file that is written while the run goes on and is complete after every write.
+ *         The layout is [head][summary][after summary][entries...][tail]: new entries are written over the tail,
+ *         the tail is written again after them and the summary is overwritten in place. The summary has a fixed
+ *         width (padded with spaces), so the file never has to be rewritten and nothing but the file position is
+ *         kept in memory.
+ */
+final class StreamingReportFile implements Closeable {
+
+    private final RandomAccessFile file;
+    private final long summaryPosition;
+    private final int summaryWidth;
+    private final byte[] tail;
+    private long entriesEnd;
+
+
+    StreamingReportFile(final File target, final String head, final int summaryWidth, final String afterSummary,
+                        final String tail) throws IOException {
+        File directory = target.getAbsoluteFile().getParentFile();
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        this.file = new RandomAccessFile(target, "rw");
+        this.file.setLength(0);
+        this.summaryWidth = summaryWidth;
+        this.tail = tail.getBytes(StandardCharsets.UTF_8);
+
+        byte[] headBytes = head.getBytes(StandardCharsets.UTF_8);
+        this.summaryPosition = headBytes.length;
+        file.write(headBytes);
+        file.write(pad(""));
+        file.write(afterSummary.getBytes(StandardCharsets.UTF_8));
+        this.entriesEnd = file.getFilePointer();
+        file.write(this.tail);
+    }
+
+
+    /**
+     * Writes one entry after the previous ones, followed by the tail
+     *
+     * @param entry  buffer with the UTF-8 entry
+     * @param length amount of bytes of the buffer to write
+     */
+    void append(final byte[] entry, final int length) throws IOException {
+        file.seek(entriesEnd);
+        file.write(entry, 0, length);
+        entriesEnd += length;
+        file.write(tail);
+    }
+
+
+    /**
+     * Overwrites the summary. Text longer than the summary width is cut.
+     *
+     * @param summary the new summary, without markup that could be broken if cut
+     */
+    void updateSummary(final String summary) throws IOException {
+        file.seek(summaryPosition);
+        file.write(pad(summary));
+    }
+
+    private byte[] pad(String summary) {
+        byte[] text = summary.getBytes(StandardCharsets.UTF_8);
+        byte[] padded = new byte[summaryWidth];
+        Arrays.fill(padded, (byte) ' ');
+        System.arraycopy(text, 0, padded, 0, Math.min(text.length, summaryWidth));
+        return padded;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+
+    /**
+     * Escapes text for XML/HTML attribute values and content
+     */
+    static String escape(final String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '"':
+                    escaped.append("&quot;");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
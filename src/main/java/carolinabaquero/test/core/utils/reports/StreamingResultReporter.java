@@ -0,0 +1,171 @@
+package com.carolinabaquero.test.core.utils.reports;
+
+import org.testng.ITestResult;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+
+/**
+ * @author cbaquero
+ *         Base for the reporters fed by {@link ReporterTestListener}: every result is written to the report
+ *         as soon as it arrives (StAX into a reused buffer, then appended to a {@link StreamingReportFile}),
+ *         so memory use does not grow with the amount of tests and the report can be opened during the run.
+ *         Only the counters are kept.
+ */
+abstract class StreamingResultReporter {
+
+    protected static final String RESUMED = "Passed on the interrupted run, not run again";
+
+    private static final XMLOutputFactory XML_OUTPUT = XMLOutputFactory.newFactory();
+
+    private final StreamingReportFile file;
+    private final EntryBuffer buffer = new EntryBuffer();
+    private final XMLStreamWriter xml;
+
+    protected int passed = 0;
+    protected int failures = 0;
+    protected int errors = 0;
+    protected int skipped = 0;
+    protected long totalMillis = 0;
+
+
+    StreamingResultReporter(final StreamingReportFile file) {
+        this.file = file;
+        try {
+            this.xml = XML_OUTPUT.createXMLStreamWriter(buffer, StandardCharsets.UTF_8.name());
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("No StAX writer available", e);
+        }
+    }
+
+
+    /**
+     * Writes the result to the report and updates the summary
+     *
+     * @param result the finished test
+     */
+    void record(final ITestResult result) {
+        record(ReportEntry.of(result));
+    }
+
+    /**
+     * Writes the entry to the report and updates the summary
+     *
+     * @param entry a result of this run or of the run being resumed
+     */
+    synchronized void record(final ReportEntry entry) {
+        switch (entry.status()) {
+            case ITestResult.FAILURE:
+                if (entry.throwable() instanceof AssertionError) {
+                    failures++;
+                } else {
+                    errors++;
+                }
+                break;
+            case ITestResult.SKIP:
+                skipped++;
+                break;
+            default:
+                passed++;
+        }
+        totalMillis += entry.millis();
+        try {
+            buffer.reset();
+            writeEntry(xml, entry);
+            xml.writeCharacters("\n");
+            xml.flush();
+            file.append(buffer.bytes(), buffer.size());
+        } catch (XMLStreamException | IOException e) {
+            CustomReporter.error("[REPORT] Could not write the result of " + entry.name(), e);
+        }
+        updateSummary();
+    }
+
+
+    /**
+     * Writes the current counters on the report summary. Subclasses call it once they are built,
+     * so the report is complete before the first result.
+     */
+    protected final synchronized void updateSummary() {
+        try {
+            file.updateSummary(summary());
+        } catch (IOException e) {
+            CustomReporter.error("[REPORT] Could not update report summary", e);
+        }
+    }
+
+
+    /**
+     * Closes the report, it stays as written by the last result
+     */
+    synchronized void close() {
+        try {
+            xml.close();
+            file.close();
+        } catch (XMLStreamException | IOException e) {
+            CustomReporter.error("[REPORT] Could not close report", e);
+        }
+    }
+
+
+    /**
+     * Writes the report entry for one result
+     */
+    protected abstract void writeEntry(XMLStreamWriter xml, ReportEntry entry) throws XMLStreamException;
+
+    /**
+     * @return the summary with the current counters, must fit on the summary width given to the file
+     */
+    protected abstract String summary();
+
+
+    protected static String seconds(final long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+    protected static String stackTrace(final Throwable throwable) {
+        StringWriter trace = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(trace));
+        return xmlSafe(trace.toString());
+    }
+
+    /**
+     * Removes the control characters XML 1.0 does not allow (e.g. from messages of binary data)
+     */
+    protected static String xmlSafe(final String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder safe = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean allowed = c >= 0x20 || c == '\t' || c == '\n' || c == '\r';
+            if (!allowed && safe == null) {
+                safe = new StringBuilder(text.substring(0, i));
+            }
+            if (safe != null && allowed) {
+                safe.append(c);
+            }
+        }
+        return safe == null ? text : safe.toString();
+    }
+
+
+    /**
+     * Byte buffer that gives access to its array, to append it without copying
+     */
+    private static final class EntryBuffer extends ByteArrayOutputStream {
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.carolinabaquero.test.core.utils.runner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Stream;
+
+
+/**
+ * @author cbaquero
+ *         Child first class loader over the compiled test classes and page objects, so a new instance picks up
+ *         the classes recompiled since the previous run. The framework core is always loaded by the parent:
+ *         its static state (driver services, browser context hosts, metrics) is what keeps the runner warm.
+ */
+final class ReloadingClassLoader extends URLClassLoader {
+
+    static final String CORE_PACKAGE = "com.carolinabaquero.test.core.";
+
+    private final List<Path> directories;
+
+
+    ReloadingClassLoader(final List<Path> directories, final ClassLoader parent) {
+        super(toUrls(directories), parent);
+        this.directories = directories;
+    }
+
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (name.startsWith(CORE_PACKAGE) || name.startsWith("java.")) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                try {
+                    loaded = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    return super.loadClass(name, resolve);
+                }
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * The reloaded directories are on the parent class path too, their resources are only listed once
+     * (TestNG finds the classes of a suite package through them)
+     */
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+        List<URL> resources = Collections.list(findResources(name));
+        for (URL resource : Collections.list(getParent().getResources(name))) {
+            if (!isReloaded(resource)) {
+                resources.add(resource);
+            }
+        }
+        return Collections.enumeration(resources);
+    }
+
+    private boolean isReloaded(URL resource) {
+        for (URL directory : getURLs()) {
+            if (resource.toString().startsWith(directory.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return the top level classes under the reloaded directories, outside the framework core
+     */
+    List<String> classNames() {
+        List<String> names = new ArrayList<String>();
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.map(file -> directory.relativize(file).toString())
+                        .filter(file -> file.endsWith(".class") && !file.contains("$"))
+                        .map(file -> file.substring(0, file.length() - ".class".length()).replace('/', '.').replace('\\', '.'))
+                        .filter(name -> !name.startsWith(CORE_PACKAGE))
+                        .forEach(names::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not list the classes in " + directory, e);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return a value that changes whenever a class file under the directories is added, removed or recompiled
+     */
+    static long fingerprint(final List<Path> directories) {
+        long fingerprint = 0;
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".class"))::iterator) {
+                    fingerprint = 31 * fingerprint + file.hashCode() + Files.getLastModifiedTime(file).toMillis();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not list the classes in " + directory, e);
+            }
+        }
+        return fingerprint;
+    }
+
+    private static URL[] toUrls(List<Path> directories) {
+        URL[] urls = new URL[directories.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = directories.get(i).toAbsolutePath().toUri().toURL();
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Not a valid class directory " + directories.get(i), e);
+            }
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,92 @@
+package com.carolinabaquero.test.core.utils.runner;
+
+import org.testng.IConfigurationListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * @author cbaquero
+ *         Streams every result of a daemon run to the client as soon as TestNG reports it, one line per event:
+ *         STARTED / PASSED / FAILED / SKIPPED [test class]#[method] ...
+ */
+final class ResultStreamListener implements ITestListener, IConfigurationListener {
+
+    private final PrintWriter client;
+    private final AtomicInteger passed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+
+
+    ResultStreamListener(final PrintWriter client) {
+        this.client = client;
+    }
+
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        send("STARTED " + name(result));
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        passed.incrementAndGet();
+        send("PASSED " + name(result) + " (" + duration(result) + " ms)");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        failed.incrementAndGet();
+        send("FAILED " + name(result) + " (" + duration(result) + " ms): " + result.getThrowable());
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        passed.incrementAndGet();
+        send("PASSED " + name(result) + " (" + duration(result) + " ms, within success percentage)");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        skipped.incrementAndGet();
+        send("SKIPPED " + name(result));
+    }
+
+    @Override
+    public void onConfigurationFailure(ITestResult result) {
+        send("CONFIGURATION FAILED " + name(result) + ": " + result.getThrowable());
+    }
+
+
+    int getPassed() {
+        return passed.get();
+    }
+
+    int getFailed() {
+        return failed.get();
+    }
+
+    int getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Results of parallel tests are written whole, one line at a time
+     */
+    synchronized void send(String line) {
+        // a single line per event, the client reads line by line
+        client.println(line.replace('\r', ' ').replace('\n', ' '));
+        client.flush();
+    }
+
+    private static String name(ITestResult result) {
+        return result.getMethod().getRealClass().getName() + "#" + result.getMethod().getMethodName();
+    }
+
+    private static long duration(ITestResult result) {
+        return result.getEndMillis() - result.getStartMillis();
+    }
+}
@@ -0,0 +1,127 @@
+package com.carolinabaquero.test.core.utils.runner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * @author cbaquero
+ *         What a {@link RunnerClient} asks the {@link RunnerDaemon} to run:
+ *         <pre>
+ *         -class [test class][,...]      every test of the classes
+ *         -method [test class]#[method]  a single test method
+ *         -group [group][,...]           only the tests of the groups (of the selected classes, or of every test class)
+ *         -suite [file]                  a suite file, instead of classes and methods
+ *         -param [name]=[value]          a suite parameter, e.g. config-file=firefox.properties
+ *         -stop                          stops the daemon
+ *         </pre>
+ */
+final class RunRequest {
+
+    static final String STOP = "-stop";
+    private static final List<String> OPTIONS = Arrays.asList("-class", "-method", "-group", "-suite", "-param");
+
+    private final Map<String, Set<String>> classes = new LinkedHashMap<String, Set<String>>();
+    private final List<String> groups = new ArrayList<String>();
+    private final Map<String, String> parameters = new LinkedHashMap<String, String>();
+    private String suiteFile;
+    private boolean stop = false;
+
+
+    private RunRequest() {
+
+    }
+
+
+    /**
+     * @param arguments the client command line
+     * @throws IllegalArgumentException on unknown options or missing values
+     */
+    static RunRequest parse(final List<String> arguments) {
+        RunRequest request = new RunRequest();
+        for (int i = 0; i < arguments.size(); i++) {
+            String option = arguments.get(i);
+            if (STOP.equals(option)) {
+                request.stop = true;
+                continue;
+            }
+            if (!OPTIONS.contains(option)) {
+                throw new IllegalArgumentException("Unknown option " + option);
+            }
+            if (i + 1 >= arguments.size()) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = arguments.get(++i);
+            switch (option) {
+                case "-class":
+                    for (String testClass : value.split(",")) {
+                        request.classes.put(testClass.trim(), new LinkedHashSet<String>());
+                    }
+                    break;
+                case "-method":
+                    int separator = value.indexOf('#');
+                    if (separator < 0) {
+                        throw new IllegalArgumentException("Methods are given as [test class]#[method]: " + value);
+                    }
+                    Set<String> methods = request.classes.get(value.substring(0, separator));
+                    if (methods == null) {
+                        methods = new LinkedHashSet<String>();
+                        request.classes.put(value.substring(0, separator), methods);
+                    } else if (methods.isEmpty()) {
+                        // the whole class is run already
+                        break;
+                    }
+                    methods.add(value.substring(separator + 1));
+                    break;
+                case "-group":
+                    request.groups.addAll(Arrays.asList(value.split(",")));
+                    break;
+                case "-suite":
+                    request.suiteFile = value;
+                    break;
+                case "-param":
+                    int equals = value.indexOf('=');
+                    if (equals < 0) {
+                        throw new IllegalArgumentException("Parameters are given as [name]=[value]: " + value);
+                    }
+                    request.parameters.put(value.substring(0, equals), value.substring(equals + 1));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (!request.stop && request.suiteFile == null && request.classes.isEmpty() && request.groups.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to run, give a -class, -method, -group or -suite");
+        }
+        return request;
+    }
+
+
+    /**
+     * @return test class -> methods to run, an empty set runs the whole class
+     */
+    Map<String, Set<String>> getClasses() {
+        return classes;
+    }
+
+    List<String> getGroups() {
+        return groups;
+    }
+
+    Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    String getSuiteFile() {
+        return suiteFile;
+    }
+
+    boolean isStop() {
+        return stop;
+    }
+}
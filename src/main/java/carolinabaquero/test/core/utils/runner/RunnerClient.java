@@ -0,0 +1,57 @@
+package com.carolinabaquero.test.core.utils.runner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * @author cbaquero
+ *         Thin client for the {@link RunnerDaemon}: sends its command line (see {@link RunRequest}) and prints the
+ *         results as they arrive. It only needs the JDK and this class, so it starts in a few tens of milliseconds.
+ *         <pre>
+ *         java -cp target/classes com.carolinabaquero.test.core.utils.runner.RunnerClient -method com.x.LoginPageTest#validLogin
+ *         </pre>
+ *         The port is taken from the 'runnerPort' system property. Exits with 1 if any test failed, 2 on errors.
+ */
+public final class RunnerClient {
+
+    private RunnerClient() {
+
+    }
+
+
+    public static void main(String[] args) {
+
+        int port = Integer.getInteger(RunnerDaemon.PORT_PROPERTY, RunnerDaemon.DEFAULT_PORT);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            out.println(String.join(RunnerDaemon.ARGUMENT_SEPARATOR, args));
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                System.out.println(line);
+                if (line.startsWith(RunnerDaemon.DONE)) {
+                    System.exit(line.contains(" failed=0 ") ? 0 : 1);
+                }
+                if (line.startsWith(RunnerDaemon.ERROR)) {
+                    System.exit(2);
+                }
+            }
+        } catch (ConnectException e) {
+            System.err.println("No runner daemon on port " + port + ", start it with: mvn test -Prunner-daemon");
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Lost the connection to the runner daemon: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+}
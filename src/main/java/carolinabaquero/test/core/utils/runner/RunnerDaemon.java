@@ -0,0 +1,248 @@
+package com.carolinabaquero.test.core.utils.runner;
+
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import com.carolinabaquero.test.core.utils.reports.ReporterTestListener;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.reporters.FailedReporter;
+import org.testng.xml.SuiteXmlParser;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * @author cbaquero
+ *         Long lived test runner for local development loops. The JVM, TestNG and the framework stay loaded between
+ *         runs, and so do the shared driver services and, with browserIsolation = CONTEXT, the browsers themselves
+ *         (see DriverServicePool and IsolatedBrowserContexts): after the first run a test starts right away.
+ *         <p/>
+ *         Runs are requested by a {@link RunnerClient} on a loopback socket and the results are streamed back
+ *         while the tests run. Test classes and page objects are loaded by a {@link ReloadingClassLoader}, a new
+ *         one as soon as any class file changed, so recompiling (IDE build, mvn test-compile) is enough.
+ *         <pre>
+ *         mvn test -Prunner-daemon
+ *         java -cp target/classes com.carolinabaquero.test.core.utils.runner.RunnerClient -class com.x.LoginPageTest
+ *         </pre>
+ *         Runs are served one at a time, the warm browsers are not meant to be shared by two runs.
+ */
+public final class RunnerDaemon {
+
+    public static final String PORT_PROPERTY = "runnerPort";
+    public static final int DEFAULT_PORT = 7531;
+
+    static final String ARGUMENT_SEPARATOR = "\t";
+    static final String DONE = "DONE";
+    static final String ERROR = "ERROR";
+    static final String STOPPED = "STOPPED";
+
+    private static final List<Path> DEFAULT_DIRECTORIES = Arrays.asList(Paths.get("target", "test-classes"),
+            Paths.get("target", "classes"));
+
+    private final List<Path> directories;
+    private ReloadingClassLoader loader;
+    private long fingerprint;
+
+
+    private RunnerDaemon(final List<Path> directories) {
+        this.directories = directories;
+    }
+
+
+    /**
+     * @param args optional, the class directories to reload, separated by the path separator
+     *             (target/test-classes and target/classes by default)
+     */
+    public static void main(String[] args) throws IOException {
+
+        List<Path> directories = DEFAULT_DIRECTORIES;
+        if (args.length > 0) {
+            directories = new ArrayList<Path>();
+            for (String directory : args[0].split(java.io.File.pathSeparator)) {
+                directories.add(Paths.get(directory));
+            }
+        }
+        new RunnerDaemon(directories).serve(Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT));
+    }
+
+    private void serve(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            CustomReporter.info("[RUNNER] Waiting for runs on " + server.getLocalSocketAddress()
+                    + ", reloading classes from " + directories);
+            while (true) {
+                try (Socket socket = server.accept()) {
+                    if (!handle(socket)) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    CustomReporter.warning("[RUNNER] Lost the connection to the client: " + e.getMessage());
+                }
+            }
+        }
+        CustomReporter.info("[RUNNER] Stopped");
+        // the shutdown hooks stop the driver services and the browsers
+        System.exit(0);
+    }
+
+    /**
+     * @return false if the client asked the daemon to stop
+     */
+    private boolean handle(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        String line = in.readLine();
+        List<String> arguments = line == null || line.isEmpty() ? Collections.<String>emptyList()
+                : Arrays.asList(line.split(ARGUMENT_SEPARATOR));
+        RunRequest request;
+        try {
+            request = RunRequest.parse(arguments);
+        } catch (IllegalArgumentException e) {
+            out.println(ERROR + " " + e.getMessage());
+            out.flush();
+            return true;
+        }
+        if (request.isStop()) {
+            out.println(STOPPED);
+            out.flush();
+            return false;
+        }
+        run(request, out);
+        return true;
+    }
+
+    private void run(RunRequest request, PrintWriter out) {
+        long start = System.nanoTime();
+        List<String> selection = new ArrayList<String>(request.getClasses().keySet());
+        if (request.getSuiteFile() != null) {
+            selection.add(request.getSuiteFile());
+        }
+        if (!request.getGroups().isEmpty()) {
+            selection.add("groups " + request.getGroups());
+        }
+        CustomReporter.info("[RUNNER] Run requested: " + String.join(" ", selection));
+        ResultStreamListener results = new ResultStreamListener(out);
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        try {
+            ReloadingClassLoader classes = currentLoader();
+            // TestNG resolves the suite classes through the context class loader
+            thread.setContextClassLoader(classes);
+            TestNG testng = new TestNG(false);
+            testng.setVerbose(0);
+            testng.setOutputDirectory(System.getProperty("reportsDirectory", "reports"));
+            testng.addListener(new ReporterTestListener());
+            testng.addListener(new FailedReporter());
+            testng.addListener(results);
+            testng.setXmlSuites(Collections.singletonList(suite(request, classes)));
+            testng.run();
+        } catch (RuntimeException | IOException | LinkageError | ClassNotFoundException e) {
+            CustomReporter.error("[RUNNER] Run failed", e);
+            results.send(ERROR + " " + e);
+            return;
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+        results.send(DONE + " passed=" + results.getPassed() + " failed=" + results.getFailed()
+                + " skipped=" + results.getSkipped() + " time="
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    /**
+     * @return the class loader of the previous run, or a new one if any class file changed since then
+     */
+    private ReloadingClassLoader currentLoader() throws IOException {
+        long current = ReloadingClassLoader.fingerprint(directories);
+        if (loader == null || current != fingerprint) {
+            if (loader != null) {
+                CustomReporter.info("[RUNNER] Classes changed, reloading");
+                loader.close();
+            }
+            loader = new ReloadingClassLoader(directories, RunnerDaemon.class.getClassLoader());
+            fingerprint = current;
+        }
+        return loader;
+    }
+
+    private static XmlSuite suite(RunRequest request, ReloadingClassLoader classes)
+            throws IOException, ClassNotFoundException {
+        XmlSuite suite;
+        if (request.getSuiteFile() != null) {
+            try (InputStream in = Files.newInputStream(Paths.get(request.getSuiteFile()))) {
+                suite = new SuiteXmlParser().parse(request.getSuiteFile(), in, false);
+            }
+            for (XmlTest test : suite.getTests()) {
+                for (String group : request.getGroups()) {
+                    test.addIncludedGroup(group);
+                }
+            }
+        } else {
+            suite = new XmlSuite();
+            suite.setName("Runner");
+            XmlTest test = new XmlTest(suite);
+            test.setName("Runner");
+            for (String group : request.getGroups()) {
+                test.addIncludedGroup(group);
+            }
+            if (request.getClasses().isEmpty()) {
+                for (String className : classes.classNames()) {
+                    Class<?> testClass = testClass(classes, className);
+                    if (testClass != null) {
+                        test.getXmlClasses().add(new XmlClass(testClass, false));
+                    }
+                }
+            }
+            for (Map.Entry<String, Set<String>> selected : request.getClasses().entrySet()) {
+                XmlClass xmlClass = new XmlClass(classes.loadClass(selected.getKey()), false);
+                for (String method : selected.getValue()) {
+                    xmlClass.getIncludedMethods().add(new XmlInclude(method));
+                }
+                test.getXmlClasses().add(xmlClass);
+            }
+        }
+        suite.getParameters().putAll(request.getParameters());
+        return suite;
+    }
+
+    /**
+     * @return the class if it has TestNG tests, null otherwise
+     */
+    private static Class<?> testClass(ReloadingClassLoader classes, String className) {
+        try {
+            Class<?> candidate = classes.loadClass(className);
+            if (candidate.isAnnotationPresent(Test.class)) {
+                return candidate;
+            }
+            for (Method method : candidate.getMethods()) {
+                if (method.isAnnotationPresent(Test.class)) {
+                    return candidate;
+                }
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            CustomReporter.debug("[RUNNER] Skipping " + className + ": " + e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,168 @@
+package com.carolinabaquero.test.core.utils.threads;
+
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+
+/**
+ * @author cbaquero
+ *         Runs page object operations asynchronously on a bounded executor (virtual threads, so a task
+ *         blocked on a WebDriver call costs no platform thread).
+ *         <p/>
+ *         Futures returned by {@link #supply(Supplier)} really stop their task when cancelled: the thread running
+ *         it is interrupted, which ends WebDriverWait sleeps and pending remote calls. That is what lets
+ *         {@link #firstOf(CompletableFuture[])} stop the losers as soon as one condition is met.
+ *         Note: futures derived with thenApply/thenCompose do not forward a cancel to their source.
+ */
+public final class PageTaskExecutor {
+
+    public static final int DEFAULT_MAX_CONCURRENT_TASKS = 8;
+
+    private static volatile ExecutorService executor =
+            new BoundedVirtualThreadExecutor("page-task-", DEFAULT_MAX_CONCURRENT_TASKS);
+    private static int maxConcurrentTasks = DEFAULT_MAX_CONCURRENT_TASKS;
+
+    // one lock per session: plain tasks share it, window switching tasks take it alone
+    private static final Map<WebDriver, ReadWriteLock> sessionLocks =
+            Collections.synchronizedMap(new WeakHashMap<WebDriver, ReadWriteLock>());
+
+
+    private PageTaskExecutor() {
+
+    }
+
+
+    /**
+     * Replaces the executor with a new one if the bound changes, it is called for every test class.
+     * The old executor is not shut down, a task may still be submitted to it by a class running in parallel:
+     * it finishes its tasks and, holding no idle threads, is just dropped.
+     *
+     * @param maxConcurrentTasks max amount of page tasks running at the same time
+     */
+    public static synchronized void configure(final int maxConcurrentTasks) {
+
+        int bound = Math.max(1, maxConcurrentTasks);
+        if (bound != PageTaskExecutor.maxConcurrentTasks) {
+            PageTaskExecutor.maxConcurrentTasks = bound;
+            executor = new BoundedVirtualThreadExecutor("page-task-", bound);
+        }
+    }
+
+
+    /**
+     * Runs the task on the page task executor
+     *
+     * @param task the operation to run
+     * @return a future for the task result, cancelling it interrupts the task
+     */
+    public static <T> CompletableFuture<T> supply(final Supplier<T> task) {
+
+        InterruptibleFuture<T> future = new InterruptibleFuture<T>();
+        // what the task logs goes to the trace of the test that started it
+        Supplier<T> traced = CustomReporter.inCallerTrace(task);
+        executor.execute(() -> future.run(traced));
+        return future;
+    }
+
+
+    /**
+     * Completes with the first candidate that succeeds and cancels the rest.
+     * Fails with the last error only if every candidate fails.
+     * Cancelling the returned future cancels all candidates.
+     *
+     * @param candidates the futures to race
+     * @return a future for the first successful result
+     */
+    @SafeVarargs
+    public static <T> CompletableFuture<T> firstOf(final CompletableFuture<? extends T>... candidates) {
+
+        CompletableFuture<T> first = new CompletableFuture<T>();
+        if (candidates.length == 0) {
+            first.completeExceptionally(new IllegalArgumentException("firstOf needs at least one candidate"));
+            return first;
+        }
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<? extends T> candidate : candidates) {
+            candidate.whenComplete((value, error) -> {
+                if (error == null) {
+                    first.complete(value);
+                } else if (failures.incrementAndGet() == candidates.length) {
+                    first.completeExceptionally(error);
+                }
+            });
+        }
+        first.whenComplete((value, error) -> {
+            for (CompletableFuture<? extends T> candidate : candidates) {
+                candidate.cancel(true);
+            }
+        });
+        return first;
+    }
+
+
+    /**
+     * Gets the lock that coordinates async tasks on the same session: tasks that only read take the read
+     * lock and run together, tasks that change the session state (switching windows) take the write lock.
+     *
+     * @param driver the session
+     * @return the session lock
+     */
+    public static ReadWriteLock sessionLock(final WebDriver driver) {
+
+        synchronized (sessionLocks) {
+            ReadWriteLock lock = sessionLocks.get(driver);
+            if (lock == null) {
+                lock = new ReentrantReadWriteLock();
+                sessionLocks.put(driver, lock);
+            }
+            return lock;
+        }
+    }
+
+
+    /**
+     * CompletableFuture that knows the thread running its task, so a cancel can interrupt it.
+     */
+    static final class InterruptibleFuture<T> extends CompletableFuture<T> {
+
+        private volatile Thread runner;
+
+        void run(final Supplier<T> task) {
+            if (isDone()) {
+                // cancelled while waiting for a permit
+                return;
+            }
+            runner = Thread.currentThread();
+            try {
+                if (!isDone()) {
+                    complete(task.get());
+                }
+            } catch (Throwable error) {
+                completeExceptionally(error);
+            } finally {
+                runner = null;
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Thread current = runner;
+            if (cancelled && mayInterruptIfRunning && current != null) {
+                current.interrupt();
+            }
+            return cancelled;
+        }
+    }
+}
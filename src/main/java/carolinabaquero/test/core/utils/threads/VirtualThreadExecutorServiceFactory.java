@@ -0,0 +1,34 @@
+package com.carolinabaquero.test.core.utils.threads;
+
+import org.testng.IExecutorServiceFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * @author cbaquero
+ *         TestNG executor factory that runs every test (and so every blocking remote WebDriver call it makes)
+ *         on its own virtual thread. A Grid backed suite spends almost all its time waiting on HTTP calls,
+ *         so a single runner JVM can drive hundreds of remote sessions by setting a high thread-count on the
+ *         suite, without paying one platform thread per session.
+ *         <p/>
+ *         The suite thread-count is still honored as the max amount of tests running at the same time.
+ *         <p/>
+ *         Usage (TestNG command line, see the 'virtual-threads' Maven profile):
+ *         <pre>-threadpoolfactoryclass com.carolinabaquero.test.core.utils.threads.VirtualThreadExecutorServiceFactory</pre>
+ */
+public class VirtualThreadExecutorServiceFactory implements IExecutorServiceFactory {
+
+    /**
+     * Creates a thread per task executor on virtual threads. The TestNG queue and thread factory are
+     * ignored, they are meant for a platform thread pool.
+     */
+    @Override
+    public ExecutorService create(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                  BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+        return new BoundedVirtualThreadExecutor("testng-vt-", Math.max(1, maximumPoolSize));
+    }
+}
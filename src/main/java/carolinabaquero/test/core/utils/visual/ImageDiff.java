@@ -0,0 +1,111 @@
+package com.carolinabaquero.test.core.utils.visual;
+
+import java.awt.image.BufferedImage;
+import java.util.stream.IntStream;
+
+
+/**
+ * @author cbaquero
+ *         Pixel diff of two images of the same size. The images are split in square tiles that are compared in
+ *         parallel (one task per tile on the common fork join pool, so it scales with the available cores).
+ *         Tile pixels are read into per thread buffers that are reused for every tile and every comparison,
+ *         so the diff does not allocate in proportion to the image size except for the diff image itself,
+ *         which is only built when there are differences.
+ */
+public final class ImageDiff {
+
+    static final int TILE_SIZE = 128;
+    private static final int DIFF_COLOR = 0xFFFF00FF;
+
+    private static final ThreadLocal<int[][]> tileBuffers =
+            ThreadLocal.withInitial(() -> new int[][]{new int[TILE_SIZE * TILE_SIZE], new int[TILE_SIZE * TILE_SIZE]});
+
+
+    private ImageDiff() {
+
+    }
+
+
+    /**
+     * Counts the pixels where any channel differs more than the tolerance
+     *
+     * @param expected  the baseline image
+     * @param actual    the new image, same size as the baseline
+     * @param tolerance max difference allowed per color channel (0 to 255)
+     * @return the amount of different pixels per tile, in row major tile order
+     */
+    public static long[] countDifferences(BufferedImage expected, BufferedImage actual, int tolerance) {
+        int columns = tiles(expected.getWidth());
+        int rows = tiles(expected.getHeight());
+        long[] differences = new long[columns * rows];
+        IntStream.range(0, differences.length).parallel().forEach(tile -> {
+            int[][] buffers = tileBuffers.get();
+            int x = (tile % columns) * TILE_SIZE;
+            int y = (tile / columns) * TILE_SIZE;
+            int width = Math.min(TILE_SIZE, expected.getWidth() - x);
+            int height = Math.min(TILE_SIZE, expected.getHeight() - y);
+            expected.getRGB(x, y, width, height, buffers[0], 0, width);
+            actual.getRGB(x, y, width, height, buffers[1], 0, width);
+            long count = 0;
+            for (int i = 0; i < width * height; i++) {
+                if (differs(buffers[0][i], buffers[1][i], tolerance)) {
+                    count++;
+                }
+            }
+            differences[tile] = count;
+        });
+        return differences;
+    }
+
+
+    /**
+     * Builds an image with the actual screenshot faded and the different pixels in magenta.
+     * Only the tiles with differences are compared again.
+     *
+     * @param expected    the baseline image
+     * @param actual      the new image, same size as the baseline
+     * @param tolerance   max difference allowed per color channel
+     * @param differences the per tile counts given by {@link #countDifferences}
+     * @return the diff image
+     */
+    public static BufferedImage paintDifferences(BufferedImage expected, BufferedImage actual, int tolerance,
+                                                 long[] differences) {
+        int columns = tiles(expected.getWidth());
+        BufferedImage diff = new BufferedImage(expected.getWidth(), expected.getHeight(), BufferedImage.TYPE_INT_RGB);
+        IntStream.range(0, differences.length).parallel().forEach(tile -> {
+            int[][] buffers = tileBuffers.get();
+            int x = (tile % columns) * TILE_SIZE;
+            int y = (tile / columns) * TILE_SIZE;
+            int width = Math.min(TILE_SIZE, expected.getWidth() - x);
+            int height = Math.min(TILE_SIZE, expected.getHeight() - y);
+            expected.getRGB(x, y, width, height, buffers[0], 0, width);
+            actual.getRGB(x, y, width, height, buffers[1], 0, width);
+            for (int i = 0; i < width * height; i++) {
+                boolean different = differences[tile] > 0 && differs(buffers[0][i], buffers[1][i], tolerance);
+                buffers[0][i] = different ? DIFF_COLOR : fade(buffers[1][i]);
+            }
+            // tiles are disjoint, so each task writes its own part of the raster
+            diff.setRGB(x, y, width, height, buffers[0], 0, width);
+        });
+        return diff;
+    }
+
+    private static int tiles(int pixels) {
+        return (pixels + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    private static boolean differs(int expected, int actual, int tolerance) {
+        if (expected == actual) {
+            return false;
+        }
+        return Math.abs(((expected >> 16) & 0xFF) - ((actual >> 16) & 0xFF)) > tolerance
+                || Math.abs(((expected >> 8) & 0xFF) - ((actual >> 8) & 0xFF)) > tolerance
+                || Math.abs((expected & 0xFF) - (actual & 0xFF)) > tolerance;
+    }
+
+    private static int fade(int rgb) {
+        int gray = (((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF)) / 3;
+        int light = 192 + gray / 4;
+        return 0xFF000000 | (light << 16) | (light << 8) | light;
+    }
+}
@@ -0,0 +1,56 @@
+package com.carolinabaquero.test.core.utils.visual;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+
+/**
+ * @author cbaquero
+ *         Difference hash (dHash) of an image: the image is reduced to 9x8 gray pixels and every bit says whether
+ *         a pixel is brighter than its right neighbour. Similar images give hashes at a small Hamming distance,
+ *         so comparing two 64 bit numbers tells if a full pixel diff is needed at all.
+ */
+public final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+
+
+    private PerceptualHash() {
+
+    }
+
+
+    /**
+     * @param image the image to hash
+     * @return the 64 bit difference hash
+     */
+    public static long of(BufferedImage image) {
+        BufferedImage small = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = small.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, WIDTH, HEIGHT, null);
+        } finally {
+            graphics.dispose();
+        }
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                int left = small.getRaster().getSample(x, y, 0);
+                int right = small.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+
+    /**
+     * @return the amount of different bits between both hashes (0 to 64)
+     */
+    public static int distance(long hash, long otherHash) {
+        return Long.bitCount(hash ^ otherHash);
+    }
+}
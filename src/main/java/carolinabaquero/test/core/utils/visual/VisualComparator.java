@@ -0,0 +1,153 @@
+package com.carolinabaquero.test.core.utils.visual;
+
+import com.carolinabaquero.test.core.AppContext;
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+
+
+/**
+ * @author cbaquero
+ *         Compares screenshots with the baselines stored on the baseline directory (one PNG per screenshot name).
+ *         The perceptual hashes are compared first, and only when they are further apart than the hash tolerance
+ *         the images are diffed pixel by pixel (see {@link ImageDiff}). A screenshot without baseline becomes
+ *         the baseline, delete the file to record it again.
+ *         <p/>
+ *         Diff images and the scores of every comparison (visual-comparison.csv) are written to
+ *         [reportsDirectory]/visual.
+ */
+public final class VisualComparator {
+
+    public static final String REPORT_DIRECTORY = "visual";
+    public static final String SUMMARY_FILE_NAME = "visual-comparison.csv";
+
+    private static volatile File baselineDirectory = new File("baselines");
+    private static volatile File reportDirectory = new File("reports", REPORT_DIRECTORY);
+    private static volatile double diffThreshold = 0.001;
+    private static volatile int pixelTolerance = 10;
+    private static volatile int hashTolerance = 0;
+
+
+    private VisualComparator() {
+
+    }
+
+
+    /**
+     * Loads the baseline directory, reports directory and thresholds from the given context
+     *
+     * @param context the AppContext for this run
+     */
+    public static void configure(final AppContext context) {
+
+        baselineDirectory = new File(context.getVisualBaselineDirectory());
+        reportDirectory = new File(context.getReportsDirectory(), REPORT_DIRECTORY);
+        diffThreshold = context.getVisualDiffThreshold();
+        pixelTolerance = context.getVisualPixelTolerance();
+        hashTolerance = context.getVisualHashTolerance();
+    }
+
+
+    /**
+     * Compares a PNG screenshot with the baseline of the same name
+     *
+     * @param name the screenshot name, used for the baseline and diff file names
+     * @param png  the screenshot as returned by the driver with OutputType.BYTES
+     * @return the comparison result, also logged and added to the summary
+     */
+    public static VisualComparisonResult compare(final String name, final byte[] png) {
+
+        File baseline = new File(baselineDirectory, name + ".png");
+        VisualComparisonResult result;
+        try {
+            if (!baseline.exists()) {
+                baselineDirectory.mkdirs();
+                Files.write(baseline.toPath(), png);
+                result = new VisualComparisonResult(name, true, 0, 0, 0, true, null);
+            } else {
+                byte[] expectedPng = Files.readAllBytes(baseline.toPath());
+                result = Arrays.equals(expectedPng, png)
+                        ? new VisualComparisonResult(name, false, 0, 0, 0, true, null)
+                        : compare(name, read(expectedPng), read(png));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compare screenshot '" + name + "' with "
+                    + baseline.getPath(), e);
+        }
+        report(result);
+        return result;
+    }
+
+    private static VisualComparisonResult compare(String name, BufferedImage expected, BufferedImage actual)
+            throws IOException {
+
+        if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            CustomReporter.warning("[VISUAL] " + name + " size changed from " + expected.getWidth() + "x"
+                    + expected.getHeight() + " to " + actual.getWidth() + "x" + actual.getHeight());
+            return new VisualComparisonResult(name, false, 64, (long) actual.getWidth() * actual.getHeight(),
+                    1, false, writeImage(name + "-actual", actual));
+        }
+        int hashDistance = PerceptualHash.distance(PerceptualHash.of(expected), PerceptualHash.of(actual));
+        if (hashDistance <= hashTolerance) {
+            return new VisualComparisonResult(name, false, hashDistance, 0, 0, true, null);
+        }
+        long[] differences = ImageDiff.countDifferences(expected, actual, pixelTolerance);
+        long differentPixels = Arrays.stream(differences).sum();
+        double ratio = (double) differentPixels / ((long) expected.getWidth() * expected.getHeight());
+        String diffImage = differentPixels == 0 ? null
+                : writeImage(name + "-diff", ImageDiff.paintDifferences(expected, actual, pixelTolerance, differences));
+        return new VisualComparisonResult(name, false, hashDistance, differentPixels, ratio, ratio <= diffThreshold,
+                diffImage);
+    }
+
+    private static BufferedImage read(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        if (image == null) {
+            throw new IOException("Not a supported image");
+        }
+        return image;
+    }
+
+    private static String writeImage(String fileName, BufferedImage image) throws IOException {
+        reportDirectory.mkdirs();
+        File file = new File(reportDirectory, fileName + ".png");
+        ImageIO.write(image, "png", file);
+        return file.getPath();
+    }
+
+    private static synchronized void report(VisualComparisonResult result) {
+
+        String line = result.name() + "," + result.newBaseline() + "," + result.hashDistance() + ","
+                + result.differentPixels() + "," + String.format(Locale.ROOT, "%.6f", result.diffRatio()) + ","
+                + result.matches() + "," + (result.diffImage() == null ? "" : result.diffImage());
+        if (result.newBaseline()) {
+            CustomReporter.info("[VISUAL] New baseline stored for " + result.name());
+        } else if (result.matches()) {
+            CustomReporter.debug("[VISUAL] " + line);
+        } else {
+            CustomReporter.warning("[VISUAL] " + result.name() + " differs from its baseline: " + line);
+        }
+        reportDirectory.mkdirs();
+        File summary = new File(reportDirectory, SUMMARY_FILE_NAME);
+        boolean header = !summary.exists();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(summary, StandardCharsets.UTF_8, true))) {
+            if (header) {
+                writer.println("name,newBaseline,hashDistance,differentPixels,diffRatio,matches,diffImage");
+            }
+            writer.println(line);
+        } catch (IOException e) {
+            CustomReporter.error("[VISUAL] Could not write " + summary.getPath(), e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.carolinabaquero.test.core.utils.visual;
+
+
+/**
+ * Result of comparing a screenshot with its baseline.
+ *
+ * @param name            the screenshot name, also the baseline file name
+ * @param newBaseline     true if there was no baseline and the screenshot was stored as the new one
+ * @param hashDistance    Hamming distance between both perceptual hashes (0 to 64)
+ * @param differentPixels amount of pixels over the tolerance, 0 if the pixel diff was skipped
+ * @param diffRatio       differentPixels over the total amount of pixels (1 if the sizes differ)
+ * @param matches         true if the screenshot is within the configured threshold
+ * @param diffImage       path of the written diff image, null if there were no differences
+ * @author cbaquero
+ */
+public record VisualComparisonResult(String name, boolean newBaseline, int hashDistance, long differentPixels,
+                                     double diffRatio, boolean matches, String diffImage) {
+}
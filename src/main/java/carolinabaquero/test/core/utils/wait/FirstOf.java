@@ -0,0 +1,175 @@
+package com.carolinabaquero.test.core.utils.wait;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * @author cbaquero
+ *         Labelled conditions for a "first of" wait: the wait returns the outcome of the first condition that holds,
+ *         so a page object can branch on it right away instead of trying each option with its own timeout.
+ *         <pre>
+ *         LoginOutcome outcome = waitForFirstOf(FirstOf.&lt;LoginOutcome&gt;create()
+ *                 .gone(LoginOutcome.LOGGED_IN, LOGIN_BUTTON_LOCATOR)
+ *                 .visible(LoginOutcome.CREDENTIALS, LOGIN_ERROR_MSG_LOCATOR), timeout);
+ *         </pre>
+ *         When all the conditions are on remotable locators (css, id, name, class name, tag name, xpath, link text)
+ *         they are checked together inside the browser by {@link FirstOfScript}. Otherwise all of them are checked
+ *         in one polling loop on the driver. If several hold at the same time, the first declared wins.
+ *         Outcomes must not be null nor Boolean.FALSE.
+ */
+public final class FirstOf<T> {
+
+    public static final String VISIBLE = "visible";
+    public static final String GONE = "gone";
+    public static final String PRESENT = "present";
+
+    /**
+     * Poll interval of the browser loop and of the driver loop
+     */
+    public static final long POLL_MILLIS = 50;
+
+    private final List<Condition<T>> conditions = new ArrayList<Condition<T>>();
+
+
+    public static <T> FirstOf<T> create() {
+        return new FirstOf<T>();
+    }
+
+    /**
+     * The outcome when an element of the locator is visible
+     */
+    public FirstOf<T> visible(final T outcome, final By locator) {
+        conditions.add(new Condition<T>(outcome, locator, VISIBLE, null));
+        return this;
+    }
+
+    /**
+     * The outcome when no element of the locator is visible (removed or hidden)
+     */
+    public FirstOf<T> gone(final T outcome, final By locator) {
+        conditions.add(new Condition<T>(outcome, locator, GONE, null));
+        return this;
+    }
+
+    /**
+     * The outcome when an element of the locator is on the DOM, visible or not
+     */
+    public FirstOf<T> present(final T outcome, final By locator) {
+        conditions.add(new Condition<T>(outcome, locator, PRESENT, null));
+        return this;
+    }
+
+    /**
+     * The outcome when the given condition returns a value other than null or false.
+     * Any such condition makes the whole wait poll on the driver.
+     */
+    public FirstOf<T> when(final T outcome, final ExpectedCondition<?> condition) {
+        conditions.add(new Condition<T>(outcome, null, null, condition));
+        return this;
+    }
+
+
+    /**
+     * @return true if every condition can be checked inside the browser
+     */
+    public boolean inBrowser() {
+        for (Condition<T> condition : conditions) {
+            if (!(condition.locator() instanceof By.Remotable)) {
+                return false;
+            }
+        }
+        return !conditions.isEmpty();
+    }
+
+    /**
+     * @return the argument of {@link FirstOfScript}
+     */
+    public List<Map<String, Object>> toScriptArgument() {
+        List<Map<String, Object>> argument = new ArrayList<Map<String, Object>>();
+        for (Condition<T> condition : conditions) {
+            By.Remotable.Parameters parameters = ((By.Remotable) condition.locator()).getRemoteParameters();
+            Map<String, Object> entry = new LinkedHashMap<String, Object>();
+            entry.put("using", parameters.using());
+            entry.put("value", parameters.value());
+            entry.put("state", condition.state());
+            argument.add(entry);
+        }
+        return argument;
+    }
+
+    /**
+     * @param index the index returned by {@link FirstOfScript}
+     */
+    public T outcome(final int index) {
+        return conditions.get(index).outcome();
+    }
+
+    /**
+     * @return a condition for a driver side wait, with the outcome of the first condition that holds
+     */
+    public ExpectedCondition<T> toCondition() {
+        return new ExpectedCondition<T>() {
+            @Override
+            public T apply(WebDriver driver) {
+                for (Condition<T> condition : conditions) {
+                    if (condition.holds(driver)) {
+                        return condition.outcome();
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public String toString() {
+                return FirstOf.this.toString();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("first of [");
+        for (Condition<T> condition : conditions) {
+            text.append(text.charAt(text.length() - 1) == '[' ? "" : ", ").append(condition.outcome()).append(": ")
+                    .append(condition.condition() != null ? condition.condition()
+                            : condition.state() + " " + condition.locator());
+        }
+        return text.append(']').toString();
+    }
+
+
+    private record Condition<T>(T outcome, By locator, String state, ExpectedCondition<?> condition) {
+
+        boolean holds(WebDriver driver) {
+            if (condition != null) {
+                Object value = condition.apply(driver);
+                return value != null && !Boolean.FALSE.equals(value);
+            }
+            List<WebElement> found = driver.findElements(locator);
+            if (PRESENT.equals(state)) {
+                return !found.isEmpty();
+            }
+            boolean visible = false;
+            for (WebElement element : found) {
+                try {
+                    if (element.isDisplayed()) {
+                        visible = true;
+                        break;
+                    }
+                } catch (StaleElementReferenceException gone) {
+                    // removed between find and check, so not visible
+                }
+            }
+            return VISIBLE.equals(state) == visible;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.carolinabaquero.test.core.utils.wait;
+
+
+/**
+ * @author cbaquero
+ *         In-browser polling used by {@link com.carolinabaquero.test.core.PageObject#waitForFirstOf(FirstOf, int)}.
+ *         <p/>
+ *         Checks every locator condition of a {@link FirstOf} in the same loop inside the browser, with no round
+ *         trip per check, and calls back with the index of the first one that holds (the first declared wins if
+ *         several hold on the same check). Polls with the original setTimeout when the page is instrumented by
+ *         {@link PageSettleScript}, so it is not taken as page activity.
+ *         <p/>
+ *         Arguments: conditions [{using, value, state: visible|gone|present}], max time to wait in this call (ms),
+ *         poll interval (ms).
+ *         Callback value: the index of the condition that holds, -1 if the slice ran out.
+ */
+public final class FirstOfScript {
+
+    public static final String SCRIPT =
+            "var conditions = arguments[0], maxMs = arguments[1], pollMs = arguments[2];"
+            + "var done = arguments[arguments.length - 1];"
+            + "var setTimer = window.__fwkSettle ? window.__fwkSettle.st : window.setTimeout;"
+            + "var find = function (using, value) {"
+            + "  if (using === 'css selector') { return Array.prototype.slice.call(document.querySelectorAll(value)); }"
+            + "  if (using === 'tag name') { return Array.prototype.slice.call(document.getElementsByTagName(value)); }"
+            + "  if (using === 'class name') { return Array.prototype.slice.call(document.getElementsByClassName(value)); }"
+            // the CSS the driver sends for By.id and By.name over the W3C protocol
+            + "  if (using === 'id') {"
+            + "    return Array.prototype.slice.call(document.querySelectorAll('#' + CSS.escape(value)));"
+            + "  }"
+            + "  if (using === 'name') {"
+            + "    return Array.prototype.slice.call(document.querySelectorAll('[name=\"' + CSS.escape(value) + '\"]'));"
+            + "  }"
+            + "  if (using === 'xpath') {"
+            + "    var found = document.evaluate(value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "    var nodes = [];"
+            + "    for (var i = 0; i < found.snapshotLength; i++) {"
+            + "      if (found.snapshotItem(i).nodeType === 1) { nodes.push(found.snapshotItem(i)); }"
+            + "    }"
+            + "    return nodes;"
+            + "  }"
+            + "  if (using === 'link text' || using === 'partial link text') {"
+            + "    return Array.prototype.filter.call(document.querySelectorAll('a'), function (a) {"
+            + "      var t = (a.innerText || a.textContent || '').trim();"
+            + "      return using === 'link text' ? t === value : t.indexOf(value) >= 0;"
+            + "    });"
+            + "  }"
+            + "  throw new Error('Unsupported locator strategy: ' + using);"
+            + "};"
+            + "var isVisible = function (e) {"
+            + "  var style = window.getComputedStyle(e), rect = e.getBoundingClientRect();"
+            + "  return style.display !== 'none' && style.visibility !== 'hidden' && parseFloat(style.opacity) > 0"
+            + "      && (rect.width > 0 || rect.height > 0);"
+            + "};"
+            + "var holds = function (c) {"
+            + "  var found = find(c.using, c.value);"
+            + "  if (c.state === 'present') { return found.length > 0; }"
+            + "  var visible = found.some(isVisible);"
+            + "  return c.state === 'visible' ? visible : !visible;"
+            + "};"
+            + "var start = Date.now();"
+            + "var check = function () {"
+            + "  for (var i = 0; i < conditions.length; i++) {"
+            + "    if (holds(conditions[i])) { done(i); return; }"
+            + "  }"
+            + "  if (Date.now() - start >= maxMs) { done(-1); return; }"
+            + "  setTimer.call(window, check, pollMs);"
+            + "};"
+            + "check();";
+
+
+    private FirstOfScript() {
+
+    }
+}
@@ -0,0 +1,99 @@
+package com.carolinabaquero.test.core.utils.wait;
+
+
+/**
+ * @author cbaquero
+ *         In-browser instrumentation used by {@link com.carolinabaquero.test.core.PageObject#waitForPageToSettle()}.
+ *         <p/>
+ *         The first run on a document wraps fetch, XMLHttpRequest and setTimeout to count in-flight requests
+ *         and pending short timers, and watches DOM mutations as activity. Then, every run polls that state
+ *         inside the browser (with the original setTimeout, so it does not count itself) and calls back
+ *         as soon as the page has been quiet for the requested window, or when the given slice is over.
+ *         <p/>
+ *         Arguments: quiet window (ms), max time to wait in this call (ms), longest timer delay to track (ms).
+ *         Callback value: true if settled, false if the slice ran out.
+ *         <p/>
+ *         Note: requests started before the first injection on a document are not seen, so the script
+ *         should be run right after the action that triggers the activity (or on page load).
+ */
+public final class PageSettleScript {
+
+    /**
+     * Timers with a longer delay than this are considered polling/idle timers and are not tracked,
+     * otherwise a page with a periodic refresh would never settle.
+     */
+    public static final long MAX_TRACKED_TIMER_MILLIS = 1000;
+
+    /**
+     * Max time a single async script call waits in the browser, kept well below the default
+     * WebDriver script timeout (30 seconds).
+     */
+    public static final long MAX_SLICE_MILLIS = 5000;
+
+    public static final String SCRIPT =
+            "var quietMs = arguments[0], maxMs = arguments[1], maxTimer = arguments[2];"
+            + "var done = arguments[arguments.length - 1];"
+            + "var w = window;"
+            + "var s = w.__fwkSettle;"
+            + "if (!s) {"
+            + "  s = w.__fwkSettle = { pending: 0, timers: {}, timerCount: 0, last: Date.now(),"
+            + "                        st: w.setTimeout, ct: w.clearTimeout };"
+            + "  var touch = function () { s.last = Date.now(); };"
+            + "  if (w.fetch) {"
+            + "    var originalFetch = w.fetch;"
+            + "    w.fetch = function () {"
+            + "      s.pending++; touch();"
+            + "      var end = function () { s.pending--; touch(); };"
+            + "      var p = originalFetch.apply(this, arguments);"
+            + "      p.then(end, end);"
+            + "      return p;"
+            + "    };"
+            + "  }"
+            + "  var originalSend = XMLHttpRequest.prototype.send;"
+            + "  XMLHttpRequest.prototype.send = function () {"
+            + "    s.pending++; touch();"
+            + "    this.addEventListener('loadend', function () { s.pending--; touch(); });"
+            + "    return originalSend.apply(this, arguments);"
+            + "  };"
+            + "  w.setTimeout = function (fn, delay) {"
+            + "    if (typeof fn !== 'function' || (delay || 0) > maxTimer) { return s.st.apply(w, arguments); }"
+            + "    var args = Array.prototype.slice.call(arguments, 2);"
+            + "    var id = s.st.call(w, function () {"
+            + "      if (s.timers[id]) { delete s.timers[id]; s.timerCount--; }"
+            + "      touch();"
+            + "      fn.apply(w, args);"
+            + "    }, delay);"
+            + "    s.timers[id] = true; s.timerCount++;"
+            + "    return id;"
+            + "  };"
+            + "  w.clearTimeout = function (id) {"
+            + "    if (s.timers[id]) { delete s.timers[id]; s.timerCount--; }"
+            + "    return s.ct.apply(w, arguments);"
+            + "  };"
+            + "  if (w.MutationObserver) {"
+            + "    new MutationObserver(touch).observe(document, { childList: true, subtree: true });"
+            + "  }"
+            + "}"
+            + "var runningAnimations = function () {"
+            + "  if (!document.getAnimations) { return 0; }"
+            + "  return document.getAnimations().filter(function (a) {"
+            + "    return a.playState === 'running' && a.effect && a.effect.getTiming().iterations !== Infinity;"
+            + "  }).length;"
+            + "};"
+            + "var started = Date.now();"
+            + "var check = function () {"
+            + "  var now = Date.now();"
+            + "  if (document.readyState !== 'complete' || s.pending > 0 || s.timerCount > 0 || runningAnimations() > 0) {"
+            + "    s.last = now;"
+            + "  }"
+            + "  if (now - s.last >= quietMs) { done(true); return; }"
+            + "  if (now - started >= maxMs) { done(false); return; }"
+            + "  s.st.call(w, check, 25);"
+            + "};"
+            + "check();";
+
+
+    private PageSettleScript() {
+
+    }
+}
@@ -1,26 +1,32 @@
 package com.carolinabaquero.test.pageobjects;
 
 import com.carolinabaquero.test.core.PageObject;
+import com.carolinabaquero.test.core.elements.PageElement;
 import com.carolinabaquero.test.core.exceptions.FailedLoginException;
 import com.carolinabaquero.test.core.exceptions.InvalidLoginException;
+import com.carolinabaquero.test.core.utils.wait.FirstOf;
 import org.openqa.selenium.By;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
-import java.util.List;
-
 /**
  * Page Object for the login page
  */
 public class LoginPage extends PageObject {
 
-    private static final By USER_INPUT_LOCATOR = By.id("email");
-    private static final By PASSWORD_INPUT_LOCATOR = By.id("password");
-    private static final By LOGIN_BUTTON_LOCATOR = By.xpath("//button[@type='submit']");
+    //accessors generated on LoginPageElements
+    @PageElement
+    static final By USER_INPUT_LOCATOR = By.id("email");
+    @PageElement
+    static final By PASSWORD_INPUT_LOCATOR = By.id("password");
+    @PageElement
+    static final By LOGIN_BUTTON_LOCATOR = By.xpath("//button[@type='submit']");
     private static final By FORM_ERROR_MESSAGE = By.className("dp-error-form");
     private static final By LOGIN_ERROR_MSG_LOCATOR = By.className("dp-error");
 
+    private enum LoginOutcome { LOGGED_IN, CREDENTIALS, FORM }
+
     /**
      * PageObject constructor
      * @param driver the web driver already instantiated
@@ -37,28 +43,27 @@ public class LoginPage extends PageObject {
      * @throws FailedLoginException if the login fails, attaching the errors on the exception message
      */
     public MyAccountPage login(String user, String password) throws FailedLoginException, InvalidLoginException {
-        //input username and password using wait mathod defined on PageObject
-        WebElement username = waitForElementToBeVisible(USER_INPUT_LOCATOR);
+        //input username and password using the generated accessors (they wait for the elements to be visible)
+        WebElement username = LoginPageElements.userInput(this);
         clearAndType(username, user);
 
-        WebElement passwd = waitForElementToBeVisible(PASSWORD_INPUT_LOCATOR);
+        WebElement passwd = LoginPageElements.passwordInput(this);
         clearAndType(passwd, password);
 
-        click(waitForElementToBeVisible(LOGIN_BUTTON_LOCATOR));
+        click(LoginPageElements.loginButton(this));
 
-        try {
-            waitForElementToDisappear(LOGIN_BUTTON_LOCATOR,2);
+        //one wait for all the outcomes, it returns as soon as any of them shows
+        LoginOutcome outcome = waitForFirstOf(FirstOf.<LoginOutcome>create()
+                .gone(LoginOutcome.LOGGED_IN, LOGIN_BUTTON_LOCATOR)
+                .visible(LoginOutcome.CREDENTIALS, LOGIN_ERROR_MSG_LOCATOR)
+                .visible(LoginOutcome.FORM, FORM_ERROR_MESSAGE));
+        if (outcome == LoginOutcome.LOGGED_IN) {
             return new MyAccountPage(getDriver());
-        } catch (TimeoutException notLoggedIn) {
-            //check if there are elements with "error" class
-            try{
-                WebElement error = waitForElementToBeVisible(LOGIN_ERROR_MSG_LOCATOR,2);
-                throw new FailedLoginException(error.toString());
-            }catch(TimeoutException noLoginError){
-                List<WebElement> errors = waitForElementsToBeVisible(FORM_ERROR_MESSAGE,2);
-                throw new InvalidLoginException(errors.toString());
-            }
         }
+        if (outcome == LoginOutcome.CREDENTIALS) {
+            throw new FailedLoginException(findVisibleElements(LOGIN_ERROR_MSG_LOCATOR).toString());
+        }
+        throw new InvalidLoginException(findVisibleElements(FORM_ERROR_MESSAGE).toString());
     }
 
     public boolean loginFailedErrorVisible(){
@@ -0,0 +1,107 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.carolinabaquero.test.core.utils.metrics.MetricsWebDriverListener;
+import com.carolinabaquero.test.core.utils.replay.CommandRecording;
+import com.carolinabaquero.test.core.utils.replay.RecordingCommandExecutor;
+import com.carolinabaquero.test.core.utils.replay.ReplayCommandExecutor;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * @author cbaquero
+ *         Records a login like journey against {@link SimulatedRemoteDriver} and replays it with the recorded
+ *         latency, half of it and none. The journey runs on a driver decorated as getDriverInstance() does with
+ *         the metrics endpoint on, so with no latency the time left is the framework's own (RemoteWebDriver,
+ *         decorator, listener). Every replay must give back the recorded element ids and titles.
+ *         Run: java -cp [test classpath] com.carolinabaquero.test.benchmarks.CommandReplayBenchmark
+ *         [latencyMillis] [journeys]
+ */
+public class CommandReplayBenchmark {
+
+    // keep a reference, java.util.logging only holds loggers weakly
+    private static final Logger SELENIUM_LOGGER = Logger.getLogger("org.openqa.selenium");
+
+    public static void main(String[] args) throws Exception {
+        long latency = args.length > 0 ? Long.parseLong(args[0]) : 5;
+        int journeys = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        SELENIUM_LOGGER.setLevel(Level.WARNING);
+
+        int exitCode = 0;
+        Path file = Files.createTempFile("journey", CommandRecording.EXTENSION);
+        try (SimulatedRemoteDriver hub = new SimulatedRemoteDriver(latency)) {
+            long start = System.nanoTime();
+            List<String> recorded = run(MetricsWebDriverListener.track(new RemoteWebDriver(
+                    new RecordingCommandExecutor(new HttpCommandExecutor(hub.getUrl()), CommandRecording.create(file)),
+                    new ChromeOptions())), journeys);
+            long recordNanos = System.nanoTime() - start;
+            CommandRecording recording = CommandRecording.read(file);
+
+            System.out.printf("latency=%dms journeys=%d commands=%d recording=%d bytes%n", latency, journeys,
+                    recording.commands().size(), Files.size(file));
+            System.out.printf("%-16s %12s %14s %10s%n", "run", "total ms", "us/command", "same");
+            print("recorded", recordNanos, recording, true);
+            for (double scale : new double[]{1, 0.5, 0}) {
+                // warm up the replay path, then measure
+                for (int i = 0; i < (scale == 0 ? 20 : 1); i++) {
+                    run(replay(recording, scale), journeys);
+                }
+                start = System.nanoTime();
+                List<String> replayed = run(replay(recording, scale), journeys);
+                print("replay x" + scale, System.nanoTime() - start, recording, replayed.equals(recorded));
+                if (!replayed.equals(recorded)) {
+                    exitCode = 1;
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        // the Selenium http client keeps non daemon threads alive
+        System.exit(exitCode);
+    }
+
+    private static WebDriver replay(CommandRecording recording, double scale) {
+        return MetricsWebDriverListener.track(new RemoteWebDriver(
+                new ReplayCommandExecutor("journey", recording, scale), new ChromeOptions()));
+    }
+
+    /**
+     * @return what the driver answered, to compare the runs
+     */
+    private static List<String> run(WebDriver driver, int journeys) {
+        List<String> answers = new ArrayList<>();
+        try {
+            for (int i = 0; i < journeys; i++) {
+                driver.get("http://app.under.test/login");
+                WebElement user = driver.findElement(By.id("email"));
+                user.sendKeys("user" + i + "@test.com");
+                driver.findElement(By.id("password")).sendKeys("secret");
+                driver.findElement(By.xpath("//button[@type='submit']")).click();
+                answers.add(user.toString());
+                answers.add(driver.getTitle());
+            }
+        } finally {
+            driver.quit();
+        }
+        return answers;
+    }
+
+    private static void print(String run, long nanos, CommandRecording recording, boolean same) {
+        System.out.printf("%-16s %12d %14.1f %10s%n", run, nanos / 1_000_000,
+                nanos / 1000.0 / recording.commands().size(), same ? "yes" : "NO");
+    }
+}
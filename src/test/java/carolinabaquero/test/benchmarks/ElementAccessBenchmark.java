@@ -0,0 +1,48 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.carolinabaquero.test.core.utils.reports.CustomReporter;
+
+import java.util.function.IntSupplier;
+
+
+/**
+ * @author cbaquero
+ *         Compares the cost of getting the three LoginPage form elements through hand written wait calls,
+ *         through the accessors generated from @PageElement and through PageFactory proxies, on
+ *         {@link StubWebDriver} so only framework overhead is measured.
+ *         Run: java -cp [test classpath] com.carolinabaquero.test.benchmarks.ElementAccessBenchmark [iterations]
+ */
+public class ElementAccessBenchmark {
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ElementAccessBenchmarkPage page = new ElementAccessBenchmarkPage(new StubWebDriver());
+
+        for (int round = 0; round < 3; round++) {
+            boolean warmUp = round < 2;
+            measure("hand written", page::handWritten, iterations, warmUp);
+            measure("generated", page::generated, iterations, warmUp);
+            measure("page factory", page::pageFactory, iterations, warmUp);
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static void measure(String name, IntSupplier access, int iterations, boolean warmUp) {
+        long start = System.nanoTime();
+        int result = 0;
+        for (int i = 0; i < iterations; i++) {
+            result += access.getAsInt();
+            if (i % 100 == 0) {
+                // ReporterTestListener flushes the trace on every test start, do the same here
+                CustomReporter.flushTraceBuffer();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += result;
+        if (!warmUp) {
+            System.out.printf("%-14s %8.1f ns/page (3 elements)%n", name, (double) elapsed / iterations);
+        }
+    }
+}
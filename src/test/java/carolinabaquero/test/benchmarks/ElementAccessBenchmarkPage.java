@@ -0,0 +1,60 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.carolinabaquero.test.core.PageObject;
+import com.carolinabaquero.test.core.elements.PageElement;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+
+
+/**
+ * @author cbaquero
+ *         The LoginPage form elements accessed three ways: hand written wait calls (as LoginPage did),
+ *         @PageElement generated accessors and a reflection/proxy based PageFactory.
+ */
+public class ElementAccessBenchmarkPage extends PageObject {
+
+    @PageElement
+    static final By USER_INPUT_LOCATOR = By.id("email");
+    @PageElement
+    static final By PASSWORD_INPUT_LOCATOR = By.id("password");
+    @PageElement
+    static final By LOGIN_BUTTON_LOCATOR = By.xpath("//button[@type='submit']");
+
+    @FindBy(id = "email")
+    private WebElement userInput;
+    @FindBy(id = "password")
+    private WebElement passwordInput;
+    @FindBy(xpath = "//button[@type='submit']")
+    private WebElement loginButton;
+
+    public ElementAccessBenchmarkPage(WebDriver driver) {
+        super(driver);
+        PageFactory.initElements(driver, this);
+    }
+
+    public int handWritten() {
+        return waitForElementToBeVisible(USER_INPUT_LOCATOR).hashCode()
+                + waitForElementToBeVisible(PASSWORD_INPUT_LOCATOR).hashCode()
+                + waitForElementToBeVisible(LOGIN_BUTTON_LOCATOR).hashCode();
+    }
+
+    public int generated() {
+        return ElementAccessBenchmarkPageElements.userInput(this).hashCode()
+                + ElementAccessBenchmarkPageElements.passwordInput(this).hashCode()
+                + ElementAccessBenchmarkPageElements.loginButton(this).hashCode();
+    }
+
+    public int pageFactory() {
+        WebDriverWait wait = new WebDriverWait(getDriver(), Duration.ofSeconds(getWaitForElementPresentTimeout()));
+        return wait.until(ExpectedConditions.visibilityOf(userInput)).hashCode()
+                + wait.until(ExpectedConditions.visibilityOf(passwordInput)).hashCode()
+                + wait.until(ExpectedConditions.visibilityOf(loginButton)).hashCode();
+    }
+}
@@ -0,0 +1,90 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.carolinabaquero.test.core.utils.load.LoadProfile;
+import com.carolinabaquero.test.core.utils.load.LoadResult;
+import com.carolinabaquero.test.core.utils.load.LoadRunner;
+import com.carolinabaquero.test.core.utils.load.StepSummary;
+import org.openqa.selenium.By;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * @author cbaquero
+ *         Capacity of the load mode itself: runs {@link LoadRunner} with more and more virtual users against
+ *         {@link SimulatedRemoteDriver}, with no think time, and shows the journeys per minute one runner JVM
+ *         reaches and the step times it sees. Step times should stay close to the simulated latency; when they
+ *         grow with the users, the runner (not the application) is the bottleneck.
+ *         Run: java -cp [test classpath] com.carolinabaquero.test.benchmarks.LoadRunnerBenchmark
+ *         [latencyMillis] [durationSeconds] [users...]
+ */
+public class LoadRunnerBenchmark {
+
+    // keep a reference, java.util.logging only holds loggers weakly
+    private static final Logger SELENIUM_LOGGER = Logger.getLogger("org.openqa.selenium");
+
+    public static void main(String[] args) throws Exception {
+        long latency = args.length > 0 ? Long.parseLong(args[0]) : 20;
+        int duration = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+        List<Integer> users = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            users.add(Integer.parseInt(args[i]));
+        }
+        if (users.isEmpty()) {
+            users = List.of(10, 50, 200);
+        }
+        SELENIUM_LOGGER.setLevel(Level.WARNING);
+
+        int exitCode = 0;
+        Path reports = Files.createTempDirectory("load-benchmark");
+        try (SimulatedRemoteDriver hub = new SimulatedRemoteDriver(latency)) {
+            URL url = hub.getUrl();
+            System.out.printf("latency=%dms duration=%ds%n", latency, duration);
+            System.out.printf("%7s %10s %14s %12s %12s %12s %14s%n", "users", "journeys", "journeys/min",
+                    "open p95", "find p95", "title p95", "peak threads");
+            for (int n : users) {
+                ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                threads.resetPeakThreadCount();
+                hub.resetStats();
+                LoadResult result = new LoadRunner("benchmark-" + n,
+                        new LoadProfile(n, 1, duration, 0, 0, 5, 0),
+                        () -> new RemoteWebDriver(url, new ChromeOptions()),
+                        (driver, steps) -> {
+                            steps.step("open", () -> {
+                                driver.get("http://app.under.test/");
+                                return null;
+                            });
+                            steps.step("find", () -> driver.findElement(By.id("email")));
+                            steps.step("title", driver::getTitle);
+                        }, reports).run();
+                System.out.printf("%7d %10d %14.0f %9d ms %9d ms %9d ms %14d%n", n, result.journeys(),
+                        result.journeysPerMinute(), p95(result, "open"), p95(result, "find"), p95(result, "title"),
+                        threads.getPeakThreadCount());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        }
+        // the Selenium http client keeps non daemon threads alive
+        System.exit(exitCode);
+    }
+
+    private static long p95(LoadResult result, String step) {
+        for (StepSummary summary : result.steps()) {
+            if (summary.step().equals(step)) {
+                return summary.p95Millis();
+            }
+        }
+        return -1;
+    }
+}
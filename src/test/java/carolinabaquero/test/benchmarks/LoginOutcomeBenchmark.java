@@ -0,0 +1,61 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.carolinabaquero.test.benchmarks.SimulatedLoginDriver.Outcome;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+
+/**
+ * @author cbaquero
+ *         Time LoginPage.login() spends finding out the outcome after the submit, for the three LoginPageTest tests
+ *         (valid login, form validation error, wrong credentials), on {@link SimulatedLoginDriver}. Compares one
+ *         wait per outcome in turn, the page settle plus a race of the error waits, and the first of wait.
+ *         Run: java -cp [test classpath] com.carolinabaquero.test.benchmarks.LoginOutcomeBenchmark [rounds]
+ */
+public class LoginOutcomeBenchmark {
+
+    private static final long LATENCY_MILLIS = 5;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        SimulatedLoginDriver driver = new SimulatedLoginDriver(LATENCY_MILLIS);
+        LoginOutcomeBenchmarkPage page = new LoginOutcomeBenchmarkPage(driver);
+
+        // outcome -> when it shows after the submit, in ms
+        Map<Outcome, Long> scenarios = new LinkedHashMap<Outcome, Long>();
+        scenarios.put(Outcome.LOGGED_IN, 400L);
+        scenarios.put(Outcome.FORM, 30L);
+        scenarios.put(Outcome.CREDENTIALS, 300L);
+
+        Map<String, Supplier<Outcome>> approaches = new LinkedHashMap<String, Supplier<Outcome>>();
+        approaches.put("sequential", page::sequential);
+        approaches.put("settle + race", page::settleAndRace);
+        approaches.put("first of (browser)", page::firstOfInBrowser);
+        approaches.put("first of (driver)", page::firstOfOnDriver);
+
+        System.out.printf("%-20s %10s %10s %12s %10s%n", "", "logged in", "form", "credentials", "total");
+        for (Map.Entry<String, Supplier<Outcome>> approach : approaches.entrySet()) {
+            long total = 0;
+            StringBuilder line = new StringBuilder(String.format("%-20s", approach.getKey()));
+            for (Map.Entry<Outcome, Long> scenario : scenarios.entrySet()) {
+                long best = Long.MAX_VALUE;
+                for (int round = 0; round < rounds; round++) {
+                    driver.expect(scenario.getKey(), scenario.getValue());
+                    long start = System.nanoTime();
+                    Outcome outcome = approach.getValue().get();
+                    long elapsed = (System.nanoTime() - start) / 1_000_000;
+                    if (outcome != scenario.getKey()) {
+                        throw new IllegalStateException(approach.getKey() + " found " + outcome + " instead of "
+                                + scenario.getKey());
+                    }
+                    best = Math.min(best, elapsed);
+                }
+                total += best;
+                line.append(String.format(scenario.getKey() == Outcome.CREDENTIALS ? " %9d ms" : " %7d ms", best));
+            }
+            System.out.println(line.append(String.format(" %7d ms", total)));
+        }
+    }
+}
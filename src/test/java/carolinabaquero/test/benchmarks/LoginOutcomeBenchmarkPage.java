@@ -0,0 +1,79 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.carolinabaquero.test.core.PageObject;
+import com.carolinabaquero.test.core.utils.wait.FirstOf;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.support.pagefactory.ByChained;
+
+import static com.carolinabaquero.test.benchmarks.SimulatedLoginDriver.FORM_ERROR;
+import static com.carolinabaquero.test.benchmarks.SimulatedLoginDriver.LOGIN_BUTTON;
+import static com.carolinabaquero.test.benchmarks.SimulatedLoginDriver.LOGIN_ERROR;
+import static com.carolinabaquero.test.benchmarks.SimulatedLoginDriver.Outcome;
+
+
+/**
+ * @author cbaquero
+ *         The outcome of LoginPage.login() found four ways: one wait per outcome in turn (2 seconds each), the page
+ *         settle followed by a race of the error waits, and the first of wait inside the browser and on the driver.
+ */
+public class LoginOutcomeBenchmarkPage extends PageObject {
+
+    private final SimulatedLoginDriver simulated;
+
+    public LoginOutcomeBenchmarkPage(SimulatedLoginDriver driver) {
+        super(driver);
+        this.simulated = driver;
+    }
+
+    public Outcome sequential() {
+        simulated.submit();
+        try {
+            waitForElementToDisappear(LOGIN_BUTTON, 2);
+            return Outcome.LOGGED_IN;
+        } catch (TimeoutException timeout) {
+            // not logged in, try the next one
+        }
+        try {
+            waitForElementToBeVisible(LOGIN_ERROR, 2);
+            return Outcome.CREDENTIALS;
+        } catch (TimeoutException timeout) {
+            // no credentials error, try the next one
+        }
+        waitForElementsToBeVisible(FORM_ERROR, 2);
+        return Outcome.FORM;
+    }
+
+    public Outcome settleAndRace() {
+        simulated.submit();
+        waitForPageToSettle();
+        if (findVisibleElements(LOGIN_BUTTON).isEmpty()) {
+            return Outcome.LOGGED_IN;
+        }
+        return await(firstOf(
+                async(() -> {
+                    waitForElementToBeVisible(LOGIN_ERROR, 2);
+                    return Outcome.CREDENTIALS;
+                }),
+                async(() -> {
+                    waitForElementsToBeVisible(FORM_ERROR, 2);
+                    return Outcome.FORM;
+                })));
+    }
+
+    public Outcome firstOfInBrowser() {
+        simulated.submit();
+        return waitForFirstOf(FirstOf.<Outcome>create()
+                .gone(Outcome.LOGGED_IN, LOGIN_BUTTON)
+                .visible(Outcome.CREDENTIALS, LOGIN_ERROR)
+                .visible(Outcome.FORM, FORM_ERROR));
+    }
+
+    public Outcome firstOfOnDriver() {
+        simulated.submit();
+        // a chained locator is not remotable, so the conditions are polled on the driver
+        return waitForFirstOf(FirstOf.<Outcome>create()
+                .gone(Outcome.LOGGED_IN, new ByChained(LOGIN_BUTTON))
+                .visible(Outcome.CREDENTIALS, new ByChained(LOGIN_ERROR))
+                .visible(Outcome.FORM, new ByChained(FORM_ERROR)));
+    }
+}
@@ -0,0 +1,132 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.carolinabaquero.test.core.utils.network.NetworkCapture;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * @author cbaquero
+ *         Measures what the network capture costs a test: the synthetic DevTools events of a page load (request,
+ *         response, end, with realistic headers and timings) are fed to {@link NetworkCapture#handle} as the
+ *         DevTools connection does, and it prints the time spent on the event thread per request, the time until
+ *         the HAR file is closed, the compressed bytes per entry and the dropped requests.
+ *         Run: java -cp [test classpath] com.carolinabaquero.test.benchmarks.NetworkCaptureBenchmark
+ *         [requests] [rounds]
+ */
+public class NetworkCaptureBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Path directory = Files.createTempDirectory("network-capture");
+
+        // warm up
+        for (int i = 0; i < 5; i++) {
+            capture(directory.resolve("warmup-" + i + ".har.gz"), requests);
+        }
+
+        System.out.printf("requests/test=%d rounds=%d%n", requests, rounds);
+        System.out.printf("%8s %16s %14s %14s %10s%n", "round", "event us/req", "close (ms)", "bytes/entry", "dropped");
+        double totalEventMicros = 0;
+        for (int round = 1; round <= rounds; round++) {
+            Path file = directory.resolve("round-" + round + ".har.gz");
+            long[] result = capture(file, requests);
+            double eventMicros = result[0] / 1000.0 / requests;
+            totalEventMicros += eventMicros;
+            System.out.printf("%8d %16.2f %14.2f %14d %10d%n", round, eventMicros, result[1] / 1_000_000.0,
+                    Files.size(file) / requests, result[2]);
+        }
+        System.out.printf("average event thread cost: %.2f us per request, %.2f ms per %d request test%n",
+                totalEventMicros / rounds, totalEventMicros / rounds * requests / 1000, requests);
+    }
+
+    /**
+     * @return nanos spent handling the events, nanos to stop, dropped requests
+     */
+    private static long[] capture(Path file, int requests) throws Exception {
+        NetworkCapture capture = NetworkCapture.toFile(file);
+        long handling = 0;
+        for (int i = 0; i < requests; i++) {
+            String requestId = "1000." + i;
+            double timestamp = 1000 + i * 0.01;
+            Map<String, Map<String, Object>> events = events(requestId, i, timestamp);
+            for (Map.Entry<String, Map<String, Object>> event : events.entrySet()) {
+                long start = System.nanoTime();
+                capture.handle(event.getKey(), event.getValue());
+                handling += System.nanoTime() - start;
+            }
+        }
+        long start = System.nanoTime();
+        capture.stop(false);
+        return new long[]{handling, System.nanoTime() - start, capture.getDropped()};
+    }
+
+    private static Map<String, Map<String, Object>> events(String requestId, int i, double timestamp) {
+        Map<String, Map<String, Object>> events = new LinkedHashMap<String, Map<String, Object>>();
+
+        Map<String, Object> requestHeaders = new HashMap<String, Object>();
+        requestHeaders.put("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+        requestHeaders.put("Accept-Language", "en-US,en;q=0.9");
+        requestHeaders.put("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) "
+                + "Chrome/103.0.0.0 Safari/537.36");
+        requestHeaders.put("Referer", "https://app.example.com/dashboard");
+        Map<String, Object> request = new HashMap<String, Object>();
+        request.put("url", "https://app.example.com/assets/" + (i % 3 == 0 ? "api/items?page=" + i + "&size=20"
+                : "bundle-" + i + ".js"));
+        request.put("method", "GET");
+        request.put("headers", requestHeaders);
+        Map<String, Object> willBeSent = new HashMap<String, Object>();
+        willBeSent.put("requestId", requestId);
+        willBeSent.put("request", request);
+        willBeSent.put("timestamp", timestamp);
+        willBeSent.put("wallTime", 1.7e9 + timestamp);
+        willBeSent.put("type", i % 3 == 0 ? "XHR" : "Script");
+        events.put("Network.requestWillBeSent", willBeSent);
+
+        Map<String, Object> timing = new HashMap<String, Object>();
+        timing.put("requestTime", timestamp);
+        timing.put("dnsStart", i == 0 ? 0.2 : -1.0);
+        timing.put("dnsEnd", i == 0 ? 4.1 : -1.0);
+        timing.put("connectStart", i == 0 ? 4.1 : -1.0);
+        timing.put("connectEnd", i == 0 ? 31.5 : -1.0);
+        timing.put("sslStart", i == 0 ? 12.3 : -1.0);
+        timing.put("sslEnd", i == 0 ? 31.4 : -1.0);
+        timing.put("sendStart", 31.7);
+        timing.put("sendEnd", 31.9);
+        timing.put("receiveHeadersEnd", 58.2);
+        Map<String, Object> responseHeaders = new HashMap<String, Object>();
+        responseHeaders.put("content-type", i % 3 == 0 ? "application/json" : "application/javascript");
+        responseHeaders.put("cache-control", "max-age=3600");
+        responseHeaders.put("date", "Mon, 19 Oct 2026 10:00:00 GMT");
+        responseHeaders.put("server", "nginx");
+        responseHeaders.put("set-cookie", "a=1; Path=/\nb=2; Path=/");
+        Map<String, Object> response = new HashMap<String, Object>();
+        response.put("url", request.get("url"));
+        response.put("status", 200);
+        response.put("statusText", "OK");
+        response.put("headers", responseHeaders);
+        response.put("mimeType", responseHeaders.get("content-type"));
+        response.put("protocol", "h2");
+        response.put("remoteIPAddress", "10.0.0.12");
+        response.put("encodedDataLength", 310);
+        response.put("timing", timing);
+        Map<String, Object> received = new HashMap<String, Object>();
+        received.put("requestId", requestId);
+        received.put("timestamp", timestamp + 0.058);
+        received.put("type", willBeSent.get("type"));
+        received.put("response", response);
+        events.put("Network.responseReceived", received);
+
+        Map<String, Object> finished = new HashMap<String, Object>();
+        finished.put("requestId", requestId);
+        finished.put("timestamp", timestamp + 0.071);
+        finished.put("encodedDataLength", 18342);
+        events.put("Network.loadingFinished", finished);
+        return events;
+    }
+}
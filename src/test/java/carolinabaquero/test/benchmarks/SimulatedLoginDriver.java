@@ -0,0 +1,339 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.carolinabaquero.test.core.utils.wait.FirstOfScript;
+import com.carolinabaquero.test.core.utils.wait.PageSettleScript;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * @author cbaquero
+ *         Driver for a simulated login form: after {@link #submit()} one outcome shows at a given time (the submit
+ *         button goes away on a successful login, or an error message appears). Every command costs the given
+ *         latency, like a round trip to a local driver. {@link PageSettleScript} and {@link FirstOfScript} are
+ *         answered as the browser would: the page is busy until the outcome, and the first of the conditions
+ *         holds on the first browser poll after it.
+ */
+public class SimulatedLoginDriver implements WebDriver, JavascriptExecutor {
+
+    public static final By LOGIN_BUTTON = By.xpath("//button[@type='submit']");
+    public static final By LOGIN_ERROR = By.className("dp-error");
+    public static final By FORM_ERROR = By.className("dp-error-form");
+
+    public enum Outcome { LOGGED_IN, CREDENTIALS, FORM }
+
+    private final long latencyMillis;
+    private Outcome outcome;
+    private long outcomeMillis;
+    private long submitted;
+
+
+    public SimulatedLoginDriver(final long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Sets the outcome of the next submit
+     */
+    public void expect(final Outcome outcome, final long afterMillis) {
+        this.outcome = outcome;
+        this.outcomeMillis = afterMillis;
+    }
+
+    public void submit() {
+        roundTrip();
+        submitted = System.currentTimeMillis();
+    }
+
+    /**
+     * @return when the error message of the locator shows, in epoch millis, Long.MAX_VALUE if never
+     */
+    private long visibleFrom(By locator) {
+        long shown = submitted + outcomeMillis;
+        Outcome shows = locator.equals(LOGIN_ERROR) ? Outcome.CREDENTIALS : Outcome.FORM;
+        return outcome == shows ? shown : Long.MAX_VALUE;
+    }
+
+    private boolean visible(By locator, long now) {
+        if (locator.equals(LOGIN_BUTTON)) {
+            return outcome != Outcome.LOGGED_IN || now < submitted + outcomeMillis;
+        }
+        return now >= visibleFrom(locator);
+    }
+
+    /**
+     * @return when the state holds for the locator from now on, Long.MAX_VALUE if never
+     */
+    private long holdsFrom(By locator, String state, long now) {
+        if (locator.equals(LOGIN_BUTTON)) {
+            boolean goes = outcome == Outcome.LOGGED_IN;
+            if ("gone".equals(state)) {
+                return goes ? Math.max(now, submitted + outcomeMillis) : Long.MAX_VALUE;
+            }
+            return !goes || now < submitted + outcomeMillis ? now : Long.MAX_VALUE;
+        }
+        long from = visibleFrom(locator);
+        if ("gone".equals(state)) {
+            return now < from ? now : Long.MAX_VALUE;
+        }
+        return from == Long.MAX_VALUE ? from : Math.max(now, from);
+    }
+
+    private void roundTrip() {
+        sleep(latencyMillis);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException(e);
+        }
+    }
+
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        if (!(by instanceof By.Remotable)) {
+            return by.findElements(this);
+        }
+        roundTrip();
+        By.Remotable.Parameters parameters = ((By.Remotable) by).getRemoteParameters();
+        String value = String.valueOf(parameters.value());
+        if (parameters.using().equals("css selector") && value.startsWith(".")) {
+            // By.className searches as an escaped css selector when it is not the root locator
+            by = By.className(value.substring(1).replace("\\", ""));
+        }
+        return visible(by, System.currentTimeMillis()) ? Collections.<WebElement>singletonList(new Element(by))
+                : Collections.<WebElement>emptyList();
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        List<WebElement> found = findElements(by);
+        if (found.isEmpty()) {
+            throw new NoSuchElementException("Not found: " + by);
+        }
+        return found.get(0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object executeAsyncScript(String script, Object... args) {
+        roundTrip();
+        long now = System.currentTimeMillis();
+        if (PageSettleScript.SCRIPT.equals(script)) {
+            long quiet = ((Number) args[0]).longValue();
+            long slice = ((Number) args[1]).longValue();
+            long settled = submitted + outcomeMillis + quiet;
+            sleep(Math.min(settled, now + slice) - now);
+            return settled <= now + slice;
+        }
+        if (FirstOfScript.SCRIPT.equals(script)) {
+            List<Map<String, Object>> conditions = (List<Map<String, Object>>) args[0];
+            long slice = ((Number) args[1]).longValue();
+            long poll = ((Number) args[2]).longValue();
+            int first = -1;
+            long firstAt = Long.MAX_VALUE;
+            for (int i = 0; i < conditions.size(); i++) {
+                Map<String, Object> condition = conditions.get(i);
+                By locator = "xpath".equals(condition.get("using")) ? By.xpath((String) condition.get("value"))
+                        : By.className((String) condition.get("value"));
+                long at = holdsFrom(locator, (String) condition.get("state"), now);
+                if (at < firstAt) {
+                    first = i;
+                    firstAt = at;
+                }
+            }
+            // seen on the first poll after it holds
+            long seen = firstAt == Long.MAX_VALUE ? Long.MAX_VALUE : now + (firstAt - now + poll - 1) / poll * poll;
+            if (seen > now + slice) {
+                sleep(slice);
+                return -1L;
+            }
+            sleep(seen - now);
+            return (long) first;
+        }
+        throw new UnsupportedOperationException("Script not simulated");
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        throw new UnsupportedOperationException("Script not simulated");
+    }
+
+    @Override
+    public void get(String url) {
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return "http://simulated/login";
+    }
+
+    @Override
+    public String getTitle() {
+        return "Login";
+    }
+
+    @Override
+    public String getPageSource() {
+        return "<html></html>";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void quit() {
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return Collections.singleton("main");
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return "main";
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Navigation navigate() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Options manage() {
+        throw new UnsupportedOperationException();
+    }
+
+
+    private class Element implements WebElement {
+
+        private final By locator;
+
+        Element(By locator) {
+            this.locator = locator;
+        }
+
+        @Override
+        public boolean isDisplayed() {
+            roundTrip();
+            if (!visible(locator, System.currentTimeMillis())) {
+                throw new StaleElementReferenceException("Removed: " + locator);
+            }
+            return true;
+        }
+
+        @Override
+        public void click() {
+            submit();
+        }
+
+        @Override
+        public void submit() {
+            SimulatedLoginDriver.this.submit();
+        }
+
+        @Override
+        public void sendKeys(CharSequence... keysToSend) {
+            roundTrip();
+        }
+
+        @Override
+        public void clear() {
+            roundTrip();
+        }
+
+        @Override
+        public String getTagName() {
+            return "div";
+        }
+
+        @Override
+        public String getAttribute(String name) {
+            return null;
+        }
+
+        @Override
+        public boolean isSelected() {
+            return false;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public String getText() {
+            roundTrip();
+            return locator.toString();
+        }
+
+        @Override
+        public List<WebElement> findElements(By by) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public WebElement findElement(By by) {
+            throw new NoSuchElementException("Not found: " + by);
+        }
+
+        @Override
+        public Point getLocation() {
+            return new Point(0, 0);
+        }
+
+        @Override
+        public Dimension getSize() {
+            return new Dimension(10, 10);
+        }
+
+        @Override
+        public Rectangle getRect() {
+            return new Rectangle(0, 0, 10, 10);
+        }
+
+        @Override
+        public String getCssValue(String propertyName) {
+            return "";
+        }
+
+        @Override
+        public <X> X getScreenshotAs(OutputType<X> target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String toString() {
+            return "[simulated] -> " + locator;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * @author cbaquero
+ *         Minimal W3C WebDriver endpoint (JDK http server) that answers every command after a fixed latency,
+ *         standing in for a Selenium Grid hub so runner scaling can be measured without browsers.
+ *         It knows just enough of the protocol for RemoteWebDriver: new session, navigation, title,
+ *         find element and delete session. Any other command answers a null value.
+ */
+public class SimulatedRemoteDriver implements AutoCloseable {
+
+    private static final String ELEMENT_KEY = "element-6066-11e4-a52e-4f735466cecf";
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final AtomicInteger openSessions = new AtomicInteger();
+    private final AtomicInteger maxOpenSessions = new AtomicInteger();
+
+
+    /**
+     * Starts the simulated hub on a random local port
+     *
+     * @param latencyMillis time each command takes to answer, as a remote browser would
+     */
+    public SimulatedRemoteDriver(long latencyMillis) throws IOException {
+        // the JDK server drops idle keep-alive connections past 200 by default, breaking pooled client connections
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+        }
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    public URL getUrl() throws IOException {
+        return URI.create("http://localhost:" + server.getAddress().getPort()).toURL();
+    }
+
+    public int getMaxOpenSessions() {
+        return maxOpenSessions.get();
+    }
+
+    public void resetStats() {
+        maxOpenSessions.set(openSessions.get());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+        }
+        sleep(latencyMillis);
+
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String value = "null";
+        if ("POST".equals(method) && path.equals("/session")) {
+            int open = openSessions.incrementAndGet();
+            maxOpenSessions.accumulateAndGet(open, Math::max);
+            value = "{\"sessionId\":\"" + UUID.randomUUID() + "\",\"capabilities\":{\"browserName\":\"chrome\"}}";
+        } else if ("DELETE".equals(method) && path.matches("/session/[^/]+")) {
+            openSessions.decrementAndGet();
+        } else if (path.endsWith("/title")) {
+            value = "\"Simulated page\"";
+        } else if (path.endsWith("/element")) {
+            value = "{\"" + ELEMENT_KEY + "\":\"" + UUID.randomUUID() + "\"}";
+        } else if (path.endsWith("/elements")) {
+            value = "[{\"" + ELEMENT_KEY + "\":\"" + UUID.randomUUID() + "\"}]";
+        }
+
+        byte[] response = ("{\"value\":" + value + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.carolinabaquero.test.benchmarks;
+
+import com.carolinabaquero.test.core.utils.threads.VirtualThreadExecutorServiceFactory;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * @author cbaquero
+ *         Measures how many remote sessions one runner JVM can drive at once, running the same
+ *         journey (new session, navigate, find, read title, quit) against {@link SimulatedRemoteDriver}:
+ *         <ul>
+ *         <li>on a fixed platform pool, as TestNG does with a usual thread-count,</li>
+ *         <li>on a platform pool as big as the amount of sessions,</li>
+ *         <li>on virtual threads, through {@link VirtualThreadExecutorServiceFactory}.</li>
+ *         </ul>
+ *         Run: java -cp [test classpath] com.carolinabaquero.test.benchmarks.VirtualThreadScalingBenchmark
+ *         [latencyMillis] [commandsPerSession] [platformPoolSize] [sessions...]
+ */
+public class VirtualThreadScalingBenchmark {
+
+    // keep a reference, java.util.logging only holds loggers weakly
+    private static final Logger SELENIUM_LOGGER = Logger.getLogger("org.openqa.selenium");
+
+    public static void main(String[] args) throws Exception {
+        long latency = args.length > 0 ? Long.parseLong(args[0]) : 50;
+        int commands = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int platformPool = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        List<Integer> sessions = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            sessions.add(Integer.parseInt(args[i]));
+        }
+        if (sessions.isEmpty()) {
+            sessions = List.of(16, 64, 256);
+        }
+        SELENIUM_LOGGER.setLevel(Level.WARNING);
+
+        int exitCode = 0;
+        try (SimulatedRemoteDriver hub = new SimulatedRemoteDriver(latency)) {
+            // warm up the client stack before measuring
+            run(hub, Executors.newFixedThreadPool(4), 4, commands);
+
+            System.out.printf("latency=%dms commands/session=%d%n", latency, commands);
+            System.out.printf("%-22s %9s %10s %12s %14s %14s%n",
+                    "mode", "sessions", "wall(ms)", "sessions/s", "max parallel", "peak threads");
+            for (int n : sessions) {
+                report("platform pool " + platformPool, n, hub, commands, Executors.newFixedThreadPool(platformPool));
+                if (n != platformPool) {
+                    report("platform pool " + n, n, hub, commands, Executors.newFixedThreadPool(n));
+                }
+                report("virtual threads", n, hub, commands, new VirtualThreadExecutorServiceFactory()
+                        .create(n, n, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), Executors.defaultThreadFactory()));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        }
+        // the Selenium http client keeps non daemon threads alive
+        System.exit(exitCode);
+    }
+
+    private static void report(String mode, int sessions, SimulatedRemoteDriver hub, int commands,
+                               ExecutorService executor) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        hub.resetStats();
+        long wall = run(hub, executor, sessions, commands);
+        System.out.printf("%-22s %9d %10d %12.1f %14d %14d%n", mode, sessions, wall,
+                sessions * 1000.0 / wall, hub.getMaxOpenSessions(), threads.getPeakThreadCount());
+    }
+
+    private static long run(SimulatedRemoteDriver hub, ExecutorService executor, int sessions, int commands)
+            throws Exception {
+        URL url = hub.getUrl();
+        long start = System.nanoTime();
+        List<Future<?>> journeys = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            journeys.add(executor.submit(() -> {
+                WebDriver driver = new RemoteWebDriver(url, new ChromeOptions());
+                try {
+                    driver.get("http://app.under.test/");
+                    for (int c = 0; c < commands; c++) {
+                        if (c % 2 == 0) {
+                            driver.findElement(By.id("email"));
+                        } else {
+                            driver.getTitle();
+                        }
+                    }
+                } finally {
+                    driver.quit();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> journey : journeys) {
+            journey.get();
+        }
+        long wall = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return wall;
+    }
+}
@@ -0,0 +1,166 @@
+package com.carolinabaquero.test.core.utils.impact;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+
+/**
+ * @author cbaquero
+ *         Narrowing of diffs to the tests to run, on a map with two tests of LoginTest going through LoginPage
+ */
+public class TestImpactSelectorTest {
+
+    private static final String TEST_PATH = "src/test/java/com/example/LoginTest.java";
+    private static final String PAGE_PATH = "src/main/java/com/example/LoginPage.java";
+
+    private static final String TEST_SOURCE = String.join("\n",
+            "package com.example;",
+            "",
+            "public class LoginTest extends SeleniumTest {",
+            "",
+            "    @Test(groups = {\"login\"})",
+            "    public void login() {",
+            "        page.login(\"a\");",
+            "    }",
+            "",
+            "    @Test",
+            "    public void logout() {",
+            "        page.logout();",
+            "    }",
+            "}",
+            "");
+
+    private static final String PAGE_SOURCE = String.join("\n",
+            "package com.example;",
+            "",
+            "public class LoginPage extends PageObject {",
+            "    static final By EMAIL = By.id(\"email\");",
+            "    static final By LOGOUT = By.id(\"logout\");",
+            "",
+            "    public void login(String user) {",
+            "        type(EMAIL, user);",
+            "    }",
+            "",
+            "    public void logout() {",
+            "        click(LOGOUT);",
+            "    }",
+            "}",
+            "");
+
+    private TestImpactSelector selector;
+
+
+    @BeforeMethod
+    public void setUp() {
+        Map<String, TestFootprint> tests = new HashMap<String, TestFootprint>();
+        tests.put("com.example.LoginTest#login",
+                footprint("com.example.LoginPage#login", "com.example.LoginPage|By.id: email"));
+        tests.put("com.example.LoginTest#logout",
+                footprint("com.example.LoginPage#logout", "com.example.LoginPage|By.id: logout"));
+        TestImpactMap map = new TestImpactMap();
+        map.merge(tests);
+        selector = new TestImpactSelector(map);
+    }
+
+    private static TestFootprint footprint(String method, String locator) {
+        TestFootprint footprint = new TestFootprint();
+        footprint.getPages().add("com.example.LoginPage");
+        footprint.getMethods().add(method);
+        footprint.getLocators().add(locator);
+        return footprint;
+    }
+
+
+    @Test
+    public void changedTestMethodSelectsItself() {
+        String changed = TEST_SOURCE.replace("page.login(\"a\")", "page.login(\"b\")");
+        selector.sourceChanged(TEST_PATH, TEST_SOURCE, changed,
+                "@@ -7 +7 @@\n-        page.login(\"a\");\n+        page.login(\"b\");\n");
+
+        assertSelected("com.example.LoginTest", "login");
+    }
+
+    @Test
+    public void newTestMethodOnKnownClassRunsTheWholeClass() {
+        String changed = TEST_SOURCE.replace("        page.logout();\n    }\n",
+                "        page.logout();\n    }\n\n    @Test\n    public void forgotPassword() {\n"
+                        + "        page.forgotPassword();\n    }\n");
+        selector.sourceChanged(TEST_PATH, TEST_SOURCE, changed, "@@ -13,0 +14,5 @@\n+\n+    @Test\n"
+                + "+    public void forgotPassword() {\n+        page.forgotPassword();\n+    }\n");
+
+        assertSelected("com.example.LoginTest");
+    }
+
+    @Test
+    public void wholeClassIsNotNarrowedByLaterChanges() {
+        String changed = TEST_SOURCE.replace("page.login(\"a\")", "page.login(\"b\")")
+                .replace("        page.logout();\n    }\n", "        page.logout();\n    }\n\n"
+                        + "    private void helper() {\n    }\n");
+        selector.sourceChanged(TEST_PATH, TEST_SOURCE, changed,
+                "@@ -7 +7 @@\n-        page.login(\"a\");\n+        page.login(\"b\");\n"
+                        + "@@ -13,0 +14,3 @@\n+\n+    private void helper() {\n+    }\n");
+
+        assertSelected("com.example.LoginTest");
+    }
+
+    @Test
+    public void changedPageMethodSelectsTheTestsThatWentThroughIt() {
+        String changed = PAGE_SOURCE.replace("click(LOGOUT);", "waitAndClick(LOGOUT);");
+        selector.sourceChanged(PAGE_PATH, PAGE_SOURCE, changed,
+                "@@ -12 +12 @@\n-        click(LOGOUT);\n+        waitAndClick(LOGOUT);\n");
+
+        assertSelected("com.example.LoginTest", "logout");
+    }
+
+    @Test
+    public void changedLocatorSelectsTheTestsThatUsedIt() {
+        String changed = PAGE_SOURCE.replace("By.id(\"email\")", "By.id(\"mail\")");
+        selector.sourceChanged(PAGE_PATH, PAGE_SOURCE, changed, "@@ -4 +4 @@\n"
+                + "-    static final By EMAIL = By.id(\"email\");\n+    static final By EMAIL = By.id(\"mail\");\n");
+
+        assertSelected("com.example.LoginTest", "login");
+    }
+
+    @Test
+    public void commentsAndImportsSelectNothing() {
+        String changed = PAGE_SOURCE.replace("package com.example;\n", "package com.example;\n// login page\n");
+        selector.sourceChanged(PAGE_PATH, PAGE_SOURCE, changed, "@@ -1,0 +2 @@\n+// login page\n");
+
+        Assert.assertTrue(selector.getSelected().isEmpty(), "selected " + selector.getSelected());
+        Assert.assertTrue(selector.getFullRunReasons().isEmpty(), "full run " + selector.getFullRunReasons());
+    }
+
+    @Test
+    public void newTestClassRunsTheWholeClass() {
+        String source = TEST_SOURCE.replace("LoginTest", "SignUpTest");
+        selector.sourceChanged("src/test/java/com/example/SignUpTest.java", null, source, null);
+
+        assertSelected("com.example.SignUpTest");
+    }
+
+    @Test
+    public void unknownClassFallsBackToTheFullRun() {
+        String source = "package com.example;\n\npublic class Dates {\n    static String today() {\n"
+                + "        return \"\";\n    }\n}\n";
+        selector.sourceChanged("src/main/java/com/example/Dates.java", source,
+                source.replace("\"\"", "\"today\""), "@@ -5 +5 @@\n-        return \"\";\n+        return \"today\";\n");
+
+        Assert.assertTrue(selector.getSelected().isEmpty());
+        Assert.assertEquals(selector.getFullRunReasons().size(), 1);
+    }
+
+
+    private void assertSelected(String testClass, String... methods) {
+        Assert.assertEquals(selector.getSelected(), Collections.singletonMap(testClass,
+                (Set<String>) new TreeSet<String>(Arrays.asList(methods))));
+        Assert.assertTrue(selector.getFullRunReasons().isEmpty(), "full run " + selector.getFullRunReasons());
+    }
+}
@@ -0,0 +1,81 @@
+package com.carolinabaquero.test.core.utils.locators;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+/**
+ * @author cbaquero
+ *         Translation table of XPath locators to CSS, and the ones left as they are
+ */
+public class XPathToCssTest {
+
+    @DataProvider
+    public Object[][] translated() {
+        return new Object[][]{
+                {"//button", "button"},
+                {"//*", "*"},
+                {"//button[@type='submit']", "button[type='submit']"},
+                {"//input[@disabled]", "input[disabled]"},
+                {"//*[@id=\"main\"]", "[id='main']"},
+                {"//*[contains(@data-purpose,'header-login')]", "[data-purpose*='header-login']"},
+                {"//div[@id='main']//a[starts-with(@href, \"/x\")]", "div[id='main'] a[href^='/x']"},
+                {"//ul/li[@class='a b' and @data-x]", "ul > li[class='a b'][data-x]"},
+                {"//ul/li[@class='a'][@data-x='y']", "ul > li[class='a'][data-x='y']"},
+                {"//*[contains(concat(' ', normalize-space(@class), ' '), ' btn ')]", ".btn"},
+                {"//*[@a=\"it's\"]", "[a='it\\'s']"},
+                {"//x[contains(@a,'')]", "x"},
+                {"//x[starts-with(@a,'') and @b]", "x[b]"},
+                {" //form / input ", "form > input"},
+        };
+    }
+
+    @Test(dataProvider = "translated")
+    public void translatesToCss(String xpath, String css) {
+        Assert.assertEquals(XPathToCss.toCss(xpath), css);
+        Assert.assertNull(XPathToCss.whyNot(xpath));
+    }
+
+
+    @DataProvider
+    public Object[][] untranslated() {
+        return new Object[][]{
+                {"//a[1]"},
+                {"//a[last()]"},
+                {"//a[text()='x']"},
+                {"//a[contains(text(),'x')]"},
+                {"(//a)[1]"},
+                {"//a | //b"},
+                {"//div/.."},
+                {"//following-sibling::a"},
+                {"//a[@b!='c']"},
+                {"//a[@b='c' or @d]"},
+                {".//a"},
+                {"/html/body"},
+                {"//svg:rect"},
+                {"//*[contains(concat(' ', @class, ' '), ' btn ')]"},
+                {"//*[contains(concat(' ', normalize-space(@class), ' '), 'btn')]"},
+                {"//a[@b='c"},
+        };
+    }
+
+    @Test(dataProvider = "untranslated")
+    public void leavesWithoutCss(String xpath) {
+        Assert.assertNull(XPathToCss.toCss(xpath));
+        Assert.assertNotNull(XPathToCss.whyNot(xpath));
+    }
+
+
+    @Test
+    public void childElementComparedLikeAnAttributeIsExplained() {
+        Assert.assertNull(XPathToCss.toCss("//*[qa-data='start-button']"));
+        Assert.assertEquals(XPathToCss.whyNot("//*[qa-data='start-button']"),
+                "'qa-data' is a child element, not an attribute: the attribute is '@qa-data'");
+    }
+
+    @Test
+    public void parentStepIsExplained() {
+        Assert.assertEquals(XPathToCss.whyNot("//div/.."), "only element steps are translated, not '..'");
+    }
+}
@@ -0,0 +1,146 @@
+package com.carolinabaquero.test.core.utils.reports;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+
+/**
+ * @author cbaquero
+ *         Journal lines and the resume of a run from a journal written by hand, one line per invocation
+ */
+public class CheckpointJournalTest {
+
+    private static final String TEST = "Chrome";
+    private static final String LOGIN = "com.example.LoginTest#login";
+    private static final String LOGOUT = "com.example.LoginTest#logout";
+
+    private Path directory;
+    private Path file;
+
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("checkpoint");
+        file = directory.resolve("checkpoint.tsv");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+
+    @Test
+    public void lineRoundTripsTheSpecialCharacters() {
+        CheckpointJournal.Entry entry = new CheckpointJournal.Entry("FAIL", TEST, LOGIN, "[a\tb, c\\d]",
+                "login(\"first\nsecond\r\")", 1250);
+        String line = entry.toLine();
+
+        Assert.assertTrue(line.endsWith("\n"));
+        Assert.assertEquals(line.chars().filter(c -> c == '\n').count(), 1, line);
+        Assert.assertEquals(line.chars().filter(c -> c == '\t').count(), 5, line);
+        Assert.assertEquals(CheckpointJournal.Entry.parse(line.substring(0, line.length() - 1)), entry);
+    }
+
+    @Test
+    public void escapedBackslashBeforeLetterIsNotAControlCharacter() {
+        CheckpointJournal.Entry entry = new CheckpointJournal.Entry("PASS", TEST, LOGIN, "[C:\\temp\\new]", "login",
+                5);
+        String line = entry.toLine();
+
+        Assert.assertEquals(CheckpointJournal.Entry.parse(line.substring(0, line.length() - 1)).parameters(),
+                "[C:\\temp\\new]");
+    }
+
+    @Test
+    public void malformedLinesAreIgnored() {
+        Assert.assertNull(CheckpointJournal.Entry.parse(""));
+        Assert.assertNull(CheckpointJournal.Entry.parse("PASS\t" + TEST + "\t" + LOGIN + "\t[]\tlogin"));
+        Assert.assertNull(CheckpointJournal.Entry.parse("PASS\t" + TEST + "\t" + LOGIN + "\t[]\tlogin\t12x"));
+    }
+
+    @Test
+    public void resumeSkipsOnlyWhatPassed() throws IOException {
+        write(line("PASS", LOGIN, "[a]"), line("FAIL", LOGIN, "[b]"), line("PASS", LOGOUT, "[]"));
+
+        try (CheckpointJournal journal = CheckpointJournal.open(file, true)) {
+            Assert.assertTrue(journal.isResuming());
+            Assert.assertEquals(journal.passedCount(), 2);
+            Assert.assertNotNull(journal.passedBefore(TEST, LOGIN, new Object[]{"a"}));
+            Assert.assertNull(journal.passedBefore(TEST, LOGIN, new Object[]{"b"}));
+            Assert.assertNull(journal.passedBefore(TEST, LOGIN, new Object[]{"c"}));
+            Assert.assertNull(journal.passedBefore("Firefox", LOGIN, new Object[]{"a"}));
+            // one failed row runs the whole method again when it has no data provider to pick rows with
+            Assert.assertNull(journal.passedBefore(TEST, LOGIN));
+            List<CheckpointJournal.Entry> logout = journal.passedBefore(TEST, LOGOUT);
+            Assert.assertEquals(logout.size(), 1);
+            Assert.assertEquals(logout.get(0).millis(), 100);
+        }
+    }
+
+    @Test
+    public void lastOutcomeOfAnInvocationWins() throws IOException {
+        write(line("FAIL", LOGIN, "[]"), line("PASS", LOGIN, "[]"), line("PASS", LOGOUT, "[]"),
+                line("SKIP", LOGOUT, "[]"));
+
+        try (CheckpointJournal journal = CheckpointJournal.open(file, true)) {
+            Assert.assertNotNull(journal.passedBefore(TEST, LOGIN));
+            Assert.assertNull(journal.passedBefore(TEST, LOGOUT));
+            Assert.assertEquals(journal.passedCount(), 1);
+        }
+    }
+
+    @Test
+    public void tornLastLineIsIgnoredAndEnded() throws IOException {
+        String torn = line("PASS", LOGOUT, "[]");
+        write(line("PASS", LOGIN, "[]"), torn.substring(0, torn.length() / 2));
+
+        try (CheckpointJournal journal = CheckpointJournal.open(file, true)) {
+            Assert.assertEquals(journal.passedCount(), 1);
+            Assert.assertNull(journal.passedBefore(TEST, LOGOUT));
+        }
+        // the next outcome appended starts on its own line
+        Assert.assertTrue(read().endsWith("\n"));
+        Files.write(file, line("PASS", LOGOUT, "[]").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        try (CheckpointJournal journal = CheckpointJournal.open(file, true)) {
+            Assert.assertEquals(journal.passedCount(), 2);
+            Assert.assertNotNull(journal.passedBefore(TEST, LOGOUT));
+        }
+    }
+
+    @Test
+    public void newJournalForgetsThePreviousRun() throws IOException {
+        write(line("PASS", LOGIN, "[]"));
+
+        try (CheckpointJournal journal = CheckpointJournal.open(file, false)) {
+            Assert.assertFalse(journal.isResuming());
+            Assert.assertNull(journal.passedBefore(TEST, LOGIN));
+        }
+        Assert.assertEquals(read(), "");
+    }
+
+
+    private static String line(String status, String testId, String parameters) {
+        return new CheckpointJournal.Entry(status, TEST, testId, parameters, testId.substring(testId.indexOf('#') + 1),
+                100).toLine();
+    }
+
+    private void write(String... lines) throws IOException {
+        Files.write(file, String.join("", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read() throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,38 @@
+package com.carolinabaquero.test.testcases;
+
+import com.carolinabaquero.test.core.PageObject;
+import com.carolinabaquero.test.core.SeleniumLoadTest;
+import com.carolinabaquero.test.core.exceptions.InvalidLoginException;
+import com.carolinabaquero.test.core.utils.load.JourneySteps;
+import com.carolinabaquero.test.pageobjects.LoginPage;
+import com.carolinabaquero.test.pageobjects.MyAccountPage;
+import com.carolinabaquero.test.pageobjects.PublicHomePage;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * @author cbaquero
+ *         Virtual users going from the public home page to their account, as a real user logs in
+ */
+public class LoginLoadTest extends SeleniumLoadTest {
+
+    public PageObject getStartPage(WebDriver driver) {
+        return new PublicHomePage(driver);
+    }
+
+    @Override
+    protected void journey(PageObject startPage, JourneySteps steps) throws Exception {
+        PublicHomePage home = (PublicHomePage) startPage;
+        LoginPage loginPage = steps.step("goToLoginPage", home::goToLoginPage);
+        steps.think();
+        MyAccountPage myAccount = steps.step("login", () -> {
+            try {
+                return loginPage.login("baquero.carolina@gmail.com", "autoExample!8879");
+            } catch (InvalidLoginException e) {
+                // a Throwable, the step only passes Exceptions on
+                throw new Exception(e);
+            }
+        });
+        steps.step("getUserInitials", myAccount::getUserInitials);
+        steps.think();
+    }
+}